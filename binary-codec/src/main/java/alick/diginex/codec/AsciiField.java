@@ -0,0 +1,66 @@
+package alick.diginex.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers for fixed-length ASCII fields; values shorter than the field are padded with NUL bytes, and a field of
+ * only NUL bytes denotes a {@code null} / empty value.
+ */
+final class AsciiField {
+	private AsciiField() {
+	}
+
+	/**
+	 * @param value    value to write, {@code null} for none
+	 * @param truncate whether to truncate a value too long for the field, instead of throwing
+	 * @throws IllegalArgumentException if the value is too long and not to be truncated, or is not ASCII
+	 */
+	static void put(final ByteBuffer buffer, final int index, final int fieldLength, final CharSequence value, final boolean truncate) {
+		final int valueLength = null == value ? 0 : value.length();
+		if (valueLength > fieldLength && !truncate)
+			throw new IllegalArgumentException("value of length " + valueLength + " exceeds field length " + fieldLength + ": " + value);
+		final int len = Math.min(valueLength, fieldLength);
+		for (int i = 0; i < len; ++i) {
+			final char c = value.charAt(i);
+			if (c == 0 || c > 127)
+				throw new IllegalArgumentException("value must be non-NUL ASCII: " + value);
+			buffer.put(index + i, (byte) c);
+		}
+		for (int i = len; i < fieldLength; ++i)
+			buffer.put(index + i, (byte) 0);
+	}
+
+	static int length(final ByteBuffer buffer, final int index, final int fieldLength) {
+		for (int i = 0; i < fieldLength; ++i) {
+			if (0 == buffer.get(index + i))
+				return i;
+		}
+		return fieldLength;
+	}
+
+	static boolean contentEquals(final ByteBuffer buffer, final int index, final int fieldLength, final CharSequence value) {
+		final int len = length(buffer, index, fieldLength);
+		if (null == value)
+			return 0 == len;
+		if (value.length() != len)
+			return false;
+		for (int i = 0; i < len; ++i) {
+			if (buffer.get(index + i) != value.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Allocates; for convenience off the hot path only.
+	 */
+	static String toString(final ByteBuffer buffer, final int index, final int fieldLength) {
+		final int len = length(buffer, index, fieldLength);
+		if (0 == len)
+			return null;
+		final char[] chars = new char[len];
+		for (int i = 0; i < len; ++i)
+			chars[i] = (char) buffer.get(index + i);
+		return new String(chars);
+	}
+}
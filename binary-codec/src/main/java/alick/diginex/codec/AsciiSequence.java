@@ -0,0 +1,59 @@
+package alick.diginex.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A re-usable {@link CharSequence} view over ASCII bytes in a buffer, so a text field can be looked up or compared
+ * without creating a {@link String}.
+ * <p/>
+ * The view is only valid for as long as the underlying bytes are not overwritten.
+ *
+ * Thread-safety: not thread-safe.
+ */
+public final class AsciiSequence implements CharSequence {
+	private ByteBuffer buffer;
+	private int index;
+	private int length;
+
+	/**
+	 * Point this view at the given bytes.
+	 *
+	 * @return this view
+	 */
+	public AsciiSequence wrap(final ByteBuffer buffer, final int index, final int length) {
+		this.buffer = buffer;
+		this.index = index;
+		this.length = length;
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return this.length;
+	}
+
+	@Override
+	public char charAt(final int i) {
+		if (i < 0 || i >= this.length)
+			throw new IndexOutOfBoundsException("index " + i + " out of range [0, " + this.length + ")");
+		return (char) (this.buffer.get(this.index + i) & 0xff);
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		if (start < 0 || end > this.length || start > end)
+			throw new IndexOutOfBoundsException("range [" + start + ", " + end + ") out of range [0, " + this.length + ")");
+		return new AsciiSequence().wrap(this.buffer, this.index + start, end - start);
+	}
+
+	/**
+	 * Allocates; for convenience off the hot path only.
+	 */
+	@Override
+	public String toString() {
+		final char[] chars = new char[this.length];
+		for (int i = 0; i < this.length; ++i)
+			chars[i] = charAt(i);
+		return new String(chars);
+	}
+}
@@ -0,0 +1,141 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+
+/**
+ * Single-byte wire codes for enumerations; the values follow FIX tag values (Side(54), OrdType(40), TimeInForce(59),
+ * OrdStatus(39)).
+ */
+final class Codes {
+	static final byte NULL = 0;
+
+	private Codes() {
+	}
+
+	static byte encode(final Side side) {
+		if (null == side)
+			return NULL;
+		switch (side) {
+			case BUY:
+				return '1';
+			case SELL:
+				return '2';
+			default:
+				throw new IllegalArgumentException("unsupported side " + side);
+		}
+	}
+
+	static Side decodeSide(final byte code) {
+		switch (code) {
+			case NULL:
+				return null;
+			case '1':
+				return Side.BUY;
+			case '2':
+				return Side.SELL;
+			default:
+				throw new IllegalArgumentException("unknown side code " + code);
+		}
+	}
+
+	static byte encode(final OrderType orderType) {
+		if (null == orderType)
+			return NULL;
+		switch (orderType) {
+			case MARKET:
+				return '1';
+			case LIMIT:
+				return '2';
+			default:
+				throw new IllegalArgumentException("unsupported order type " + orderType);
+		}
+	}
+
+	static OrderType decodeOrderType(final byte code) {
+		switch (code) {
+			case NULL:
+				return null;
+			case '1':
+				return OrderType.MARKET;
+			case '2':
+				return OrderType.LIMIT;
+			default:
+				throw new IllegalArgumentException("unknown order type code " + code);
+		}
+	}
+
+	static byte encode(final TimeInForce timeInForce) {
+		if (null == timeInForce)
+			return NULL;
+		switch (timeInForce) {
+			case DAY:
+				return '0';
+			case IOC:
+				return '3';
+			case FOK:
+				return '4';
+			default:
+				throw new IllegalArgumentException("unsupported time in force " + timeInForce);
+		}
+	}
+
+	static TimeInForce decodeTimeInForce(final byte code) {
+		switch (code) {
+			case NULL:
+				return null;
+			case '0':
+				return TimeInForce.DAY;
+			case '3':
+				return TimeInForce.IOC;
+			case '4':
+				return TimeInForce.FOK;
+			default:
+				throw new IllegalArgumentException("unknown time in force code " + code);
+		}
+	}
+
+	static byte encode(final OrderStatus orderStatus) {
+		if (null == orderStatus)
+			return NULL;
+		switch (orderStatus) {
+			case NEW:
+				return '0';
+			case PARTIAL_FILLLED:
+				return '1';
+			case FILLED:
+				return '2';
+			case CANCELLED:
+				return '4';
+			case REPLACED:
+				return '5';
+			case REJECTED:
+				return '8';
+			default:
+				throw new IllegalArgumentException("unsupported order status " + orderStatus);
+		}
+	}
+
+	static OrderStatus decodeOrderStatus(final byte code) {
+		switch (code) {
+			case NULL:
+				return null;
+			case '0':
+				return OrderStatus.NEW;
+			case '1':
+				return OrderStatus.PARTIAL_FILLLED;
+			case '2':
+				return OrderStatus.FILLED;
+			case '4':
+				return OrderStatus.CANCELLED;
+			case '5':
+				return OrderStatus.REPLACED;
+			case '8':
+				return OrderStatus.REJECTED;
+			default:
+				throw new IllegalArgumentException("unknown order status code " + code);
+		}
+	}
+}
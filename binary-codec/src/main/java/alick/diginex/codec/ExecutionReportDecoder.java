@@ -0,0 +1,159 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+
+/**
+ * Decodes an execution report.
+ *
+ * @see ExecutionReportEncoder
+ */
+public final class ExecutionReportDecoder extends MessageDecoder<ExecutionReportDecoder> {
+	public static final int TEMPLATE_ID = Schema.EXECUTION_REPORT_TEMPLATE_ID;
+	public static final int BLOCK_LENGTH = 152;
+
+	static final int CL_ORD_ID_OFFSET = 0;
+	static final int ORIG_CL_ORD_ID_OFFSET = 20;
+	static final int ORDER_ID_OFFSET = 40;
+	static final int ORDER_STATUS_OFFSET = 48;
+	static final int SIDE_OFFSET = 49;
+	static final int ORDER_TYPE_OFFSET = 50;
+	static final int ORDER_QTY_OFFSET = 56;
+	static final int PRICE_OFFSET = 64;
+	static final int CUM_QTY_OFFSET = 72;
+	static final int LEAVES_QTY_OFFSET = 80;
+	static final int AVG_PX_OFFSET = 88;
+	static final int LAST_QTY_OFFSET = 96;
+	static final int LAST_PX_OFFSET = 104;
+	static final int REJECT_REASON_OFFSET = 112;
+
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	/**
+	 * @return a view over the clOrdId bytes; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence clOrdId(final AsciiSequence view) {
+		final int index = this.bodyOffset + CL_ORD_ID_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.CL_ORD_ID_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #clOrdId(AsciiSequence)} on the hot path
+	 */
+	public String clOrdId() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH);
+	}
+
+	/**
+	 * @return a view over the origClOrdId bytes, empty if none; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence origClOrdId(final AsciiSequence view) {
+		final int index = this.bodyOffset + ORIG_CL_ORD_ID_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.CL_ORD_ID_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #origClOrdId(AsciiSequence)} on the hot path
+	 *
+	 * @return the origClOrdId, {@code null} if none
+	 */
+	public String origClOrdId() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + ORIG_CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH);
+	}
+
+	public long orderId() {
+		return this.buffer.getLong(this.bodyOffset + ORDER_ID_OFFSET);
+	}
+
+	public OrderStatus orderStatus() {
+		return Codes.decodeOrderStatus(this.buffer.get(this.bodyOffset + ORDER_STATUS_OFFSET));
+	}
+
+	public Side side() {
+		return Codes.decodeSide(this.buffer.get(this.bodyOffset + SIDE_OFFSET));
+	}
+
+	public OrderType orderType() {
+		return Codes.decodeOrderType(this.buffer.get(this.bodyOffset + ORDER_TYPE_OFFSET));
+	}
+
+	public double orderQty() {
+		return this.buffer.getDouble(this.bodyOffset + ORDER_QTY_OFFSET);
+	}
+
+	public double price() {
+		return this.buffer.getDouble(this.bodyOffset + PRICE_OFFSET);
+	}
+
+	public double cumQty() {
+		return this.buffer.getDouble(this.bodyOffset + CUM_QTY_OFFSET);
+	}
+
+	public double leavesQty() {
+		return this.buffer.getDouble(this.bodyOffset + LEAVES_QTY_OFFSET);
+	}
+
+	public double avgPx() {
+		return this.buffer.getDouble(this.bodyOffset + AVG_PX_OFFSET);
+	}
+
+	/**
+	 * @return quantity of this fill, {@link Double#NaN} if this report is not a fill
+	 */
+	public double lastQty() {
+		return this.buffer.getDouble(this.bodyOffset + LAST_QTY_OFFSET);
+	}
+
+	/**
+	 * @return price of this fill, {@link Double#NaN} if this report is not a fill
+	 */
+	public double lastPx() {
+		return this.buffer.getDouble(this.bodyOffset + LAST_PX_OFFSET);
+	}
+
+	/**
+	 * @return a view over the reject reason bytes, empty if none; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence rejectReason(final AsciiSequence view) {
+		final int index = this.bodyOffset + REJECT_REASON_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.REJECT_REASON_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #rejectReason(AsciiSequence)} on the hot path
+	 *
+	 * @return the reject reason, {@code null} if none
+	 */
+	public String rejectReason() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + REJECT_REASON_OFFSET, Schema.REJECT_REASON_LENGTH);
+	}
+
+	@Override
+	public String toString() {
+		return "ExecutionReport(" +
+				"clOrdId=" + clOrdId() +
+				", origClOrdId=" + origClOrdId() +
+				", orderId=" + orderId() +
+				", orderStatus=" + orderStatus() +
+				", side=" + side() +
+				", orderType=" + orderType() +
+				", orderQty=" + orderQty() +
+				", price=" + price() +
+				", cumQty=" + cumQty() +
+				", leavesQty=" + leavesQty() +
+				", avgPx=" + avgPx() +
+				", lastQty=" + lastQty() +
+				", lastPx=" + lastPx() +
+				", rejectReason=" + rejectReason() +
+				')';
+	}
+}
@@ -0,0 +1,117 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+
+import static alick.diginex.codec.ExecutionReportDecoder.*;
+
+/**
+ * Encodes an execution report:
+ * <pre>
+ *   offset   0: clOrdId      (char[20])
+ *   offset  20: origClOrdId  (char[20])
+ *   offset  40: orderId      (int64)
+ *   offset  48: ordStatus    (uint8)
+ *   offset  49: side         (uint8)
+ *   offset  50: ordType      (uint8)
+ *   offset  56: orderQty     (double)
+ *   offset  64: price        (double)
+ *   offset  72: cumQty       (double)
+ *   offset  80: leavesQty    (double)
+ *   offset  88: avgPx        (double)
+ *   offset  96: lastQty      (double), NaN if not a fill
+ *   offset 104: lastPx       (double), NaN if not a fill
+ *   offset 112: rejectReason (char[40])
+ * </pre>
+ */
+public final class ExecutionReportEncoder extends MessageEncoder<ExecutionReportEncoder> {
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	public ExecutionReportEncoder clOrdId(final CharSequence clOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, clOrdId, false);
+		return this;
+	}
+
+	public ExecutionReportEncoder origClOrdId(final CharSequence origClOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + ORIG_CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, origClOrdId, false);
+		return this;
+	}
+
+	public ExecutionReportEncoder orderId(final long orderId) {
+		this.buffer.putLong(this.bodyOffset + ORDER_ID_OFFSET, orderId);
+		return this;
+	}
+
+	public ExecutionReportEncoder orderStatus(final OrderStatus orderStatus) {
+		this.buffer.put(this.bodyOffset + ORDER_STATUS_OFFSET, Codes.encode(orderStatus));
+		return this;
+	}
+
+	public ExecutionReportEncoder side(final Side side) {
+		this.buffer.put(this.bodyOffset + SIDE_OFFSET, Codes.encode(side));
+		return this;
+	}
+
+	public ExecutionReportEncoder orderType(final OrderType orderType) {
+		this.buffer.put(this.bodyOffset + ORDER_TYPE_OFFSET, Codes.encode(orderType));
+		return this;
+	}
+
+	public ExecutionReportEncoder orderQty(final double orderQty) {
+		this.buffer.putDouble(this.bodyOffset + ORDER_QTY_OFFSET, orderQty);
+		return this;
+	}
+
+	public ExecutionReportEncoder price(final double price) {
+		this.buffer.putDouble(this.bodyOffset + PRICE_OFFSET, price);
+		return this;
+	}
+
+	public ExecutionReportEncoder cumQty(final double cumQty) {
+		this.buffer.putDouble(this.bodyOffset + CUM_QTY_OFFSET, cumQty);
+		return this;
+	}
+
+	public ExecutionReportEncoder leavesQty(final double leavesQty) {
+		this.buffer.putDouble(this.bodyOffset + LEAVES_QTY_OFFSET, leavesQty);
+		return this;
+	}
+
+	public ExecutionReportEncoder avgPx(final double avgPx) {
+		this.buffer.putDouble(this.bodyOffset + AVG_PX_OFFSET, avgPx);
+		return this;
+	}
+
+	/**
+	 * @param lastQty quantity of this fill, {@link Double#NaN} if this report is not a fill
+	 */
+	public ExecutionReportEncoder lastQty(final double lastQty) {
+		this.buffer.putDouble(this.bodyOffset + LAST_QTY_OFFSET, lastQty);
+		return this;
+	}
+
+	/**
+	 * @param lastPx price of this fill, {@link Double#NaN} if this report is not a fill
+	 */
+	public ExecutionReportEncoder lastPx(final double lastPx) {
+		this.buffer.putDouble(this.bodyOffset + LAST_PX_OFFSET, lastPx);
+		return this;
+	}
+
+	/**
+	 * @param rejectReason reason for rejection, {@code null} for none; truncated to {@value Schema#REJECT_REASON_LENGTH} characters
+	 */
+	public ExecutionReportEncoder rejectReason(final CharSequence rejectReason) {
+		AsciiField.put(this.buffer, this.bodyOffset + REJECT_REASON_OFFSET, Schema.REJECT_REASON_LENGTH, rejectReason, true);
+		return this;
+	}
+}
@@ -0,0 +1,204 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes a journal entry.
+ *
+ * @see JournalEntryEncoder
+ */
+public final class JournalEntryDecoder extends MessageDecoder<JournalEntryDecoder> {
+	public static final int TEMPLATE_ID = Schema.JOURNAL_ENTRY_TEMPLATE_ID;
+	public static final int BLOCK_LENGTH = 64;
+
+	static final int ENTRY_TYPE_OFFSET = 0;
+	static final int SIDE_OFFSET = 1;
+	static final int ORDER_TYPE_OFFSET = 2;
+	static final int TIME_IN_FORCE_OFFSET = 3;
+	static final int SESSION_ID_OFFSET = 8;
+	static final int ORDER_ID_OFFSET = 16;
+	static final int OWNER_ID_OFFSET = 24;
+	static final int QUANTITY_OFFSET = 32;
+	static final int PRICE_OFFSET = 40;
+	static final int MIN_PRICE_OFFSET = 48;
+	static final int MAX_PRICE_OFFSET = 56;
+
+	static final int COUNT_LENGTH = 4;
+	static final int LEVEL_LENGTH = 24;
+	static final int LEVEL_ORDER_ID_OFFSET = 0;
+	static final int LEVEL_PRICE_OFFSET = 8;
+	static final int LEVEL_QUANTITY_OFFSET = 16;
+
+	// indices of the variable-length fields, found when wrapping
+	private int clOrdIdIndex;
+	private int origClOrdIdIndex;
+	private int bidsIndex;
+	private int asksIndex;
+	private int limit;
+
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IndexOutOfBoundsException if a variable-length field is not entirely within the buffer
+	 */
+	@Override
+	public JournalEntryDecoder wrap(final ByteBuffer buffer, final int offset) {
+		super.wrap(buffer, offset);
+		final int bufferLimit = buffer.limit();
+		// variable-length fields follow the block as written, which may be longer than this decoder knows of
+		this.clOrdIdIndex = this.bodyOffset + MessageHeader.blockLength(buffer, offset);
+		this.origClOrdIdIndex = this.clOrdIdIndex + VarString.encodedLength(this.buffer, this.clOrdIdIndex, bufferLimit);
+		this.bidsIndex = this.origClOrdIdIndex + VarString.encodedLength(this.buffer, this.origClOrdIdIndex, bufferLimit);
+		this.asksIndex = this.bidsIndex + groupLength(this.bidsIndex, bufferLimit);
+		this.limit = this.asksIndex + groupLength(this.asksIndex, bufferLimit);
+		return this;
+	}
+
+	private int groupLength(final int index, final int bufferLimit) {
+		if (index + COUNT_LENGTH > bufferLimit)
+			throw new IndexOutOfBoundsException("group at " + index + " exceeds limit " + bufferLimit);
+		final int count = this.buffer.getInt(index);
+		if (count < 0 || count > (bufferLimit - index - COUNT_LENGTH) / LEVEL_LENGTH)
+			throw new IndexOutOfBoundsException("group of " + count + " levels at " + index + " exceeds limit " + bufferLimit);
+		return COUNT_LENGTH + count * LEVEL_LENGTH;
+	}
+
+	@Override
+	public int encodedLength() {
+		return this.limit - offset();
+	}
+
+	/**
+	 * @return the type of request the entry records, as defined by the journal
+	 */
+	public byte entryType() {
+		return this.buffer.get(this.bodyOffset + ENTRY_TYPE_OFFSET);
+	}
+
+	public Side side() {
+		return Codes.decodeSide(this.buffer.get(this.bodyOffset + SIDE_OFFSET));
+	}
+
+	public OrderType orderType() {
+		return Codes.decodeOrderType(this.buffer.get(this.bodyOffset + ORDER_TYPE_OFFSET));
+	}
+
+	public TimeInForce timeInForce() {
+		return Codes.decodeTimeInForce(this.buffer.get(this.bodyOffset + TIME_IN_FORCE_OFFSET));
+	}
+
+	public long sessionId() {
+		return this.buffer.getLong(this.bodyOffset + SESSION_ID_OFFSET);
+	}
+
+	public long orderId() {
+		return this.buffer.getLong(this.bodyOffset + ORDER_ID_OFFSET);
+	}
+
+	public long ownerId() {
+		return this.buffer.getLong(this.bodyOffset + OWNER_ID_OFFSET);
+	}
+
+	public double quantity() {
+		return this.buffer.getDouble(this.bodyOffset + QUANTITY_OFFSET);
+	}
+
+	public double price() {
+		return this.buffer.getDouble(this.bodyOffset + PRICE_OFFSET);
+	}
+
+	public double minPrice() {
+		return this.buffer.getDouble(this.bodyOffset + MIN_PRICE_OFFSET);
+	}
+
+	public double maxPrice() {
+		return this.buffer.getDouble(this.bodyOffset + MAX_PRICE_OFFSET);
+	}
+
+	/**
+	 * Allocates a {@link String}.
+	 */
+	public String clOrdId() {
+		return VarString.toString(this.buffer, this.clOrdIdIndex);
+	}
+
+	/**
+	 * Allocates a {@link String}.
+	 */
+	public String origClOrdId() {
+		return VarString.toString(this.buffer, this.origClOrdIdIndex);
+	}
+
+	public int bidCount() {
+		return this.buffer.getInt(this.bidsIndex);
+	}
+
+	public long bidOrderId(final int level) {
+		return this.buffer.getLong(levelIndex(this.bidsIndex, level) + LEVEL_ORDER_ID_OFFSET);
+	}
+
+	public double bidPrice(final int level) {
+		return this.buffer.getDouble(levelIndex(this.bidsIndex, level) + LEVEL_PRICE_OFFSET);
+	}
+
+	public double bidQuantity(final int level) {
+		return this.buffer.getDouble(levelIndex(this.bidsIndex, level) + LEVEL_QUANTITY_OFFSET);
+	}
+
+	public int askCount() {
+		return this.buffer.getInt(this.asksIndex);
+	}
+
+	public long askOrderId(final int level) {
+		return this.buffer.getLong(levelIndex(this.asksIndex, level) + LEVEL_ORDER_ID_OFFSET);
+	}
+
+	public double askPrice(final int level) {
+		return this.buffer.getDouble(levelIndex(this.asksIndex, level) + LEVEL_PRICE_OFFSET);
+	}
+
+	public double askQuantity(final int level) {
+		return this.buffer.getDouble(levelIndex(this.asksIndex, level) + LEVEL_QUANTITY_OFFSET);
+	}
+
+	private int levelIndex(final int groupIndex, final int level) {
+		if (level < 0 || level >= this.buffer.getInt(groupIndex))
+			throw new IndexOutOfBoundsException("no level " + level + " in group of " + this.buffer.getInt(groupIndex));
+		return groupIndex + COUNT_LENGTH + level * LEVEL_LENGTH;
+	}
+
+	@Override
+	public String toString() {
+		return "JournalEntry(" +
+				"entryType=" + entryType() +
+				", sessionId=" + sessionId() +
+				", orderId=" + orderId() +
+				", clOrdId=" + clOrdId() +
+				", origClOrdId=" + origClOrdId() +
+				", side=" + side() +
+				", orderType=" + orderType() +
+				", timeInForce=" + timeInForce() +
+				", quantity=" + quantity() +
+				", price=" + price() +
+				", minPrice=" + minPrice() +
+				", maxPrice=" + maxPrice() +
+				", ownerId=" + ownerId() +
+				", bidCount=" + bidCount() +
+				", askCount=" + askCount() +
+				')';
+	}
+}
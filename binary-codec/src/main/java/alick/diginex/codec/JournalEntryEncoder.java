@@ -0,0 +1,183 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+
+import java.nio.ByteBuffer;
+
+import static alick.diginex.codec.JournalEntryDecoder.*;
+
+/**
+ * Encodes a journal entry, i.e. a request as sequenced by a matching engine, with what the engine needs to process it
+ * again the same way:
+ * <pre>
+ *   offset  0: entryType   (uint8)
+ *   offset  1: side        (uint8)
+ *   offset  2: ordType     (uint8)
+ *   offset  3: timeInForce (uint8)
+ *   offset  8: sessionId   (int64), of the requester
+ *   offset 16: orderId     (int64)
+ *   offset 24: ownerId     (int64), whose orders a mass cancel is for
+ *   offset 32: quantity    (double)
+ *   offset 40: price       (double)
+ *   offset 48: minPrice    (double), of a mass cancel
+ *   offset 56: maxPrice    (double), of a mass cancel
+ *   followed by the variable-length fields, in this order:
+ *     clOrdId     (int32 length in chars, -1 for null, then UTF-16 chars)
+ *     origClOrdId (as clOrdId)
+ *     bids        (int32 count, then per level: orderId (int64), price (double), quantity (double))
+ *     asks        (as bids)
+ * </pre>
+ * A field an entry type has no use for is left zero. The variable-length fields must be written in order, after the
+ * fixed ones; an entry that is not a mass quote still writes its two empty groups.
+ */
+public final class JournalEntryEncoder extends MessageEncoder<JournalEntryEncoder> {
+	// index just past the last byte written
+	private int limit;
+
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	/**
+	 * @return the length of an entry with the given variable-length fields, header included, to size the buffer with
+	 */
+	public static int encodedLength(final CharSequence clOrdId, final CharSequence origClOrdId, final int bidCount, final int askCount) {
+		return MessageHeader.ENCODED_LENGTH + BLOCK_LENGTH
+				+ VarString.encodedLength(clOrdId) + VarString.encodedLength(origClOrdId)
+				+ COUNT_LENGTH + bidCount * LEVEL_LENGTH
+				+ COUNT_LENGTH + askCount * LEVEL_LENGTH;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p/>
+	 * Also clears the fixed fields, so those an entry type has no use for read as zero.
+	 */
+	@Override
+	public JournalEntryEncoder wrapAndApplyHeader(final ByteBuffer buffer, final int offset) {
+		super.wrapAndApplyHeader(buffer, offset);
+		for (int i = 0; i < BLOCK_LENGTH; i += 8)
+			this.buffer.putLong(this.bodyOffset + i, 0L);
+		this.limit = this.bodyOffset + BLOCK_LENGTH;
+		return this;
+	}
+
+	@Override
+	public int encodedLength() {
+		return this.limit - offset();
+	}
+
+	/**
+	 * @param entryType type of request the entry records, as defined by the journal
+	 */
+	public JournalEntryEncoder entryType(final byte entryType) {
+		this.buffer.put(this.bodyOffset + ENTRY_TYPE_OFFSET, entryType);
+		return this;
+	}
+
+	/**
+	 * @param side {@code null} for none, as for a mass cancel of both sides
+	 */
+	public JournalEntryEncoder side(final Side side) {
+		this.buffer.put(this.bodyOffset + SIDE_OFFSET, Codes.encode(side));
+		return this;
+	}
+
+	public JournalEntryEncoder orderType(final OrderType orderType) {
+		this.buffer.put(this.bodyOffset + ORDER_TYPE_OFFSET, Codes.encode(orderType));
+		return this;
+	}
+
+	public JournalEntryEncoder timeInForce(final TimeInForce timeInForce) {
+		this.buffer.put(this.bodyOffset + TIME_IN_FORCE_OFFSET, Codes.encode(timeInForce));
+		return this;
+	}
+
+	public JournalEntryEncoder sessionId(final long sessionId) {
+		this.buffer.putLong(this.bodyOffset + SESSION_ID_OFFSET, sessionId);
+		return this;
+	}
+
+	public JournalEntryEncoder orderId(final long orderId) {
+		this.buffer.putLong(this.bodyOffset + ORDER_ID_OFFSET, orderId);
+		return this;
+	}
+
+	public JournalEntryEncoder ownerId(final long ownerId) {
+		this.buffer.putLong(this.bodyOffset + OWNER_ID_OFFSET, ownerId);
+		return this;
+	}
+
+	public JournalEntryEncoder quantity(final double quantity) {
+		this.buffer.putDouble(this.bodyOffset + QUANTITY_OFFSET, quantity);
+		return this;
+	}
+
+	public JournalEntryEncoder price(final double price) {
+		this.buffer.putDouble(this.bodyOffset + PRICE_OFFSET, price);
+		return this;
+	}
+
+	public JournalEntryEncoder minPrice(final double minPrice) {
+		this.buffer.putDouble(this.bodyOffset + MIN_PRICE_OFFSET, minPrice);
+		return this;
+	}
+
+	public JournalEntryEncoder maxPrice(final double maxPrice) {
+		this.buffer.putDouble(this.bodyOffset + MAX_PRICE_OFFSET, maxPrice);
+		return this;
+	}
+
+	/**
+	 * @param clOrdId clOrdId of the request, the quote ID of a mass quote or the auction ID of an auction; of any length
+	 */
+	public JournalEntryEncoder clOrdId(final CharSequence clOrdId) {
+		ensureFits(VarString.encodedLength(clOrdId));
+		this.limit += VarString.put(this.buffer, this.limit, clOrdId);
+		return this;
+	}
+
+	/**
+	 * @param origClOrdId {@code null} for none; of any length
+	 */
+	public JournalEntryEncoder origClOrdId(final CharSequence origClOrdId) {
+		ensureFits(VarString.encodedLength(origClOrdId));
+		this.limit += VarString.put(this.buffer, this.limit, origClOrdId);
+		return this;
+	}
+
+	/**
+	 * Start the bids group, or the asks group once the bids are written; to be followed by as many
+	 * {@link #level(long, double, double)}.
+	 */
+	public JournalEntryEncoder levelCount(final int count) {
+		if (count < 0)
+			throw new IllegalArgumentException("level count cannot be negative: " + count);
+		ensureFits(COUNT_LENGTH);
+		this.buffer.putInt(this.limit, count);
+		this.limit += COUNT_LENGTH;
+		return this;
+	}
+
+	public JournalEntryEncoder level(final long orderId, final double price, final double quantity) {
+		ensureFits(LEVEL_LENGTH);
+		this.buffer.putLong(this.limit + LEVEL_ORDER_ID_OFFSET, orderId);
+		this.buffer.putDouble(this.limit + LEVEL_PRICE_OFFSET, price);
+		this.buffer.putDouble(this.limit + LEVEL_QUANTITY_OFFSET, quantity);
+		this.limit += LEVEL_LENGTH;
+		return this;
+	}
+
+	private void ensureFits(final int length) {
+		if (this.limit + length > this.buffer.capacity())
+			throw new IndexOutOfBoundsException("field of " + length + " bytes does not fit at " + this.limit + " of buffer with capacity " + this.buffer.capacity());
+	}
+}
@@ -0,0 +1,35 @@
+package alick.diginex.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base of all decoders, reading the fields directly from the buffer.
+ *
+ * @param <D> the concrete decoder type
+ */
+abstract class MessageDecoder<D extends MessageDecoder<D>> extends MessageFlyweight {
+	/**
+	 * Wrap the message starting with the header at the given offset.
+	 *
+	 * @param buffer buffer to read from, heap or direct
+	 * @param offset offset of the message header within the buffer
+	 * @return this decoder
+	 * @throws IllegalArgumentException  if the message at the offset is not of the type this decoder handles
+	 * @throws IndexOutOfBoundsException if the message is not entirely within the buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public D wrap(final ByteBuffer buffer, final int offset) {
+		final int actualTemplateId = MessageHeader.templateId(buffer, offset);
+		if (actualTemplateId != templateId())
+			throw new IllegalArgumentException("expected template ID " + templateId() + " but was " + actualTemplateId + " at offset " + offset);
+		final int actualBlockLength = MessageHeader.blockLength(buffer, offset);
+		if (actualBlockLength < blockLength())
+			throw new IllegalArgumentException("expected block length of at least " + blockLength() + " but was " + actualBlockLength + " at offset " + offset);
+		final int fixedLength = MessageHeader.ENCODED_LENGTH + blockLength();
+		if (offset + fixedLength > buffer.limit())
+			throw new IndexOutOfBoundsException("message of " + fixedLength + " bytes at offset " + offset + " exceeds buffer limit " + buffer.limit());
+		wrapBuffer(buffer);
+		this.bodyOffset = offset + MessageHeader.ENCODED_LENGTH;
+		return (D) this;
+	}
+}
@@ -0,0 +1,29 @@
+package alick.diginex.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base of all encoders, writing the message header and then the fields directly into the buffer.
+ *
+ * @param <E> the concrete encoder type, for fluent setters
+ */
+abstract class MessageEncoder<E extends MessageEncoder<E>> extends MessageFlyweight {
+	/**
+	 * Wrap the buffer at the given offset and write the message header; fields are then written with the setters.
+	 *
+	 * @param buffer buffer to write into, heap or direct
+	 * @param offset offset of the message header within the buffer
+	 * @return this encoder
+	 * @throws IndexOutOfBoundsException if the message does not fit in the buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public E wrapAndApplyHeader(final ByteBuffer buffer, final int offset) {
+		final int fixedLength = MessageHeader.ENCODED_LENGTH + blockLength();
+		if (offset < 0 || offset + fixedLength > buffer.capacity())
+			throw new IndexOutOfBoundsException("message of " + fixedLength + " bytes does not fit at offset " + offset + " of buffer with capacity " + buffer.capacity());
+		MessageHeader.encode(buffer, offset, blockLength(), templateId());
+		wrapBuffer(buffer);
+		this.bodyOffset = offset + MessageHeader.ENCODED_LENGTH;
+		return (E) this;
+	}
+}
@@ -0,0 +1,70 @@
+package alick.diginex.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base of all encoders / decoders: a window over a message in a buffer, read and written in place.
+ * <p/>
+ * A flyweight is meant to be re-wrapped over each message in turn, instead of creating a new one per message.
+ * Fields are read and written through a little-endian view of the wrapped buffer; the byte order, position and limit
+ * of the caller's buffer are left alone.
+ *
+ * Thread-safety: not thread-safe.
+ */
+abstract class MessageFlyweight {
+	// the buffer as wrapped by the caller
+	private ByteBuffer source;
+	/**
+	 * little-endian view over the wrapped buffer
+	 */
+	protected ByteBuffer buffer;
+	/**
+	 * offset of the message body, i.e. just past the message header
+	 */
+	protected int bodyOffset;
+
+	/**
+	 * @return the template ID identifying the message type in the {@link MessageHeader}
+	 */
+	public abstract int templateId();
+
+	/**
+	 * @return the length of the fixed message body
+	 */
+	public abstract int blockLength();
+
+	/**
+	 * @return the length of the message, header included; for a message with variable-length fields, as far as they
+	 * have been written / as far as they reach
+	 */
+	public int encodedLength() {
+		return MessageHeader.ENCODED_LENGTH + blockLength();
+	}
+
+	/**
+	 * @return the buffer as wrapped by the caller
+	 */
+	public ByteBuffer buffer() {
+		return this.source;
+	}
+
+	/**
+	 * Point the little-endian view at the buffer; the view is only re-created when a different buffer is wrapped
+	 */
+	final void wrapBuffer(final ByteBuffer buffer) {
+		if (buffer != this.source) {
+			this.source = buffer;
+			this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		}
+		// the caller may have moved the limit of its buffer since the view was taken
+		this.buffer.limit(this.buffer.capacity());
+	}
+
+	/**
+	 * @return the offset of the message header within the buffer
+	 */
+	public int offset() {
+		return this.bodyOffset - MessageHeader.ENCODED_LENGTH;
+	}
+}
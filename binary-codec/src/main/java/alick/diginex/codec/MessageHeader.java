@@ -0,0 +1,70 @@
+package alick.diginex.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-length header preceding every message, in the spirit of SBE:
+ * <pre>
+ *   offset 0: blockLength (uint16) - length of the message body following the header
+ *   offset 2: templateId  (uint16) - identifies the type of message
+ *   offset 4: schemaId    (uint16)
+ *   offset 6: version     (uint16)
+ * </pre>
+ * All values are little-endian, read and written byte by byte whatever the byte order of the buffer.
+ */
+public final class MessageHeader {
+	public static final int ENCODED_LENGTH = 8;
+
+	private static final int BLOCK_LENGTH_OFFSET = 0;
+	private static final int TEMPLATE_ID_OFFSET = 2;
+	private static final int SCHEMA_ID_OFFSET = 4;
+	private static final int VERSION_OFFSET = 6;
+
+	private MessageHeader() {
+	}
+
+	static void encode(final ByteBuffer buffer, final int offset, final int blockLength, final int templateId) {
+		putUint16(buffer, offset + BLOCK_LENGTH_OFFSET, blockLength);
+		putUint16(buffer, offset + TEMPLATE_ID_OFFSET, templateId);
+		putUint16(buffer, offset + SCHEMA_ID_OFFSET, Schema.SCHEMA_ID);
+		putUint16(buffer, offset + VERSION_OFFSET, Schema.SCHEMA_VERSION);
+	}
+
+	/**
+	 * @return the length of the message body following the header at the given offset
+	 */
+	public static int blockLength(final ByteBuffer buffer, final int offset) {
+		return getUint16(buffer, offset + BLOCK_LENGTH_OFFSET);
+	}
+
+	/**
+	 * @return the template ID of the message at the given offset, to be compared against the decoders' {@code TEMPLATE_ID}
+	 */
+	public static int templateId(final ByteBuffer buffer, final int offset) {
+		return getUint16(buffer, offset + TEMPLATE_ID_OFFSET);
+	}
+
+	public static int schemaId(final ByteBuffer buffer, final int offset) {
+		return getUint16(buffer, offset + SCHEMA_ID_OFFSET);
+	}
+
+	public static int version(final ByteBuffer buffer, final int offset) {
+		return getUint16(buffer, offset + VERSION_OFFSET);
+	}
+
+	/**
+	 * @return the total length of the message, header included, at the given offset
+	 */
+	public static int messageLength(final ByteBuffer buffer, final int offset) {
+		return ENCODED_LENGTH + blockLength(buffer, offset);
+	}
+
+	private static int getUint16(final ByteBuffer buffer, final int index) {
+		return (buffer.get(index) & 0xff) | (buffer.get(index + 1) & 0xff) << 8;
+	}
+
+	private static void putUint16(final ByteBuffer buffer, final int index, final int value) {
+		buffer.put(index, (byte) value);
+		buffer.put(index + 1, (byte) (value >>> 8));
+	}
+}
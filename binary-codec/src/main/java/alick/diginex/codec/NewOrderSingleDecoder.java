@@ -0,0 +1,83 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+
+/**
+ * Decodes a new order request.
+ *
+ * @see NewOrderSingleEncoder
+ */
+public final class NewOrderSingleDecoder extends MessageDecoder<NewOrderSingleDecoder> {
+	public static final int TEMPLATE_ID = Schema.NEW_ORDER_SINGLE_TEMPLATE_ID;
+	public static final int BLOCK_LENGTH = 40;
+
+	static final int CL_ORD_ID_OFFSET = 0;
+	static final int SIDE_OFFSET = 20;
+	static final int ORDER_TYPE_OFFSET = 21;
+	static final int TIME_IN_FORCE_OFFSET = 22;
+	static final int QUANTITY_OFFSET = 24;
+	static final int PRICE_OFFSET = 32;
+
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	/**
+	 * @return a view over the clOrdId bytes; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence clOrdId(final AsciiSequence view) {
+		final int index = this.bodyOffset + CL_ORD_ID_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.CL_ORD_ID_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #clOrdId(AsciiSequence)} on the hot path
+	 */
+	public String clOrdId() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH);
+	}
+
+	public Side side() {
+		return Codes.decodeSide(this.buffer.get(this.bodyOffset + SIDE_OFFSET));
+	}
+
+	public OrderType orderType() {
+		return Codes.decodeOrderType(this.buffer.get(this.bodyOffset + ORDER_TYPE_OFFSET));
+	}
+
+	/**
+	 * @return the time in force, {@link TimeInForce#DAY} when not set, as when the tag is absent in FIX
+	 */
+	public TimeInForce timeInForce() {
+		final TimeInForce timeInForce = Codes.decodeTimeInForce(this.buffer.get(this.bodyOffset + TIME_IN_FORCE_OFFSET));
+		return null == timeInForce ? TimeInForce.DAY : timeInForce;
+	}
+
+	public double quantity() {
+		return this.buffer.getDouble(this.bodyOffset + QUANTITY_OFFSET);
+	}
+
+	public double price() {
+		return this.buffer.getDouble(this.bodyOffset + PRICE_OFFSET);
+	}
+
+	@Override
+	public String toString() {
+		return "NewOrderSingle(" +
+				"clOrdId=" + clOrdId() +
+				", side=" + side() +
+				", orderType=" + orderType() +
+				", timeInForce=" + timeInForce() +
+				", quantity=" + quantity() +
+				", price=" + price() +
+				')';
+	}
+}
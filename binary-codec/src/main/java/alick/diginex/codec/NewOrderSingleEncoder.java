@@ -0,0 +1,60 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+
+import static alick.diginex.codec.NewOrderSingleDecoder.*;
+
+/**
+ * Encodes a new order request:
+ * <pre>
+ *   offset  0: clOrdId  (char[20])
+ *   offset 20: side     (uint8)
+ *   offset 21: ordType  (uint8)
+ *   offset 22: timeInForce (uint8), DAY when not set
+ *   offset 24: quantity (double)
+ *   offset 32: price    (double), zero for market order
+ * </pre>
+ */
+public final class NewOrderSingleEncoder extends MessageEncoder<NewOrderSingleEncoder> {
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	public NewOrderSingleEncoder clOrdId(final CharSequence clOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, clOrdId, false);
+		return this;
+	}
+
+	public NewOrderSingleEncoder side(final Side side) {
+		this.buffer.put(this.bodyOffset + SIDE_OFFSET, Codes.encode(side));
+		return this;
+	}
+
+	public NewOrderSingleEncoder orderType(final OrderType orderType) {
+		this.buffer.put(this.bodyOffset + ORDER_TYPE_OFFSET, Codes.encode(orderType));
+		return this;
+	}
+
+	public NewOrderSingleEncoder timeInForce(final TimeInForce timeInForce) {
+		this.buffer.put(this.bodyOffset + TIME_IN_FORCE_OFFSET, Codes.encode(timeInForce));
+		return this;
+	}
+
+	public NewOrderSingleEncoder quantity(final double quantity) {
+		this.buffer.putDouble(this.bodyOffset + QUANTITY_OFFSET, quantity);
+		return this;
+	}
+
+	public NewOrderSingleEncoder price(final double price) {
+		this.buffer.putDouble(this.bodyOffset + PRICE_OFFSET, price);
+		return this;
+	}
+}
@@ -0,0 +1,79 @@
+package alick.diginex.codec;
+
+/**
+ * Decodes a rejection of an amend / cancel request.
+ *
+ * @see OrderCancelRejectEncoder
+ */
+public final class OrderCancelRejectDecoder extends MessageDecoder<OrderCancelRejectDecoder> {
+	public static final int TEMPLATE_ID = Schema.ORDER_CANCEL_REJECT_TEMPLATE_ID;
+	public static final int BLOCK_LENGTH = 80;
+
+	static final int CL_ORD_ID_OFFSET = 0;
+	static final int ORIG_CL_ORD_ID_OFFSET = 20;
+	static final int REJECT_REASON_OFFSET = 40;
+
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	/**
+	 * @return a view over the clOrdId bytes; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence clOrdId(final AsciiSequence view) {
+		final int index = this.bodyOffset + CL_ORD_ID_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.CL_ORD_ID_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #clOrdId(AsciiSequence)} on the hot path
+	 */
+	public String clOrdId() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH);
+	}
+
+	/**
+	 * @return a view over the origClOrdId bytes; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence origClOrdId(final AsciiSequence view) {
+		final int index = this.bodyOffset + ORIG_CL_ORD_ID_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.CL_ORD_ID_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #origClOrdId(AsciiSequence)} on the hot path
+	 */
+	public String origClOrdId() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + ORIG_CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH);
+	}
+
+	/**
+	 * @return a view over the reject reason bytes; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence rejectReason(final AsciiSequence view) {
+		final int index = this.bodyOffset + REJECT_REASON_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.REJECT_REASON_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #rejectReason(AsciiSequence)} on the hot path
+	 */
+	public String rejectReason() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + REJECT_REASON_OFFSET, Schema.REJECT_REASON_LENGTH);
+	}
+
+	@Override
+	public String toString() {
+		return "OrderCancelReject(" +
+				"clOrdId=" + clOrdId() +
+				", origClOrdId=" + origClOrdId() +
+				", rejectReason=" + rejectReason() +
+				')';
+	}
+}
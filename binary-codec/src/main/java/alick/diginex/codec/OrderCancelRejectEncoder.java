@@ -0,0 +1,41 @@
+package alick.diginex.codec;
+
+import static alick.diginex.codec.OrderCancelRejectDecoder.*;
+
+/**
+ * Encodes a rejection of an amend / cancel request:
+ * <pre>
+ *   offset  0: clOrdId      (char[20])
+ *   offset 20: origClOrdId  (char[20])
+ *   offset 40: rejectReason (char[40])
+ * </pre>
+ */
+public final class OrderCancelRejectEncoder extends MessageEncoder<OrderCancelRejectEncoder> {
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	public OrderCancelRejectEncoder clOrdId(final CharSequence clOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, clOrdId, false);
+		return this;
+	}
+
+	public OrderCancelRejectEncoder origClOrdId(final CharSequence origClOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + ORIG_CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, origClOrdId, false);
+		return this;
+	}
+
+	/**
+	 * @param rejectReason reason for rejection; truncated to {@value Schema#REJECT_REASON_LENGTH} characters
+	 */
+	public OrderCancelRejectEncoder rejectReason(final CharSequence rejectReason) {
+		AsciiField.put(this.buffer, this.bodyOffset + REJECT_REASON_OFFSET, Schema.REJECT_REASON_LENGTH, rejectReason, true);
+		return this;
+	}
+}
@@ -0,0 +1,89 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+
+/**
+ * Decodes an amend request.
+ *
+ * @see OrderCancelReplaceRequestEncoder
+ */
+public final class OrderCancelReplaceRequestDecoder extends MessageDecoder<OrderCancelReplaceRequestDecoder> {
+	public static final int TEMPLATE_ID = Schema.ORDER_CANCEL_REPLACE_REQUEST_TEMPLATE_ID;
+	public static final int BLOCK_LENGTH = 64;
+
+	static final int ORIG_CL_ORD_ID_OFFSET = 0;
+	static final int CL_ORD_ID_OFFSET = 20;
+	static final int SIDE_OFFSET = 40;
+	static final int ORDER_TYPE_OFFSET = 41;
+	static final int QUANTITY_OFFSET = 48;
+	static final int PRICE_OFFSET = 56;
+
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	/**
+	 * @return a view over the origClOrdId bytes; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence origClOrdId(final AsciiSequence view) {
+		final int index = this.bodyOffset + ORIG_CL_ORD_ID_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.CL_ORD_ID_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #origClOrdId(AsciiSequence)} on the hot path
+	 */
+	public String origClOrdId() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + ORIG_CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH);
+	}
+
+	/**
+	 * @return a view over the clOrdId bytes; valid until the underlying buffer is overwritten
+	 */
+	public AsciiSequence clOrdId(final AsciiSequence view) {
+		final int index = this.bodyOffset + CL_ORD_ID_OFFSET;
+		return view.wrap(this.buffer, index, AsciiField.length(this.buffer, index, Schema.CL_ORD_ID_LENGTH));
+	}
+
+	/**
+	 * Allocates a {@link String}; prefer {@link #clOrdId(AsciiSequence)} on the hot path
+	 */
+	public String clOrdId() {
+		return AsciiField.toString(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH);
+	}
+
+	public Side side() {
+		return Codes.decodeSide(this.buffer.get(this.bodyOffset + SIDE_OFFSET));
+	}
+
+	public OrderType orderType() {
+		return Codes.decodeOrderType(this.buffer.get(this.bodyOffset + ORDER_TYPE_OFFSET));
+	}
+
+	public double quantity() {
+		return this.buffer.getDouble(this.bodyOffset + QUANTITY_OFFSET);
+	}
+
+	public double price() {
+		return this.buffer.getDouble(this.bodyOffset + PRICE_OFFSET);
+	}
+
+	@Override
+	public String toString() {
+		return "OrderCancelReplaceRequest(" +
+				"origClOrdId=" + origClOrdId() +
+				", clOrdId=" + clOrdId() +
+				", side=" + side() +
+				", orderType=" + orderType() +
+				", quantity=" + quantity() +
+				", price=" + price() +
+				')';
+	}
+}
@@ -0,0 +1,59 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+
+import static alick.diginex.codec.OrderCancelReplaceRequestDecoder.*;
+
+/**
+ * Encodes an amend request:
+ * <pre>
+ *   offset  0: origClOrdId (char[20])
+ *   offset 20: clOrdId     (char[20])
+ *   offset 40: side        (uint8)
+ *   offset 41: ordType     (uint8)
+ *   offset 48: quantity    (double)
+ *   offset 56: price       (double), zero for market order
+ * </pre>
+ */
+public final class OrderCancelReplaceRequestEncoder extends MessageEncoder<OrderCancelReplaceRequestEncoder> {
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	public OrderCancelReplaceRequestEncoder origClOrdId(final CharSequence origClOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + ORIG_CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, origClOrdId, false);
+		return this;
+	}
+
+	public OrderCancelReplaceRequestEncoder clOrdId(final CharSequence clOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, clOrdId, false);
+		return this;
+	}
+
+	public OrderCancelReplaceRequestEncoder side(final Side side) {
+		this.buffer.put(this.bodyOffset + SIDE_OFFSET, Codes.encode(side));
+		return this;
+	}
+
+	public OrderCancelReplaceRequestEncoder orderType(final OrderType orderType) {
+		this.buffer.put(this.bodyOffset + ORDER_TYPE_OFFSET, Codes.encode(orderType));
+		return this;
+	}
+
+	public OrderCancelReplaceRequestEncoder quantity(final double quantity) {
+		this.buffer.putDouble(this.bodyOffset + QUANTITY_OFFSET, quantity);
+		return this;
+	}
+
+	public OrderCancelReplaceRequestEncoder price(final double price) {
+		this.buffer.putDouble(this.bodyOffset + PRICE_OFFSET, price);
+		return this;
+	}
+}
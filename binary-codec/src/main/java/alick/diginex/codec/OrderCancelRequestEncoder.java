@@ -0,0 +1,32 @@
+package alick.diginex.codec;
+
+import static alick.diginex.codec.OrderCancelRequestDecoder.*;
+
+/**
+ * Encodes a cancel request:
+ * <pre>
+ *   offset  0: origClOrdId (char[20])
+ *   offset 20: clOrdId     (char[20])
+ * </pre>
+ */
+public final class OrderCancelRequestEncoder extends MessageEncoder<OrderCancelRequestEncoder> {
+	@Override
+	public int templateId() {
+		return TEMPLATE_ID;
+	}
+
+	@Override
+	public int blockLength() {
+		return BLOCK_LENGTH;
+	}
+
+	public OrderCancelRequestEncoder origClOrdId(final CharSequence origClOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + ORIG_CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, origClOrdId, false);
+		return this;
+	}
+
+	public OrderCancelRequestEncoder clOrdId(final CharSequence clOrdId) {
+		AsciiField.put(this.buffer, this.bodyOffset + CL_ORD_ID_OFFSET, Schema.CL_ORD_ID_LENGTH, clOrdId, false);
+		return this;
+	}
+}
@@ -0,0 +1,28 @@
+package alick.diginex.codec;
+
+/**
+ * Template IDs and field lengths of the binary order entry schema.
+ */
+public final class Schema {
+	public static final int SCHEMA_ID = 1;
+	public static final int SCHEMA_VERSION = 1;
+
+	public static final int NEW_ORDER_SINGLE_TEMPLATE_ID = 1;
+	public static final int ORDER_CANCEL_REPLACE_REQUEST_TEMPLATE_ID = 2;
+	public static final int ORDER_CANCEL_REQUEST_TEMPLATE_ID = 3;
+	public static final int EXECUTION_REPORT_TEMPLATE_ID = 4;
+	public static final int ORDER_CANCEL_REJECT_TEMPLATE_ID = 5;
+	public static final int JOURNAL_ENTRY_TEMPLATE_ID = 6;
+
+	/**
+	 * maximum length of a ClOrdId / OrigClOrdId, in ASCII characters
+	 */
+	public static final int CL_ORD_ID_LENGTH = 20;
+	/**
+	 * maximum length of a reject reason, in ASCII characters; longer reasons are truncated
+	 */
+	public static final int REJECT_REASON_LENGTH = 40;
+
+	private Schema() {
+	}
+}
@@ -0,0 +1,67 @@
+package alick.diginex.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers for variable-length text fields: a length (int32) in chars, -1 for {@code null}, followed by the chars as
+ * UTF-16 code units (2 bytes each), so any {@link String} can be written without encoding it first.
+ */
+final class VarString {
+	private static final int LENGTH_LENGTH = 4;
+	private static final int NULL_LENGTH = -1;
+
+	private VarString() {
+	}
+
+	/**
+	 * @return the length of the field holding the given value
+	 */
+	static int encodedLength(final CharSequence value) {
+		return LENGTH_LENGTH + (null == value ? 0 : value.length() * 2);
+	}
+
+	/**
+	 * @param value value to write, {@code null} for none
+	 * @return the length of the field written
+	 */
+	static int put(final ByteBuffer buffer, final int index, final CharSequence value) {
+		if (null == value) {
+			buffer.putInt(index, NULL_LENGTH);
+			return LENGTH_LENGTH;
+		}
+		final int length = value.length();
+		buffer.putInt(index, length);
+		for (int i = 0; i < length; ++i)
+			buffer.putChar(index + LENGTH_LENGTH + i * 2, value.charAt(i));
+		return LENGTH_LENGTH + length * 2;
+	}
+
+	/**
+	 * @param limit index just past the last byte the field may reach
+	 * @return the length of the field at the given index
+	 * @throws IndexOutOfBoundsException if the field reaches past the limit
+	 */
+	static int encodedLength(final ByteBuffer buffer, final int index, final int limit) {
+		if (index + LENGTH_LENGTH > limit)
+			throw new IndexOutOfBoundsException("text field at " + index + " exceeds limit " + limit);
+		final int length = buffer.getInt(index);
+		if (NULL_LENGTH == length)
+			return LENGTH_LENGTH;
+		if (length < 0 || length > (limit - index - LENGTH_LENGTH) / 2)
+			throw new IndexOutOfBoundsException("text field of " + length + " chars at " + index + " exceeds limit " + limit);
+		return LENGTH_LENGTH + length * 2;
+	}
+
+	/**
+	 * Allocates; the field must have been checked with {@link #encodedLength(ByteBuffer, int, int)}.
+	 */
+	static String toString(final ByteBuffer buffer, final int index) {
+		final int length = buffer.getInt(index);
+		if (NULL_LENGTH == length)
+			return null;
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; ++i)
+			chars[i] = buffer.getChar(index + LENGTH_LENGTH + i * 2);
+		return new String(chars);
+	}
+}
@@ -0,0 +1,75 @@
+package alick.diginex.codec;
+
+import alick.diginex.entities.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ExecutionCodecTest {
+	@Test
+	public void fillRoundTrip() {
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+		final ExecutionReportEncoder encoder = new ExecutionReportEncoder().wrapAndApplyHeader(buffer, 0)
+				.clOrdId("sell-1").origClOrdId(null).orderId(1234567890123L).orderStatus(OrderStatus.PARTIAL_FILLLED)
+				.side(SELL).orderType(LIMIT)
+				.orderQty(120).price(35000)
+				.cumQty(100).leavesQty(20).avgPx(35000)
+				.lastQty(100).lastPx(35000)
+				.rejectReason(null);
+		assertThat("encoded length", encoder.encodedLength(), is(MessageHeader.messageLength(buffer, 0)));
+
+		final ExecutionReportDecoder decoder = new ExecutionReportDecoder().wrap(buffer, 0);
+		assertThat("clOrdId", decoder.clOrdId(), is("sell-1"));
+		assertThat("origClOrdId", decoder.origClOrdId(), nullValue());
+		assertThat("orderId", decoder.orderId(), is(1234567890123L));
+		assertThat("order status", decoder.orderStatus(), is(OrderStatus.PARTIAL_FILLLED));
+		assertThat("side", decoder.side(), is(SELL));
+		assertThat("order type", decoder.orderType(), is(LIMIT));
+		assertThat("order qty", decoder.orderQty(), is(120d));
+		assertThat("price", decoder.price(), is(35000d));
+		assertThat("cum qty", decoder.cumQty(), is(100d));
+		assertThat("leaves qty", decoder.leavesQty(), is(20d));
+		assertThat("avg px", decoder.avgPx(), is(35000d));
+		assertThat("last qty", decoder.lastQty(), is(100d));
+		assertThat("last px", decoder.lastPx(), is(35000d));
+		assertThat("reject reason", decoder.rejectReason(), nullValue());
+	}
+
+	@Test
+	public void rejectRoundTrip() {
+		final String longReason = "this reject reason is far longer than the fixed field allows";
+		final ByteBuffer buffer = ByteBuffer.allocate(256);
+		new ExecutionReportEncoder().wrapAndApplyHeader(buffer, 0)
+				.clOrdId("sell-1").origClOrdId("sell-0").orderId(1L).orderStatus(OrderStatus.REJECTED)
+				.side(SELL).orderType(LIMIT)
+				.orderQty(120).price(35000)
+				.cumQty(0).leavesQty(0).avgPx(0)
+				.lastQty(Double.NaN).lastPx(Double.NaN)
+				.rejectReason(longReason);
+
+		final ExecutionReportDecoder decoder = new ExecutionReportDecoder().wrap(buffer, 0);
+		assertThat("origClOrdId", decoder.origClOrdId(), is("sell-0"));
+		assertThat("order status", decoder.orderStatus(), is(OrderStatus.REJECTED));
+		assertThat("last qty of non-fill", decoder.lastQty(), notANumber());
+		assertThat("last px of non-fill", decoder.lastPx(), notANumber());
+		assertThat("reject reason is truncated", decoder.rejectReason(), is(longReason.substring(0, Schema.REJECT_REASON_LENGTH)));
+	}
+
+	@Test
+	public void orderCancelRejectRoundTrip() {
+		final ByteBuffer buffer = ByteBuffer.allocate(128);
+		new OrderCancelRejectEncoder().wrapAndApplyHeader(buffer, 0)
+				.clOrdId("cancel-1").origClOrdId("orig-1").rejectReason("Unknown origClOrdId = orig-1");
+
+		assertThat("template ID", MessageHeader.templateId(buffer, 0), is(OrderCancelRejectDecoder.TEMPLATE_ID));
+		final OrderCancelRejectDecoder decoder = new OrderCancelRejectDecoder().wrap(buffer, 0);
+		assertThat("clOrdId", decoder.clOrdId(), is("cancel-1"));
+		assertThat("origClOrdId", decoder.origClOrdId(), is("orig-1"));
+		assertThat("reject reason", decoder.rejectReason(), is("Unknown origClOrdId = orig-1"));
+	}
+}
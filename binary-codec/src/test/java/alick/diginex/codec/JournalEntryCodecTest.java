@@ -0,0 +1,82 @@
+package alick.diginex.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.TimeInForce.IOC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JournalEntryCodecTest {
+	@Test
+	public void newOrderRoundTrip() {
+		final String clOrdId = "buy-" + new String(new char[40000]).replace('\0', '€');
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(JournalEntryEncoder.encodedLength(clOrdId, null, 0, 0));
+		final JournalEntryEncoder encoder = new JournalEntryEncoder().wrapAndApplyHeader(buffer, 0)
+				.entryType((byte) 1)
+				.sessionId(7).orderId(1234567890123L)
+				.side(BUY).orderType(LIMIT).timeInForce(IOC)
+				.quantity(10).price(35000)
+				.clOrdId(clOrdId).origClOrdId(null)
+				.levelCount(0).levelCount(0);
+		assertThat("encoded length", encoder.encodedLength(), is(buffer.capacity()));
+
+		final JournalEntryDecoder decoder = new JournalEntryDecoder().wrap(buffer, 0);
+		assertThat("decoded length", decoder.encodedLength(), is(buffer.capacity()));
+		assertThat("entry type", decoder.entryType(), is((byte) 1));
+		assertThat("session ID", decoder.sessionId(), is(7L));
+		assertThat("order ID", decoder.orderId(), is(1234567890123L));
+		assertThat("side", decoder.side(), is(BUY));
+		assertThat("order type", decoder.orderType(), is(LIMIT));
+		assertThat("time in force", decoder.timeInForce(), is(IOC));
+		assertThat("quantity", decoder.quantity(), is(10d));
+		assertThat("price", decoder.price(), is(35000d));
+		assertThat("clOrdId of any length and charset", decoder.clOrdId(), is(clOrdId));
+		assertThat("origClOrdId", decoder.origClOrdId(), nullValue());
+		assertThat("unused field", decoder.ownerId(), is(0L));
+		assertThat("no bids", decoder.bidCount(), is(0));
+		assertThat("no asks", decoder.askCount(), is(0));
+	}
+
+	@Test
+	public void reusedBufferAndLevels() {
+		final ByteBuffer buffer = ByteBuffer.allocate(512);
+		final JournalEntryEncoder encoder = new JournalEntryEncoder();
+		encoder.wrapAndApplyHeader(buffer, 0).entryType((byte) 1).side(BUY).orderId(99).clOrdId("first").origClOrdId(null).levelCount(0).levelCount(0);
+		encoder.wrapAndApplyHeader(buffer, 0)
+				.entryType((byte) 5)
+				.sessionId(3)
+				.clOrdId("q1").origClOrdId(null)
+				.levelCount(1).level(11, 34990d, 2)
+				.levelCount(2).level(12, 35010d, 3).level(13, 35020d, 4);
+
+		final JournalEntryDecoder decoder = new JournalEntryDecoder().wrap(buffer, 0);
+		assertThat("encoded length", decoder.encodedLength(), is(encoder.encodedLength()));
+		assertThat("fields of the previous entry cleared", decoder.side(), nullValue());
+		assertThat("order ID of the previous entry cleared", decoder.orderId(), is(0L));
+		assertThat("quote ID", decoder.clOrdId(), is("q1"));
+		assertThat("bids", decoder.bidCount(), is(1));
+		assertThat("bid order ID", decoder.bidOrderId(0), is(11L));
+		assertThat("bid price", decoder.bidPrice(0), is(34990d));
+		assertThat("bid quantity", decoder.bidQuantity(0), is(2d));
+		assertThat("asks", decoder.askCount(), is(2));
+		assertThat("second ask order ID", decoder.askOrderId(1), is(13L));
+		assertThat("second ask price", decoder.askPrice(1), is(35020d));
+		assertThat("second ask quantity", decoder.askQuantity(1), is(4d));
+		assertThrows(IndexOutOfBoundsException.class, () -> decoder.askPrice(2), "no such level");
+	}
+
+	@Test
+	public void truncatedEntry() {
+		final ByteBuffer buffer = ByteBuffer.allocate(256);
+		final JournalEntryEncoder encoder = new JournalEntryEncoder().wrapAndApplyHeader(buffer, 0)
+				.entryType((byte) 3).clOrdId("cancel-1").origClOrdId("buy-1").levelCount(0).levelCount(0);
+		buffer.limit(encoder.encodedLength() - 1);
+		assertThrows(IndexOutOfBoundsException.class, () -> new JournalEntryDecoder().wrap(buffer, 0), "last group cut short");
+		assertThrows(IndexOutOfBoundsException.class, () -> new JournalEntryEncoder().wrapAndApplyHeader(ByteBuffer.allocate(80), 0).clOrdId("does not fit"), "field past capacity");
+	}
+}
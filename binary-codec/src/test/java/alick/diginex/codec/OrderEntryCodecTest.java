@@ -0,0 +1,141 @@
+package alick.diginex.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.OrderType.MARKET;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static alick.diginex.entities.TimeInForce.DAY;
+import static alick.diginex.entities.TimeInForce.IOC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderEntryCodecTest {
+	private final AsciiSequence view = new AsciiSequence();
+
+	@Test
+	public void newOrderSingleRoundTripOnDirectBuffer() {
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+		final int offset = 13;
+		final NewOrderSingleEncoder encoder = new NewOrderSingleEncoder()
+				.wrapAndApplyHeader(buffer, offset)
+				.clOrdId("clOrdId-1")
+				.side(BUY)
+				.orderType(LIMIT)
+				.timeInForce(IOC)
+				.quantity(0.25)
+				.price(35000.5);
+		assertThat("encoded length", encoder.encodedLength(), is(MessageHeader.ENCODED_LENGTH + NewOrderSingleDecoder.BLOCK_LENGTH));
+		assertThat("buffer position untouched", buffer.position(), is(0));
+		assertThat("buffer byte order untouched", buffer.order(), is(ByteOrder.BIG_ENDIAN));
+
+		assertThat("header template ID", MessageHeader.templateId(buffer, offset), is(NewOrderSingleDecoder.TEMPLATE_ID));
+		assertThat("header block length", MessageHeader.blockLength(buffer, offset), is(NewOrderSingleDecoder.BLOCK_LENGTH));
+		assertThat("header schema ID", MessageHeader.schemaId(buffer, offset), is(Schema.SCHEMA_ID));
+		assertThat("header version", MessageHeader.version(buffer, offset), is(Schema.SCHEMA_VERSION));
+
+		final NewOrderSingleDecoder decoder = new NewOrderSingleDecoder().wrap(buffer, offset);
+		assertThat("clOrdId", decoder.clOrdId(), is("clOrdId-1"));
+		assertThat("clOrdId view", decoder.clOrdId(this.view).toString(), is("clOrdId-1"));
+		assertThat("clOrdId view length", decoder.clOrdId(this.view).length(), is(9));
+		assertThat("side", decoder.side(), is(BUY));
+		assertThat("order type", decoder.orderType(), is(LIMIT));
+		assertThat("time in force", decoder.timeInForce(), is(IOC));
+		assertThat("quantity", decoder.quantity(), is(0.25));
+		assertThat("price", decoder.price(), is(35000.5));
+	}
+
+	@Test
+	public void flyweightsAreReusedAcrossMessages() {
+		final ByteBuffer buffer = ByteBuffer.allocate(256);
+		final NewOrderSingleEncoder encoder = new NewOrderSingleEncoder();
+		encoder.wrapAndApplyHeader(buffer, 0).clOrdId("a-much-longer-id-12").side(BUY).orderType(LIMIT).quantity(1).price(2);
+		final int secondOffset = encoder.encodedLength();
+		encoder.wrapAndApplyHeader(buffer, secondOffset).clOrdId("short").side(SELL).orderType(MARKET).quantity(3).price(0);
+
+		final NewOrderSingleDecoder decoder = new NewOrderSingleDecoder();
+		assertThat("first clOrdId", decoder.wrap(buffer, 0).clOrdId(), is("a-much-longer-id-12"));
+		assertThat("first side", decoder.side(), is(BUY));
+		assertThat("second clOrdId", decoder.wrap(buffer, secondOffset).clOrdId(), is("short"));
+		assertThat("second side", decoder.side(), is(SELL));
+		assertThat("second order type", decoder.orderType(), is(MARKET));
+		assertThat("time in force not set", decoder.timeInForce(), is(DAY));
+		assertThat("second quantity", decoder.quantity(), is(3d));
+	}
+
+	@Test
+	public void callerByteOrderIsLeftAlone() {
+		final ByteBuffer buffer = ByteBuffer.allocate(128).order(ByteOrder.BIG_ENDIAN);
+		new NewOrderSingleEncoder().wrapAndApplyHeader(buffer, 0).clOrdId("id").side(BUY).orderType(LIMIT).quantity(1.5).price(2);
+		assertThat("byte order after encoding", buffer.order(), is(ByteOrder.BIG_ENDIAN));
+		assertThat("block length written little-endian", buffer.get(0) & 0xff, is(NewOrderSingleDecoder.BLOCK_LENGTH));
+		assertThat("quantity written little-endian", buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).getDouble(MessageHeader.ENCODED_LENGTH + 24), is(1.5));
+
+		// a header read by a big-endian caller, e.g. a framer, must not change how the decoder reads the body
+		assertThat("header template ID", MessageHeader.templateId(buffer, 0), is(NewOrderSingleDecoder.TEMPLATE_ID));
+		final NewOrderSingleDecoder decoder = new NewOrderSingleDecoder().wrap(buffer, 0);
+		assertThat("quantity", decoder.quantity(), is(1.5));
+		assertThat("byte order after decoding", buffer.order(), is(ByteOrder.BIG_ENDIAN));
+	}
+
+	@Test
+	public void amendRequestRoundTrip() {
+		final ByteBuffer buffer = ByteBuffer.allocate(128);
+		new OrderCancelReplaceRequestEncoder()
+				.wrapAndApplyHeader(buffer, 0)
+				.origClOrdId("orig-1")
+				.clOrdId("amend-1")
+				.side(SELL)
+				.orderType(LIMIT)
+				.quantity(10)
+				.price(36000);
+
+		final OrderCancelReplaceRequestDecoder decoder = new OrderCancelReplaceRequestDecoder().wrap(buffer, 0);
+		assertThat("origClOrdId", decoder.origClOrdId(), is("orig-1"));
+		assertThat("clOrdId", decoder.clOrdId(), is("amend-1"));
+		assertThat("side", decoder.side(), is(SELL));
+		assertThat("order type", decoder.orderType(), is(LIMIT));
+		assertThat("quantity", decoder.quantity(), is(10d));
+		assertThat("price", decoder.price(), is(36000d));
+	}
+
+	@Test
+	public void cancelRequestRoundTrip() {
+		final ByteBuffer buffer = ByteBuffer.allocate(128);
+		new OrderCancelRequestEncoder()
+				.wrapAndApplyHeader(buffer, 0)
+				.origClOrdId("orig-1")
+				.clOrdId("cancel-1");
+
+		final OrderCancelRequestDecoder decoder = new OrderCancelRequestDecoder().wrap(buffer, 0);
+		assertThat("origClOrdId", decoder.origClOrdId(), is("orig-1"));
+		assertThat("clOrdId", decoder.clOrdId(), is("cancel-1"));
+		assertThat("origClOrdId view compares as char sequence", "orig-1".contentEquals(decoder.origClOrdId(this.view)), is(true));
+	}
+
+	@Test
+	public void wrongTemplateIsRejected() {
+		final ByteBuffer buffer = ByteBuffer.allocate(128);
+		new OrderCancelRequestEncoder().wrapAndApplyHeader(buffer, 0).origClOrdId("orig-1").clOrdId("cancel-1");
+
+		assertThrows(IllegalArgumentException.class, () -> new NewOrderSingleDecoder().wrap(buffer, 0), "decoding a cancel as a new order");
+	}
+
+	@Test
+	public void clOrdIdTooLongIsRejected() {
+		final ByteBuffer buffer = ByteBuffer.allocate(128);
+		final NewOrderSingleEncoder encoder = new NewOrderSingleEncoder().wrapAndApplyHeader(buffer, 0);
+		assertThrows(IllegalArgumentException.class, () -> encoder.clOrdId("this-clOrdId-is-way-too-long"), "clOrdId longer than field");
+	}
+
+	@Test
+	public void messageMustFitInBuffer() {
+		final ByteBuffer buffer = ByteBuffer.allocate(40);
+		assertThrows(IndexOutOfBoundsException.class, () -> new NewOrderSingleEncoder().wrapAndApplyHeader(buffer, 0), "buffer too small");
+	}
+}
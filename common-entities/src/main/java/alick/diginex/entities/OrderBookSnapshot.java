@@ -2,6 +2,7 @@ package alick.diginex.entities;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -99,6 +100,44 @@ public class OrderBookSnapshot {
 		return askLimitQueue;
 	}
 
+	/**
+	 * A snapshot of only the best price levels of each side of this one, down to whichever limit is reached first;
+	 * levels without orders are skipped. The cost is proportional to the levels included. The market order queues are
+	 * shared with this snapshot.
+	 *
+	 * @param maxLevels      maximum number of price levels with orders per side
+	 * @param quantityCutOff stop after the level at which the quantity summed from the best price reaches this;
+	 *                       {@link Double#POSITIVE_INFINITY} for no cut-off
+	 * @throws IllegalArgumentException if either limit is not positive
+	 */
+	public OrderBookSnapshot limitDepth(final int maxLevels, final double quantityCutOff) {
+		if (maxLevels <= 0)
+			throw new IllegalArgumentException("max levels must be positive: " + maxLevels);
+		if (!(quantityCutOff > 0))
+			throw new IllegalArgumentException("quantity cut-off must be positive: " + quantityCutOff);
+		return new OrderBookSnapshot(
+				this.bidMarketQueue, this.askMarketQueue,
+				limitDepth(this.bidLimitQueue, maxLevels, quantityCutOff),
+				limitDepth(this.askLimitQueue, maxLevels, quantityCutOff));
+	}
+
+	private static LinkedHashMap<Double, List<OrderOpenQty>> limitDepth(
+			final LinkedHashMap<Double, List<OrderOpenQty>> limitQueue,
+			final int maxLevels, final double quantityCutOff) {
+		final LinkedHashMap<Double, List<OrderOpenQty>> limited = new LinkedHashMap<>();
+		double cumulativeQuantity = 0;
+		for (final Map.Entry<Double, List<OrderOpenQty>> level : limitQueue.entrySet()) {
+			if (limited.size() >= maxLevels || cumulativeQuantity >= quantityCutOff)
+				break;
+			if (level.getValue().isEmpty())
+				continue;
+			limited.put(level.getKey(), level.getValue());
+			for (final OrderOpenQty order : level.getValue())
+				cumulativeQuantity += order.getOpenQty();
+		}
+		return limited;
+	}
+
 	@Override
 	public String toString() {
 		return "OrderBookSnapshot{" +
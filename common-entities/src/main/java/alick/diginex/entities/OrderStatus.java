@@ -1,4 +1,4 @@
-package alick.diginex.matchingengine.entities;
+package alick.diginex.entities;
 
 /**
  * mimic FIX order state
@@ -0,0 +1,23 @@
+package alick.diginex.entities;
+
+/**
+ * mimic FIX time in force
+ */
+public enum TimeInForce {
+	/**
+	 * rest in the book until filled or cancelled
+	 */
+	DAY,
+	/**
+	 * immediate or cancel, fill what is available right away and cancel the rest
+	 */
+	IOC,
+	/**
+	 * fill or kill, fill the whole quantity right away or nothing at all
+	 */
+	FOK,
+	;
+	public static boolean isImmediate(TimeInForce timeInForce) {
+		return IOC == timeInForce || FOK == timeInForce;
+	}
+}
@@ -0,0 +1,50 @@
+package alick.diginex.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cheap wall clock in nanoseconds since the epoch, for timestamping trades on the matching thread.
+ *
+ * {@link System#currentTimeMillis()} only has millisecond resolution, and going through {@link java.time.Instant}
+ * allocates on every call. Instead, the wall clock is read once, and time is then carried forward with
+ * {@link System#nanoTime()}; the wall clock is read again every so often so the two do not drift apart. Readings never
+ * go backwards.
+ *
+ * Not thread safe; meant to be read from one thread.
+ */
+public final class EngineClock {
+	private static final long DEFAULT_RESYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final long resyncIntervalNanos;
+	private long baseEpochNanos;
+	private long baseNanoTime;
+	private long lastEpochNanos;
+
+	public EngineClock() {
+		this(DEFAULT_RESYNC_INTERVAL_NANOS);
+	}
+
+	//package accessible for testing
+	EngineClock(final long resyncIntervalNanos) {
+		this.resyncIntervalNanos = resyncIntervalNanos;
+		resync(System.nanoTime());
+	}
+
+	private void resync(final long nanoTime) {
+		this.baseEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+		this.baseNanoTime = nanoTime;
+	}
+
+	/**
+	 * @return nanoseconds since the epoch, never less than the previous reading
+	 */
+	public long epochNanos() {
+		final long nanoTime = System.nanoTime();
+		if (nanoTime - this.baseNanoTime > this.resyncIntervalNanos)
+			resync(nanoTime);
+		final long epochNanos = this.baseEpochNanos + (nanoTime - this.baseNanoTime);
+		if (epochNanos > this.lastEpochNanos)
+			this.lastEpochNanos = epochNanos;
+		return this.lastEpochNanos;
+	}
+}
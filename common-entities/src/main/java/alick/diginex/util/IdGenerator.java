@@ -10,6 +10,7 @@ import java.util.concurrent.TimeUnit;
  * ~0.1 ms on every call, and is a point of contention. Replace this with something better.
  */
 public final class IdGenerator {
+	private static final long COUNT_MASK = (1L << (64 - 1 - 22)) - 1;
 	private static final int DEFAULT_UPDATE_INTERVAL = (int) TimeUnit.MILLISECONDS.convert(10, TimeUnit.SECONDS);
 	private LocalDate referenceDate;
 	private long leadingBitMask;
@@ -43,6 +44,16 @@ public final class IdGenerator {
 		this.orderCount = 0;
 	}
 
+	/**
+	 * Make sure the IDs generated from now on come after the given one, e.g. one generated by another instance
+	 */
+	public void advancePast(final long id) {
+		synchronized(this) {
+			if ((id & ~COUNT_MASK) == leadingBitMask)
+				orderCount = Math.max(orderCount, id & COUNT_MASK);
+		}
+	}
+
 	public long getNextId() {
 		final long now = System.currentTimeMillis();
 		// do the reset only every 10 seconds? otherwise this can get expensive
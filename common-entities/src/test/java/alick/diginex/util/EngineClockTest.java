@@ -0,0 +1,27 @@
+package alick.diginex.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EngineClockTest {
+	@Test
+	public void followsWallClockWithoutGoingBack() throws InterruptedException {
+		// resync on nearly every reading, the wall clock stepping back a little must not show
+		final EngineClock clock = new EngineClock(1);
+		final long before = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+		long last = clock.epochNanos();
+		for (int i = 0; i < 100_000; ++i) {
+			final long now = clock.epochNanos();
+			assertThat("never goes back", now, greaterThanOrEqualTo(last));
+			last = now;
+		}
+		Thread.sleep(5);
+		final long after = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() + 1);
+		final long reading = clock.epochNanos();
+		assertThat("close to the wall clock", reading, allOf(greaterThanOrEqualTo(before), lessThanOrEqualTo(after)));
+	}
+}
@@ -50,4 +50,17 @@ public class IdGeneratorTest {
 
 		assertThat("date from ID", LocalDate.ofYearDay(year, dayOfYear), is(today));
 	}
+
+	@Test
+	public void advancePastIdOfAnotherGenerator() {
+		final LocalDate localDate = LocalDate.of(2000, 1, 1);
+		final IdGenerator primary = new IdGenerator(localDate, 100);
+		final IdGenerator replica = new IdGenerator(localDate, 100);
+		primary.getNextId();
+		final long lastId = primary.getNextId();
+		replica.advancePast(lastId);
+		assertThat("carries on after the other generator", replica.getNextId(), is(lastId + 1));
+		replica.advancePast(lastId - 1);
+		assertThat("never goes back", replica.getNextId(), is(lastId + 2));
+	}
 }
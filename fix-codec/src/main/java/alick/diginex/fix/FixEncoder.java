@@ -0,0 +1,261 @@
+package alick.diginex.fix;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static alick.diginex.fix.FixTags.*;
+
+/**
+ * A re-usable, allocation-free writer of FIX tag=value messages into a buffer.
+ * <p/>
+ * The body is written first, at a fixed distance after the given offset, leaving room for the BeginString and
+ * BodyLength fields; once the body length is known those are written right in front of the body, so the message
+ * starts at {@link #messageOffset()}, at most {@link #HEADER_RESERVE} bytes after the given offset. Numbers and the
+ * sending time are formatted straight into the buffer.
+ *
+ * Thread-safety: not thread-safe.
+ */
+public final class FixEncoder {
+	/**
+	 * Room reserved for {@code 8=FIX.4.4|9=NNNNNN|} in front of the body
+	 */
+	public static final int HEADER_RESERVE = 20;
+	private static final int MAX_BODY_LENGTH = 999_999;
+	private static final int DECIMAL_PLACES = 8;
+	private static final long DECIMAL_SCALE = 100_000_000L;
+	private static final double MAX_DECIMAL = Long.MAX_VALUE / (double) DECIMAL_SCALE;
+	private static final byte[] BEGIN_STRING_FIELD = ("8=" + BEGIN_STRING_FIX44 + "\u0001").getBytes(StandardCharsets.US_ASCII);
+
+	private final byte[] senderCompId;
+	private final byte[] targetCompId;
+
+	private ByteBuffer buffer;
+	private int bodyOffset;
+	private int position;
+	private int messageOffset;
+
+	/**
+	 * @param senderCompId SenderCompID(49) of all messages written
+	 * @param targetCompId TargetCompID(56) of all messages written
+	 */
+	public FixEncoder(final String senderCompId, final String targetCompId) {
+		this.senderCompId = toAscii(senderCompId);
+		this.targetCompId = toAscii(targetCompId);
+	}
+
+	private static byte[] toAscii(final String s) {
+		final byte[] bytes = new byte[s.length()];
+		for (int i = 0; i < bytes.length; ++i) {
+			final char c = s.charAt(i);
+			if (c > 127 || c == SOH)
+				throw new IllegalArgumentException("not a valid FIX value: " + s);
+			bytes[i] = (byte) c;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Start a new message, writing the MsgType and the standard header fields.
+	 *
+	 * @param buffer            buffer to write to
+	 * @param offset            offset to write at; the message itself starts at {@link #messageOffset()} once finished
+	 * @param msgType           MsgType(35)
+	 * @param msgSeqNum         MsgSeqNum(34)
+	 * @param sendingTimeMillis SendingTime(52), in epoch milliseconds
+	 * @return this encoder
+	 */
+	public FixEncoder begin(final ByteBuffer buffer, final int offset, final char msgType, final int msgSeqNum, final long sendingTimeMillis) {
+		this.buffer = buffer;
+		this.bodyOffset = offset + HEADER_RESERVE;
+		this.position = this.bodyOffset;
+		this.messageOffset = -1;
+		return putChar(MSG_TYPE, msgType)
+				.putBytes(SENDER_COMP_ID, this.senderCompId)
+				.putBytes(TARGET_COMP_ID, this.targetCompId)
+				.putLong(MSG_SEQ_NUM, msgSeqNum)
+				.putTimestamp(SENDING_TIME, sendingTimeMillis);
+	}
+
+	public FixEncoder putChar(final int tag, final char value) {
+		putTag(tag);
+		putByte((byte) value);
+		putByte(SOH);
+		return this;
+	}
+
+	public FixEncoder putLong(final int tag, final long value) {
+		putTag(tag);
+		putNumber(value);
+		putByte(SOH);
+		return this;
+	}
+
+	/**
+	 * Write a decimal with up to 8 decimal places, without trailing zeros
+	 *
+	 * @throws IllegalArgumentException if the value is not finite, or too large to be written with 8 decimal places
+	 */
+	public FixEncoder putDouble(final int tag, final double value) {
+		if (Double.isNaN(value) || Math.abs(value) >= MAX_DECIMAL)
+			throw new IllegalArgumentException("tag " + tag + " cannot be written as a decimal: " + value);
+		putTag(tag);
+		final long scaled = Math.round(Math.abs(value) * DECIMAL_SCALE);
+		if (value < 0 && scaled != 0)
+			putByte((byte) '-');
+		putNumber(scaled / DECIMAL_SCALE);
+		long fraction = scaled % DECIMAL_SCALE;
+		if (fraction != 0) {
+			int places = DECIMAL_PLACES;
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				--places;
+			}
+			putByte((byte) '.');
+			for (int i = places - 1; i >= 0; --i) {
+				this.buffer.put(this.position + i, (byte) ('0' + fraction % 10));
+				fraction /= 10;
+			}
+			this.position += places;
+		}
+		putByte(SOH);
+		return this;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value has a non-ASCII or SOH character
+	 */
+	public FixEncoder putChars(final int tag, final CharSequence value) {
+		putTag(tag);
+		for (int i = 0; i < value.length(); ++i) {
+			final char c = value.charAt(i);
+			if (c > 127 || c == SOH)
+				throw new IllegalArgumentException("tag " + tag + " has an invalid character at " + i);
+			putByte((byte) c);
+		}
+		putByte(SOH);
+		return this;
+	}
+
+	/**
+	 * Write a UTCTimestamp, {@code yyyyMMdd-HH:mm:ss.SSS}
+	 */
+	public FixEncoder putTimestamp(final int tag, final long epochMillis) {
+		putTag(tag);
+		final long epochDay = Math.floorDiv(epochMillis, 86_400_000L);
+		final int millisOfDay = (int) Math.floorMod(epochMillis, 86_400_000L);
+
+		// civil date from days since epoch, see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+		final long z = epochDay + 719_468;
+		final long era = Math.floorDiv(z, 146_097);
+		final long dayOfEra = z - era * 146_097;
+		final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146_096) / 365;
+		final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		final long mp = (5 * dayOfYear + 2) / 153;
+		final int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+		final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		final int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+		putDigits(year, 4);
+		putDigits(month, 2);
+		putDigits(day, 2);
+		putByte((byte) '-');
+		putDigits(millisOfDay / 3_600_000, 2);
+		putByte((byte) ':');
+		putDigits(millisOfDay / 60_000 % 60, 2);
+		putByte((byte) ':');
+		putDigits(millisOfDay / 1000 % 60, 2);
+		putByte((byte) '.');
+		putDigits(millisOfDay % 1000, 3);
+		putByte(SOH);
+		return this;
+	}
+
+	/**
+	 * Write a pre-encoded ASCII value, expected not to contain SOH
+	 */
+	public FixEncoder putBytes(final int tag, final byte[] value) {
+		putTag(tag);
+		for (final byte b : value)
+			putByte(b);
+		putByte(SOH);
+		return this;
+	}
+
+	/**
+	 * Complete the message, writing BeginString and BodyLength in front of the body, and the CheckSum after.
+	 *
+	 * @return the length of the message, which starts at {@link #messageOffset()}
+	 */
+	public int finish() {
+		final int bodyLength = this.position - this.bodyOffset;
+		if (bodyLength > MAX_BODY_LENGTH)
+			throw new IllegalArgumentException("body length " + bodyLength + " too long");
+
+		// 9=NNN| right in front of the body, then 8=FIX.4.4| in front of that
+		int start = this.bodyOffset;
+		this.buffer.put(--start, SOH);
+		int remaining = bodyLength;
+		do {
+			this.buffer.put(--start, (byte) ('0' + remaining % 10));
+			remaining /= 10;
+		}
+		while (remaining != 0);
+		this.buffer.put(--start, (byte) '=');
+		this.buffer.put(--start, (byte) '9');
+		for (int i = BEGIN_STRING_FIELD.length - 1; i >= 0; --i)
+			this.buffer.put(--start, BEGIN_STRING_FIELD[i]);
+		this.messageOffset = start;
+
+		int checksum = 0;
+		for (int i = start; i < this.position; ++i)
+			checksum += this.buffer.get(i) & 0xff;
+		putTag(CHECK_SUM);
+		putDigits(checksum & 0xff, 3);
+		putByte(SOH);
+		return this.position - this.messageOffset;
+	}
+
+	/**
+	 * @return the offset the last finished message starts at
+	 */
+	public int messageOffset() {
+		return this.messageOffset;
+	}
+
+	private void putTag(final int tag) {
+		putNumber(tag);
+		putByte((byte) '=');
+	}
+
+	private void putNumber(final long value) {
+		if (value < 0) {
+			if (value == Long.MIN_VALUE)
+				throw new IllegalArgumentException("cannot write " + value);
+			putByte((byte) '-');
+			putNumber(-value);
+			return;
+		}
+		int digits = 1;
+		for (long v = value / 10; v != 0; v /= 10)
+			++digits;
+		long v = value;
+		for (int i = digits - 1; i >= 0; --i) {
+			this.buffer.put(this.position + i, (byte) ('0' + v % 10));
+			v /= 10;
+		}
+		this.position += digits;
+	}
+
+	private void putDigits(final int value, final int width) {
+		int v = value;
+		for (int i = width - 1; i >= 0; --i) {
+			this.buffer.put(this.position + i, (byte) ('0' + v % 10));
+			v /= 10;
+		}
+		this.position += width;
+	}
+
+	private void putByte(final byte b) {
+		this.buffer.put(this.position++, b);
+	}
+}
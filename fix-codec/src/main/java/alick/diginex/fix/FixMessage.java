@@ -0,0 +1,321 @@
+package alick.diginex.fix;
+
+import alick.diginex.codec.AsciiSequence;
+
+import java.nio.ByteBuffer;
+
+import static alick.diginex.fix.FixTags.*;
+
+/**
+ * A re-usable, allocation-free parser of a single FIX tag=value message in a buffer.
+ * <p/>
+ * Parsing only records where each field lies; values are converted on access, straight from the bytes, so no
+ * {@link String} is created unless asked for. Repeating groups are not supported: for a repeated tag, the last
+ * occurrence wins.
+ *
+ * Thread-safety: not thread-safe.
+ */
+public final class FixMessage {
+	private static final int MAX_FIELDS = 128;
+	private static final int MAX_DIRECT_TAG = 1024;
+	private static final long[] POW10 = new long[19];
+
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; ++i)
+			POW10[i] = POW10[i - 1] * 10;
+	}
+
+	private ByteBuffer buffer;
+	private int offset;
+	private int length;
+	private int fieldCount;
+	private final int[] tags = new int[MAX_FIELDS];
+	private final int[] valueOffsets = new int[MAX_FIELDS];
+	private final int[] valueLengths = new int[MAX_FIELDS];
+	// tag -> 1 + index into the field arrays, for the tags in use by this subset
+	private final int[] fieldIndexByTag = new int[MAX_DIRECT_TAG];
+
+	/**
+	 * Find the length of the first complete message at the given offset, without parsing it.
+	 *
+	 * @param buffer buffer holding the message
+	 * @param offset offset of the message, expected to start with {@code 8=}
+	 * @param limit  end of the readable bytes
+	 * @return length of the complete message including the trailing checksum field, or -1 if the message is not complete yet
+	 * @throws IllegalArgumentException if the bytes do not start with the BeginString and BodyLength fields
+	 */
+	public static int frameLength(final ByteBuffer buffer, final int offset, final int limit) {
+		// 8=FIX.4.4|9=
+		int i = offset;
+		if (limit - i < 2)
+			return -1;
+		if (buffer.get(i) != '8' || buffer.get(i + 1) != '=')
+			throw new IllegalArgumentException("message at " + offset + " does not start with BeginString");
+		while (i < limit && buffer.get(i) != SOH)
+			++i;
+		++i;
+		if (limit - i < 2)
+			return -1;
+		if (buffer.get(i) != '9' || buffer.get(i + 1) != '=')
+			throw new IllegalArgumentException("message at " + offset + " does not have BodyLength as the second field");
+		i += 2;
+		int bodyLength = 0;
+		while (i < limit && buffer.get(i) != SOH) {
+			final byte b = buffer.get(i++);
+			if (b < '0' || b > '9')
+				throw new IllegalArgumentException("invalid BodyLength in message at " + offset);
+			bodyLength = bodyLength * 10 + (b - '0');
+		}
+		if (i >= limit)
+			return -1;
+		// body, then 10=NNN|
+		final int end = i + 1 + bodyLength + 7;
+		return end <= limit ? end - offset : -1;
+	}
+
+	/**
+	 * Parse the complete message at the given position.
+	 *
+	 * @param buffer buffer holding the message; it is referenced, not copied, until the next call
+	 * @param offset offset of the message
+	 * @param length length of the message, see {@link #frameLength(ByteBuffer, int, int)}
+	 * @return this message
+	 * @throws IllegalArgumentException if the message is malformed, or its body length or checksum are wrong
+	 */
+	public FixMessage parse(final ByteBuffer buffer, final int offset, final int length) {
+		reset();
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+
+		final int end = offset + length;
+		int checksum = 0;
+		int checksumEnd = offset;
+		int i = offset;
+		while (i < end) {
+			final int fieldStart = i;
+			int tag = 0;
+			byte b;
+			while (i < end && (b = buffer.get(i)) != '=') {
+				if (b < '0' || b > '9')
+					throw new IllegalArgumentException("invalid tag at offset " + fieldStart);
+				tag = tag * 10 + (b - '0');
+				++i;
+			}
+			if (i == fieldStart || i >= end)
+				throw new IllegalArgumentException("invalid field at offset " + fieldStart);
+			final int valueOffset = ++i;
+			while (i < end && buffer.get(i) != SOH)
+				++i;
+			if (i >= end)
+				throw new IllegalArgumentException("field " + tag + " is not terminated");
+			addField(tag, valueOffset, i - valueOffset);
+			++i;
+			if (CHECK_SUM == tag)
+				break;
+			for (int c = fieldStart; c < i; ++c)
+				checksum += buffer.get(c) & 0xff;
+			checksumEnd = i;
+		}
+
+		if (this.fieldCount < 4 || BEGIN_STRING != this.tags[0] || BODY_LENGTH != this.tags[1] || MSG_TYPE != this.tags[2] || CHECK_SUM != this.tags[this.fieldCount - 1])
+			throw new IllegalArgumentException("message must start with BeginString, BodyLength, MsgType and end with CheckSum");
+		final int bodyStart = this.valueOffsets[1] + this.valueLengths[1] + 1;
+		if (getInt(BODY_LENGTH) != checksumEnd - bodyStart)
+			throw new IllegalArgumentException("BodyLength " + getInt(BODY_LENGTH) + " does not match actual body length " + (checksumEnd - bodyStart));
+		if (getInt(CHECK_SUM) != (checksum & 0xff))
+			throw new IllegalArgumentException("CheckSum " + getInt(CHECK_SUM) + " does not match computed " + (checksum & 0xff));
+		return this;
+	}
+
+	private void reset() {
+		for (int i = 0; i < this.fieldCount; ++i) {
+			final int tag = this.tags[i];
+			if (tag < MAX_DIRECT_TAG)
+				this.fieldIndexByTag[tag] = 0;
+		}
+		this.fieldCount = 0;
+	}
+
+	private void addField(final int tag, final int valueOffset, final int valueLength) {
+		if (this.fieldCount == MAX_FIELDS)
+			throw new IllegalArgumentException("message has more than " + MAX_FIELDS + " fields");
+		this.tags[this.fieldCount] = tag;
+		this.valueOffsets[this.fieldCount] = valueOffset;
+		this.valueLengths[this.fieldCount] = valueLength;
+		++this.fieldCount;
+		if (tag < MAX_DIRECT_TAG)
+			this.fieldIndexByTag[tag] = this.fieldCount;
+	}
+
+	private int indexOf(final int tag) {
+		if (tag < MAX_DIRECT_TAG)
+			return this.fieldIndexByTag[tag] - 1;
+		for (int i = this.fieldCount - 1; i >= 0; --i) {
+			if (this.tags[i] == tag)
+				return i;
+		}
+		return -1;
+	}
+
+	private int requireIndexOf(final int tag) {
+		final int index = indexOf(tag);
+		if (index < 0)
+			throw new IllegalArgumentException("required tag " + tag + " missing");
+		return index;
+	}
+
+	/**
+	 * @return the length of the parsed message
+	 */
+	public int length() {
+		return this.length;
+	}
+
+	public int offset() {
+		return this.offset;
+	}
+
+	public int fieldCount() {
+		return this.fieldCount;
+	}
+
+	public boolean hasField(final int tag) {
+		return indexOf(tag) >= 0;
+	}
+
+	/**
+	 * @return the MsgType(35) of the message
+	 * @throws IllegalArgumentException if the MsgType is longer than one character, see {@link #getChars(int, AsciiSequence)}
+	 */
+	public char msgType() {
+		return getChar(MSG_TYPE);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the tag is missing or its value is not a single character
+	 */
+	public char getChar(final int tag) {
+		final int index = requireIndexOf(tag);
+		if (1 != this.valueLengths[index])
+			throw new IllegalArgumentException("tag " + tag + " is not a single character");
+		return (char) this.buffer.get(this.valueOffsets[index]);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the tag is missing or its value is not an integer
+	 */
+	public int getInt(final int tag) {
+		final long value = getLong(tag);
+		if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+			throw new IllegalArgumentException("tag " + tag + " does not fit an int: " + value);
+		return (int) value;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the tag is missing or its value is not an integer
+	 */
+	public long getLong(final int tag) {
+		final int index = requireIndexOf(tag);
+		int i = this.valueOffsets[index];
+		final int end = i + this.valueLengths[index];
+		final boolean negative = i < end && this.buffer.get(i) == '-';
+		if (negative)
+			++i;
+		if (i == end)
+			throw new IllegalArgumentException("tag " + tag + " is not an integer");
+		long value = 0;
+		for (; i < end; ++i) {
+			final byte b = this.buffer.get(i);
+			if (b < '0' || b > '9')
+				throw new IllegalArgumentException("tag " + tag + " is not an integer");
+			value = value * 10 + (b - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the tag is missing or its value is not a decimal number
+	 */
+	public double getDouble(final int tag) {
+		final int index = requireIndexOf(tag);
+		int i = this.valueOffsets[index];
+		final int end = i + this.valueLengths[index];
+		final boolean negative = i < end && this.buffer.get(i) == '-';
+		if (negative)
+			++i;
+		long mantissa = 0;
+		int scale = -1;
+		int digits = 0;
+		for (; i < end; ++i) {
+			final byte b = this.buffer.get(i);
+			if (b == '.' && scale < 0) {
+				scale = 0;
+				continue;
+			}
+			if (b < '0' || b > '9' || digits == 18)
+				throw new IllegalArgumentException("tag " + tag + " is not a decimal number of at most 18 digits");
+			mantissa = mantissa * 10 + (b - '0');
+			++digits;
+			if (scale >= 0)
+				++scale;
+		}
+		if (0 == digits)
+			throw new IllegalArgumentException("tag " + tag + " is not a decimal number");
+		final double value = scale > 0 ? mantissa / (double) POW10[scale] : mantissa;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @param tag     tag of the field
+	 * @param ifAbsent value to return if the field is absent
+	 */
+	public double getDouble(final int tag, final double ifAbsent) {
+		return hasField(tag) ? getDouble(tag) : ifAbsent;
+	}
+
+	/**
+	 * @return a view over the value of the tag, valid until this message is parsed again or the buffer overwritten
+	 * @throws IllegalArgumentException if the tag is missing
+	 */
+	public AsciiSequence getChars(final int tag, final AsciiSequence view) {
+		final int index = requireIndexOf(tag);
+		return view.wrap(this.buffer, this.valueOffsets[index], this.valueLengths[index]);
+	}
+
+	/**
+	 * Allocates a {@link String}, and a view to read it through; prefer {@link #getString(int, AsciiSequence)} or
+	 * {@link #getChars(int, AsciiSequence)} on the hot path
+	 *
+	 * @return the value of the tag, or {@code null} if absent
+	 */
+	public String getString(final int tag) {
+		return getString(tag, new AsciiSequence());
+	}
+
+	/**
+	 * Allocates the {@link String} only
+	 *
+	 * @param view view to read the value through, re-wrapped by this call
+	 * @return the value of the tag, or {@code null} if absent
+	 */
+	public String getString(final int tag, final AsciiSequence view) {
+		return hasField(tag) ? getChars(tag, view).toString() : null;
+	}
+
+	/**
+	 * Allocates; for logging only
+	 */
+	@Override
+	public String toString() {
+		if (null == this.buffer)
+			return "FixMessage()";
+		final StringBuilder sb = new StringBuilder(this.length);
+		for (int i = this.offset; i < this.offset + this.length; ++i) {
+			final byte b = this.buffer.get(i);
+			sb.append(b == SOH ? '|' : (char) b);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,339 @@
+package alick.diginex.fix;
+
+import alick.diginex.codec.AsciiSequence;
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.ClientSession;
+import alick.diginex.matchingengine.MatchingEngine;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import alick.diginex.matchingengine.message.ResponseMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static alick.diginex.fix.FixTags.*;
+
+/**
+ * Maps FIX 4.4 NewOrderSingle (D), OrderCancelReplaceRequest (G) and OrderCancelRequest (F) onto the matching engine,
+ * and writes the responses back as ExecutionReport (8) and OrderCancelReject (9).
+ * <p/>
+ * Only the application messages are handled; logon, heartbeats and sequence number checks of the session layer are
+ * left to whatever owns the connection. Outbound messages are numbered by this adapter, one instance per session.
+ * <p/>
+ * Orders are entered on the {@link ClientSession} the adapter is bound to, so the session's orders can only be amended
+ * or cancelled through it; reports of its orders caused by other sessions are written by {@link #onOutbound(ByteBuffer)}.
+ *
+ * Thread-safety: not thread-safe, one instance per session.
+ */
+public final class FixOrderEntryAdapter {
+	private static final int MAX_MESSAGE_LENGTH = 1024;
+	// the MsgType of the request reports are written in response to, when there is none
+	private static final char NO_REQUEST = 0;
+
+	private final ClientSession session;
+	private final byte[] symbol;
+	private final FixEncoder encoder;
+	private final ByteBuffer scratch = ByteBuffer.allocate(MAX_MESSAGE_LENGTH);
+	private final AsciiSequence msgType = new AsciiSequence();
+	private final AsciiSequence origClOrdId = new AsciiSequence();
+	private final AsciiSequence clOrdId = new AsciiSequence();
+	private final ArrayList<ResponseMessage> queued = new ArrayList<>();
+	private int nextOutboundSeqNum = 1;
+	private long nextExecId = 1;
+
+	/**
+	 * @param matchingEngine the engine to route requests to
+	 * @param session        the session of the client on that engine, see {@link MatchingEngine#openSession(ClientSession.OutboundListener)}
+	 * @param senderCompId   SenderCompID(49) of the messages sent by the engine side
+	 * @param targetCompId   TargetCompID(56) of the messages sent by the engine side, i.e. the client
+	 */
+	public FixOrderEntryAdapter(final MatchingEngine matchingEngine, final ClientSession session, final String senderCompId, final String targetCompId) {
+		this.session = session;
+		this.symbol = matchingEngine.getInstrumentName().getBytes(StandardCharsets.US_ASCII);
+		this.encoder = new FixEncoder(senderCompId, targetCompId);
+	}
+
+	/**
+	 * Submit the request to the matching engine, blocking until it is processed, and write the responses, followed by
+	 * any reports queued on the session in the meantime, see {@link #onOutbound(ByteBuffer)}.
+	 *
+	 * @param request the parsed request
+	 * @param out     buffer to write the responses to, from its position onwards; the position is moved past them
+	 * @return number of messages written
+	 * @throws java.nio.BufferOverflowException if the responses do not fit in the remaining space of the buffer
+	 */
+	public int onMessage(final FixMessage request, final ByteBuffer out) throws InterruptedException {
+		final AsciiSequence msgTypeView = request.getChars(MSG_TYPE, this.msgType);
+		final char msgType = 1 == msgTypeView.length() ? msgTypeView.charAt(0) : 0;
+		final int written;
+		switch (msgType) {
+			case MSG_TYPE_NEW_ORDER_SINGLE:
+				written = onNewOrderSingle(request, out);
+				break;
+			case MSG_TYPE_ORDER_CANCEL_REPLACE_REQUEST:
+			case MSG_TYPE_ORDER_CANCEL_REQUEST:
+				written = onCancelOrReplace(msgType, request, out);
+				break;
+			default:
+				writeBusinessMessageReject(request, "unsupported MsgType", out);
+				written = 1;
+				break;
+		}
+		return written + onOutbound(out);
+	}
+
+	/**
+	 * Write the reports queued on the session by other sessions' requests, e.g. the fill of a resting order; to be
+	 * called whenever the session's {@link ClientSession.OutboundListener} is told about them.
+	 *
+	 * @param out buffer to write the reports to, from its position onwards; the position is moved past them
+	 * @return number of messages written
+	 * @throws java.nio.BufferOverflowException if the reports do not fit in the remaining space of the buffer
+	 */
+	public int onOutbound(final ByteBuffer out) {
+		final ArrayList<ResponseMessage> queued = this.queued;
+		queued.clear();
+		this.session.drainOutbound(queued);
+		return writeResponses(NO_REQUEST, queued, out);
+	}
+
+	private int onNewOrderSingle(final FixMessage request, final ByteBuffer out) throws InterruptedException {
+		// the order reports its ClOrdID back as a String, this is the only place one is materialized
+		final String clOrdId = request.getString(CL_ORD_ID, this.clOrdId);
+		final List<ResponseMessage> responses;
+		try {
+			if (null == clOrdId)
+				throw new IllegalArgumentException("required tag " + CL_ORD_ID + " missing");
+			final OrderType orderType = decodeOrderType(request.getChar(ORD_TYPE));
+			responses = this.session.submitNewOrderRequest(
+					clOrdId,
+					decodeSide(request.getChar(SIDE)), orderType,
+					request.getDouble(ORDER_QTY), request.getDouble(PRICE, 0d),
+					request.hasField(TIME_IN_FORCE) ? decodeTimeInForce(request.getChar(TIME_IN_FORCE)) : TimeInForce.DAY);
+		}
+		catch (RuntimeException e) {
+			writeRejectedNewOrder(clOrdId, request, e.getMessage(), out);
+			return 1;
+		}
+		return writeResponses(MSG_TYPE_NEW_ORDER_SINGLE, responses, out);
+	}
+
+	private int onCancelOrReplace(final char msgType, final FixMessage request, final ByteBuffer out) throws InterruptedException {
+		// OrigClOrdID is only looked up, a view over the request is enough
+		final AsciiSequence origClOrdId = request.hasField(ORIG_CL_ORD_ID) ? request.getChars(ORIG_CL_ORD_ID, this.origClOrdId) : null;
+		final String clOrdId = request.getString(CL_ORD_ID, this.clOrdId);
+		final List<ResponseMessage> responses;
+		try {
+			if (null == origClOrdId || null == clOrdId)
+				throw new IllegalArgumentException("required tag " + (null == clOrdId ? CL_ORD_ID : ORIG_CL_ORD_ID) + " missing");
+			if (MSG_TYPE_ORDER_CANCEL_REQUEST == msgType)
+				responses = this.session.submitCancelOrderRequest(origClOrdId, clOrdId);
+			else
+				responses = this.session.submitAmendOrderRequest(
+						origClOrdId, clOrdId,
+						decodeSide(request.getChar(SIDE)), decodeOrderType(request.getChar(ORD_TYPE)),
+						request.getDouble(ORDER_QTY), request.getDouble(PRICE, 0d));
+		}
+		catch (RuntimeException e) {
+			writeOrderCancelReject(msgType, clOrdId, origClOrdId, 0, ORD_STATUS_REJECTED, e.getMessage(), out);
+			return 1;
+		}
+		return writeResponses(msgType, responses, out);
+	}
+
+	private int writeResponses(final char requestMsgType, final List<ResponseMessage> responses, final ByteBuffer out) {
+		for (final ResponseMessage response : responses) {
+			switch (response.getMessageType()) {
+				case EXECUTION_REPORT: {
+					final ExecutionReport er = (ExecutionReport) response;
+					// FIX answers a failed cancel / replace with a cancel reject, not a rejected execution report
+					if ((MSG_TYPE_ORDER_CANCEL_REPLACE_REQUEST == requestMsgType || MSG_TYPE_ORDER_CANCEL_REQUEST == requestMsgType) && null != er.getRejectReason())
+						writeOrderCancelReject(requestMsgType, er.getClOrdId(), er.getOrigClOrdId(), er.getOrderId(), ordStatusOf(er), er.getRejectReason(), out);
+					else
+						writeExecutionReport(er, out);
+					break;
+				}
+				case ORDER_CANCEL_REJECT: {
+					final OrderCancelReject ocr = (OrderCancelReject) response;
+					writeOrderCancelReject(requestMsgType, ocr.getClOrdId(), ocr.getOrigClOrdId(), 0, ORD_STATUS_REJECTED, ocr.getRejectReason(), out);
+					break;
+				}
+				default:
+					throw new IllegalStateException("unexpected response " + response.getMessageType());
+			}
+		}
+		return responses.size();
+	}
+
+	private FixEncoder begin(final char msgType) {
+		this.scratch.clear();
+		return this.encoder.begin(this.scratch, 0, msgType, this.nextOutboundSeqNum++, System.currentTimeMillis());
+	}
+
+	private void flush(final ByteBuffer out) {
+		final int length = this.encoder.finish();
+		this.scratch.limit(this.encoder.messageOffset() + length).position(this.encoder.messageOffset());
+		out.put(this.scratch);
+	}
+
+	private void writeExecutionReport(final ExecutionReport er, final ByteBuffer out) {
+		final FixEncoder fix = begin(MSG_TYPE_EXECUTION_REPORT)
+				.putLong(ORDER_ID, er.getOrderId())
+				.putChars(CL_ORD_ID, er.getClOrdId());
+		if (null != er.getOrigClOrdId())
+			fix.putChars(ORIG_CL_ORD_ID, er.getOrigClOrdId());
+		fix.putLong(EXEC_ID, this.nextExecId++)
+				.putChar(EXEC_TYPE, execTypeOf(er))
+				.putChar(ORD_STATUS, ordStatusOf(er))
+				.putBytes(SYMBOL, this.symbol)
+				.putChar(SIDE, encode(er.getSide()))
+				.putChar(ORD_TYPE, encode(er.getOrderType()))
+				.putDouble(ORDER_QTY, er.getOrderQty());
+		if (OrderType.LIMIT == er.getOrderType())
+			fix.putDouble(PRICE, er.getPrice());
+		if (null != er.getLastQty()) {
+			fix.putDouble(LAST_QTY, er.getLastQty())
+					.putDouble(LAST_PX, er.getLastPx());
+		}
+		fix.putDouble(LEAVES_QTY, er.getLeavesQty())
+				.putDouble(CUM_QTY, er.getCumQty())
+				.putDouble(AVG_PX, er.getAvgPx())
+				.putTimestamp(TRANSACT_TIME, System.currentTimeMillis());
+		if (null != er.getRejectReason())
+			fix.putChars(TEXT, er.getRejectReason());
+		flush(out);
+	}
+
+	private void writeRejectedNewOrder(final String clOrdId, final FixMessage request, final String reason, final ByteBuffer out) {
+		final FixEncoder fix = begin(MSG_TYPE_EXECUTION_REPORT)
+				.putLong(ORDER_ID, 0)
+				.putChars(CL_ORD_ID, null != clOrdId ? clOrdId : "NONE")
+				.putLong(EXEC_ID, this.nextExecId++)
+				.putChar(EXEC_TYPE, EXEC_TYPE_REJECTED)
+				.putChar(ORD_STATUS, ORD_STATUS_REJECTED)
+				.putBytes(SYMBOL, this.symbol);
+		if (request.hasField(SIDE))
+			fix.putChar(SIDE, request.getChar(SIDE));
+		fix.putDouble(LEAVES_QTY, 0)
+				.putDouble(CUM_QTY, 0)
+				.putDouble(AVG_PX, 0)
+				.putTimestamp(TRANSACT_TIME, System.currentTimeMillis())
+				.putChars(TEXT, null != reason ? reason : "rejected");
+		flush(out);
+	}
+
+	private void writeOrderCancelReject(
+			final char requestMsgType,
+			final String clOrdId, final CharSequence origClOrdId,
+			final long orderId, final char ordStatus,
+			final String reason, final ByteBuffer out) {
+		final FixEncoder fix = begin(MSG_TYPE_ORDER_CANCEL_REJECT);
+		// OrderID is required, "NONE" if the order is unknown
+		if (0 != orderId)
+			fix.putLong(ORDER_ID, orderId);
+		else
+			fix.putChars(ORDER_ID, "NONE");
+		fix.putChars(CL_ORD_ID, null != clOrdId ? clOrdId : "NONE")
+				.putChars(ORIG_CL_ORD_ID, null != origClOrdId ? origClOrdId : "NONE")
+				.putChar(ORD_STATUS, ordStatus)
+				.putChar(CXL_REJ_RESPONSE_TO, MSG_TYPE_ORDER_CANCEL_REQUEST == requestMsgType ? CXL_REJ_RESPONSE_TO_CANCEL : CXL_REJ_RESPONSE_TO_REPLACE)
+				.putChars(TEXT, null != reason ? reason : "rejected");
+		flush(out);
+	}
+
+	private void writeBusinessMessageReject(final FixMessage request, final String reason, final ByteBuffer out) {
+		final FixEncoder fix = begin(MSG_TYPE_BUSINESS_MESSAGE_REJECT);
+		if (request.hasField(MSG_SEQ_NUM))
+			fix.putLong(REF_SEQ_NUM, request.getLong(MSG_SEQ_NUM));
+		fix.putChars(REF_MSG_TYPE, this.msgType)
+				.putLong(BUSINESS_REJECT_REASON, BUSINESS_REJECT_REASON_UNSUPPORTED_MESSAGE_TYPE)
+				.putChars(TEXT, reason);
+		flush(out);
+	}
+
+	private static char execTypeOf(final ExecutionReport er) {
+		if (null != er.getLastQty())
+			return EXEC_TYPE_TRADE;
+		switch (er.getOrderState()) {
+			case NEW:
+				return EXEC_TYPE_NEW;
+			case CANCELLED:
+				return EXEC_TYPE_CANCELED;
+			case REPLACED:
+				return EXEC_TYPE_REPLACED;
+			case REJECTED:
+				return EXEC_TYPE_REJECTED;
+			default:
+				return EXEC_TYPE_ORDER_STATUS;
+		}
+	}
+
+	private static char ordStatusOf(final ExecutionReport er) {
+		final OrderStatus orderStatus = er.getOrderState();
+		switch (orderStatus) {
+			case NEW:
+				return ORD_STATUS_NEW;
+			case PARTIAL_FILLLED:
+				return ORD_STATUS_PARTIALLY_FILLED;
+			case FILLED:
+				return ORD_STATUS_FILLED;
+			case CANCELLED:
+				return ORD_STATUS_CANCELED;
+			case REPLACED:
+				// replaced is an ExecType only, the order itself is still working
+				return er.getCumQty() > 0 ? ORD_STATUS_PARTIALLY_FILLED : ORD_STATUS_NEW;
+			case REJECTED:
+				return ORD_STATUS_REJECTED;
+			default:
+				throw new IllegalArgumentException("unknown order status " + orderStatus);
+		}
+	}
+
+	private static Side decodeSide(final char side) {
+		switch (side) {
+			case SIDE_BUY:
+				return Side.BUY;
+			case SIDE_SELL:
+				return Side.SELL;
+			default:
+				throw new IllegalArgumentException("unsupported Side " + side);
+		}
+	}
+
+	private static OrderType decodeOrderType(final char orderType) {
+		switch (orderType) {
+			case ORD_TYPE_MARKET:
+				return OrderType.MARKET;
+			case ORD_TYPE_LIMIT:
+				return OrderType.LIMIT;
+			default:
+				throw new IllegalArgumentException("unsupported OrdType " + orderType);
+		}
+	}
+
+	private static TimeInForce decodeTimeInForce(final char timeInForce) {
+		switch (timeInForce) {
+			case TIME_IN_FORCE_DAY:
+				return TimeInForce.DAY;
+			case TIME_IN_FORCE_IOC:
+				return TimeInForce.IOC;
+			case TIME_IN_FORCE_FOK:
+				return TimeInForce.FOK;
+			default:
+				throw new IllegalArgumentException("unsupported TimeInForce " + timeInForce);
+		}
+	}
+
+	private static char encode(final Side side) {
+		return Side.BUY == side ? SIDE_BUY : SIDE_SELL;
+	}
+
+	private static char encode(final OrderType orderType) {
+		return OrderType.MARKET == orderType ? ORD_TYPE_MARKET : ORD_TYPE_LIMIT;
+	}
+}
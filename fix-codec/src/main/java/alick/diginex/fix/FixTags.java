@@ -0,0 +1,80 @@
+package alick.diginex.fix;
+
+/**
+ * Tags and values of the FIX 4.4 subset spoken by the engine.
+ */
+public final class FixTags {
+	public static final byte SOH = 0x01;
+	public static final String BEGIN_STRING_FIX44 = "FIX.4.4";
+
+	public static final int AVG_PX = 6;
+	public static final int BEGIN_STRING = 8;
+	public static final int BODY_LENGTH = 9;
+	public static final int CHECK_SUM = 10;
+	public static final int CL_ORD_ID = 11;
+	public static final int CUM_QTY = 14;
+	public static final int EXEC_ID = 17;
+	public static final int LAST_PX = 31;
+	public static final int LAST_QTY = 32;
+	public static final int MSG_SEQ_NUM = 34;
+	public static final int MSG_TYPE = 35;
+	public static final int ORDER_ID = 37;
+	public static final int ORDER_QTY = 38;
+	public static final int ORD_STATUS = 39;
+	public static final int ORD_TYPE = 40;
+	public static final int ORIG_CL_ORD_ID = 41;
+	public static final int PRICE = 44;
+	public static final int REF_SEQ_NUM = 45;
+	public static final int SENDER_COMP_ID = 49;
+	public static final int SENDING_TIME = 52;
+	public static final int SIDE = 54;
+	public static final int SYMBOL = 55;
+	public static final int TIME_IN_FORCE = 59;
+	public static final int TARGET_COMP_ID = 56;
+	public static final int TEXT = 58;
+	public static final int TRANSACT_TIME = 60;
+	public static final int CXL_REJ_REASON = 102;
+	public static final int REF_MSG_TYPE = 372;
+	public static final int BUSINESS_REJECT_REASON = 380;
+	public static final int EXEC_TYPE = 150;
+	public static final int LEAVES_QTY = 151;
+	public static final int CXL_REJ_RESPONSE_TO = 434;
+
+	public static final char MSG_TYPE_EXECUTION_REPORT = '8';
+	public static final char MSG_TYPE_ORDER_CANCEL_REJECT = '9';
+	public static final char MSG_TYPE_NEW_ORDER_SINGLE = 'D';
+	public static final char MSG_TYPE_ORDER_CANCEL_REQUEST = 'F';
+	public static final char MSG_TYPE_ORDER_CANCEL_REPLACE_REQUEST = 'G';
+	public static final char MSG_TYPE_BUSINESS_MESSAGE_REJECT = 'j';
+
+	public static final char EXEC_TYPE_NEW = '0';
+	public static final char EXEC_TYPE_CANCELED = '4';
+	public static final char EXEC_TYPE_REPLACED = '5';
+	public static final char EXEC_TYPE_REJECTED = '8';
+	public static final char EXEC_TYPE_TRADE = 'F';
+	public static final char EXEC_TYPE_ORDER_STATUS = 'I';
+
+	public static final char ORD_STATUS_NEW = '0';
+	public static final char ORD_STATUS_PARTIALLY_FILLED = '1';
+	public static final char ORD_STATUS_FILLED = '2';
+	public static final char ORD_STATUS_CANCELED = '4';
+	public static final char ORD_STATUS_REJECTED = '8';
+
+	public static final char SIDE_BUY = '1';
+	public static final char SIDE_SELL = '2';
+
+	public static final char ORD_TYPE_MARKET = '1';
+	public static final char ORD_TYPE_LIMIT = '2';
+
+	public static final char TIME_IN_FORCE_DAY = '0';
+	public static final char TIME_IN_FORCE_IOC = '3';
+	public static final char TIME_IN_FORCE_FOK = '4';
+
+	public static final char CXL_REJ_RESPONSE_TO_CANCEL = '1';
+	public static final char CXL_REJ_RESPONSE_TO_REPLACE = '2';
+
+	public static final int BUSINESS_REJECT_REASON_UNSUPPORTED_MESSAGE_TYPE = 3;
+
+	private FixTags() {
+	}
+}
@@ -0,0 +1,65 @@
+package alick.diginex.fix;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import static alick.diginex.fix.FixTags.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FixEncoderTest {
+	private static String text(final ByteBuffer buffer, final int offset, final int length) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; ++i)
+			bytes[i] = buffer.get(offset + i);
+		return new String(bytes).replace((char) SOH, '|');
+	}
+
+	@Test
+	public void encodedMessageParsesBack() {
+		final ByteBuffer buffer = ByteBuffer.allocate(512);
+		final long sendingTime = Instant.parse("2024-02-29T23:59:58.007Z").toEpochMilli();
+		final FixEncoder encoder = new FixEncoder("ENGINE", "CLIENT");
+		final int length = encoder.begin(buffer, 0, MSG_TYPE_EXECUTION_REPORT, 42, sendingTime)
+				.putLong(ORDER_ID, 123456789L)
+				.putChars(CL_ORD_ID, "order-1")
+				.putDouble(PRICE, 35000.25)
+				.putDouble(AVG_PX, 0.1 + 0.2)
+				.putDouble(LAST_PX, -1.5)
+				.putDouble(CUM_QTY, 0)
+				.finish();
+
+		final ByteBuffer expected = FixMessageTest.message("35=8|49=ENGINE|56=CLIENT|34=42|52=20240229-23:59:58.007|37=123456789|11=order-1|44=35000.25|6=0.3|31=-1.5|14=0|");
+		assertThat("message starts within the reserved header space", encoder.messageOffset(), lessThanOrEqualTo(FixEncoder.HEADER_RESERVE));
+		assertThat("encoded message", text(buffer, encoder.messageOffset(), length), is(text(expected, 0, expected.capacity())));
+
+		final FixMessage msg = new FixMessage().parse(buffer, encoder.messageOffset(), length);
+		assertThat("orderId", msg.getLong(ORDER_ID), is(123456789L));
+		assertThat("price", msg.getDouble(PRICE), is(35000.25d));
+		assertThat("last px", msg.getDouble(LAST_PX), is(-1.5d));
+	}
+
+	@Test
+	public void timestampsBeforeEpochAndAtYearEnd() {
+		final ByteBuffer buffer = ByteBuffer.allocate(256);
+		final FixEncoder encoder = new FixEncoder("A", "B");
+		for (final String instant : new String[]{"1969-12-31T23:59:59.999Z", "2000-01-01T00:00:00Z", "2023-12-31T12:34:56.789Z"}) {
+			final Instant t = Instant.parse(instant);
+			final int length = encoder.begin(buffer, 0, '0', 1, t.toEpochMilli()).finish();
+			final String sendingTime = new FixMessage().parse(buffer, encoder.messageOffset(), length).getString(SENDING_TIME);
+			final String expected = instant.substring(0, 4) + instant.substring(5, 7) + instant.substring(8, 10) + "-" + instant.substring(11, 19) + "." + String.format("%03d", t.getNano() / 1_000_000);
+			assertThat("sending time of " + instant, sendingTime, is(expected));
+		}
+	}
+
+	@Test
+	public void rejectUnencodableValues() {
+		final FixEncoder encoder = new FixEncoder("A", "B").begin(ByteBuffer.allocate(256), 0, '0', 1, 0);
+		assertThrows(IllegalArgumentException.class, () -> encoder.putDouble(PRICE, Double.NaN));
+		assertThrows(IllegalArgumentException.class, () -> encoder.putDouble(PRICE, 1e12));
+		assertThrows(IllegalArgumentException.class, () -> encoder.putChars(TEXT, "a\u0001b"));
+	}
+}
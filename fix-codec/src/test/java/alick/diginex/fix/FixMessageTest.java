@@ -0,0 +1,88 @@
+package alick.diginex.fix;
+
+import alick.diginex.codec.AsciiSequence;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static alick.diginex.fix.FixTags.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FixMessageTest {
+	/**
+	 * Build a message with correct body length and checksum from a '|' delimited body, starting at MsgType
+	 */
+	static ByteBuffer message(final String body) {
+		final String soh = body.replace('|', (char) SOH);
+		final String head = "8=FIX.4.4\u00019=" + soh.length() + "\u0001";
+		int checksum = 0;
+		for (final char c : (head + soh).toCharArray())
+			checksum += c;
+		final String msg = head + soh + String.format("10=%03d\u0001", checksum & 0xff);
+		return ByteBuffer.wrap(msg.getBytes());
+	}
+
+	@Test
+	public void parseNewOrderSingle() {
+		final ByteBuffer buffer = message("35=D|49=CLIENT|56=ENGINE|34=7|52=20240101-10:00:00.000|11=order-1|54=1|40=2|38=12.5|44=35000.25|");
+		final FixMessage msg = new FixMessage().parse(buffer, 0, buffer.capacity());
+
+		assertThat("msg type", msg.msgType(), is(MSG_TYPE_NEW_ORDER_SINGLE));
+		assertThat("seq num", msg.getInt(MSG_SEQ_NUM), is(7));
+		assertThat("side", msg.getChar(SIDE), is(SIDE_BUY));
+		assertThat("order type", msg.getChar(ORD_TYPE), is(ORD_TYPE_LIMIT));
+		assertThat("quantity", msg.getDouble(ORDER_QTY), is(12.5d));
+		assertThat("price", msg.getDouble(PRICE), is(35000.25d));
+		assertThat("clOrdId", msg.getChars(CL_ORD_ID, new AsciiSequence()).toString(), is("order-1"));
+		assertThat("absent tag", msg.hasField(ORIG_CL_ORD_ID), is(false));
+		assertThat("default for absent tag", msg.getDouble(LAST_PX, -1d), is(-1d));
+		assertThat("length", msg.length(), is(buffer.capacity()));
+	}
+
+	@Test
+	public void reuseForwardsToNextMessage() {
+		final FixMessage msg = new FixMessage();
+		final ByteBuffer first = message("35=D|11=a|54=1|40=2|38=1|44=1|");
+		msg.parse(first, 0, first.capacity());
+		final ByteBuffer second = message("35=F|11=b|41=a|");
+		msg.parse(second, 0, second.capacity());
+
+		assertThat("msg type of second", msg.msgType(), is(MSG_TYPE_ORDER_CANCEL_REQUEST));
+		assertThat("fields of first message are gone", msg.hasField(PRICE), is(false));
+		assertThat("origClOrdId", msg.getString(ORIG_CL_ORD_ID), is("a"));
+	}
+
+	@Test
+	public void frameLengthFindsCompleteMessages() {
+		final ByteBuffer one = message("35=F|11=b|41=a|");
+		final int length = one.capacity();
+		final ByteBuffer two = ByteBuffer.allocate(length * 2);
+		two.put(one.duplicate()).put(one.duplicate());
+
+		assertThat("first message", FixMessage.frameLength(two, 0, two.capacity()), is(length));
+		assertThat("second message", FixMessage.frameLength(two, length, two.capacity()), is(length));
+		assertThat("partial message", FixMessage.frameLength(two, 0, length - 1), is(-1));
+		assertThat("partial header", FixMessage.frameLength(two, 0, 5), is(-1));
+		assertThrows(IllegalArgumentException.class, () -> FixMessage.frameLength(ByteBuffer.wrap("35=D\u0001".getBytes()), 0, 5));
+	}
+
+	@Test
+	public void rejectCorruptMessages() {
+		final FixMessage msg = new FixMessage();
+		final ByteBuffer good = message("35=F|11=b|41=a|");
+
+		final ByteBuffer badChecksum = ByteBuffer.wrap(good.array().clone());
+		badChecksum.put(badChecksum.capacity() - 2, (byte) (badChecksum.get(badChecksum.capacity() - 2) == '0' ? '1' : '0'));
+		assertThrows(IllegalArgumentException.class, () -> msg.parse(badChecksum, 0, badChecksum.capacity()), "bad checksum");
+
+		final ByteBuffer badBody = ByteBuffer.wrap(new String(good.array()).replace("41=a", "41=ab").getBytes());
+		assertThrows(IllegalArgumentException.class, () -> msg.parse(badBody, 0, badBody.capacity()), "bad body length");
+
+		final ByteBuffer notNumeric = message("35=D|11=a|54=1|40=2|38=1x|");
+		msg.parse(notNumeric, 0, notNumeric.capacity());
+		assertThrows(IllegalArgumentException.class, () -> msg.getDouble(ORDER_QTY), "not a number");
+		assertThrows(IllegalArgumentException.class, () -> msg.getChar(PRICE), "missing tag");
+	}
+}
@@ -0,0 +1,174 @@
+package alick.diginex.fix;
+
+import alick.diginex.matchingengine.ClientSession;
+import alick.diginex.matchingengine.MatchingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static alick.diginex.fix.FixTags.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FixOrderEntryAdapterTest {
+	private MatchingEngine matchingEngine;
+	private FixOrderEntryAdapter adapter;
+	private final FixMessage request = new FixMessage();
+	private final ByteBuffer out = ByteBuffer.allocate(8192);
+
+	@BeforeEach
+	public void setup() {
+		this.matchingEngine = new MatchingEngine("BTC/USD", 35000d);
+		this.matchingEngine.start();
+		this.adapter = new FixOrderEntryAdapter(this.matchingEngine, this.matchingEngine.openSession(session -> { }), "ENGINE", "CLIENT");
+	}
+
+	@AfterEach
+	public void teardown() {
+		this.matchingEngine.stop();
+		this.matchingEngine = null;
+	}
+
+	/**
+	 * Send the request and return the responses, each parsed into its own message
+	 */
+	private List<FixMessage> send(final String body) throws InterruptedException {
+		return send(this.adapter, body);
+	}
+
+	private List<FixMessage> send(final FixOrderEntryAdapter adapter, final String body) throws InterruptedException {
+		final ByteBuffer buffer = FixMessageTest.message(body);
+		this.out.clear();
+		return parse(adapter.onMessage(this.request.parse(buffer, 0, buffer.capacity()), this.out));
+	}
+
+	private List<FixMessage> parse(final int count) {
+		final List<FixMessage> responses = new ArrayList<>();
+		int offset = 0;
+		while (offset < this.out.position()) {
+			final int length = FixMessage.frameLength(this.out, offset, this.out.position());
+			responses.add(new FixMessage().parse(this.out, offset, length));
+			offset += length;
+		}
+		assertThat("number of messages reported", count, is(responses.size()));
+		return responses;
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void newOrderIsAcknowledgedAndFilled() throws InterruptedException {
+		final List<FixMessage> acks = send("35=D|49=CLIENT|56=ENGINE|34=1|11=sell-1|54=2|40=2|38=10|44=35100|");
+		assertThat("one ack", acks, hasSize(1));
+		final FixMessage ack = acks.get(0);
+		assertThat("ack msg type", ack.msgType(), is(MSG_TYPE_EXECUTION_REPORT));
+		assertThat("ack exec type", ack.getChar(EXEC_TYPE), is(EXEC_TYPE_NEW));
+		assertThat("ack ord status", ack.getChar(ORD_STATUS), is(ORD_STATUS_NEW));
+		assertThat("ack clOrdId", ack.getString(CL_ORD_ID), is("sell-1"));
+		assertThat("ack symbol", ack.getString(SYMBOL), is("BTC/USD"));
+		assertThat("ack leaves", ack.getDouble(LEAVES_QTY), is(10d));
+		assertThat("ack seq num", ack.getInt(MSG_SEQ_NUM), is(1));
+		assertThat("ack sender", ack.getString(SENDER_COMP_ID), is("ENGINE"));
+
+		final List<FixMessage> fills = send("35=D|49=CLIENT|56=ENGINE|34=2|11=buy-1|54=1|40=1|38=4|");
+		assertThat("ack and a fill for each side", fills, hasSize(3));
+		assertThat("market order ack", fills.get(0).getChar(EXEC_TYPE), is(EXEC_TYPE_NEW));
+		assertThat("market order has no price", fills.get(0).hasField(PRICE), is(false));
+		for (final FixMessage fill : fills.subList(1, 3)) {
+			assertThat("fill exec type", fill.getChar(EXEC_TYPE), is(EXEC_TYPE_TRADE));
+			assertThat("fill last qty", fill.getDouble(LAST_QTY), is(4d));
+			assertThat("fill last px", fill.getDouble(LAST_PX), is(35100d));
+		}
+		assertThat("buy side fully filled", fills.get(1).getChar(ORD_STATUS), is(ORD_STATUS_FILLED));
+		assertThat("sell side partially filled", fills.get(2).getChar(ORD_STATUS), is(ORD_STATUS_PARTIALLY_FILLED));
+		assertThat("exec IDs are unique", fills.get(1).getLong(EXEC_ID), not(fills.get(2).getLong(EXEC_ID)));
+		assertThat("outbound seq num keeps counting", fills.get(2).getInt(MSG_SEQ_NUM), is(4));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void immediateOrCancelResidualIsCancelled() throws InterruptedException {
+		send("35=D|11=sell-1|54=2|40=2|38=10|44=35100|");
+		final List<FixMessage> responses = send("35=D|11=buy-1|54=1|40=2|38=15|44=35100|59=3|");
+		assertThat("ack, a fill for each side, cancel", responses, hasSize(4));
+		final FixMessage cancelled = responses.get(3);
+		assertThat("cancel clOrdId", cancelled.getString(CL_ORD_ID), is("buy-1"));
+		assertThat("cancel exec type", cancelled.getChar(EXEC_TYPE), is(EXEC_TYPE_CANCELED));
+		assertThat("cancel cum qty", cancelled.getDouble(CUM_QTY), is(10d));
+		assertThat("cancel leaves qty", cancelled.getDouble(LEAVES_QTY), is(0d));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void replaceAndCancel() throws InterruptedException {
+		send("35=D|11=buy-1|54=1|40=2|38=10|44=34900|");
+
+		final FixMessage replaced = send("35=G|11=buy-2|41=buy-1|54=1|40=2|38=20|44=34950|").get(0);
+		assertThat("replace exec type", replaced.getChar(EXEC_TYPE), is(EXEC_TYPE_REPLACED));
+		assertThat("replaced order is still new", replaced.getChar(ORD_STATUS), is(ORD_STATUS_NEW));
+		assertThat("replace clOrdId", replaced.getString(CL_ORD_ID), is("buy-2"));
+		assertThat("replace origClOrdId", replaced.getString(ORIG_CL_ORD_ID), is("buy-1"));
+		assertThat("new price", replaced.getDouble(PRICE), is(34950d));
+
+		final FixMessage cancelled = send("35=F|11=buy-3|41=buy-2|54=1|").get(0);
+		assertThat("cancel exec type", cancelled.getChar(EXEC_TYPE), is(EXEC_TYPE_CANCELED));
+		assertThat("cancel ord status", cancelled.getChar(ORD_STATUS), is(ORD_STATUS_CANCELED));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void rejects() throws InterruptedException {
+		final FixMessage unknownOrder = send("35=F|11=c-1|41=nope|").get(0);
+		assertThat("unknown order msg type", unknownOrder.msgType(), is(MSG_TYPE_ORDER_CANCEL_REJECT));
+		assertThat("unknown order response to", unknownOrder.getChar(CXL_REJ_RESPONSE_TO), is(CXL_REJ_RESPONSE_TO_CANCEL));
+		assertThat("unknown order ID", unknownOrder.getString(ORDER_ID), is("NONE"));
+		assertThat("unknown order text", unknownOrder.getString(TEXT), containsString("nope"));
+
+		send("35=D|11=buy-1|54=1|40=2|38=10|44=34900|");
+		final FixMessage badReplace = send("35=G|11=buy-2|41=buy-1|54=1|40=2|38=-5|44=34900|").get(0);
+		assertThat("bad replace msg type", badReplace.msgType(), is(MSG_TYPE_ORDER_CANCEL_REJECT));
+		assertThat("bad replace response to", badReplace.getChar(CXL_REJ_RESPONSE_TO), is(CXL_REJ_RESPONSE_TO_REPLACE));
+
+		final FixMessage badSide = send("35=D|11=buy-9|54=7|40=2|38=10|44=34900|").get(0);
+		assertThat("bad side msg type", badSide.msgType(), is(MSG_TYPE_EXECUTION_REPORT));
+		assertThat("bad side exec type", badSide.getChar(EXEC_TYPE), is(EXEC_TYPE_REJECTED));
+		assertThat("bad side text", badSide.getString(TEXT), containsString("Side"));
+
+		final FixMessage duplicate = send("35=D|11=buy-1|54=1|40=2|38=10|44=34900|").get(0);
+		assertThat("duplicate exec type", duplicate.getChar(EXEC_TYPE), is(EXEC_TYPE_REJECTED));
+
+		final FixMessage unsupported = send("35=AB|34=77|").get(0);
+		assertThat("unsupported msg type", unsupported.msgType(), is(MSG_TYPE_BUSINESS_MESSAGE_REJECT));
+		assertThat("unsupported ref seq num", unsupported.getInt(REF_SEQ_NUM), is(77));
+		assertThat("unsupported ref msg type", unsupported.getString(REF_MSG_TYPE), is("AB"));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void ordersAreScopedToTheSessionOfTheAdapter() throws InterruptedException {
+		final AtomicInteger notified = new AtomicInteger();
+		final ClientSession otherSession = this.matchingEngine.openSession(session -> notified.incrementAndGet());
+		final FixOrderEntryAdapter other = new FixOrderEntryAdapter(this.matchingEngine, otherSession, "ENGINE", "OTHER");
+		send(other, "35=D|11=sell-1|54=2|40=2|38=10|44=35100|");
+
+		final FixMessage foreignCancel = send("35=F|11=c-1|41=sell-1|").get(0);
+		assertThat("order of another session cannot be cancelled", foreignCancel.msgType(), is(MSG_TYPE_ORDER_CANCEL_REJECT));
+
+		final List<FixMessage> fills = send("35=D|11=buy-1|54=1|40=2|38=4|44=35100|");
+		assertThat("ack and own fill only", fills, hasSize(2));
+		assertThat("own fill", fills.get(1).getString(CL_ORD_ID), is("buy-1"));
+		assertThat("other session told about its fill", notified.get(), is(1));
+
+		this.out.clear();
+		final List<FixMessage> queued = parse(other.onOutbound(this.out));
+		assertThat("resting order's fill written by its own adapter", queued, hasSize(1));
+		assertThat("resting order's fill clOrdId", queued.get(0).getString(CL_ORD_ID), is("sell-1"));
+		assertThat("resting order's fill exec type", queued.get(0).getChar(EXEC_TYPE), is(EXEC_TYPE_TRADE));
+		assertThat("resting order's fill seq num", queued.get(0).getInt(MSG_SEQ_NUM), is(2));
+	}
+}
@@ -0,0 +1,211 @@
+package alick.diginex.gateway;
+
+import alick.diginex.codec.ExecutionReportEncoder;
+import alick.diginex.codec.OrderCancelRejectEncoder;
+import alick.diginex.matchingengine.ClientSession;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import alick.diginex.matchingengine.message.ResponseMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A TCP connection to the gateway.
+ * <p/>
+ * The inbound buffer is only touched by the selector thread. The outbound buffer is filled by the worker owning the
+ * session and drained by the selector thread, both under the session's monitor.
+ */
+final class GatewaySession {
+	private static final int INITIAL_OUTBOUND_CAPACITY = 64 * 1024;
+
+	private final SocketChannel channel;
+	private final int workerIndex;
+	private final int maxOutboundCapacity;
+	private SelectionKey selectionKey;
+
+	private final ByteBuffer inbound;
+	// in write mode, i.e. data between 0 and position is waiting to be sent
+	private ByteBuffer outbound = ByteBuffer.allocateDirect(INITIAL_OUTBOUND_CAPACITY);
+	private final ExecutionReportEncoder executionReportEncoder = new ExecutionReportEncoder();
+	private final OrderCancelRejectEncoder orderCancelRejectEncoder = new OrderCancelRejectEncoder();
+	private volatile boolean closed = false;
+	// set before the session is registered with the selector
+	private ClientSession clientSession;
+	// allocated by the matching engine along with the client session
+	private long sessionId;
+	private final AtomicBoolean outboundScheduled = new AtomicBoolean();
+	// at most one nudge of a session is queued at a time, see scheduleOutbound()
+	private final OrderEntryWorker.InboundMessage outboundNudge = new OrderEntryWorker.InboundMessage(this, null);
+
+	GatewaySession(final SocketChannel channel, final int workerIndex, final int inboundCapacity, final int maxOutboundCapacity) {
+		this.channel = channel;
+		this.workerIndex = workerIndex;
+		this.inbound = ByteBuffer.allocateDirect(inboundCapacity);
+		this.maxOutboundCapacity = Math.max(maxOutboundCapacity, INITIAL_OUTBOUND_CAPACITY);
+	}
+
+	long getSessionId() {
+		return sessionId;
+	}
+
+	ClientSession getClientSession() {
+		return clientSession;
+	}
+
+	void setClientSession(final ClientSession clientSession) {
+		this.clientSession = clientSession;
+		this.sessionId = clientSession.getSessionId();
+	}
+
+	/**
+	 * @return whether the worker is to be told about reports queued on the client session, i.e. it has not been told
+	 * since it last drained them
+	 */
+	boolean scheduleOutbound() {
+		return this.outboundScheduled.compareAndSet(false, true);
+	}
+
+	/**
+	 * @return the message telling the worker about reports queued on the client session
+	 */
+	OrderEntryWorker.InboundMessage getOutboundNudge() {
+		return outboundNudge;
+	}
+
+	void outboundDrained() {
+		this.outboundScheduled.set(false);
+	}
+
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	int getWorkerIndex() {
+		return workerIndex;
+	}
+
+	SelectionKey getSelectionKey() {
+		return selectionKey;
+	}
+
+	void setSelectionKey(final SelectionKey selectionKey) {
+		this.selectionKey = selectionKey;
+	}
+
+	ByteBuffer getInbound() {
+		return inbound;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Encode the responses to the back of the outbound buffer.
+	 *
+	 * @return the number of messages encoded; messages of an unsupported type are skipped
+	 * @throws IOException if the client is not reading fast enough and the outbound buffer is at its maximum capacity
+	 */
+	synchronized int encodeResponses(final List<ResponseMessage> responses) throws IOException {
+		int encoded = 0;
+		for (final ResponseMessage response : responses) {
+			if (response instanceof ExecutionReport) {
+				ensureOutboundCapacity(this.executionReportEncoder.encodedLength());
+				this.executionReportEncoder.wrapAndApplyHeader(this.outbound, this.outbound.position());
+				encode((ExecutionReport) response, this.executionReportEncoder);
+				this.outbound.position(this.outbound.position() + this.executionReportEncoder.encodedLength());
+				++encoded;
+			}
+			else if (response instanceof OrderCancelReject) {
+				ensureOutboundCapacity(this.orderCancelRejectEncoder.encodedLength());
+				this.orderCancelRejectEncoder.wrapAndApplyHeader(this.outbound, this.outbound.position());
+				encode((OrderCancelReject) response, this.orderCancelRejectEncoder);
+				this.outbound.position(this.outbound.position() + this.orderCancelRejectEncoder.encodedLength());
+				++encoded;
+			}
+			else {
+				System.out.printf("Session(%d): no encoding for response %s, dropped%n", this.sessionId, response.getMessageType());
+			}
+		}
+		return encoded;
+	}
+
+	private static void encode(final ExecutionReport er, final ExecutionReportEncoder encoder) {
+		encoder.clOrdId(er.getClOrdId())
+				.origClOrdId(er.getOrigClOrdId())
+				.orderId(er.getOrderId())
+				.orderStatus(er.getOrderState())
+				.side(er.getSide())
+				.orderType(er.getOrderType())
+				.orderQty(er.getOrderQty())
+				.price(er.getPrice())
+				.cumQty(er.getCumQty())
+				.leavesQty(er.getLeavesQty())
+				.avgPx(er.getAvgPx())
+				.lastQty(null != er.getLastQty() ? er.getLastQty() : Double.NaN)
+				.lastPx(null != er.getLastPx() ? er.getLastPx() : Double.NaN)
+				.rejectReason(er.getRejectReason());
+	}
+
+	private static void encode(final OrderCancelReject reject, final OrderCancelRejectEncoder encoder) {
+		encoder.clOrdId(reject.getClOrdId())
+				.origClOrdId(reject.getOrigClOrdId())
+				.rejectReason(reject.getRejectReason());
+	}
+
+	private void ensureOutboundCapacity(final int length) throws IOException {
+		if (this.outbound.remaining() >= length)
+			return;
+		final int required = this.outbound.position() + length;
+		if (required > this.maxOutboundCapacity)
+			throw new IOException("Session " + this.sessionId + " outbound buffer exceeds " + this.maxOutboundCapacity + " bytes, client is not reading");
+		final ByteBuffer grown = ByteBuffer.allocateDirect(Math.min(this.maxOutboundCapacity, Math.max(required, this.outbound.capacity() * 2)));
+		this.outbound.flip();
+		grown.put(this.outbound);
+		this.outbound = grown;
+	}
+
+	/**
+	 * Write as much of the outbound buffer as the socket takes.
+	 *
+	 * @return {@code true} if there is still data waiting to be written
+	 */
+	synchronized boolean writeOutbound() throws IOException {
+		this.outbound.flip();
+		try {
+			this.channel.write(this.outbound);
+		}
+		finally {
+			this.outbound.compact();
+		}
+		return this.outbound.position() > 0;
+	}
+
+	void close() {
+		this.closed = true;
+		if (null != this.clientSession)
+			this.clientSession.close();
+		if (null != this.selectionKey)
+			this.selectionKey.cancel();
+		try {
+			this.channel.close();
+		}
+		catch (IOException e) {
+			System.out.printf("Session(%d): error closing channel: %s%n", this.sessionId, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "GatewaySession(" +
+				"sessionId=" + sessionId +
+				", workerIndex=" + workerIndex +
+				", closed=" + closed +
+				')';
+	}
+}
@@ -0,0 +1,98 @@
+package alick.diginex.gateway;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput counters of the gateway.
+ * <p/>
+ * Messages per core is reported as messages per second of CPU time consumed by the gateway's own threads (selector
+ * and workers), which is what a core dedicated to the gateway would sustain; the matching engine's processing thread
+ * is not included.
+ *
+ * Thread-safety: thread-safe.
+ */
+public final class GatewayStats {
+	private final LongAdder messagesReceived = new LongAdder();
+	private final LongAdder messagesSent = new LongAdder();
+	private final LongAdder sessionsAccepted = new LongAdder();
+	private final long startNanos = System.nanoTime();
+	private final List<Thread> gatewayThreads;
+
+	GatewayStats(final List<Thread> gatewayThreads) {
+		this.gatewayThreads = gatewayThreads;
+	}
+
+	void messageReceived() {
+		this.messagesReceived.increment();
+	}
+
+	void messagesSent(final int count) {
+		this.messagesSent.add(count);
+	}
+
+	void sessionAccepted() {
+		this.sessionsAccepted.increment();
+	}
+
+	public long getMessagesReceived() {
+		return messagesReceived.sum();
+	}
+
+	public long getMessagesSent() {
+		return messagesSent.sum();
+	}
+
+	public long getSessionsAccepted() {
+		return sessionsAccepted.sum();
+	}
+
+	/**
+	 * @return inbound messages per second of wall-clock time since the gateway was created
+	 */
+	public double getMessagesPerSecond() {
+		final long elapsedNanos = System.nanoTime() - this.startNanos;
+		return getMessagesReceived() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * @return CPU time, in nanoseconds, consumed by the gateway threads; -1 if the JVM does not measure thread CPU time
+	 */
+	public long getCpuTimeNanos() {
+		final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (!threadMXBean.isThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled())
+			return -1;
+		long total = 0;
+		for (final Thread thread : this.gatewayThreads) {
+			final long cpuTime = threadMXBean.getThreadCpuTime(thread.getId());
+			if (cpuTime > 0)
+				total += cpuTime;
+		}
+		return total;
+	}
+
+	/**
+	 * @return inbound messages per second of CPU time consumed by the gateway threads, i.e. the sustained rate per
+	 * core; {@link Double#NaN} if the JVM does not measure thread CPU time
+	 */
+	public double getMessagesPerSecondPerCore() {
+		final long cpuTimeNanos = getCpuTimeNanos();
+		if (cpuTimeNanos <= 0)
+			return Double.NaN;
+		return getMessagesReceived() / (cpuTimeNanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	@Override
+	public String toString() {
+		return "GatewayStats(" +
+				"sessionsAccepted=" + getSessionsAccepted() +
+				", messagesReceived=" + getMessagesReceived() +
+				", messagesSent=" + getMessagesSent() +
+				", messagesPerSecond=" + getMessagesPerSecond() +
+				", messagesPerSecondPerCore=" + getMessagesPerSecondPerCore() +
+				')';
+	}
+}
@@ -0,0 +1,294 @@
+package alick.diginex.gateway;
+
+import alick.diginex.codec.MessageHeader;
+import alick.diginex.codec.NewOrderSingleDecoder;
+import alick.diginex.codec.OrderCancelReplaceRequestDecoder;
+import alick.diginex.codec.OrderCancelRequestDecoder;
+import alick.diginex.matchingengine.MatchingEngine;
+import alick.diginex.matchingengine.RateLimits;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Non-blocking TCP order entry gateway in front of a {@link MatchingEngine}.
+ * <p/>
+ * A single selector thread accepts connections, reads and frames the binary new / amend / cancel messages of all
+ * sessions, and writes the responses back. Decoded messages are handed to a fixed pool of workers, each session being
+ * pinned to one worker so its requests reach the engine in the order they were sent.
+ *
+ * Thread-safety: {@link #start()} and {@link #stop()} are to be called from the same thread.
+ */
+public class OrderEntryGateway {
+	private static final int DEFAULT_INBOUND_CAPACITY = 64 * 1024;
+	private static final int DEFAULT_MAX_OUTBOUND_CAPACITY = 16 * 1024 * 1024;
+	/**
+	 * No request is longer than this; anything claiming otherwise is a protocol error
+	 */
+	private static final int MAX_MESSAGE_LENGTH = 1024;
+
+	private final MatchingEngine matchingEngine;
+	private final InetSocketAddress bindAddress;
+	private final RateLimits sessionRateLimits;
+	private final OrderEntryWorker[] workers;
+	private final Thread[] workerThreads;
+	private final Thread selectorThread;
+	private final GatewayStats stats;
+
+	// sessions with responses waiting to be written, handed from the workers to the selector thread
+	private final ConcurrentLinkedQueue<GatewaySession> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	// sessions are pinned to the workers in turn
+	private long sessionsAccepted = 0;
+	// the gateway threads stop on this flag, an interrupt only wakes them up: the interrupted status is lost as soon as
+	// the thread prints to a System.out captured by the test runner, seen under surefire, and an interrupt landing in a
+	// channel read or write would close that channel
+	private volatile boolean running = false;
+
+	/**
+	 * @param matchingEngine matching engine to route requests to; must be started separately
+	 * @param bindAddress    address to listen on; port 0 to pick any free port, see {@link #getLocalAddress()}
+	 * @param workerCount    number of threads submitting requests into the matching engine
+	 */
+	public OrderEntryGateway(final MatchingEngine matchingEngine, final InetSocketAddress bindAddress, final int workerCount) {
+		this(matchingEngine, bindAddress, workerCount, RateLimits.UNLIMITED);
+	}
+
+	/**
+	 * @param sessionRateLimits limits on the rate of new orders, amends and cancels of each session
+	 * @see OrderEntryGateway#OrderEntryGateway(MatchingEngine, InetSocketAddress, int)
+	 */
+	public OrderEntryGateway(final MatchingEngine matchingEngine, final InetSocketAddress bindAddress, final int workerCount, final RateLimits sessionRateLimits) {
+		if (workerCount <= 0)
+			throw new IllegalArgumentException("worker count must be positive: " + workerCount);
+		this.matchingEngine = matchingEngine;
+		this.bindAddress = bindAddress;
+		this.sessionRateLimits = sessionRateLimits;
+
+		this.selectorThread = new Thread(this::runSelectorLoop, "Gateway-Selector");
+		this.workers = new OrderEntryWorker[workerCount];
+		this.workerThreads = new Thread[workerCount];
+		final List<Thread> gatewayThreads = new ArrayList<>(workerCount + 1);
+		gatewayThreads.add(this.selectorThread);
+		final GatewayStats gatewayStats = new GatewayStats(Collections.unmodifiableList(gatewayThreads));
+		for (int i = 0; i < workerCount; ++i) {
+			this.workers[i] = new OrderEntryWorker(this::requestWrite, gatewayStats, MAX_MESSAGE_LENGTH);
+			this.workerThreads[i] = new Thread(this.workers[i], "Gateway-Worker-" + i);
+			gatewayThreads.add(this.workerThreads[i]);
+		}
+		this.stats = gatewayStats;
+	}
+
+	/**
+	 * Bind the listening socket and start accepting sessions
+	 */
+	public void start() throws IOException {
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.configureBlocking(false);
+		this.serverChannel.bind(this.bindAddress);
+		this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+		System.out.printf("Starting gateway on %s for %s%n", getLocalAddress(), this.matchingEngine);
+		for (final Thread workerThread : this.workerThreads)
+			workerThread.start();
+		this.running = true;
+		this.selectorThread.start();
+	}
+
+	/**
+	 * Close all sessions and stop the gateway threads; returns once they have all exited
+	 */
+	public void stop() {
+		System.out.printf("Stopping gateway on %s%n", getLocalAddress());
+		this.running = false;
+		this.selector.wakeup();
+		for (int i = 0; i < this.workers.length; ++i) {
+			this.workers[i].stop();
+			this.workerThreads[i].interrupt();
+		}
+		try {
+			this.selectorThread.join();
+			for (final Thread workerThread : this.workerThreads)
+				workerThread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the address the gateway is listening on, or {@code null} if not started
+	 */
+	public InetSocketAddress getLocalAddress() {
+		try {
+			return null == this.serverChannel ? null : (InetSocketAddress) this.serverChannel.getLocalAddress();
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	public GatewayStats getStats() {
+		return stats;
+	}
+
+	private void requestWrite(final GatewaySession session) {
+		this.pendingWrites.add(session);
+		this.selector.wakeup();
+	}
+
+	// reports of the session's orders caused by other sessions are written by the worker of the session
+	private void scheduleOutbound(final GatewaySession session) {
+		if (session.scheduleOutbound())
+			this.workers[session.getWorkerIndex()].enqueue(session.getOutboundNudge());
+	}
+
+	private void runSelectorLoop() {
+		try {
+			while (this.running) {
+				this.selector.select();
+				processPendingWrites();
+				final Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					final SelectionKey key = it.next();
+					it.remove();
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					final GatewaySession session = (GatewaySession) key.attachment();
+					try {
+						if (key.isReadable())
+							read(session);
+						if (key.isValid() && key.isWritable())
+							write(session);
+					}
+					catch (IOException e) {
+						System.out.printf("Gateway: closing %s: %s%n", session, e.getMessage());
+						session.close();
+					}
+				}
+			}
+		}
+		catch (IOException | ClosedSelectorException e) {
+			System.out.printf("Gateway: selector failed: %s%n", e);
+		}
+		finally {
+			closeAll();
+		}
+		System.out.println(Thread.currentThread().getName() + " thread stopped. exit");
+	}
+
+	private void accept() throws IOException {
+		final SocketChannel channel = this.serverChannel.accept();
+		if (null == channel)
+			return;
+		final GatewaySession session = new GatewaySession(
+				channel, (int) (this.sessionsAccepted++ % this.workers.length),
+				DEFAULT_INBOUND_CAPACITY, DEFAULT_MAX_OUTBOUND_CAPACITY);
+		try {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			// the engine picks the session ID, so it cannot clash with an owner already known to the engine
+			session.setClientSession(this.matchingEngine.openSession(clientSession -> scheduleOutbound(session), this.sessionRateLimits));
+			session.setSelectionKey(channel.register(this.selector, SelectionKey.OP_READ, session));
+		}
+		catch (IOException | RuntimeException e) {
+			// only the new connection is dropped, the other sessions are still served
+			System.out.printf("Gateway: rejecting connection %s: %s%n", channel, e);
+			session.close();
+			return;
+		}
+		this.stats.sessionAccepted();
+		System.out.printf("Gateway: accepted %s from %s%n", session, channel.getRemoteAddress());
+	}
+
+	private void read(final GatewaySession session) throws IOException {
+		final ByteBuffer inbound = session.getInbound();
+		final int bytesRead = session.getChannel().read(inbound);
+		if (bytesRead < 0) {
+			System.out.printf("Gateway: %s disconnected%n", session);
+			session.close();
+			return;
+		}
+
+		// frame complete messages out of the buffer, leaving any partial message at the front for the next read
+		inbound.flip();
+		final int limit = inbound.limit();
+		while (inbound.remaining() >= MessageHeader.ENCODED_LENGTH) {
+			final int offset = inbound.position();
+			final int templateId = MessageHeader.templateId(inbound, offset);
+			final int messageLength = MessageHeader.messageLength(inbound, offset);
+			if (!isSupportedRequest(templateId) || messageLength > MAX_MESSAGE_LENGTH)
+				throw new IOException("protocol error, unsupported template ID " + templateId + " with length " + messageLength);
+			if (inbound.remaining() < messageLength)
+				break;
+			final OrderEntryWorker worker = this.workers[session.getWorkerIndex()];
+			final OrderEntryWorker.InboundMessage message = worker.claimFrame(session);
+			inbound.limit(offset + messageLength);
+			message.frame().put(inbound).flip();
+			inbound.limit(limit);
+			this.stats.messageReceived();
+			worker.enqueue(message);
+		}
+		inbound.compact();
+	}
+
+	private static boolean isSupportedRequest(final int templateId) {
+		return NewOrderSingleDecoder.TEMPLATE_ID == templateId
+				|| OrderCancelReplaceRequestDecoder.TEMPLATE_ID == templateId
+				|| OrderCancelRequestDecoder.TEMPLATE_ID == templateId;
+	}
+
+	private void processPendingWrites() {
+		GatewaySession session;
+		while (null != (session = this.pendingWrites.poll())) {
+			if (session.isClosed())
+				continue;
+			try {
+				write(session);
+			}
+			catch (IOException e) {
+				System.out.printf("Gateway: closing %s: %s%n", session, e.getMessage());
+				session.close();
+			}
+		}
+	}
+
+	private void write(final GatewaySession session) throws IOException {
+		final boolean moreToWrite = session.writeOutbound();
+		final SelectionKey key = session.getSelectionKey();
+		if (!key.isValid())
+			return;
+		// only ask to be told about writability while the socket is backed up
+		if (moreToWrite)
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		else
+			key.interestOps(SelectionKey.OP_READ);
+	}
+
+	private void closeAll() {
+		try {
+			for (final SelectionKey key : this.selector.keys()) {
+				if (key.attachment() instanceof GatewaySession)
+					((GatewaySession) key.attachment()).close();
+			}
+			this.serverChannel.close();
+			this.selector.close();
+		}
+		catch (IOException | ClosedSelectorException e) {
+			System.out.printf("Gateway: error while closing: %s%n", e);
+		}
+	}
+}
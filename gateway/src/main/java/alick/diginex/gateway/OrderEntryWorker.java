@@ -0,0 +1,203 @@
+package alick.diginex.gateway;
+
+import alick.diginex.codec.AsciiSequence;
+import alick.diginex.codec.MessageHeader;
+import alick.diginex.codec.NewOrderSingleDecoder;
+import alick.diginex.codec.OrderCancelReplaceRequestDecoder;
+import alick.diginex.codec.OrderCancelRequestDecoder;
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.matchingengine.ClientSession;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import alick.diginex.matchingengine.message.ResponseMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Routes decoded requests of the sessions assigned to it into the matching engine, and encodes the responses back.
+ * <p/>
+ * Every session is pinned to one worker, so requests of a session are submitted in the order they were received
+ * without a thread per connection.
+ */
+final class OrderEntryWorker implements Runnable {
+	/**
+	 * A complete inbound message, copied out of the session's inbound buffer by the selector thread into a frame slot
+	 * taken from the worker, see {@link #claimFrame(GatewaySession)}; or, without a frame, a nudge to write the reports
+	 * queued on the session by other sessions' requests, one per session, see {@link GatewaySession#getOutboundNudge()}
+	 */
+	static final class InboundMessage {
+		private GatewaySession session;
+		private final ByteBuffer frame;
+
+		InboundMessage(final GatewaySession session, final ByteBuffer frame) {
+			this.session = session;
+			this.frame = frame;
+		}
+
+		/**
+		 * @return the buffer to copy the message into, from index 0 and flipped; {@code null} for a nudge
+		 */
+		ByteBuffer frame() {
+			return frame;
+		}
+	}
+
+	/**
+	 * Notified once responses have been encoded into a session's outbound buffer
+	 */
+	@FunctionalInterface
+	interface WriteRequester {
+		void requestWrite(GatewaySession session);
+	}
+
+	/**
+	 * Frame slots kept for reuse beyond this many are left to the garbage collector
+	 */
+	private static final int MAX_FREE_FRAMES = 1024;
+
+	private final LinkedBlockingQueue<InboundMessage> inboundQueue = new LinkedBlockingQueue<>();
+	// frame slots handed to the selector thread and back, so the pool grows to the peak backlog of the worker and no
+	// further
+	private final ArrayBlockingQueue<InboundMessage> freeFrames = new ArrayBlockingQueue<>(MAX_FREE_FRAMES);
+	private final int maxMessageLength;
+	private final WriteRequester writeRequester;
+	private final GatewayStats stats;
+	// see OrderEntryGateway#running
+	private volatile boolean running = true;
+
+	// confined to the worker thread
+	private final NewOrderSingleDecoder newOrderSingleDecoder = new NewOrderSingleDecoder();
+	private final OrderCancelReplaceRequestDecoder cancelReplaceDecoder = new OrderCancelReplaceRequestDecoder();
+	private final OrderCancelRequestDecoder cancelDecoder = new OrderCancelRequestDecoder();
+	private final AsciiSequence origClOrdId = new AsciiSequence();
+	private final ArrayList<ResponseMessage> responses = new ArrayList<>();
+
+	OrderEntryWorker(final WriteRequester writeRequester, final GatewayStats stats, final int maxMessageLength) {
+		this.writeRequester = writeRequester;
+		this.stats = stats;
+		this.maxMessageLength = maxMessageLength;
+	}
+
+	/**
+	 * Only to be called from the selector thread
+	 *
+	 * @return a frame slot for a message of the session, to be filled and then {@link #enqueue(InboundMessage) enqueued}
+	 */
+	InboundMessage claimFrame(final GatewaySession session) {
+		InboundMessage message = this.freeFrames.poll();
+		if (null == message)
+			message = new InboundMessage(null, ByteBuffer.allocate(this.maxMessageLength));
+		message.session = session;
+		message.frame.clear();
+		return message;
+	}
+
+	void enqueue(final InboundMessage message) {
+		this.inboundQueue.add(message);
+	}
+
+	/**
+	 * Have the worker exit; its thread is then to be interrupted, to wake it up
+	 */
+	void stop() {
+		this.running = false;
+	}
+
+	@Override
+	public void run() {
+		while (this.running) {
+			try {
+				final InboundMessage message = this.inboundQueue.take();
+				try {
+					handle(message.session, message.frame);
+				}
+				finally {
+					if (null != message.frame) {
+						message.session = null;
+						this.freeFrames.offer(message);
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				// woken up by stop()
+			}
+		}
+		System.out.println(Thread.currentThread().getName() + " thread stopped. exit");
+	}
+
+	private void handle(final GatewaySession session, final ByteBuffer frame) throws InterruptedException {
+		if (session.isClosed())
+			return;
+		final ClientSession clientSession = session.getClientSession();
+		final ArrayList<ResponseMessage> responses = this.responses;
+		responses.clear();
+		if (null != frame)
+			responses.addAll(process(clientSession, frame));
+		else
+			session.outboundDrained();
+		clientSession.drainOutbound(responses);
+		if (responses.isEmpty())
+			return;
+		try {
+			this.stats.messagesSent(session.encodeResponses(responses));
+			this.writeRequester.requestWrite(session);
+		}
+		catch (IOException e) {
+			System.out.printf("%s: closing %s: %s%n", Thread.currentThread().getName(), session, e.getMessage());
+			session.close();
+		}
+	}
+
+	private List<ResponseMessage> process(final ClientSession clientSession, final ByteBuffer frame) throws InterruptedException {
+		final int templateId = MessageHeader.templateId(frame, 0);
+		switch (templateId) {
+			case NewOrderSingleDecoder.TEMPLATE_ID: {
+				final NewOrderSingleDecoder decoder = this.newOrderSingleDecoder.wrap(frame, 0);
+				final String clOrdId = decoder.clOrdId();
+				try {
+					return clientSession.submitNewOrderRequest(clOrdId, decoder.side(), decoder.orderType(), decoder.quantity(), decoder.price(), decoder.timeInForce());
+				}
+				catch (RuntimeException e) {
+					return singletonList(new ExecutionReport(
+							clOrdId, null, 0, OrderStatus.REJECTED,
+							decoder.side(), decoder.orderType(),
+							decoder.quantity(), decoder.price(),
+							0, 0, 0,
+							null, null,
+							e.getMessage()));
+				}
+			}
+			case OrderCancelReplaceRequestDecoder.TEMPLATE_ID: {
+				final OrderCancelReplaceRequestDecoder decoder = this.cancelReplaceDecoder.wrap(frame, 0);
+				final AsciiSequence origClOrdId = decoder.origClOrdId(this.origClOrdId);
+				final String clOrdId = decoder.clOrdId();
+				try {
+					return clientSession.submitAmendOrderRequest(origClOrdId, clOrdId, decoder.side(), decoder.orderType(), decoder.quantity(), decoder.price());
+				}
+				catch (RuntimeException e) {
+					return singletonList(new OrderCancelReject(clOrdId, origClOrdId.toString(), e.getMessage()));
+				}
+			}
+			case OrderCancelRequestDecoder.TEMPLATE_ID: {
+				final OrderCancelRequestDecoder decoder = this.cancelDecoder.wrap(frame, 0);
+				final AsciiSequence origClOrdId = decoder.origClOrdId(this.origClOrdId);
+				final String clOrdId = decoder.clOrdId();
+				try {
+					return clientSession.submitCancelOrderRequest(origClOrdId, clOrdId);
+				}
+				catch (RuntimeException e) {
+					return singletonList(new OrderCancelReject(clOrdId, origClOrdId.toString(), e.getMessage()));
+				}
+			}
+			default:
+				throw new IllegalStateException("unexpected template ID " + templateId + ", should have been rejected by the selector");
+		}
+	}
+}
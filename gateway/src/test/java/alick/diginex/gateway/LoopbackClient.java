@@ -0,0 +1,109 @@
+package alick.diginex.gateway;
+
+import alick.diginex.codec.*;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking test client speaking the binary protocol to a gateway over loopback
+ */
+final class LoopbackClient implements AutoCloseable {
+	private final SocketChannel channel;
+	private final ByteBuffer outbound = ByteBuffer.allocate(64 * 1024);
+	private final ByteBuffer inbound = ByteBuffer.allocate(64 * 1024);
+	private final NewOrderSingleEncoder newOrderEncoder = new NewOrderSingleEncoder();
+	private final OrderCancelReplaceRequestEncoder amendEncoder = new OrderCancelReplaceRequestEncoder();
+	private final OrderCancelRequestEncoder cancelEncoder = new OrderCancelRequestEncoder();
+	private final ExecutionReportDecoder executionReportDecoder = new ExecutionReportDecoder();
+	private final OrderCancelRejectDecoder orderCancelRejectDecoder = new OrderCancelRejectDecoder();
+
+	LoopbackClient(final InetSocketAddress address) throws IOException {
+		this.channel = SocketChannel.open(address);
+		this.channel.socket().setTcpNoDelay(true);
+		this.inbound.flip();
+	}
+
+	/**
+	 * Queue a new order; sent on {@link #flush()}
+	 */
+	LoopbackClient newOrder(final String clOrdId, final Side side, final OrderType orderType, final double quantity, final double price) {
+		return newOrder(clOrdId, side, orderType, quantity, price, TimeInForce.DAY);
+	}
+
+	LoopbackClient newOrder(final String clOrdId, final Side side, final OrderType orderType, final double quantity, final double price, final TimeInForce timeInForce) {
+		this.newOrderEncoder.wrapAndApplyHeader(this.outbound, this.outbound.position())
+				.clOrdId(clOrdId).side(side).orderType(orderType).timeInForce(timeInForce).quantity(quantity).price(price);
+		this.outbound.position(this.outbound.position() + this.newOrderEncoder.encodedLength());
+		return this;
+	}
+
+	LoopbackClient amend(final String origClOrdId, final String clOrdId, final Side side, final OrderType orderType, final double quantity, final double price) {
+		this.amendEncoder.wrapAndApplyHeader(this.outbound, this.outbound.position())
+				.origClOrdId(origClOrdId).clOrdId(clOrdId).side(side).orderType(orderType).quantity(quantity).price(price);
+		this.outbound.position(this.outbound.position() + this.amendEncoder.encodedLength());
+		return this;
+	}
+
+	LoopbackClient cancel(final String origClOrdId, final String clOrdId) {
+		this.cancelEncoder.wrapAndApplyHeader(this.outbound, this.outbound.position())
+				.origClOrdId(origClOrdId).clOrdId(clOrdId);
+		this.outbound.position(this.outbound.position() + this.cancelEncoder.encodedLength());
+		return this;
+	}
+
+	LoopbackClient flush() throws IOException {
+		this.outbound.flip();
+		while (this.outbound.hasRemaining())
+			this.channel.write(this.outbound);
+		this.outbound.clear();
+		return this;
+	}
+
+	/**
+	 * Block until the next message arrives
+	 *
+	 * @return the template ID of the message, to be decoded with {@link #executionReport()} or {@link #orderCancelReject()}
+	 */
+	int receive() throws IOException {
+		while (this.inbound.remaining() < MessageHeader.ENCODED_LENGTH || this.inbound.remaining() < MessageHeader.messageLength(this.inbound, this.inbound.position())) {
+			this.inbound.compact();
+			if (this.channel.read(this.inbound) < 0)
+				throw new EOFException("gateway closed the connection");
+			this.inbound.flip();
+		}
+		final int offset = this.inbound.position();
+		final int templateId = MessageHeader.templateId(this.inbound, offset);
+		if (ExecutionReportDecoder.TEMPLATE_ID == templateId)
+			this.executionReportDecoder.wrap(this.inbound, offset);
+		else if (OrderCancelRejectDecoder.TEMPLATE_ID == templateId)
+			this.orderCancelRejectDecoder.wrap(this.inbound, offset);
+		this.inbound.position(offset + MessageHeader.messageLength(this.inbound, offset));
+		return templateId;
+	}
+
+	/**
+	 * @return the decoder over the last received execution report; valid until the next {@link #receive()}
+	 */
+	ExecutionReportDecoder executionReport() {
+		return this.executionReportDecoder;
+	}
+
+	/**
+	 * @return the decoder over the last received order cancel reject; valid until the next {@link #receive()}
+	 */
+	OrderCancelRejectDecoder orderCancelReject() {
+		return this.orderCancelRejectDecoder;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+}
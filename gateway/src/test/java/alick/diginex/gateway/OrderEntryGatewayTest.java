@@ -0,0 +1,201 @@
+package alick.diginex.gateway;
+
+import alick.diginex.codec.ExecutionReportDecoder;
+import alick.diginex.codec.OrderCancelRejectDecoder;
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.EngineOptions;
+import alick.diginex.matchingengine.MatchingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static alick.diginex.entities.TimeInForce.IOC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OrderEntryGatewayTest {
+	private MatchingEngine matchingEngine;
+	private OrderEntryGateway gateway;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		// publish book views at a cadence, a full snapshot after every request would dominate the throughput measured
+		this.matchingEngine = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(100));
+		this.matchingEngine.start();
+		this.gateway = new OrderEntryGateway(this.matchingEngine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+		this.gateway.start();
+	}
+
+	@AfterEach
+	public void teardown() {
+		this.gateway.stop();
+		this.matchingEngine.stop();
+	}
+
+	@Test
+	@Timeout(value = 10)
+	public void newAmendCancelOverLoopback() throws IOException {
+		try (final LoopbackClient client = new LoopbackClient(this.gateway.getLocalAddress())) {
+			client.newOrder("buy-1", BUY, LIMIT, 100, 34900).flush();
+			assertThat("ack message type", client.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			final ExecutionReportDecoder ack = client.executionReport();
+			assertThat("ack clOrdId", ack.clOrdId(), is("buy-1"));
+			assertThat("ack status", ack.orderStatus(), is(OrderStatus.NEW));
+			assertThat("ack leaves qty", ack.leavesQty(), is(100d));
+			final long orderId = ack.orderId();
+
+			client.amend("buy-1", "buy-1a", BUY, LIMIT, 50, 34900).flush();
+			assertThat("amend message type", client.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			final ExecutionReportDecoder replaced = client.executionReport();
+			assertThat("amend clOrdId", replaced.clOrdId(), is("buy-1a"));
+			assertThat("amend origClOrdId", replaced.origClOrdId(), is("buy-1"));
+			assertThat("amend status", replaced.orderStatus(), is(OrderStatus.REPLACED));
+			assertThat("amend order qty", replaced.orderQty(), is(50d));
+			assertThat("amend order ID", replaced.orderId(), is(orderId));
+
+			client.cancel("buy-1a", "buy-1c").flush();
+			assertThat("cancel message type", client.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("cancel status", client.executionReport().orderStatus(), is(OrderStatus.CANCELLED));
+
+			client.cancel("unknown", "buy-1d").flush();
+			assertThat("cancel reject message type", client.receive(), is(OrderCancelRejectDecoder.TEMPLATE_ID));
+			assertThat("cancel reject clOrdId", client.orderCancelReject().clOrdId(), is("buy-1d"));
+			assertThat("cancel reject reason", client.orderCancelReject().rejectReason(), containsString("unknown"));
+		}
+		assertThat("messages received by gateway", this.gateway.getStats().getMessagesReceived(), is(4L));
+		assertThat("messages sent by gateway", this.gateway.getStats().getMessagesSent(), is(4L));
+	}
+
+	@Test
+	@Timeout(value = 10)
+	public void immediateOrCancelOverLoopback() throws IOException {
+		try (final LoopbackClient client = new LoopbackClient(this.gateway.getLocalAddress())) {
+			client.newOrder("ioc-1", BUY, LIMIT, 10, 34900, IOC).flush();
+			assertThat("ack message type", client.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("ack status", client.executionReport().orderStatus(), is(OrderStatus.NEW));
+			assertThat("nothing to trade against, rest cancelled", client.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("cancel clOrdId", client.executionReport().clOrdId(), is("ioc-1"));
+			assertThat("cancel status", client.executionReport().orderStatus(), is(OrderStatus.CANCELLED));
+		}
+		assertThat("nothing left on the book", this.matchingEngine.snapshotOrderBook().getBidLimitQueue().isEmpty(), is(true));
+	}
+
+	@Test
+	@Timeout(value = 10)
+	public void sessionsDoNotClashWithOwnersKnownToTheEngine() throws Exception {
+		// owners 1 and 2 are the IDs the first gateway sessions used to be given
+		this.matchingEngine.submitNewOrderRequest("sell-1", SELL, LIMIT, 10, 35000, TimeInForce.DAY, 1);
+		this.matchingEngine.submitNewOrderRequest("sell-2", SELL, LIMIT, 10, 35010, TimeInForce.DAY, 2);
+		try (final LoopbackClient first = new LoopbackClient(this.gateway.getLocalAddress());
+			 final LoopbackClient second = new LoopbackClient(this.gateway.getLocalAddress())) {
+			first.newOrder("buy-1", BUY, LIMIT, 10, 35000).flush();
+			assertThat("first ack", first.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("first ack status", first.executionReport().orderStatus(), is(OrderStatus.NEW));
+			assertThat("first fill", first.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("first fill status", first.executionReport().orderStatus(), is(OrderStatus.FILLED));
+
+			second.newOrder("buy-1", BUY, LIMIT, 10, 35010).flush();
+			assertThat("second ack", second.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("second ack status", second.executionReport().orderStatus(), is(OrderStatus.NEW));
+			assertThat("second fill", second.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("second fill status", second.executionReport().orderStatus(), is(OrderStatus.FILLED));
+		}
+		assertThat("sessions accepted", this.gateway.getStats().getSessionsAccepted(), is(2L));
+	}
+
+	@Test
+	@Timeout(value = 10)
+	public void stopReturnsOnceTheGatewayThreadsHaveExited() throws IOException {
+		try (final LoopbackClient client = new LoopbackClient(this.gateway.getLocalAddress())) {
+			client.newOrder("buy-1", BUY, LIMIT, 100, 34900).flush();
+			assertThat("ack message type", client.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			this.gateway.stop();
+			assertThat("gateway threads alive after stop", Thread.getAllStackTraces().keySet().stream()
+					.filter(thread -> thread.getName().startsWith("Gateway-"))
+					.filter(Thread::isAlive)
+					.count(), is(0L));
+		}
+	}
+
+	@Test
+	@Timeout(value = 10)
+	public void crossingOrdersFromTwoSessions() throws IOException {
+		try (final LoopbackClient buyer = new LoopbackClient(this.gateway.getLocalAddress());
+			 final LoopbackClient seller = new LoopbackClient(this.gateway.getLocalAddress())) {
+			buyer.newOrder("buy-1", BUY, LIMIT, 100, 35000).flush();
+			assertThat("buy ack", buyer.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+
+			seller.newOrder("sell-1", SELL, LIMIT, 100, 35000).flush();
+			assertThat("sell ack", seller.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("sell ack status", seller.executionReport().orderStatus(), is(OrderStatus.NEW));
+			// each session receives the fill of its own order
+			assertThat("sell fill message type", seller.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("sell fill clOrdId", seller.executionReport().clOrdId(), is("sell-1"));
+			assertThat("sell fill status", seller.executionReport().orderStatus(), is(OrderStatus.FILLED));
+			assertThat("sell fill last qty", seller.executionReport().lastQty(), is(100d));
+			assertThat("buy fill message type", buyer.receive(), is(ExecutionReportDecoder.TEMPLATE_ID));
+			assertThat("buy fill clOrdId", buyer.executionReport().clOrdId(), is("buy-1"));
+			assertThat("buy fill status", buyer.executionReport().orderStatus(), is(OrderStatus.FILLED));
+			assertThat("buy fill last px", buyer.executionReport().lastPx(), is(35000d));
+		}
+	}
+
+	@Test
+	@Timeout(value = 60)
+	public void sustainedThroughputFromManySessions() throws Exception {
+		final int sessionCount = 4;
+		final int ordersPerSession = 5_000;
+		final int batchSize = 100;
+		final ExecutorService clients = Executors.newFixedThreadPool(sessionCount);
+		try {
+			final List<Future<Integer>> acks = new ArrayList<>(sessionCount);
+			final long startNanos = System.nanoTime();
+			for (int s = 0; s < sessionCount; ++s) {
+				final int sessionIndex = s;
+				acks.add(clients.submit(() -> {
+					int acked = 0;
+					try (final LoopbackClient client = new LoopbackClient(this.gateway.getLocalAddress())) {
+						for (int i = 0; i < ordersPerSession; i += batchSize) {
+							// resting orders on both sides that never cross, one ack each
+							for (int j = i; j < i + batchSize; ++j)
+								client.newOrder("s" + sessionIndex + "-" + j, (j & 1) == 0 ? BUY : SELL, LIMIT, 1, (j & 1) == 0 ? 34000 - j % 50 : 36000 + j % 50);
+							client.flush();
+							for (int j = 0; j < batchSize; ++j) {
+								if (ExecutionReportDecoder.TEMPLATE_ID == client.receive() && OrderStatus.NEW == client.executionReport().orderStatus())
+									++acked;
+							}
+						}
+					}
+					return acked;
+				}));
+			}
+			int totalAcked = 0;
+			for (final Future<Integer> ack : acks)
+				totalAcked += ack.get();
+			final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+			final GatewayStats stats = this.gateway.getStats();
+			System.out.printf("Gateway throughput: %d messages over %d sessions in %.3fs => %.0f msg/s, %.0f msg/s per core%n",
+					stats.getMessagesReceived(), sessionCount, elapsedSeconds,
+					stats.getMessagesReceived() / elapsedSeconds, stats.getMessagesPerSecondPerCore());
+			assertThat("every order acknowledged", totalAcked, is(sessionCount * ordersPerSession));
+			assertThat("messages received", stats.getMessagesReceived(), is((long) sessionCount * ordersPerSession));
+			assertThat("sessions accepted", stats.getSessionsAccepted(), is((long) sessionCount));
+		}
+		finally {
+			clients.shutdownNow();
+		}
+	}
+}
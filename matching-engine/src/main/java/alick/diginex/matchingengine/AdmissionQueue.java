@@ -0,0 +1,98 @@
+package alick.diginex.matchingengine;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of the requests waiting for the order book processing thread, which decides what happens to a request
+ * arriving when it is full, instead of letting the backlog, and the latency of every request in it, grow without limit.
+ *
+ * Thread-safety: thread-safe; any number of submitters, one consumer.
+ *
+ * @param <T> type of the requests
+ */
+final class AdmissionQueue<T> {
+	/**
+	 * Reject reason of a request which was not admitted
+	 */
+	static final String OVERLOADED = "engine overloaded";
+	/**
+	 * How full the queue is, in percent, when low priority requests start being shed
+	 */
+	static final int SHED_THRESHOLD_PERCENT = 75;
+
+	private final ArrayBlockingQueue<T> queue;
+	private final int capacity;
+	private final int shedThreshold;
+	private final OverloadPolicy overloadPolicy;
+	private final AdmissionStats stats = new AdmissionStats(this);
+	// only ever goes up, racing submitters may each miss the other's depth by one
+	private volatile int maxDepth = 0;
+
+	/**
+	 * @param capacity most requests waiting at once
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	AdmissionQueue(final int capacity, final OverloadPolicy overloadPolicy) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.capacity = capacity;
+		this.shedThreshold = Math.max(1, (int) ((long) capacity * SHED_THRESHOLD_PERCENT / 100));
+		this.overloadPolicy = overloadPolicy;
+	}
+
+	OverloadPolicy getOverloadPolicy() {
+		return overloadPolicy;
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	int size() {
+		return this.queue.size();
+	}
+
+	int getMaxDepth() {
+		return maxDepth;
+	}
+
+	AdmissionStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Queue a request for processing, according to the overload policy.
+	 *
+	 * @param isLowPriority whether the request can be shed, e.g. a new order, as opposed to a cancel
+	 * @return {@code true} if the request was queued; {@code false} if it was turned away, and will never be processed
+	 */
+	boolean admit(final T request, final boolean isLowPriority) throws InterruptedException {
+		if (OverloadPolicy.SHED == this.overloadPolicy && isLowPriority && this.queue.size() >= this.shedThreshold) {
+			this.stats.shed();
+			return false;
+		}
+		if (!this.queue.offer(request)) {
+			if (OverloadPolicy.REJECT == this.overloadPolicy) {
+				this.stats.rejected();
+				return false;
+			}
+			this.stats.blocked();
+			this.queue.put(request);
+		}
+		this.stats.admitted();
+		final int depth = this.queue.size();
+		if (depth > this.maxDepth)
+			this.maxDepth = depth;
+		return true;
+	}
+
+	T take() throws InterruptedException {
+		return this.queue.take();
+	}
+
+	T poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return this.queue.poll(timeout, unit);
+	}
+}
@@ -0,0 +1,97 @@
+package alick.diginex.matchingengine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the admission of requests into the order submission queue of a {@link MatchingEngine}.
+ *
+ * Thread-safety: thread-safe.
+ */
+public final class AdmissionStats {
+	private final AdmissionQueue<?> admissionQueue;
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder blocked = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder shed = new LongAdder();
+
+	AdmissionStats(final AdmissionQueue<?> admissionQueue) {
+		this.admissionQueue = admissionQueue;
+	}
+
+	void admitted() {
+		this.admitted.increment();
+	}
+
+	void blocked() {
+		this.blocked.increment();
+	}
+
+	void rejected() {
+		this.rejected.increment();
+	}
+
+	void shed() {
+		this.shed.increment();
+	}
+
+	public OverloadPolicy getOverloadPolicy() {
+		return this.admissionQueue.getOverloadPolicy();
+	}
+
+	public int getCapacity() {
+		return this.admissionQueue.getCapacity();
+	}
+
+	/**
+	 * @return number of requests waiting to be processed right now
+	 */
+	public int getQueueDepth() {
+		return this.admissionQueue.size();
+	}
+
+	/**
+	 * @return the most requests ever waiting to be processed at once
+	 */
+	public int getMaxQueueDepth() {
+		return this.admissionQueue.getMaxDepth();
+	}
+
+	public long getAdmitted() {
+		return admitted.sum();
+	}
+
+	/**
+	 * @return number of requests which had to wait for room in the queue before being admitted
+	 */
+	public long getBlocked() {
+		return blocked.sum();
+	}
+
+	/**
+	 * @return number of requests turned away because the queue was full
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * @return number of low priority requests turned away because the queue was past its shedding threshold
+	 */
+	public long getShed() {
+		return shed.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "AdmissionStats(" +
+				"overloadPolicy=" + getOverloadPolicy() +
+				", capacity=" + getCapacity() +
+				", queueDepth=" + getQueueDepth() +
+				", maxQueueDepth=" + getMaxQueueDepth() +
+				", admitted=" + getAdmitted() +
+				", blocked=" + getBlocked() +
+				", rejected=" + getRejected() +
+				", shed=" + getShed() +
+				')';
+	}
+}
@@ -0,0 +1,79 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.entities.OrderBookSnapshot;
+import alick.diginex.entities.Side;
+import alick.diginex.orderbook.response.Level2Summary;
+
+/**
+ * An immutable, versioned view of the order book, published by the order book processing thread for readers to
+ * grab directly without going through the order submission queue.
+ * <p/>
+ * The snapshot and the grouped depths are shared between all readers of the same view, and must not be modified.
+ */
+public final class BookView {
+	private final long version;
+	private final long publishedAtNanos;
+	private final OrderBookSnapshot snapshot;
+	// by index of the grouping
+	private final double[] depthGroupings;
+	private final Level2Summary[] groupedBids;
+	private final Level2Summary[] groupedAsks;
+
+	BookView(
+			final long version, final long publishedAtNanos, final OrderBookSnapshot snapshot,
+			final double[] depthGroupings, final Level2Summary[] groupedBids, final Level2Summary[] groupedAsks) {
+		this.version = version;
+		this.publishedAtNanos = publishedAtNanos;
+		this.snapshot = snapshot;
+		this.depthGroupings = depthGroupings;
+		this.groupedBids = groupedBids;
+		this.groupedAsks = groupedAsks;
+	}
+
+	/**
+	 * @return the number of requests the order book had processed when this view was taken
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the {@link System#nanoTime()} at which this view was taken
+	 */
+	public long getPublishedAtNanos() {
+		return publishedAtNanos;
+	}
+
+	/**
+	 * @return how long ago this view was taken, in nanoseconds
+	 */
+	public long getAgeNanos() {
+		return System.nanoTime() - publishedAtNanos;
+	}
+
+	public OrderBookSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @param grouping size of the price groups, e.g. 10 for every 10 USD
+	 * @return one side of the book aggregated into price groups of the given size, best price first
+	 * @throws IllegalArgumentException if the depth is not kept in groups of that size
+	 */
+	public Level2Summary getGroupedDepth(final Side side, final double grouping) {
+		for (int i = 0; i < this.depthGroupings.length; ++i) {
+			if (this.depthGroupings[i] == grouping)
+				return Side.BUY == side ? this.groupedBids[i] : this.groupedAsks[i];
+		}
+		throw new IllegalArgumentException("no depth grouped by " + grouping);
+	}
+
+	@Override
+	public String toString() {
+		return "BookView(" +
+				"version=" + version +
+				", publishedAtNanos=" + publishedAtNanos +
+				", snapshot=" + snapshot +
+				')';
+	}
+}
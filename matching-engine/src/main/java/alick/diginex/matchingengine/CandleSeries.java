@@ -0,0 +1,253 @@
+package alick.diginex.matchingengine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * OHLCV bars of one interval, e.g. 1 minute, over the most recent trades, updated in place as trades come in and
+ * readable from any thread without locking or allocation.
+ * <p/>
+ * Bars are kept in a ring of fixed capacity, indexed by their open time, so the oldest bars are overwritten as time
+ * moves on. Intervals without trades have no bar. Each slot of the ring is guarded by its own sequence lock, so a reader
+ * only retries when the one bar it is reading is being written.
+ *
+ * Thread-safety: single writer at a time, any number of readers.
+ */
+public final class CandleSeries {
+	/**
+	 * Caller-owned holder for a consistent read of one bar; reuse the same instance to avoid allocation.
+	 */
+	public static final class Candle {
+		private long openTimeNanos;
+		private double open;
+		private double high;
+		private double low;
+		private double close;
+		private double volume;
+		private double notional;
+		private long tradeCount;
+
+		/**
+		 * @return start of the interval of the bar, in nanoseconds since the epoch
+		 */
+		public long getOpenTimeNanos() {
+			return openTimeNanos;
+		}
+
+		public double getOpen() {
+			return open;
+		}
+
+		public double getHigh() {
+			return high;
+		}
+
+		public double getLow() {
+			return low;
+		}
+
+		public double getClose() {
+			return close;
+		}
+
+		public double getVolume() {
+			return volume;
+		}
+
+		/**
+		 * @return volume weighted average price of the trades of the bar
+		 */
+		public double getVwap() {
+			return notional / volume;
+		}
+
+		public long getTradeCount() {
+			return tradeCount;
+		}
+
+		@Override
+		public String toString() {
+			return "Candle(" +
+					"openTimeNanos=" + openTimeNanos +
+					", open=" + open +
+					", high=" + high +
+					", low=" + low +
+					", close=" + close +
+					", volume=" + volume +
+					", vwap=" + getVwap() +
+					", tradeCount=" + tradeCount +
+					')';
+		}
+	}
+
+	// per slot: sequence, open time, times of the first and last trades, open, high, low, close, volume, notional,
+	// trade count; doubles are kept as their raw long bits
+	private static final int SEQUENCE = 0;
+	private static final int OPEN_TIME = 1;
+	private static final int FIRST_TRADE_TIME = 2;
+	private static final int LAST_TRADE_TIME = 3;
+	private static final int OPEN = 4;
+	private static final int HIGH = 5;
+	private static final int LOW = 6;
+	private static final int CLOSE = 7;
+	private static final int VOLUME = 8;
+	private static final int NOTIONAL = 9;
+	private static final int TRADE_COUNT = 10;
+	private static final int FIELDS = 11;
+	private static final long NO_BAR = Long.MIN_VALUE;
+
+	private final long intervalNanos;
+	private final int capacity;
+	private final AtomicLongArray bars;
+
+	/**
+	 * @param intervalNanos length of a bar
+	 * @param capacity      number of most recent intervals kept
+	 */
+	CandleSeries(final long intervalNanos, final int capacity) {
+		if (intervalNanos <= 0)
+			throw new IllegalArgumentException("interval must be positive: " + intervalNanos);
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		this.intervalNanos = intervalNanos;
+		this.capacity = capacity;
+		this.bars = new AtomicLongArray(capacity * FIELDS);
+		for (int slot = 0; slot < capacity; ++slot)
+			this.bars.set(slot * FIELDS + OPEN_TIME, NO_BAR);
+	}
+
+	public long getIntervalNanos() {
+		return intervalNanos;
+	}
+
+	/**
+	 * @return number of most recent intervals kept
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private long openTimeOf(final long timeNanos) {
+		return timeNanos - Math.floorMod(timeNanos, this.intervalNanos);
+	}
+
+	private int slotOf(final long openTimeNanos) {
+		return (int) Math.floorMod(Math.floorDiv(openTimeNanos, this.intervalNanos), (long) this.capacity);
+	}
+
+	/**
+	 * Add a trade to the bar of its interval; a trade older than the bars kept is dropped. Only to be called from one
+	 * writer at a time.
+	 */
+	void onTrade(final double quantity, final double price, final long transactTimeNanos) {
+		final long openTime = openTimeOf(transactTimeNanos);
+		final int base = slotOf(openTime) * FIELDS;
+		final AtomicLongArray b = this.bars;
+		final long barOpenTime = b.get(base + OPEN_TIME);
+		if (barOpenTime > openTime)
+			return;
+
+		final long seq = b.get(base + SEQUENCE);
+		b.set(base + SEQUENCE, seq + 1); // odd, write in progress
+		if (barOpenTime != openTime) {
+			b.set(base + OPEN_TIME, openTime);
+			b.set(base + FIRST_TRADE_TIME, transactTimeNanos);
+			b.set(base + LAST_TRADE_TIME, transactTimeNanos);
+			b.set(base + OPEN, Double.doubleToRawLongBits(price));
+			b.set(base + HIGH, Double.doubleToRawLongBits(price));
+			b.set(base + LOW, Double.doubleToRawLongBits(price));
+			b.set(base + CLOSE, Double.doubleToRawLongBits(price));
+			b.set(base + VOLUME, Double.doubleToRawLongBits(quantity));
+			b.set(base + NOTIONAL, Double.doubleToRawLongBits(quantity * price));
+			b.set(base + TRADE_COUNT, 1);
+		}
+		else {
+			// trades are recorded by the threads which submitted them, so one can come in before or after a later one
+			if (transactTimeNanos < b.get(base + FIRST_TRADE_TIME)) {
+				b.set(base + FIRST_TRADE_TIME, transactTimeNanos);
+				b.set(base + OPEN, Double.doubleToRawLongBits(price));
+			}
+			if (transactTimeNanos >= b.get(base + LAST_TRADE_TIME)) {
+				b.set(base + LAST_TRADE_TIME, transactTimeNanos);
+				b.set(base + CLOSE, Double.doubleToRawLongBits(price));
+			}
+			if (price > Double.longBitsToDouble(b.get(base + HIGH)))
+				b.set(base + HIGH, Double.doubleToRawLongBits(price));
+			if (price < Double.longBitsToDouble(b.get(base + LOW)))
+				b.set(base + LOW, Double.doubleToRawLongBits(price));
+			b.set(base + VOLUME, Double.doubleToRawLongBits(Double.longBitsToDouble(b.get(base + VOLUME)) + quantity));
+			b.set(base + NOTIONAL, Double.doubleToRawLongBits(Double.longBitsToDouble(b.get(base + NOTIONAL)) + quantity * price));
+			b.set(base + TRADE_COUNT, b.get(base + TRADE_COUNT) + 1);
+		}
+		b.set(base + SEQUENCE, seq + 2); // even, write complete
+	}
+
+	/**
+	 * Read the bar of the interval containing the given time, spinning while it is being written.
+	 *
+	 * @return whether there is such a bar; {@code false} if the interval had no trade, or is older than the bars kept
+	 */
+	public boolean read(final long timeNanos, final Candle target) {
+		final long openTime = openTimeOf(timeNanos);
+		return readSlot(slotOf(openTime) * FIELDS, openTime, target);
+	}
+
+	/**
+	 * Read the bars of the intervals overlapping the given time range, oldest first, skipping intervals without trades.
+	 * Only the most recent bars of the range are read if there are more than the given holders.
+	 *
+	 * @param fromNanos start of the range, in nanoseconds since the epoch
+	 * @param toNanos   end of the range, inclusive
+	 * @param target    holders to read the bars into; the holders used are re-ordered so the bars come oldest first
+	 * @return number of bars read into the holders
+	 */
+	public int read(final long fromNanos, final long toNanos, final Candle[] target) {
+		if (toNanos < fromNanos || 0 == target.length)
+			return 0;
+		final long lastOpenTime = openTimeOf(toNanos);
+		final long intervals = Math.min((lastOpenTime - openTimeOf(fromNanos)) / this.intervalNanos + 1, this.capacity);
+		// most recent first, until the holders run out, then put the holders in order
+		int count = 0;
+		for (long i = 0; i < intervals && count < target.length; ++i) {
+			final long openTime = lastOpenTime - i * this.intervalNanos;
+			if (readSlot(slotOf(openTime) * FIELDS, openTime, target[count]))
+				++count;
+		}
+		for (int i = 0, j = count - 1; i < j; ++i, --j) {
+			final Candle candle = target[i];
+			target[i] = target[j];
+			target[j] = candle;
+		}
+		return count;
+	}
+
+	private boolean readSlot(final int base, final long openTime, final Candle target) {
+		final AtomicLongArray b = this.bars;
+		while (true) {
+			final long seqBefore = b.get(base + SEQUENCE);
+			if ((seqBefore & 1L) != 0)
+				continue;
+			final long barOpenTime = b.get(base + OPEN_TIME);
+			if (barOpenTime != openTime)
+				return false;
+			final long open = b.get(base + OPEN);
+			final long high = b.get(base + HIGH);
+			final long low = b.get(base + LOW);
+			final long close = b.get(base + CLOSE);
+			final long volume = b.get(base + VOLUME);
+			final long notional = b.get(base + NOTIONAL);
+			final long tradeCount = b.get(base + TRADE_COUNT);
+			if (seqBefore != b.get(base + SEQUENCE))
+				continue;
+
+			target.openTimeNanos = barOpenTime;
+			target.open = Double.longBitsToDouble(open);
+			target.high = Double.longBitsToDouble(high);
+			target.low = Double.longBitsToDouble(low);
+			target.close = Double.longBitsToDouble(close);
+			target.volume = Double.longBitsToDouble(volume);
+			target.notional = Double.longBitsToDouble(notional);
+			target.tradeCount = tradeCount;
+			return true;
+		}
+	}
+}
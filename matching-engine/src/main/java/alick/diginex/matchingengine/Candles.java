@@ -0,0 +1,94 @@
+package alick.diginex.matchingengine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling OHLCV bars of an instrument at a few intervals, and the volume weighted average price since the engine
+ * started, all updated in constant time as each trade is recorded, so bar consumers never go through the trade history.
+ * <p/>
+ * The session totals are guarded by a sequence lock, the same way as {@link TopOfBook}; bars by their own, see
+ * {@link CandleSeries}.
+ *
+ * Thread-safety: single writer at a time, any number of readers.
+ */
+public final class Candles {
+	/**
+	 * 1 second, 1 minute and 1 hour bars
+	 */
+	static final long[] DEFAULT_INTERVALS_NANOS = {
+			TimeUnit.SECONDS.toNanos(1), TimeUnit.MINUTES.toNanos(1), TimeUnit.HOURS.toNanos(1)};
+	/**
+	 * Number of most recent bars kept per interval, a bit over a day of minute bars
+	 */
+	static final int DEFAULT_CAPACITY = 2048;
+
+	private final CandleSeries[] series;
+
+	private volatile long sequence = 0;
+	private volatile double volume = 0.0d;
+	private volatile double notional = 0.0d;
+	private volatile long tradeCount = 0;
+
+	Candles(final long[] intervalsNanos, final int capacity) {
+		this.series = new CandleSeries[intervalsNanos.length];
+		for (int i = 0; i < intervalsNanos.length; ++i)
+			this.series[i] = new CandleSeries(intervalsNanos[i], capacity);
+	}
+
+	/**
+	 * Add a trade to the bars of every interval and to the session totals. Only to be called from one writer at a time.
+	 */
+	void onTrade(final double quantity, final double price, final long transactTimeNanos) {
+		for (final CandleSeries candleSeries : this.series)
+			candleSeries.onTrade(quantity, price, transactTimeNanos);
+		final long seq = this.sequence;
+		this.sequence = seq + 1; // odd, write in progress
+		this.volume += quantity;
+		this.notional += quantity * price;
+		this.tradeCount += 1;
+		this.sequence = seq + 2; // even, write complete
+	}
+
+	/**
+	 * @return the bars of the given interval
+	 * @throws IllegalArgumentException if bars of that interval are not kept
+	 */
+	public CandleSeries getSeries(final long interval, final TimeUnit unit) {
+		final long intervalNanos = unit.toNanos(interval);
+		for (final CandleSeries candleSeries : this.series) {
+			if (candleSeries.getIntervalNanos() == intervalNanos)
+				return candleSeries;
+		}
+		throw new IllegalArgumentException("no bars of " + interval + " " + unit);
+	}
+
+	/**
+	 * @return volume weighted average price of all trades so far, or {@link Double#NaN} if there was none
+	 */
+	public double getSessionVwap() {
+		while (true) {
+			final long seqBefore = this.sequence;
+			if ((seqBefore & 1L) != 0)
+				continue;
+			final double curVolume = this.volume;
+			final double curNotional = this.notional;
+			if (seqBefore != this.sequence)
+				continue;
+			return 0 == curVolume ? Double.NaN : curNotional / curVolume;
+		}
+	}
+
+	/**
+	 * @return quantity traded so far
+	 */
+	public double getSessionVolume() {
+		return this.volume;
+	}
+
+	/**
+	 * @return number of trades so far
+	 */
+	public long getSessionTradeCount() {
+		return this.tradeCount;
+	}
+}
@@ -0,0 +1,238 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.entities.ClOrdIdTable;
+import alick.diginex.matchingengine.entities.ClientOrder;
+import alick.diginex.matchingengine.entities.ClientOrder.OrderState;
+import alick.diginex.matchingengine.message.ResponseMessage;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A client of the matching engine, e.g. one connection to a gateway, opened with
+ * {@link MatchingEngine#openSession(long, OutboundListener)}.
+ * <p/>
+ * A session owns the clOrdIds and the live orders of its client: looking up an order or checking a clOrdId is resolved
+ * within the session, and never waits on another session. Only the order book is shared between sessions. The orders
+ * of a session are entered with the session ID as their owner.
+ * <p/>
+ * Execution reports of the session's orders caused by requests of another session, e.g. the fill of a resting order,
+ * are queued on the session, and the {@link OutboundListener} told about them.
+ * <p/>
+ * New orders, amends and cancels of a session can be limited in rate, see {@link RateLimits}.
+ *
+ * Thread-safety: thread-safe; requests of a session are meant to come from one thread at a time, so they are
+ * processed in the order the client sent them.
+ */
+public final class ClientSession {
+	/**
+	 * Told when messages are queued on a session, on the thread which queued them; it must not block
+	 */
+	@FunctionalInterface
+	public interface OutboundListener {
+		void onOutbound(ClientSession session);
+	}
+
+	private final MatchingEngine matchingEngine;
+	private final long sessionId;
+	private final OutboundListener outboundListener;
+	private final ConcurrentLinkedQueue<ResponseMessage> outbound;
+	private volatile boolean closed = false;
+	private final RateLimits rateLimits;
+	// null when not limited
+	private final TokenBucket newOrderTokens;
+	private final TokenBucket amendTokens;
+	private final TokenBucket cancelTokens;
+	private final LongAdder throttledRequests = new LongAdder();
+
+	// guarded by this
+	final ClOrdIdTable clOrdIds = new ClOrdIdTable();
+	// guarded by this; clOrdIds of the orders moved to the order archive, which cannot be re-used either
+	final ClOrdIdTable archivedClOrdIds = new ClOrdIdTable();
+	final OrderState reportOrderState = new OrderState();
+	// written under this, read without locking; orders which are not archived yet
+	final ConcurrentHashMap<Long, ClientOrder> orders = new ConcurrentHashMap<>();
+
+	/**
+	 * @param outboundListener {@code null} for a session without an outbound queue, whose reports are then returned to
+	 *                         whichever request caused them
+	 */
+	ClientSession(final MatchingEngine matchingEngine, final long sessionId, final OutboundListener outboundListener, final RateLimits rateLimits) {
+		this.matchingEngine = matchingEngine;
+		this.sessionId = sessionId;
+		this.outboundListener = outboundListener;
+		this.outbound = null == outboundListener ? null : new ConcurrentLinkedQueue<>();
+		this.rateLimits = rateLimits;
+		final long nowNanos = System.nanoTime();
+		this.newOrderTokens = null == rateLimits.getNewOrders() ? null : new TokenBucket(rateLimits.getNewOrders(), nowNanos);
+		this.amendTokens = null == rateLimits.getAmends() ? null : new TokenBucket(rateLimits.getAmends(), nowNanos);
+		this.cancelTokens = null == rateLimits.getCancels() ? null : new TokenBucket(rateLimits.getCancels(), nowNanos);
+	}
+
+	public long getSessionId() {
+		return sessionId;
+	}
+
+	/**
+	 * @return number of orders of the session which are not archived yet, including recently filled / cancelled ones
+	 */
+	public int getLiveOrderCount() {
+		return this.orders.size();
+	}
+
+	public RateLimits getRateLimits() {
+		return rateLimits;
+	}
+
+	/**
+	 * @return number of requests of the session rejected for going over its rate limits
+	 */
+	public long getThrottledRequests() {
+		return throttledRequests.sum();
+	}
+
+	/**
+	 * @return whether a new order is within the rate limit, taking up its share of it if so
+	 */
+	boolean tryNewOrder() {
+		return tryTake(this.newOrderTokens);
+	}
+
+	/**
+	 * @see #tryNewOrder()
+	 */
+	boolean tryAmend() {
+		return tryTake(this.amendTokens);
+	}
+
+	/**
+	 * @see #tryNewOrder()
+	 */
+	boolean tryCancel() {
+		return tryTake(this.cancelTokens);
+	}
+
+	private boolean tryTake(final TokenBucket tokens) {
+		if (null == tokens || tokens.tryTake(System.nanoTime()))
+			return true;
+		this.throttledRequests.increment();
+		return false;
+	}
+
+	boolean hasOutbound() {
+		return null != this.outbound;
+	}
+
+	/**
+	 * Queue a message caused by another session's request; dropped once the session is closed
+	 */
+	void deliver(final ResponseMessage message) {
+		if (this.closed)
+			return;
+		this.outbound.add(message);
+		this.outboundListener.onOutbound(this);
+	}
+
+	/**
+	 * Move the messages queued on the session to the given list
+	 *
+	 * @return number of messages moved
+	 */
+	public int drainOutbound(final List<ResponseMessage> messages) {
+		if (null == this.outbound)
+			return 0;
+		int drained = 0;
+		ResponseMessage message;
+		while (null != (message = this.outbound.poll())) {
+			messages.add(message);
+			++drained;
+		}
+		return drained;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Stop queueing messages, e.g. once the client disconnected; the orders of the session stay in the book, and can
+	 * still be looked up
+	 */
+	public void close() {
+		this.closed = true;
+		if (null != this.outbound)
+			this.outbound.clear();
+	}
+
+	/**
+	 * @see MatchingEngine#submitNewOrderRequest(String, Side, OrderType, double, double, TimeInForce)
+	 */
+	public List<ResponseMessage> submitNewOrderRequest(
+			final String clOrdId,
+			final Side side, final OrderType orderType,
+			final double quantity, final double price,
+			final TimeInForce timeInForce) throws InterruptedException {
+		return this.matchingEngine.submitNewOrderRequest(this, clOrdId, side, orderType, quantity, price, timeInForce);
+	}
+
+	/**
+	 * @see MatchingEngine#submitAmendOrderRequest(CharSequence, String, Side, OrderType, double, double)
+	 */
+	public List<ResponseMessage> submitAmendOrderRequest(
+			final CharSequence origClOrdId, final String clOrdId,
+			final Side side, final OrderType newOrderType,
+			final double newQuantity, final double newPrice) throws InterruptedException {
+		return this.matchingEngine.submitAmendOrderRequest(this, origClOrdId, clOrdId, side, newOrderType, newQuantity, newPrice);
+	}
+
+	/**
+	 * @see MatchingEngine#submitCancelOrderRequest(CharSequence, String)
+	 */
+	public List<ResponseMessage> submitCancelOrderRequest(final CharSequence origClOrdId, final String clOrdId) throws InterruptedException {
+		return this.matchingEngine.submitCancelOrderRequest(this, origClOrdId, clOrdId);
+	}
+
+	/**
+	 * Cancel the resting orders of this session matching all of the given criteria
+	 *
+	 * @see MatchingEngine#submitMassCancelRequest(String, Side, double, double, long)
+	 */
+	public List<ResponseMessage> submitMassCancelRequest(
+			final String clOrdId,
+			final Side side,
+			final double minPrice, final double maxPrice) throws InterruptedException {
+		return this.matchingEngine.submitMassCancelRequest(this, clOrdId, side, minPrice, maxPrice, this.sessionId);
+	}
+
+	/**
+	 * @see MatchingEngine#submitMassQuoteRequest(String, long, double[], double[], double[], double[])
+	 */
+	public List<ResponseMessage> submitMassQuoteRequest(
+			final String quoteId,
+			final double[] bidPrices, final double[] bidQtys,
+			final double[] askPrices, final double[] askQtys) throws InterruptedException {
+		return this.matchingEngine.submitMassQuoteRequest(this, quoteId, bidPrices, bidQtys, askPrices, askQtys);
+	}
+
+	/**
+	 * @return the order which went by the given clOrdId in this session, or {@code null}
+	 * @see MatchingEngine#getOrderByClOrdId(String)
+	 */
+	public ClientOrder getOrderByClOrdId(final CharSequence clOrdId) {
+		return this.matchingEngine.getOrderByClOrdId(this, clOrdId);
+	}
+
+	@Override
+	public String toString() {
+		return "ClientSession(" +
+				"sessionId=" + sessionId +
+				", liveOrders=" + orders.size() +
+				", closed=" + closed +
+				')';
+	}
+}
@@ -0,0 +1,130 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.matchingengine.risk.PreTradeRisk;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * How a {@link MatchingEngine} runs, beyond the instrument it trades. Every option starts at its default, and the
+ * setters can be chained, e.g.
+ * {@code new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0).preTradeRisk(risk))}.
+ * <p/>
+ * The engine copies the options when it is created, so an instance can be re-used for several engines.
+ */
+public final class EngineOptions {
+	private long bookViewPublishIntervalMillis = MatchingEngine.DEFAULT_BOOK_VIEW_PUBLISH_INTERVAL_MILLIS;
+	private Path orderArchiveFile = null;
+	private int admissionCapacity = MatchingEngine.DEFAULT_ADMISSION_CAPACITY;
+	private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+	private PreTradeRisk preTradeRisk = PreTradeRisk.NONE;
+	private long batchIntervalMillis = 0;
+
+	/**
+	 * @param bookViewPublishIntervalMillis minimum interval between two published {@link BookView}s, by default
+	 *                                      {@value MatchingEngine#DEFAULT_BOOK_VIEW_PUBLISH_INTERVAL_MILLIS}ms; a view
+	 *                                      is only rebuilt if the book changed since the last one, once the submitter
+	 *                                      is released. Zero to publish after every request, before the submitter is
+	 *                                      released, so it sees its own request in the view; meant for tests, as it
+	 *                                      puts a rebuild of the whole view on the reply path of every request.
+	 * @throws IllegalArgumentException if the interval is negative
+	 */
+	public EngineOptions bookViewPublishIntervalMillis(final long bookViewPublishIntervalMillis) {
+		if (bookViewPublishIntervalMillis < 0)
+			throw new IllegalArgumentException("book view publish interval cannot be negative: " + bookViewPublishIntervalMillis);
+		this.bookViewPublishIntervalMillis = bookViewPublishIntervalMillis;
+		return this;
+	}
+
+	/**
+	 * @param orderArchiveFile file to keep the archive of filled / cancelled / rejected orders in, memory-mapped;
+	 *                         {@code null}, the default, to keep the archive on heap
+	 */
+	public EngineOptions orderArchiveFile(final Path orderArchiveFile) {
+		this.orderArchiveFile = orderArchiveFile;
+		return this;
+	}
+
+	/**
+	 * @param admissionCapacity most requests waiting for the order book processing thread at once, by default
+	 *                          {@value MatchingEngine#DEFAULT_ADMISSION_CAPACITY}
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public EngineOptions admissionCapacity(final int admissionCapacity) {
+		if (admissionCapacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive: " + admissionCapacity);
+		this.admissionCapacity = admissionCapacity;
+		return this;
+	}
+
+	/**
+	 * @param overloadPolicy what to do with a request arriving when the admission capacity is used up, by default
+	 *                       {@link OverloadPolicy#BLOCK}; a request turned away is rejected with reason
+	 *                       {@value AdmissionQueue#OVERLOADED}
+	 */
+	public EngineOptions overloadPolicy(final OverloadPolicy overloadPolicy) {
+		this.overloadPolicy = Objects.requireNonNull(overloadPolicy, "overloadPolicy");
+		return this;
+	}
+
+	/**
+	 * @param preTradeRisk checks new orders and amends on the submitting thread, by default none; a request it rejects
+	 *                     is never queued
+	 */
+	public EngineOptions preTradeRisk(final PreTradeRisk preTradeRisk) {
+		this.preTradeRisk = Objects.requireNonNull(preTradeRisk, "preTradeRisk");
+		return this;
+	}
+
+	/**
+	 * @param batchIntervalMillis zero, the default, for continuous matching; otherwise the book runs frequent batch
+	 *                            auctions: orders are collected without crossing, and the book is cleared at a single
+	 *                            price every so many milliseconds, see {@link MatchingEngine#uncross(String)}. Fills
+	 *                            are queued on the sessions of their orders, so every session needs an outbound queue;
+	 *                            owners submitting through the engine directly drain theirs with
+	 *                            {@link MatchingEngine#drainOutbound(long, java.util.List)}.
+	 * @throws IllegalArgumentException if the interval is negative
+	 */
+	public EngineOptions batchIntervalMillis(final long batchIntervalMillis) {
+		if (batchIntervalMillis < 0)
+			throw new IllegalArgumentException("batch interval cannot be negative: " + batchIntervalMillis);
+		this.batchIntervalMillis = batchIntervalMillis;
+		return this;
+	}
+
+	public long getBookViewPublishIntervalMillis() {
+		return bookViewPublishIntervalMillis;
+	}
+
+	public Path getOrderArchiveFile() {
+		return orderArchiveFile;
+	}
+
+	public int getAdmissionCapacity() {
+		return admissionCapacity;
+	}
+
+	public OverloadPolicy getOverloadPolicy() {
+		return overloadPolicy;
+	}
+
+	public PreTradeRisk getPreTradeRisk() {
+		return preTradeRisk;
+	}
+
+	public long getBatchIntervalMillis() {
+		return batchIntervalMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "EngineOptions(" +
+				"bookViewPublishIntervalMillis=" + bookViewPublishIntervalMillis +
+				", orderArchiveFile=" + orderArchiveFile +
+				", admissionCapacity=" + admissionCapacity +
+				", overloadPolicy=" + overloadPolicy +
+				", preTradeRisk=" + preTradeRisk +
+				", batchIntervalMillis=" + batchIntervalMillis +
+				')';
+	}
+}
@@ -0,0 +1,221 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.codec.JournalEntryDecoder;
+import alick.diginex.codec.JournalEntryEncoder;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.message.ResponseMessage;
+import alick.diginex.orderbook.request.MassQuoteRequest.QuoteLevel;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The sequenced input of a {@link MatchingEngine}: each request its order book processed, recorded with what the engine
+ * needs to process it again the same way, i.e. the session it came from, its clOrdIds and the order IDs it was given.
+ * Replaying the entries of one engine in sequence into another engine, which takes no other requests, rebuilds the same
+ * book and the same orders in the same sessions.
+ * <p/>
+ * Entries are encoded on the submitting threads, only when the engine is journaled, as a {@link JournalEntryEncoder
+ * journal entry} of the binary codec; each thread encodes into a buffer of its own, re-used from entry to entry, so
+ * only the entry handed out is allocated.
+ *
+ * Thread-safety: thread-safe.
+ */
+final class Journal {
+	private static final byte NEW_ORDER = 1;
+	private static final byte AMEND = 2;
+	private static final byte CANCEL = 3;
+	private static final byte MASS_CANCEL = 4;
+	private static final byte MASS_QUOTE = 5;
+	private static final byte START_AUCTION = 6;
+	private static final byte UNCROSS = 7;
+
+	private static final int INITIAL_BUFFER_CAPACITY = 256;
+
+	private static final ThreadLocal<Journal> PER_THREAD = ThreadLocal.withInitial(Journal::new);
+
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+	private final JournalEntryEncoder encoder = new JournalEntryEncoder();
+	private final JournalEntryDecoder decoder = new JournalEntryDecoder();
+
+	private Journal() {
+	}
+
+	/**
+	 * @return the encoder, wrapped over the buffer of the calling thread, grown to fit an entry of the given length
+	 */
+	private static JournalEntryEncoder encoder(final byte type, final int encodedLength) {
+		final Journal journal = PER_THREAD.get();
+		if (journal.buffer.capacity() < encodedLength)
+			journal.buffer = ByteBuffer.allocate(Math.max(encodedLength, journal.buffer.capacity() * 2));
+		return journal.encoder.wrapAndApplyHeader(journal.buffer, 0).entryType(type);
+	}
+
+	private static byte[] toEntry(final JournalEntryEncoder encoder) {
+		final byte[] entry = new byte[encoder.encodedLength()];
+		System.arraycopy(encoder.buffer().array(), 0, entry, 0, entry.length);
+		return entry;
+	}
+
+	static byte[] newOrder(
+			final long sessionId, final long orderId, final String clOrdId,
+			final Side side, final OrderType orderType,
+			final double quantity, final double price,
+			final TimeInForce timeInForce) {
+		return toEntry(encoder(NEW_ORDER, JournalEntryEncoder.encodedLength(clOrdId, null, 0, 0))
+				.sessionId(sessionId)
+				.orderId(orderId)
+				.side(side)
+				.orderType(orderType)
+				.quantity(quantity)
+				.price(price)
+				.timeInForce(timeInForce)
+				.clOrdId(clOrdId)
+				.origClOrdId(null)
+				.levelCount(0)
+				.levelCount(0));
+	}
+
+	static byte[] amend(
+			final long sessionId, final String origClOrdId, final String clOrdId,
+			final Side side, final OrderType newOrderType,
+			final double newQuantity, final double newPrice) {
+		return toEntry(encoder(AMEND, JournalEntryEncoder.encodedLength(clOrdId, origClOrdId, 0, 0))
+				.sessionId(sessionId)
+				.side(side)
+				.orderType(newOrderType)
+				.quantity(newQuantity)
+				.price(newPrice)
+				.clOrdId(clOrdId)
+				.origClOrdId(origClOrdId)
+				.levelCount(0)
+				.levelCount(0));
+	}
+
+	static byte[] cancel(final long sessionId, final String origClOrdId, final String clOrdId) {
+		return toEntry(encoder(CANCEL, JournalEntryEncoder.encodedLength(clOrdId, origClOrdId, 0, 0))
+				.sessionId(sessionId)
+				.clOrdId(clOrdId)
+				.origClOrdId(origClOrdId)
+				.levelCount(0)
+				.levelCount(0));
+	}
+
+	static byte[] massCancel(
+			final long requesterId, final String clOrdId,
+			final Side side,
+			final double minPrice, final double maxPrice,
+			final long ownerId) {
+		return toEntry(encoder(MASS_CANCEL, JournalEntryEncoder.encodedLength(clOrdId, null, 0, 0))
+				.sessionId(requesterId)
+				.side(side)
+				.minPrice(minPrice)
+				.maxPrice(maxPrice)
+				.ownerId(ownerId)
+				.clOrdId(clOrdId)
+				.origClOrdId(null)
+				.levelCount(0)
+				.levelCount(0));
+	}
+
+	static byte[] massQuote(final long sessionId, final String quoteId, final List<QuoteLevel> bids, final List<QuoteLevel> asks) {
+		final JournalEntryEncoder encoder = encoder(MASS_QUOTE, JournalEntryEncoder.encodedLength(quoteId, null, bids.size(), asks.size()))
+				.sessionId(sessionId)
+				.clOrdId(quoteId)
+				.origClOrdId(null);
+		writeLevels(encoder, bids);
+		writeLevels(encoder, asks);
+		return toEntry(encoder);
+	}
+
+	private static void writeLevels(final JournalEntryEncoder encoder, final List<QuoteLevel> levels) {
+		encoder.levelCount(levels.size());
+		for (int i = 0; i < levels.size(); ++i) {
+			final QuoteLevel level = levels.get(i);
+			encoder.level(level.getOrderId(), level.getPrice(), level.getQuantity());
+		}
+	}
+
+	static byte[] startAuction(final String auctionId) {
+		return auction(START_AUCTION, auctionId);
+	}
+
+	static byte[] uncross(final String auctionId) {
+		return auction(UNCROSS, auctionId);
+	}
+
+	private static byte[] auction(final byte type, final String auctionId) {
+		return toEntry(encoder(type, JournalEntryEncoder.encodedLength(auctionId, null, 0, 0))
+				.clOrdId(auctionId)
+				.origClOrdId(null)
+				.levelCount(0)
+				.levelCount(0));
+	}
+
+	/**
+	 * Submit the request of the entry to the engine, as the session it came from, with the order IDs it was given;
+	 * the engine then carries on generating IDs after those.
+	 *
+	 * @return the responses of the engine, as to the original request
+	 * @throws IllegalArgumentException if the entry cannot be decoded
+	 */
+	static List<ResponseMessage> replay(final byte[] entry, final MatchingEngine engine) throws InterruptedException {
+		final JournalEntryDecoder in;
+		try {
+			in = PER_THREAD.get().decoder.wrap(ByteBuffer.wrap(entry), 0);
+		}
+		catch (IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("malformed journal entry", e);
+		}
+		final byte type = in.entryType();
+		switch (type) {
+			case NEW_ORDER:
+				engine.advanceIdsPast(in.orderId());
+				return engine.submitNewOrderRequest(
+						engine.sessionOf(in.sessionId()), in.orderId(), in.clOrdId(),
+						in.side(), in.orderType(), in.quantity(), in.price(), in.timeInForce());
+			case AMEND:
+				return engine.submitAmendOrderRequest(
+						engine.sessionOf(in.sessionId()), in.origClOrdId(), in.clOrdId(),
+						in.side(), in.orderType(), in.quantity(), in.price());
+			case CANCEL:
+				return engine.submitCancelOrderRequest(engine.sessionOf(in.sessionId()), in.origClOrdId(), in.clOrdId());
+			case MASS_CANCEL:
+				return engine.submitMassCancelRequest(
+						engine.sessionOf(in.sessionId()), in.clOrdId(),
+						in.side(),
+						in.minPrice(), in.maxPrice(), in.ownerId());
+			case MASS_QUOTE: {
+				final int bidCount = in.bidCount();
+				final long[] bidOrderIds = new long[bidCount];
+				final double[] bidPrices = new double[bidCount];
+				final double[] bidQtys = new double[bidCount];
+				for (int i = 0; i < bidCount; ++i) {
+					bidOrderIds[i] = in.bidOrderId(i);
+					bidPrices[i] = in.bidPrice(i);
+					bidQtys[i] = in.bidQuantity(i);
+					engine.advanceIdsPast(bidOrderIds[i]);
+				}
+				final int askCount = in.askCount();
+				final long[] askOrderIds = new long[askCount];
+				final double[] askPrices = new double[askCount];
+				final double[] askQtys = new double[askCount];
+				for (int i = 0; i < askCount; ++i) {
+					askOrderIds[i] = in.askOrderId(i);
+					askPrices[i] = in.askPrice(i);
+					askQtys[i] = in.askQuantity(i);
+					engine.advanceIdsPast(askOrderIds[i]);
+				}
+				return engine.submitMassQuoteRequest(engine.sessionOf(in.sessionId()), in.clOrdId(), bidPrices, bidQtys, askPrices, askQtys, bidOrderIds, askOrderIds);
+			}
+			case START_AUCTION:
+				return engine.startAuction(in.clOrdId());
+			case UNCROSS:
+				return engine.uncross(in.clOrdId());
+			default:
+				throw new IllegalArgumentException("unknown journal entry type " + type);
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package alick.diginex.matchingengine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams the journal of a primary {@link MatchingEngine}, i.e. every request its order book processed, in sequence, to
+ * any number of {@link Replica}s over TCP.
+ * <p/>
+ * The whole journal is kept in memory, so a replica can connect at any time and catch up from any entry. Each replica
+ * is served by its own thread, which sends whatever entries it is missing in one go, so a slow replica never holds back
+ * the engine or the other replicas; the engine only appends the entry to the journal.
+ * <p/>
+ * Wire format, big-endian: a replica connects and sends the sequence number of the first entry it wants, 1 for all;
+ * the publisher then sends each entry as its sequence number (long), its length (int) and its bytes.
+ *
+ * Thread-safety: thread-safe.
+ */
+public final class JournalPublisher implements Closeable {
+	private final String name;
+	private final ServerSocket serverSocket;
+	// guarded by itself; entry i has sequence number i + 1
+	private final ArrayList<byte[]> journal = new ArrayList<>();
+	private final Set<Socket> replicaSockets = ConcurrentHashMap.newKeySet();
+	private final Thread acceptThread;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param primary     the engine to journal, not started yet
+	 * @param bindAddress address to take replica connections on, port 0 for any free port
+	 * @throws IllegalStateException    if the engine has already started, or is already journaled
+	 * @throws IllegalArgumentException if the engine runs batch auctions
+	 */
+	public JournalPublisher(final MatchingEngine primary, final InetSocketAddress bindAddress) throws IOException {
+		this.name = "JournalPublisher-" + primary.getInstrumentName();
+		this.serverSocket = new ServerSocket();
+		try {
+			this.serverSocket.bind(bindAddress);
+			primary.setJournalListener(this::append);
+		}
+		catch (IOException | RuntimeException e) {
+			this.serverSocket.close();
+			throw e;
+		}
+		this.acceptThread = new Thread(this::acceptReplicas, this.name);
+		this.acceptThread.setDaemon(true);
+		this.acceptThread.start();
+	}
+
+	// on the order book processing thread
+	private void append(final byte[] entry) {
+		if (this.closed)
+			return;
+		synchronized (this.journal) {
+			this.journal.add(entry);
+			this.journal.notifyAll();
+		}
+	}
+
+	private void acceptReplicas() {
+		while (!this.closed) {
+			try {
+				final Socket socket = this.serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				this.replicaSockets.add(socket);
+				final Thread replicaThread = new Thread(() -> serve(socket), this.name + "-" + socket.getRemoteSocketAddress());
+				replicaThread.setDaemon(true);
+				replicaThread.start();
+			}
+			catch (IOException e) {
+				if (!this.closed)
+					System.out.printf("%s: failed to accept a replica: %s%n", this.name, e);
+			}
+		}
+	}
+
+	private void serve(final Socket socket) {
+		try (final Socket replica = socket) {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(replica.getInputStream()));
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(replica.getOutputStream()));
+			long nextSequence = in.readLong();
+			if (nextSequence < 1)
+				throw new IOException("invalid first sequence number " + nextSequence);
+			System.out.printf("%s: replica %s follows from entry %d%n", this.name, replica.getRemoteSocketAddress(), nextSequence);
+			final ArrayList<byte[]> entries = new ArrayList<>();
+			while (!this.closed) {
+				synchronized (this.journal) {
+					while (!this.closed && this.journal.size() < nextSequence)
+						this.journal.wait();
+					if (this.closed)
+						break;
+					entries.addAll(this.journal.subList((int) (nextSequence - 1), this.journal.size()));
+				}
+				for (final byte[] entry : entries) {
+					out.writeLong(nextSequence++);
+					out.writeInt(entry.length);
+					out.write(entry);
+				}
+				out.flush();
+				entries.clear();
+			}
+		}
+		catch (IOException e) {
+			if (!this.closed)
+				System.out.printf("%s: replica %s disconnected: %s%n", this.name, socket.getRemoteSocketAddress(), e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			this.replicaSockets.remove(socket);
+		}
+	}
+
+	/**
+	 * @return the address replicas connect to
+	 */
+	public InetSocketAddress getAddress() {
+		return (InetSocketAddress) this.serverSocket.getLocalSocketAddress();
+	}
+
+	/**
+	 * @return sequence number of the last entry of the journal, 0 if none
+	 */
+	public long getSequence() {
+		synchronized (this.journal) {
+			return this.journal.size();
+		}
+	}
+
+	/**
+	 * @return number of replicas connected
+	 */
+	public int getReplicaCount() {
+		return this.replicaSockets.size();
+	}
+
+	/**
+	 * Disconnect all replicas and take no more; the engine carries on without a journal
+	 */
+	@Override
+	public void close() throws IOException {
+		this.closed = true;
+		this.serverSocket.close();
+		for (final Socket socket : this.replicaSockets)
+			socket.close();
+		synchronized (this.journal) {
+			this.journal.notifyAll();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "JournalPublisher(" +
+				"name='" + name + '\'' +
+				", address=" + getAddress() +
+				", sequence=" + getSequence() +
+				", replicas=" + getReplicaCount() +
+				')';
+	}
+}
@@ -1,29 +1,51 @@
 package alick.diginex.matchingengine;
 
 import alick.diginex.entities.OrderBookSnapshot;
+import alick.diginex.entities.OrderStatus;
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.entities.ClOrdIdTable;
 import alick.diginex.matchingengine.entities.ClientOrder;
-import alick.diginex.matchingengine.entities.OrderStatus;
+import alick.diginex.matchingengine.entities.ClientOrder.OrderState;
+import alick.diginex.matchingengine.entities.FillStore;
+import alick.diginex.matchingengine.entities.OrderArchive;
 import alick.diginex.matchingengine.entities.Trade;
+import alick.diginex.matchingengine.message.BusinessMessageReject;
 import alick.diginex.matchingengine.message.ExecutionReport;
 import alick.diginex.matchingengine.message.OrderCancelReject;
+import alick.diginex.matchingengine.message.MassQuoteAcknowledgement;
+import alick.diginex.matchingengine.message.OrderMassCancelReport;
 import alick.diginex.matchingengine.message.ResponseMessage;
+import alick.diginex.matchingengine.risk.PreTradeRisk;
 import alick.diginex.orderbook.OrderBook;
 import alick.diginex.orderbook.request.AmendRequest;
 import alick.diginex.orderbook.request.CancelRequest;
+import alick.diginex.orderbook.request.MassCancelRequest;
+import alick.diginex.orderbook.request.MassQuoteRequest;
+import alick.diginex.orderbook.request.MassQuoteRequest.QuoteLevel;
 import alick.diginex.orderbook.request.NewRequest;
 import alick.diginex.orderbook.request.Request;
+import alick.diginex.orderbook.request.StartAuctionRequest;
+import alick.diginex.orderbook.request.UncrossRequest;
 import alick.diginex.orderbook.response.ErrorResponse;
 import alick.diginex.orderbook.response.Execution;
+import alick.diginex.orderbook.response.Level2Summary;
+import alick.diginex.orderbook.response.MassCancelResponse;
+import alick.diginex.orderbook.response.MassQuoteResponse;
 import alick.diginex.orderbook.response.Response;
 import alick.diginex.orderbook.response.SuccessResponse;
+import alick.diginex.orderbook.response.UncrossResponse;
+import alick.diginex.util.EngineClock;
 import alick.diginex.util.IdGenerator;
 
-import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import static java.util.Collections.singletonList;
 
@@ -31,6 +53,8 @@ import static java.util.Collections.singletonList;
  * Matching engine for a single instrument.
  *
  * Thread-safety: The exchange is thread-safe. Requests can be submitted from different thread in a blocking manner.
+ * The state of the orders is partitioned by {@link ClientSession}, so requests of different sessions only meet in the
+ * order book, and briefly when recording their fills.
  */
 public class MatchingEngine {
 	/**
@@ -39,6 +63,12 @@ public class MatchingEngine {
 	private static abstract class OrderBookAction<T>{
 		private final CountDownLatch responseLatch = new CountDownLatch(1);
 		protected T response;
+		// the request as recorded in the journal, null when not journaled
+		private final byte[] journalEntry;
+
+		protected OrderBookAction(final byte[] journalEntry) {
+			this.journalEntry = journalEntry;
+		}
 
 		/**
 		 * do things with the order book
@@ -46,10 +76,23 @@ public class MatchingEngine {
 		abstract void apply(OrderBook orderBook);
 
 		/**
-		 * set response object and notify any caller waiting for the response
+		 * append the trades of the response to the fill store of the engine, before the caller is notified; only called
+		 * from the order book processing thread
+		 */
+		void appendTrades(final MatchingEngine engine) {
+		}
+
+		/**
+		 * set response object; the caller is not notified until {@link #complete()}
 		 */
 		protected void setResponse(final T response) {
 			this.response = response;
+		}
+
+		/**
+		 * notify any caller waiting for the response
+		 */
+		void complete() {
 			this.responseLatch.countDown();
 		}
 
@@ -64,57 +107,151 @@ public class MatchingEngine {
 
 	private static final class SubmitRequestOrderBookAction extends OrderBookAction<Response> {
 		private final Request request;
-		private Instant transactTime = null;
+		private final EngineClock engineClock;
+		// nanoseconds since the epoch
+		private long transactTimeNanos = 0;
+		// index of the trade of the first execution in the fill store, the other executions following in order
+		private int firstFill = FillStore.NO_FILL;
 
-		private SubmitRequestOrderBookAction(final Request request) {
+		private SubmitRequestOrderBookAction(final Request request, final EngineClock engineClock, final byte[] journalEntry) {
+			super(journalEntry);
 			this.request = request;
+			this.engineClock = engineClock;
 		}
 
 		@Override
 		void apply(final OrderBook orderBook) {
 			final Response resp = orderBook.submitRequest(this.request);
-			this.setResponse(resp, Instant.now());
+			this.setResponse(resp, this.engineClock.epochNanos());
+		}
+
+		@Override
+		void appendTrades(final MatchingEngine engine) {
+			this.firstFill = engine.appendTrades(this.request, this.response.getExecutions(), this.transactTimeNanos);
 		}
 
 		/**
 		 * set the response to the request.
 		 */
-		private void setResponse(final Response response, final Instant transactTime) {
-			this.transactTime = transactTime;
+		private void setResponse(final Response response, final long transactTimeNanos) {
+			this.transactTimeNanos = transactTimeNanos;
 			super.setResponse(response);
 		}
 	}
 
-	private static final class SnapshotOrderBookAction extends OrderBookAction<OrderBookSnapshot> {
-		@Override
-		void apply(final OrderBook orderBook) {
-			final OrderBookSnapshot snapshot = orderBook.snapshotOrderBook();
-			super.setResponse(snapshot);
-		}
+	/**
+	 * Number of requests between two sweeps of filled / cancelled / rejected orders into the order archive
+	 */
+	static final int ARCHIVE_SWEEP_INTERVAL = 4096;
+
+	/**
+	 * Sizes of the price groups the depth is published in, with every {@link BookView}
+	 */
+	static final double[] DEFAULT_DEPTH_GROUPINGS = {0.01, 0.5, 1, 10, 100};
+
+	/**
+	 * Default minimum interval between two published {@link BookView}s
+	 */
+	static final long DEFAULT_BOOK_VIEW_PUBLISH_INTERVAL_MILLIS = 10;
+
+	/**
+	 * Default number of requests which can wait for the order book processing thread at once
+	 */
+	static final int DEFAULT_ADMISSION_CAPACITY = 1 << 16;
+
+	/**
+	 * Told about every request, in the order the order book processed them, on the order book processing thread; it
+	 * must not block
+	 */
+	@FunctionalInterface
+	interface JournalListener {
+		/**
+		 * @param entry the request, see {@link Journal}
+		 */
+		void onSequenced(byte[] entry);
 	}
 
-	private final LinkedBlockingQueue<OrderBookAction<?>> orderSubmissionQueue = new LinkedBlockingQueue<>();
+	private final AdmissionQueue<OrderBookAction<?>> orderSubmissionQueue;
+	// run on the submitting threads, before a request is queued
+	private final PreTradeRisk preTradeRisk;
 	private final Thread orderBookProcessingThread;
 
 	private final String instrumentName;
 	private final OrderBook orderBook;
+	private final TopOfBook topOfBook;
 	private final IdGenerator idGenerator = new IdGenerator();
+	// only read by the order book processing thread, to timestamp trades
+	private final EngineClock engineClock = new EngineClock();
 
-	private final HashMap<Long, ClientOrder> orderMap = new HashMap<>();
-	private final HashMap<String, Long> clOrdId2orderIdMap = new HashMap<>();
-	private final LinkedList<Trade> tradeHistory = new LinkedList<>();
+	/**
+	 * Minimum interval between two published {@link BookView}s; zero to publish after every request, before the
+	 * submitter is released.
+	 */
+	private final long bookViewPublishIntervalNanos;
+	private volatile BookView bookView;
+	// the following are only accessed by the order book processing thread
+	private long bookVersion = 0;
+	private boolean bookViewDirty = false;
+
+	/**
+	 * Interval between two clearings of the book in frequent batch auction mode; zero for continuous matching
+	 */
+	private final long batchIntervalNanos;
+	// set on start, then only accessed by the order book processing thread
+	private long nextBatchAtNanos;
 
+	// set before the engine starts
+	private volatile JournalListener journalListener = null;
+
+	// sessions by session ID, which is also the owner ID of their orders in the book
+	private final ConcurrentHashMap<Long, ClientSession> sessions = new ConcurrentHashMap<>();
+	// next ID to try for a session opened without one; IDs already taken are skipped
+	private final AtomicLong nextSessionId = new AtomicLong(MassCancelRequest.ANY_OWNER + 1);
+	// session of every order not archived yet, to find the orders the book reports on by order ID only
+	private final ConcurrentHashMap<Long, ClientSession> orderSessions = new ConcurrentHashMap<>();
+	// appended to by the order book processing thread, read without locking
+	private final FillStore fillStore = new FillStore();
+	private final IdGenerator tradeIdGenerator = new IdGenerator();
+	// written by the order book processing thread, read without locking
+	private final Candles candles = new Candles(Candles.DEFAULT_INTERVALS_NANOS, Candles.DEFAULT_CAPACITY);
+	// orders which can no longer change are moved there from the sessions every so many requests, by the sweeper
+	private final OrderArchive orderArchive;
+	private final AtomicInteger requestsSinceArchiveSweep = new AtomicInteger();
+	private final Thread archiveSweeperThread;
+
+	/**
+	 * Create a matching engine with the default options, see {@link EngineOptions}
+	 *
+	 * @see MatchingEngine#MatchingEngine(String, double, EngineOptions)
+	 */
 	public MatchingEngine(final String instrumentName, final double referencePrice) {
+		this(instrumentName, referencePrice, new EngineOptions());
+	}
+
+	/**
+	 * @param instrumentName name of the instrument traded
+	 * @param referencePrice the price the instrument was last traded to use as initial reference
+	 * @param options        how the engine runs; copied, so later changes to it have no effect on the engine
+	 */
+	public MatchingEngine(final String instrumentName, final double referencePrice, final EngineOptions options) {
 		this.instrumentName = instrumentName;
-		this.orderBook = new OrderBook(referencePrice);
+		this.orderSubmissionQueue = new AdmissionQueue<>(options.getAdmissionCapacity(), options.getOverloadPolicy());
+		this.preTradeRisk = options.getPreTradeRisk();
+		this.orderBook = new OrderBook(referencePrice, DEFAULT_DEPTH_GROUPINGS);
+		this.topOfBook = new TopOfBook(referencePrice);
+		this.bookViewPublishIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getBookViewPublishIntervalMillis());
+		this.batchIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getBatchIntervalMillis());
+		if (isBatchMode())
+			this.orderBook.submitRequest(new StartAuctionRequest(this.idGenerator.getNextId()));
+		this.bookView = takeBookView(0);
+		this.orderArchive = new OrderArchive(this.fillStore, options.getOrderArchiveFile(), OrderArchive.DEFAULT_SEGMENT_SIZE, OrderArchive.DEFAULT_CACHE_SIZE);
 		final String threadName = "OrderBook-Processing-" + this.instrumentName;
 		this.orderBookProcessingThread = new Thread(threadName) {
 			@Override
 			public void run() {
 				while (!Thread.currentThread().isInterrupted()) {
 					try {
-						final OrderBookAction orderBookAction = MatchingEngine.this.orderSubmissionQueue.take();
-						orderBookAction.apply(MatchingEngine.this.orderBook);
+						processNextAction();
 					}
 					catch (InterruptedException e) {
 						Thread.currentThread().interrupt();
@@ -124,6 +261,123 @@ public class MatchingEngine {
 				}
 			}
 		};
+		this.archiveSweeperThread = new Thread(this::sweepArchiveWhenDue, "OrderArchive-Sweeper-" + this.instrumentName);
+		this.archiveSweeperThread.setDaemon(true);
+	}
+
+	// only to be called from the order book processing thread
+	private void processNextAction() throws InterruptedException {
+		final boolean publishEveryRequest = 0 == this.bookViewPublishIntervalNanos;
+		final long now = System.nanoTime();
+		long dueInNanos = Long.MAX_VALUE;
+		// wake up in time to publish the pending changes even if no other request comes in
+		if (!publishEveryRequest && this.bookViewDirty)
+			dueInNanos = this.bookView.getPublishedAtNanos() + this.bookViewPublishIntervalNanos - now;
+		// and to clear the batch
+		if (isBatchMode())
+			dueInNanos = Math.min(dueInNanos, this.nextBatchAtNanos - now);
+		final OrderBookAction<?> orderBookAction = Long.MAX_VALUE == dueInNanos
+				? this.orderSubmissionQueue.take()
+				: this.orderSubmissionQueue.poll(dueInNanos, TimeUnit.NANOSECONDS);
+
+		if (null != orderBookAction) {
+			orderBookAction.apply(this.orderBook);
+			orderBookAction.appendTrades(this);
+			++this.bookVersion;
+			this.bookViewDirty = true;
+			// publish before releasing the caller, so the caller sees its own request reflected
+			publishTopOfBook();
+			if (publishEveryRequest)
+				publishBookView();
+			if (null != orderBookAction.journalEntry)
+				this.journalListener.onSequenced(orderBookAction.journalEntry);
+			orderBookAction.complete();
+		}
+		if (isBatchMode() && System.nanoTime() - this.nextBatchAtNanos >= 0)
+			clearBatch();
+		// a due view is rebuilt once the caller is released
+		if (this.bookViewDirty && isBookViewDue())
+			publishBookView();
+	}
+
+	/**
+	 * Record every request the order book processes from now on, in sequence, e.g. to replicate them
+	 *
+	 * @throws IllegalStateException    if the engine has started, or already has a journal listener
+	 * @throws IllegalArgumentException if the engine runs batch auctions, whose clearings are not requests
+	 */
+	void setJournalListener(final JournalListener journalListener) {
+		if (Thread.State.NEW != this.orderBookProcessingThread.getState())
+			throw new IllegalStateException(this.instrumentName + ": journal must be set before the engine starts");
+		if (isBatchMode())
+			throw new IllegalArgumentException(this.instrumentName + ": batch auctions cannot be journaled");
+		if (null != this.journalListener)
+			throw new IllegalStateException(this.instrumentName + ": already journaled");
+		this.journalListener = Objects.requireNonNull(journalListener, "journalListener");
+	}
+
+	// e.g. when replaying the journal of another engine, whose IDs must not be generated again
+	void advanceIdsPast(final long id) {
+		this.idGenerator.advancePast(id);
+	}
+
+	// e.g. for a request sequenced ahead of the engine, with its order ID in its journal entry
+	long generateOrderId() {
+		return this.idGenerator.getNextId();
+	}
+
+	private boolean isJournaled() {
+		return null != this.journalListener;
+	}
+
+	private boolean isBatchMode() {
+		return 0 != this.batchIntervalNanos;
+	}
+
+	/**
+	 * Uncross the batch collected since the last one, keep collecting the next, and send out the fills; the book and
+	 * its views change once per batch rather than once per order.
+	 */
+	// only to be called from the order book processing thread
+	private void clearBatch() {
+		// a late clearing does not make the next batch any shorter
+		this.nextBatchAtNanos = System.nanoTime() + this.batchIntervalNanos;
+		final UncrossRequest request = new UncrossRequest(this.idGenerator.getNextId(), true);
+		final UncrossResponse response = (UncrossResponse) this.orderBook.submitRequest(request);
+		final List<Execution> executions = response.getExecutions();
+		if (executions.isEmpty())
+			return;
+		final int firstFill = appendTrades(request, executions, this.engineClock.epochNanos());
+		++this.bookVersion;
+		this.bookViewDirty = true;
+		publishTopOfBook();
+		if (0 == this.bookViewPublishIntervalNanos)
+			publishBookView();
+		// every session of a batch auction engine has an outbound queue, so all fills are queued, none come back here
+		addFills(null, executions, firstFill, new ArrayList<>(0));
+	}
+
+	// only to be called from the order book processing thread
+	private boolean isBookViewDue() {
+		return System.nanoTime() - this.bookView.getPublishedAtNanos() >= this.bookViewPublishIntervalNanos;
+	}
+
+	// only to be called from the order book processing thread
+	private void publishBookView() {
+		this.bookView = takeBookView(this.bookVersion);
+		this.bookViewDirty = false;
+	}
+
+	// the grouped depths are cached by the order book, so only the sides which changed since the last view are rebuilt
+	private BookView takeBookView(final long version) {
+		final double[] groupings = this.orderBook.getDepthGroupings();
+		final Level2Summary[] groupedBids = new Level2Summary[groupings.length];
+		final Level2Summary[] groupedAsks = new Level2Summary[groupings.length];
+		for (int i = 0; i < groupings.length; ++i) {
+			groupedBids[i] = this.orderBook.summarizeGroupedDepth(Side.BUY, groupings[i]);
+			groupedAsks[i] = this.orderBook.summarizeGroupedDepth(Side.SELL, groupings[i]);
+		}
+		return new BookView(version, System.nanoTime(), this.orderBook.snapshotOrderBook(), groupings, groupedBids, groupedAsks);
 	}
 
 	@Override
@@ -138,7 +392,9 @@ public class MatchingEngine {
 	 */
 	public void start() {
 		System.out.printf("Starting Order-Processing-" + this.instrumentName + "%n");
+		this.nextBatchAtNanos = System.nanoTime() + this.batchIntervalNanos;
 		this.orderBookProcessingThread.start();
+		this.archiveSweeperThread.start();
 	}
 
 	/**
@@ -147,143 +403,627 @@ public class MatchingEngine {
 	public void stop() {
 		System.out.printf("Stopping Order-Processing-" + this.instrumentName + "%n");
 		this.orderBookProcessingThread.interrupt();
+		// let a sweep in progress finish before closing the archive
+		this.archiveSweeperThread.interrupt();
+		try {
+			this.archiveSweeperThread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.orderArchive.close();
+	}
+
+	// only to be called from the order book processing thread
+	private void publishTopOfBook() {
+		final OrderBook book = this.orderBook;
+		this.topOfBook.publish(
+				book.getBestBidPrice(), book.getBestBidQuantity(),
+				book.getBestAskPrice(), book.getBestAskQuantity(),
+				book.getLastPrice());
+	}
+
+	public String getInstrumentName() {
+		return instrumentName;
+	}
+
+	/**
+	 * The best bid / offer and last price of this instrument. Reading it does not go through the order submission
+	 * queue; it is lock-free and allocation-free, reflecting the book as of the last processed request.
+	 *
+	 * @return the top of book, to be read with {@link TopOfBook#read(TopOfBook.Quote)}
+	 */
+	public TopOfBook getTopOfBook() {
+		return this.topOfBook;
+	}
+
+	/**
+	 * 1 second, 1 minute and 1 hour OHLCV bars and the session VWAP, kept up to date as trades are recorded; lock-free,
+	 * and without going through the trade history.
+	 */
+	public Candles getCandles() {
+		return this.candles;
+	}
+
+	/**
+	 * How requests fared getting into the order submission queue, and how deep it is
+	 */
+	public AdmissionStats getAdmissionStats() {
+		return this.orderSubmissionQueue.getStats();
+	}
+
+	/**
+	 * Open a session for a client; its orders are entered with the session ID as owner, and reports of its orders
+	 * caused by other sessions are queued on it.
+	 *
+	 * @param sessionId        ID of the session, unique within the engine; cannot be {@link MassCancelRequest#ANY_OWNER}
+	 * @param outboundListener told whenever messages are queued on the session
+	 * @throws IllegalArgumentException if the session ID is invalid, or already in use
+	 */
+	public ClientSession openSession(final long sessionId, final ClientSession.OutboundListener outboundListener) {
+		return openSession(sessionId, outboundListener, RateLimits.UNLIMITED);
+	}
+
+	/**
+	 * Open a session whose new orders, amends and cancels are limited in rate; a request over its limit is rejected
+	 * straight away, without going through the order submission queue.
+	 *
+	 * @see #openSession(long, ClientSession.OutboundListener)
+	 */
+	public ClientSession openSession(final long sessionId, final ClientSession.OutboundListener outboundListener, final RateLimits rateLimits) {
+		final ClientSession session = newSession(sessionId, outboundListener, rateLimits);
+		if (null != this.sessions.putIfAbsent(sessionId, session))
+			throw new IllegalArgumentException("session ID " + sessionId + " already in use");
+		return session;
+	}
+
+	/**
+	 * Open a session under an ID not in use, neither by another session nor as the owner of orders submitted through the
+	 * engine directly; the ID is that of the returned session.
+	 *
+	 * @see #openSession(long, ClientSession.OutboundListener)
+	 */
+	public ClientSession openSession(final ClientSession.OutboundListener outboundListener) {
+		return openSession(outboundListener, RateLimits.UNLIMITED);
+	}
+
+	/**
+	 * @see #openSession(ClientSession.OutboundListener)
+	 * @see #openSession(long, ClientSession.OutboundListener, RateLimits)
+	 */
+	public ClientSession openSession(final ClientSession.OutboundListener outboundListener, final RateLimits rateLimits) {
+		ClientSession session;
+		do {
+			session = newSession(this.nextSessionId.getAndIncrement(), outboundListener, rateLimits);
+		} while (null != this.sessions.putIfAbsent(session.getSessionId(), session));
+		return session;
+	}
+
+	private ClientSession newSession(final long sessionId, final ClientSession.OutboundListener outboundListener, final RateLimits rateLimits) {
+		if (MassCancelRequest.ANY_OWNER == sessionId)
+			throw new IllegalArgumentException("session ID cannot be " + MassCancelRequest.ANY_OWNER);
+		if (isBatchMode() && null == outboundListener)
+			throw new IllegalArgumentException("session " + sessionId + " needs an outbound queue, fills of batch auctions are only queued");
+		return new ClientSession(this, sessionId, outboundListener, Objects.requireNonNull(rateLimits, "rateLimits"));
+	}
+
+	/**
+	 * The session of an owner submitting through the engine directly; such a session has no outbound queue, so all
+	 * reports of its orders are returned to whichever request caused them, as the engine always did. In batch auction
+	 * mode, where fills are caused by no request, it has one, see {@link #drainOutbound(long, List)}.
+	 */
+	ClientSession sessionOf(final long ownerId) {
+		final ClientSession session = this.sessions.get(ownerId);
+		if (null != session)
+			return session;
+		return this.sessions.computeIfAbsent(ownerId, id -> new ClientSession(this, id, isBatchMode() ? s -> { } : null, RateLimits.UNLIMITED));
+	}
+
+	/**
+	 * Move the messages queued for an owner to the given list, e.g. the fills of batch auctions of an owner submitting
+	 * through the engine directly
+	 *
+	 * @return number of messages moved
+	 * @see ClientSession#drainOutbound(List)
+	 */
+	public int drainOutbound(final long ownerId, final List<ResponseMessage> messages) {
+		final ClientSession session = this.sessions.get(ownerId);
+		return null == session ? 0 : session.drainOutbound(messages);
 	}
 
+	/**
+	 * Looks up orders of the whole day; an order which can no longer change may come back as a new copy, decoded from
+	 * the order archive.
+	 *
+	 * @return the order which went by the given clOrdId in any session, or {@code null}
+	 * @see #getOrderByClOrdId(long, CharSequence)
+	 */
 	public ClientOrder getOrderByClOrdId(final String clOrdId) {
-		synchronized (orderMap) {
-			final Long orderId = this.clOrdId2orderIdMap.get(clOrdId);
-			return (null != orderId) ? getOrderByOrderId(orderId) : null;
+		for (final ClientSession session : this.sessions.values()) {
+			final ClientOrder order = getOrderByClOrdId(session, clOrdId);
+			if (null != order)
+				return order;
+		}
+		return null;
+	}
+
+	/**
+	 * @param ownerId owner whose clOrdIds to look up, {@link MassCancelRequest#ANY_OWNER} for orders submitted without
+	 *                one
+	 * @return the order which went by the given clOrdId for that owner, or {@code null}
+	 * @see #getOrderByClOrdId(String)
+	 */
+	public ClientOrder getOrderByClOrdId(final long ownerId, final CharSequence clOrdId) {
+		final ClientSession session = this.sessions.get(ownerId);
+		return null == session ? null : getOrderByClOrdId(session, clOrdId);
+	}
+
+	ClientOrder getOrderByClOrdId(final ClientSession session, final CharSequence clOrdId) {
+		final long archivedOrderId;
+		synchronized (session) {
+			final long orderId = session.clOrdIds.get(clOrdId);
+			if (ClOrdIdTable.NOT_FOUND != orderId)
+				return session.orders.get(orderId);
+			archivedOrderId = session.archivedClOrdIds.get(clOrdId);
 		}
+		return ClOrdIdTable.NOT_FOUND == archivedOrderId ? null : this.orderArchive.findByOrderId(archivedOrderId);
 	}
 
+	/**
+	 * @see #getOrderByClOrdId(String)
+	 */
 	public ClientOrder getOrderByOrderId(final Long orderId) {
-		synchronized (orderMap) {
-			return this.orderMap.get(orderId);
+		final ClientSession session = this.orderSessions.get(orderId);
+		if (null != session) {
+			final ClientOrder order = session.orders.get(orderId);
+			if (null != order)
+				return order;
 		}
+		return this.orderArchive.findByOrderId(orderId);
 	}
 
-	public List<Trade> getTradeHistory() {
-		synchronized (this.orderMap) {
-			return new ArrayList<>(this.tradeHistory);
+	// caller must hold the lock on the session; the order archive is not looked at, so only that lock is ever taken
+	private static boolean isKnownClOrdId(final ClientSession session, final CharSequence clOrdId) {
+		return session.clOrdIds.contains(clOrdId) || session.archivedClOrdIds.contains(clOrdId);
+	}
+
+	// the origClOrdId of a request is usually the clOrdId the order goes by, whose String can then be re-used
+	private static String origClOrdIdOf(final ClientOrder order, final CharSequence origClOrdId) {
+		final String clOrdId = order.getClOrdId();
+		return clOrdId.contentEquals(origClOrdId) ? clOrdId : origClOrdId.toString();
+	}
+
+	// caller must hold the lock on the session
+	private void addOrder(final ClientSession session, final ClientOrder order) {
+		session.orders.put(order.getOrderId(), order);
+		this.orderSessions.put(order.getOrderId(), session);
+	}
+
+	// caller must hold the lock on the session
+	private void removeOrder(final ClientSession session, final long orderId) {
+		session.orders.remove(orderId);
+		this.orderSessions.remove(orderId);
+	}
+
+	/**
+	 * A report goes back to the request which caused it, unless it is about an order of another session which takes
+	 * its own reports
+	 */
+	private static void route(final ClientSession requester, final ClientSession owner, final ResponseMessage message, final List<ResponseMessage> responseMessages) {
+		if (owner == requester || !owner.hasOutbound())
+			responseMessages.add(message);
+		else
+			owner.deliver(message);
+	}
+
+	// the submitting thread only wakes the sweeper up, it never sweeps itself
+	private void archiveTerminalOrdersIfDue() {
+		if (this.requestsSinceArchiveSweep.incrementAndGet() == ARCHIVE_SWEEP_INTERVAL)
+			LockSupport.unpark(this.archiveSweeperThread);
+	}
+
+	// only to be called from the archive sweeper thread
+	private void sweepArchiveWhenDue() {
+		while (!Thread.currentThread().isInterrupted()) {
+			LockSupport.park(this);
+			if (this.requestsSinceArchiveSweep.get() >= ARCHIVE_SWEEP_INTERVAL)
+				archiveTerminalOrders();
+		}
+	}
+
+	/**
+	 * Move the orders which can no longer change, and all their clOrdIds, from the sessions to the order archive, one
+	 * session at a time. An order cancelled with a trade of the book still being accounted for by another thread is
+	 * only moved once the trade is, see {@link ClientOrder#isTerminal()}
+	 */
+	void archiveTerminalOrders() {
+		this.requestsSinceArchiveSweep.set(0);
+		for (final ClientSession session : this.sessions.values()) {
+			synchronized (session) {
+				for (final Iterator<ClientOrder> it = session.orders.values().iterator(); it.hasNext(); ) {
+					final ClientOrder order = it.next();
+					if (order.isTerminal()) {
+						this.orderArchive.archive(order);
+						it.remove();
+						this.orderSessions.remove(order.getOrderId());
+					}
+				}
+				final long sessionId = session.getSessionId();
+				session.clOrdIds.removeIf((clOrdId, orderId) -> {
+					if (session.orders.containsKey(orderId))
+						return false;
+					if (this.orderArchive.containsOrderId(orderId)) {
+						this.orderArchive.addClOrdId(sessionId, clOrdId, orderId);
+						session.archivedClOrdIds.putIfAbsent(clOrdId, orderId);
+					}
+					return true;
+				});
+			}
 		}
 	}
 
 	/**
-	 * takes a snapshot of the order book.
+	 * @return a read-only view of all trades so far, oldest first
+	 */
+	public List<Trade> getTradeHistory() {
+		return this.fillStore.allTrades();
+	}
+
+	/**
+	 * The most recently published view of the order book. This never goes through the order submission queue, so it
+	 * has no impact on matching; in exchange the view can be as old as the configured publish interval, as reported by
+	 * {@link BookView#getVersion()} and {@link BookView#getAgeNanos()}.
+	 *
+	 * @return the latest book view
+	 */
+	public BookView getBookView() {
+		return this.bookView;
+	}
+
+	/**
+	 * The snapshot of the most recently published {@link #getBookView() book view}.
 	 * @return the snapshot
 	 */
-	public OrderBookSnapshot snapshotOrderBook() throws InterruptedException {
-		final SnapshotOrderBookAction action = new SnapshotOrderBookAction();
-		this.orderSubmissionQueue.add(action);
-		final OrderBookSnapshot response = action.waitForResponse();
-		return response;
+	public OrderBookSnapshot snapshotOrderBook() {
+		return this.bookView.getSnapshot();
+	}
+
+	/**
+	 * The best price levels of the most recently published {@link #getBookView() book view}, down to whichever limit is
+	 * reached first; the cost is proportional to the levels included.
+	 *
+	 * @see OrderBookSnapshot#limitDepth(int, double)
+	 */
+	public OrderBookSnapshot snapshotOrderBook(final int maxLevels, final double quantityCutOff) {
+		return this.bookView.getSnapshot().limitDepth(maxLevels, quantityCutOff);
+	}
+
+	/**
+	 * @see #snapshotOrderBook(int, double)
+	 */
+	public OrderBookSnapshot snapshotOrderBook(final int maxLevels) {
+		return snapshotOrderBook(maxLevels, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * One side of the most recently published {@link #getBookView() book view}, aggregated into price groups of the
+	 * given size; the groups are maintained as the book changes, so this is a read of the published view.
+	 *
+	 * @param grouping one of 0.01, 0.5, 1, 10 or 100
+	 * @see BookView#getGroupedDepth(Side, double)
+	 */
+	public Level2Summary getGroupedDepth(final Side side, final double grouping) {
+		return this.bookView.getGroupedDepth(side, grouping);
 	}
 
 	public List<ResponseMessage> submitNewOrderRequest(
 			final String clOrdId,
 			final Side side, final OrderType orderType,
 			final double quantity, final double price) throws InterruptedException {
-		final long orderId = this.idGenerator.getNextId();
-		final ClientOrder clientOrder = new ClientOrder(orderId, clOrdId, side, orderType, quantity, price);
+		return submitNewOrderRequest(clOrdId, side, orderType, quantity, price, TimeInForce.DAY);
+	}
+
+	/**
+	 * Submit a new order. For {@link TimeInForce#IOC} and {@link TimeInForce#FOK} orders, the quantity not filled
+	 * straight away is never queued, and is reported cancelled after the fills, if any.
+	 */
+	public List<ResponseMessage> submitNewOrderRequest(
+			final String clOrdId,
+			final Side side, final OrderType orderType,
+			final double quantity, final double price,
+			final TimeInForce timeInForce) throws InterruptedException {
+		return submitNewOrderRequest(clOrdId, side, orderType, quantity, price, timeInForce, MassCancelRequest.ANY_OWNER);
+	}
+
+	/**
+	 * Submit a new order on behalf of the given owner, whose orders can then be mass cancelled together. The clOrdId
+	 * only has to be unique among the clOrdIds of the owner.
+	 *
+	 * @see #submitMassCancelRequest(String, Side, double, double, long)
+	 */
+	public List<ResponseMessage> submitNewOrderRequest(
+			final String clOrdId,
+			final Side side, final OrderType orderType,
+			final double quantity, final double price,
+			final TimeInForce timeInForce,
+			final long ownerId) throws InterruptedException {
+		return submitNewOrderRequest(sessionOf(ownerId), clOrdId, side, orderType, quantity, price, timeInForce);
+	}
+
+	List<ResponseMessage> submitNewOrderRequest(
+			final ClientSession session,
+			final String clOrdId,
+			final Side side, final OrderType orderType,
+			final double quantity, final double price,
+			final TimeInForce timeInForce) throws InterruptedException {
+		return submitNewOrderRequest(session, this.idGenerator.getNextId(), clOrdId, side, orderType, quantity, price, timeInForce);
+	}
+
+	List<ResponseMessage> submitNewOrderRequest(
+			final ClientSession session,
+			final long orderId,
+			final String clOrdId,
+			final Side side, final OrderType orderType,
+			final double quantity, final double price,
+			final TimeInForce timeInForce) throws InterruptedException {
+		archiveTerminalOrdersIfDue();
+		final ClientOrder clientOrder = new ClientOrder(orderId, clOrdId, side, orderType, quantity, price, timeInForce);
+		if (!session.tryNewOrder())
+			return singletonList(rejectUnknownNewOrder(clientOrder, RateLimits.NEW_ORDER_RATE_EXCEEDED));
 		final NewRequest req;
-		synchronized(orderMap) {
-			if (this.clOrdId2orderIdMap.containsKey(clOrdId))
-				return singletonList(new ExecutionReport(
-						clientOrder.getClOrdId(), clientOrder.getOrigClOrdId(), clientOrder.getOrderId(), OrderStatus.REJECTED,
-						clientOrder.getSide(), clientOrder.getOrderType(),
-						clientOrder.getOrderQty(), clientOrder.getPrice(),
-						clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
-						null, null,
-						"duplicated ClOrdId"));
+		synchronized (session) {
+			if (isKnownClOrdId(session, clOrdId))
+				return singletonList(rejectUnknownNewOrder(clientOrder, "duplicated ClOrdId"));
+			final String riskReject = this.preTradeRisk.reserveNewOrder(session.getSessionId(), orderId, side, quantity, riskPriceOf(side, orderType, price));
+			if (null != riskReject)
+				return singletonList(rejectUnknownNewOrder(clientOrder, riskReject));
 
-			req = new NewRequest(orderId, side, orderType, quantity, price);
-			this.orderMap.put(orderId, clientOrder);
-			this.clOrdId2orderIdMap.put(clOrdId, orderId);
+			req = new NewRequest(orderId, side, orderType, quantity, price, timeInForce, session.getSessionId());
+			addOrder(session, clientOrder);
+			session.clOrdIds.putIfAbsent(clOrdId, orderId);
 		}
 
-		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(req);
-		this.orderSubmissionQueue.put(action);
+		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(req, this.engineClock,
+				isJournaled() ? Journal.newOrder(session.getSessionId(), orderId, clOrdId, side, orderType, quantity, price, timeInForce) : null);
+		if (!this.orderSubmissionQueue.admit(action, true)) {
+			this.preTradeRisk.release(session.getSessionId(), orderId);
+			return singletonList(rejectNewOrder(clientOrder, AdmissionQueue.OVERLOADED));
+		}
 		final Response response = action.waitForResponse();
 
 		if (response instanceof ErrorResponse) {
-			clientOrder.orderRejected();
-			final ErrorResponse errorResp = (ErrorResponse) response;
-			return singletonList(new ExecutionReport(
-					clientOrder.getClOrdId(), clientOrder.getOrigClOrdId(), clientOrder.getOrderId(), clientOrder.getOrderStatus(),
-					clientOrder.getSide(), clientOrder.getOrderType(),
-					clientOrder.getOrderQty(), clientOrder.getPrice(),
-					clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
-					null, null,
-					errorResp.getErrorMsg()));
+			this.preTradeRisk.release(session.getSessionId(), orderId);
+			return singletonList(rejectNewOrder(clientOrder, ((ErrorResponse) response).getErrorMsg()));
 		}
 
 		final SuccessResponse successResp = (SuccessResponse) response;
 		final List<Execution> executions = successResp.getExecutions();
 		final ArrayList<ResponseMessage> responseMessages = new ArrayList<>(executions.size() + 1);
 		responseMessages.add(new ExecutionReport(clOrdId, null, orderId, OrderStatus.NEW, side, orderType, quantity, price, 0, quantity, 0, null, null));
-		if (!executions.isEmpty()) {
-			final Instant transactTime = action.transactTime;
-			synchronized(orderMap) {
-				for (final Execution execution : executions) {
-					final double execQty = execution.getQuantity();
-					final double tradePx = execution.getPrice();
-					final Trade trade = new Trade(execQty, tradePx, transactTime);
-					final ClientOrder buyOrder = this.orderMap.get(execution.getBuyOrderId());
-					final ClientOrder sellOrder = this.orderMap.get(execution.getSellOrderId());
-					if (null != buyOrder) {// purely being defensive
-						buyOrder.addTrade(trade);
-						final ExecutionReport er = generateExecutionReport(buyOrder, trade);
-						responseMessages.add(er);
-					}
-					if (null != sellOrder) {// purely being defensive
-						sellOrder.addTrade(trade);
-						final ExecutionReport er = generateExecutionReport(sellOrder, trade);
-						responseMessages.add(er);
-					}
-					this.tradeHistory.add(trade);
-				}
-			}
+		addFills(session, executions, action.firstFill, responseMessages);
+		if (TimeInForce.isImmediate(timeInForce) && clientOrder.getLeavesQty() > 0) {
+			this.preTradeRisk.release(session.getSessionId(), orderId);
+			clientOrder.orderCancelled();
+			responseMessages.add(new ExecutionReport(
+					clientOrder.getClOrdId(), null, orderId, OrderStatus.CANCELLED,
+					side, orderType,
+					clientOrder.getOrderQty(), clientOrder.getPrice(),
+					clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
+					null, null));
 		}
 		return responseMessages;
 	}
 
-	private static ExecutionReport generateExecutionReport(final ClientOrder order, final Trade trade) {
+	/**
+	 * A market order is reserved at the price it would trade at right now, i.e. the other side's best price, or the
+	 * last price if that side is empty
+	 */
+	private double riskPriceOf(final Side side, final OrderType orderType, final double price) {
+		if (!OrderType.isMarketOrder(orderType))
+			return price;
+		final TopOfBook.Quote quote = this.topOfBook.read(new TopOfBook.Quote());
+		final double bestOpposite = Side.BUY == side ? quote.getAskPrice() : quote.getBidPrice();
+		return Double.isNaN(bestOpposite) ? quote.getLastPrice() : bestOpposite;
+	}
+
+	// the order never made it into the session
+	private static ExecutionReport rejectUnknownNewOrder(final ClientOrder clientOrder, final String rejectReason) {
 		return new ExecutionReport(
-				order.getClOrdId(), null, order.getOrderId(), order.getOrderStatus(),
-				order.getSide(), order.getOrderType(),
-				order.getOrderQty(), order.getPrice(),
-				order.getCumQty(), order.getLeavesQty(), order.getAvgPx(),
-				trade.getExecQty(), trade.getTradePx());
+				clientOrder.getClOrdId(), clientOrder.getOrigClOrdId(), clientOrder.getOrderId(), OrderStatus.REJECTED,
+				clientOrder.getSide(), clientOrder.getOrderType(),
+				clientOrder.getOrderQty(), clientOrder.getPrice(),
+				clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
+				null, null,
+				rejectReason);
+	}
+
+	private static ExecutionReport rejectNewOrder(final ClientOrder clientOrder, final String rejectReason) {
+		clientOrder.orderRejected();
+		return new ExecutionReport(
+				clientOrder.getClOrdId(), clientOrder.getOrigClOrdId(), clientOrder.getOrderId(), clientOrder.getOrderStatus(),
+				clientOrder.getSide(), clientOrder.getOrderType(),
+				clientOrder.getOrderQty(), clientOrder.getPrice(),
+				clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
+				null, null,
+				rejectReason);
+	}
+
+	/**
+	 * Append a trade for each execution to the fill store, and to the candles
+	 *
+	 * @param transactTimeNanos time the book processed the request, in nanoseconds since the epoch
+	 * @return index of the trade of the first execution, the others following in order; or {@link FillStore#NO_FILL}
+	 */
+	// only to be called from the order book processing thread
+	private int appendTrades(final Request request, final List<Execution> executions, final long transactTimeNanos) {
+		int firstFill = FillStore.NO_FILL;
+		for (int i = 0; i < executions.size(); ++i) {
+			final Execution execution = executions.get(i);
+			final int fillIndex = this.fillStore.append(
+					this.tradeIdGenerator.getNextId(),
+					execution.getBuyOrderId(), execution.getSellOrderId(), aggressorSideOf(request, execution),
+					execution.getQuantity(), execution.getPrice(), transactTimeNanos);
+			this.candles.onTrade(execution.getQuantity(), execution.getPrice(), transactTimeNanos);
+			// so the orders are not archived before the caller accounts for the trade
+			countFillProduced(execution.getBuyOrderId());
+			countFillProduced(execution.getSellOrderId());
+			if (0 == i)
+				firstFill = fillIndex;
+		}
+		return firstFill;
+	}
+
+	// only to be called from the order book processing thread
+	private void countFillProduced(final long orderId) {
+		final ClientSession session = this.orderSessions.get(orderId);
+		final ClientOrder order = null != session ? session.orders.get(orderId) : null;
+		if (null != order) // purely being defensive
+			order.fillProduced();
+	}
+
+	/**
+	 * The order a request enters takes liquidity; no order does in an auction uncrossing. A quote never crosses itself,
+	 * so only one side of a fill of a mass quote is a level.
+	 */
+	private static Side aggressorSideOf(final Request request, final Execution execution) {
+		if (request instanceof UncrossRequest)
+			return null;
+		if (request instanceof MassQuoteRequest) {
+			for (final QuoteLevel bid : ((MassQuoteRequest) request).getBids()) {
+				if (bid.getOrderId() == execution.getBuyOrderId())
+					return Side.BUY;
+			}
+			return Side.SELL;
+		}
+		return request.getOrderId() == execution.getBuyOrderId() ? Side.BUY : Side.SELL;
+	}
+
+	/**
+	 * Apply the executions, whose trades the book processing thread appended to the fill store, to both orders of each,
+	 * adding a fill execution report for each order, or queueing it on the session of the order; see
+	 * {@link #route(ClientSession, ClientSession, ResponseMessage, List)}
+	 *
+	 * @param firstFill index of the trade of the first execution in the fill store
+	 */
+	private void addFills(
+			final ClientSession requester, final List<Execution> executions, final int firstFill,
+			final List<ResponseMessage> responseMessages) {
+		for (int i = 0; i < executions.size(); ++i)
+			addFill(requester, executions.get(i), firstFill + i, responseMessages);
+	}
+
+	private void addFill(
+			final ClientSession requester, final Execution execution, final int fillIndex,
+			final List<ResponseMessage> responseMessages) {
+		final long buyOrderId = execution.getBuyOrderId();
+		final long sellOrderId = execution.getSellOrderId();
+		final double execQty = execution.getQuantity();
+		final double tradePx = execution.getPrice();
+		final ClientSession buySession = this.orderSessions.get(buyOrderId);
+		final ClientSession sellSession = this.orderSessions.get(sellOrderId);
+		final ExecutionReport buyEr = applyFill(buySession, buyOrderId, fillIndex, execQty, tradePx);
+		final ExecutionReport sellEr = applyFill(sellSession, sellOrderId, fillIndex, execQty, tradePx);
+		if (null != buyEr) {
+			this.preTradeRisk.onFill(buySession.getSessionId(), buyOrderId, Side.BUY, execQty, tradePx);
+			route(requester, buySession, buyEr, responseMessages);
+		}
+		if (null != sellEr) {
+			this.preTradeRisk.onFill(sellSession.getSessionId(), sellOrderId, Side.SELL, execQty, tradePx);
+			route(requester, sellSession, sellEr, responseMessages);
+		}
+	}
+
+	/**
+	 * Account for the trade on one of its orders, under the lock on the session of the order only
+	 *
+	 * @return the fill execution report of the order, {@code null} if the order is not known
+	 */
+	private ExecutionReport applyFill(final ClientSession session, final long orderId, final int fillIndex, final double execQty, final double tradePx) {
+		if (null == session) // purely being defensive
+			return null;
+		synchronized (session) {
+			final ClientOrder order = session.orders.get(orderId);
+			if (null == order) // purely being defensive
+				return null;
+			order.addFill(this.fillStore, fillIndex);
+			final OrderState state = order.readState(session.reportOrderState);
+			return new ExecutionReport(
+					state.getClOrdId(), null, order.getOrderId(), state.getOrderStatus(),
+					order.getSide(), state.getOrderType(),
+					state.getOrderQty(), state.getPrice(),
+					state.getCumQty(), state.getLeavesQty(), state.getAvgPx(),
+					execQty, tradePx);
+		}
+	}
+
+	public List<ResponseMessage> submitAmendOrderRequest(
+			final CharSequence origClOrdId, final String clOrdId,
+			final Side side, final OrderType newOrderType,
+			final double newQuantity, final double newPrice) throws InterruptedException {
+		return submitAmendOrderRequest(MassCancelRequest.ANY_OWNER, origClOrdId, clOrdId, side, newOrderType, newQuantity, newPrice);
 	}
 
+	/**
+	 * Amend an order of the given owner; the origClOrdId can be a view over the request as received, as it is only
+	 * looked up.
+	 *
+	 * @see #submitNewOrderRequest(String, Side, OrderType, double, double, TimeInForce, long)
+	 */
 	public List<ResponseMessage> submitAmendOrderRequest(
-			final String origClOrdId, final String clOrdId,
+			final long ownerId,
+			final CharSequence origClOrdId, final String clOrdId,
 			final Side side, final OrderType newOrderType,
 			final double newQuantity, final double newPrice) throws InterruptedException {
+		return submitAmendOrderRequest(sessionOf(ownerId), origClOrdId, clOrdId, side, newOrderType, newQuantity, newPrice);
+	}
+
+	List<ResponseMessage> submitAmendOrderRequest(
+			final ClientSession session,
+			final CharSequence origClOrdId, final String clOrdId,
+			final Side side, final OrderType newOrderType,
+			final double newQuantity, final double newPrice) throws InterruptedException {
+		if (!session.tryAmend())
+			return singletonList(new OrderCancelReject(clOrdId, origClOrdId.toString(), RateLimits.AMEND_RATE_EXCEEDED));
+		archiveTerminalOrdersIfDue();
 		final ClientOrder clientOrder;
+		final String origClOrdIdString;
 		final long orderId;
 		final AmendRequest amendReq;
-		synchronized (orderMap) {
-			clientOrder = getOrderByClOrdId(origClOrdId);
+		synchronized (session) {
+			clientOrder = getOrderByClOrdId(session, origClOrdId);
 			if (null == clientOrder)
-				return singletonList(new OrderCancelReject(clOrdId, origClOrdId, "Unknown origClOrdId = " + origClOrdId));
+				return singletonList(new OrderCancelReject(clOrdId, origClOrdId.toString(), "Unknown origClOrdId = " + origClOrdId));
+			origClOrdIdString = origClOrdIdOf(clientOrder, origClOrdId);
+			if (isKnownClOrdId(session, clOrdId))
+				return singletonList(new OrderCancelReject(clOrdId, origClOrdIdString, "duplicated ClOrdId"));
 
 			orderId = clientOrder.getOrderId();
+			final String riskReject = this.preTradeRisk.reserveAmend(session.getSessionId(), orderId, newQuantity, riskPriceOf(side, newOrderType, newPrice));
+			if (null != riskReject)
+				return singletonList(new OrderCancelReject(clOrdId, origClOrdIdString, riskReject));
 			amendReq = new AmendRequest(orderId, side, newOrderType, newQuantity, newPrice);
-			this.clOrdId2orderIdMap.put(clOrdId, clientOrder.getOrderId()); // now the map contains both old/new clOrdId -> order ID
+			session.clOrdIds.putIfAbsent(clOrdId, orderId); // now the table has both old/new clOrdId -> order ID
 		}
 
-		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(amendReq);
-		this.orderSubmissionQueue.put(action);
+		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(amendReq, this.engineClock,
+				isJournaled() ? Journal.amend(session.getSessionId(), origClOrdId.toString(), clOrdId, side, newOrderType, newQuantity, newPrice) : null);
+		if (!this.orderSubmissionQueue.admit(action, true)) {
+			this.preTradeRisk.amendDone(session.getSessionId(), orderId, false);
+			synchronized (session) {
+				session.clOrdIds.remove(clOrdId);
+			}
+			return singletonList(new OrderCancelReject(clOrdId, origClOrdIdString, AdmissionQueue.OVERLOADED));
+		}
 		final Response response = action.waitForResponse();
 
 		if (response instanceof ErrorResponse) {
-			synchronized (orderMap) {
-				this.clOrdId2orderIdMap.remove(clOrdId);
+			this.preTradeRisk.amendDone(session.getSessionId(), orderId, false);
+			synchronized (session) {
+				session.clOrdIds.remove(clOrdId);
 			}
 			final ErrorResponse errorResp = (ErrorResponse) response;
 			return singletonList(new ExecutionReport(
-					clOrdId, origClOrdId, orderId, OrderStatus.REJECTED,
+					clOrdId, origClOrdIdString, orderId, OrderStatus.REJECTED,
 					side, clientOrder.getOrderType(),
 					clientOrder.getOrderQty(), clientOrder.getPrice(),
 					clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
@@ -291,8 +1031,9 @@ public class MatchingEngine {
 					errorResp.getErrorMsg()));
 		}
 		final SuccessResponse successResp = (SuccessResponse) response;
+		this.preTradeRisk.amendDone(session.getSessionId(), orderId, true);
 		clientOrder.orderAmended(
-				clOrdId, origClOrdId,
+				clOrdId, origClOrdIdString,
 				newOrderType,
 				newQuantity, newPrice);
 
@@ -304,48 +1045,53 @@ public class MatchingEngine {
 				clientOrder.getOrderQty(), clientOrder.getPrice(),
 				clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
 				null, null));
-		if (!executions.isEmpty()) {
-			final Instant transactTime = action.transactTime;
-			synchronized(orderMap) {
-				for (final Execution execution : executions) {
-					final double execQty = execution.getQuantity();
-					final double tradePx = execution.getPrice();
-					final Trade trade = new Trade(execQty, tradePx, transactTime);
-					final ClientOrder buyOrder = this.orderMap.get(execution.getBuyOrderId());
-					final ClientOrder sellOrder = this.orderMap.get(execution.getSellOrderId());
-					if (null != buyOrder) {// purely being defensive
-						buyOrder.addTrade(trade);
-						final ExecutionReport er = generateExecutionReport(buyOrder, trade);
-						responseMessages.add(er);
-					}
-					if (null != sellOrder) {// purely being defensive
-						sellOrder.addTrade(trade);
-						final ExecutionReport er = generateExecutionReport(sellOrder, trade);
-						responseMessages.add(er);
-					}
-					this.tradeHistory.add(trade);
-				}
-			}
-		}
+		addFills(session, executions, action.firstFill, responseMessages);
 		return responseMessages;
 	}
 
-	public List<ResponseMessage> submitCancelOrderRequest(final String origClOrdId, final String clOrdId) throws InterruptedException {
+	public List<ResponseMessage> submitCancelOrderRequest(final CharSequence origClOrdId, final String clOrdId) throws InterruptedException {
+		return submitCancelOrderRequest(MassCancelRequest.ANY_OWNER, origClOrdId, clOrdId);
+	}
+
+	/**
+	 * Cancel an order of the given owner; the origClOrdId can be a view over the request as received, as it is only
+	 * looked up.
+	 *
+	 * @see #submitNewOrderRequest(String, Side, OrderType, double, double, TimeInForce, long)
+	 */
+	public List<ResponseMessage> submitCancelOrderRequest(final long ownerId, final CharSequence origClOrdId, final String clOrdId) throws InterruptedException {
+		return submitCancelOrderRequest(sessionOf(ownerId), origClOrdId, clOrdId);
+	}
+
+	List<ResponseMessage> submitCancelOrderRequest(final ClientSession session, final CharSequence origClOrdId, final String clOrdId) throws InterruptedException {
+		if (!session.tryCancel())
+			return singletonList(new OrderCancelReject(clOrdId, origClOrdId.toString(), RateLimits.CANCEL_RATE_EXCEEDED));
+		archiveTerminalOrdersIfDue();
 		final ClientOrder clientOrder;
+		final String origClOrdIdString;
 		final long orderId;
 		final CancelRequest cancelReq;
-		synchronized (orderMap) {
-			clientOrder = getOrderByClOrdId(origClOrdId);
+		synchronized (session) {
+			clientOrder = getOrderByClOrdId(session, origClOrdId);
 			if (null == clientOrder)
-				return singletonList(new OrderCancelReject(clOrdId, origClOrdId, "Unknown origClOrdId = " + origClOrdId));
+				return singletonList(new OrderCancelReject(clOrdId, origClOrdId.toString(), "Unknown origClOrdId = " + origClOrdId));
+			origClOrdIdString = origClOrdIdOf(clientOrder, origClOrdId);
+			if (isKnownClOrdId(session, clOrdId))
+				return singletonList(new OrderCancelReject(clOrdId, origClOrdIdString, "duplicated ClOrdId"));
 
 			orderId = clientOrder.getOrderId();
 			cancelReq = new CancelRequest(orderId);
-			this.clOrdId2orderIdMap.put(clOrdId, clientOrder.getOrderId()); // now the map contains both old/new clOrdId -> order ID
+			session.clOrdIds.putIfAbsent(clOrdId, orderId); // now the table has both old/new clOrdId -> order ID
 		}
 
-		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(cancelReq);
-		this.orderSubmissionQueue.put(action);
+		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(cancelReq, this.engineClock,
+				isJournaled() ? Journal.cancel(session.getSessionId(), origClOrdId.toString(), clOrdId) : null);
+		if (!this.orderSubmissionQueue.admit(action, false)) {
+			synchronized (session) {
+				session.clOrdIds.remove(clOrdId);
+			}
+			return singletonList(new OrderCancelReject(clOrdId, origClOrdIdString, AdmissionQueue.OVERLOADED));
+		}
 		final Response response = action.waitForResponse();
 
 		if (response instanceof ErrorResponse) {
@@ -359,7 +1105,8 @@ public class MatchingEngine {
 					errorResp.getErrorMsg()));
 		}
 
-		clientOrder.orderCancelled(clOrdId, origClOrdId);
+		this.preTradeRisk.release(session.getSessionId(), orderId);
+		clientOrder.orderCancelled(clOrdId, origClOrdIdString);
 		return singletonList(
 				new ExecutionReport(
 						clientOrder.getClOrdId(), clientOrder.getOrigClOrdId(), clientOrder.getOrderId(), OrderStatus.CANCELLED,
@@ -368,4 +1115,257 @@ public class MatchingEngine {
 						clientOrder.getCumQty(), clientOrder.getLeavesQty(), clientOrder.getAvgPx(),
 						null, null));
 	}
+
+	/**
+	 * Cancel all resting orders matching all of the given criteria, in a single turn of the order book processing
+	 * thread.
+	 *
+	 * @param clOrdId  ID of the mass cancel request
+	 * @param side     side to cancel, or {@code null} for both
+	 * @param minPrice lowest price to cancel, inclusive, or {@link Double#NaN} for no lower bound
+	 * @param maxPrice highest price to cancel, inclusive, or {@link Double#NaN} for no upper bound; market orders are
+	 *                 only cancelled without a bound on either end
+	 * @param ownerId  owner of the orders to cancel, or {@link MassCancelRequest#ANY_OWNER}
+	 * @return an {@link OrderMassCancelReport}, followed by an execution report for each order cancelled, except those
+	 * queued on the session of the order instead; or a {@link BusinessMessageReject} if the engine is overloaded
+	 */
+	public List<ResponseMessage> submitMassCancelRequest(
+			final String clOrdId,
+			final Side side,
+			final double minPrice, final double maxPrice,
+			final long ownerId) throws InterruptedException {
+		return submitMassCancelRequest(sessionOf(ownerId), clOrdId, side, minPrice, maxPrice, ownerId);
+	}
+
+	List<ResponseMessage> submitMassCancelRequest(
+			final ClientSession requester,
+			final String clOrdId,
+			final Side side,
+			final double minPrice, final double maxPrice,
+			final long ownerId) throws InterruptedException {
+		archiveTerminalOrdersIfDue();
+		final MassCancelRequest massCancelReq = new MassCancelRequest(this.idGenerator.getNextId(), side, minPrice, maxPrice, ownerId);
+		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(massCancelReq, this.engineClock,
+				isJournaled() ? Journal.massCancel(requester.getSessionId(), clOrdId, side, minPrice, maxPrice, ownerId) : null);
+		if (!this.orderSubmissionQueue.admit(action, false))
+			return singletonList(new BusinessMessageReject(clOrdId, AdmissionQueue.OVERLOADED));
+		final MassCancelResponse response = (MassCancelResponse) action.waitForResponse();
+
+		final List<Long> cancelledOrderIds = response.getCancelledOrderIds();
+		final ArrayList<ResponseMessage> responseMessages = new ArrayList<>(cancelledOrderIds.size() + 1);
+		responseMessages.add(new OrderMassCancelReport(clOrdId, cancelledOrderIds.size()));
+		for (final Long orderId : cancelledOrderIds) {
+			final ClientSession owner = this.orderSessions.get(orderId);
+			final ClientOrder clientOrder = null != owner ? owner.orders.get(orderId) : null;
+			if (null == clientOrder) // purely being defensive
+				continue;
+			this.preTradeRisk.release(owner.getSessionId(), orderId);
+			final ExecutionReport er;
+			synchronized (owner) {
+				clientOrder.orderCancelled();
+				er = generateExecutionReport(owner, clientOrder, OrderStatus.CANCELLED);
+			}
+			route(requester, owner, er, responseMessages);
+		}
+		return responseMessages;
+	}
+
+	/**
+	 * Stop continuous matching and collect orders for a call auction, e.g. before the open or after a halt: orders are
+	 * acknowledged and rest in the book, crossed or not, until {@link #uncross(String)}. Orders to be executed
+	 * immediately expire unfilled.
+	 *
+	 * @param auctionId ID of the auction
+	 * @return nothing if the auction started; a {@link BusinessMessageReject} if one is already running, or the engine
+	 * is overloaded
+	 */
+	public List<ResponseMessage> startAuction(final String auctionId) throws InterruptedException {
+		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(new StartAuctionRequest(this.idGenerator.getNextId()), this.engineClock,
+				isJournaled() ? Journal.startAuction(auctionId) : null);
+		if (!this.orderSubmissionQueue.admit(action, false))
+			return singletonList(new BusinessMessageReject(auctionId, AdmissionQueue.OVERLOADED));
+		final Response response = action.waitForResponse();
+		if (response instanceof ErrorResponse)
+			return singletonList(new BusinessMessageReject(auctionId, ((ErrorResponse) response).getErrorMsg()));
+		return Collections.emptyList();
+	}
+
+	/**
+	 * End the call auction, executing everything which crosses at the single price executing the most quantity, in one
+	 * turn of the order book processing thread; then go back to continuous matching. No order is the aggressor of the
+	 * trades of an uncrossing.
+	 *
+	 * @param auctionId ID of the auction
+	 * @return the fill execution reports of both orders of every trade, except those queued on the session of the order
+	 * instead; or a {@link BusinessMessageReject} if there is no auction running, or the engine is overloaded
+	 */
+	public List<ResponseMessage> uncross(final String auctionId) throws InterruptedException {
+		if (isBatchMode())
+			return singletonList(new BusinessMessageReject(auctionId, "batches are cleared by the engine"));
+		archiveTerminalOrdersIfDue();
+		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(new UncrossRequest(this.idGenerator.getNextId()), this.engineClock,
+				isJournaled() ? Journal.uncross(auctionId) : null);
+		if (!this.orderSubmissionQueue.admit(action, false))
+			return singletonList(new BusinessMessageReject(auctionId, AdmissionQueue.OVERLOADED));
+		final Response response = action.waitForResponse();
+		if (response instanceof ErrorResponse)
+			return singletonList(new BusinessMessageReject(auctionId, ((ErrorResponse) response).getErrorMsg()));
+
+		final List<Execution> executions = ((UncrossResponse) response).getExecutions();
+		final ArrayList<ResponseMessage> responseMessages = new ArrayList<>(executions.size() * 2);
+		addFills(null, executions, action.firstFill, responseMessages);
+		return responseMessages;
+	}
+
+	/**
+	 * Replace the whole ladder of quotes of a market maker in a single turn of the order book processing thread.
+	 * <p/>
+	 * Levels are matched to the previous quote by price: a level still quoted keeps its order, clOrdId and queue
+	 * position, a level no longer quoted is cancelled, and a new level is entered as a limit order with clOrdId
+	 * {@code <quoteId>-B<i>} or {@code <quoteId>-S<i>}, {@code i} being its index in the price array.
+	 *
+	 * @param quoteId    ID of the mass quote
+	 * @param ownerId    the market maker, cannot be {@link MassCancelRequest#ANY_OWNER}
+	 * @param bidPrices  prices of the bid levels, empty to pull all bids
+	 * @param bidQtys    quantities of the bid levels
+	 * @param askPrices  prices of the ask levels, empty to pull all asks
+	 * @param askQtys    quantities of the ask levels
+	 * @return a {@link MassQuoteAcknowledgement}, followed by an execution report for each level entered, resized or
+	 * pulled, and the fills of the new levels crossing the book; or a {@link BusinessMessageReject} if the ClOrdID of a
+	 * level is already used in the session, or the engine is overloaded
+	 * @throws IllegalArgumentException if the ladder is invalid, see {@link MassQuoteRequest}
+	 */
+	public List<ResponseMessage> submitMassQuoteRequest(
+			final String quoteId,
+			final long ownerId,
+			final double[] bidPrices, final double[] bidQtys,
+			final double[] askPrices, final double[] askQtys) throws InterruptedException {
+		return submitMassQuoteRequest(sessionOf(ownerId), quoteId, bidPrices, bidQtys, askPrices, askQtys);
+	}
+
+	List<ResponseMessage> submitMassQuoteRequest(
+			final ClientSession session,
+			final String quoteId,
+			final double[] bidPrices, final double[] bidQtys,
+			final double[] askPrices, final double[] askQtys) throws InterruptedException {
+		return submitMassQuoteRequest(session, quoteId, bidPrices, bidQtys, askPrices, askQtys, null, null);
+	}
+
+	/**
+	 * @param bidOrderIds order IDs to give the bid levels, {@code null} to generate them
+	 * @param askOrderIds order IDs to give the ask levels, {@code null} to generate them
+	 */
+	List<ResponseMessage> submitMassQuoteRequest(
+			final ClientSession session,
+			final String quoteId,
+			final double[] bidPrices, final double[] bidQtys,
+			final double[] askPrices, final double[] askQtys,
+			final long[] bidOrderIds, final long[] askOrderIds) throws InterruptedException {
+		archiveTerminalOrdersIfDue();
+		if (bidPrices.length != bidQtys.length || askPrices.length != askQtys.length)
+			throw new IllegalArgumentException("Quote ID = '" + quoteId + "': prices and quantities do not match up");
+
+		// orders for new levels are known before the book sees them, so that fills against them can always be reported
+		final ArrayList<ClientOrder> quoteOrders = new ArrayList<>(bidPrices.length + askPrices.length);
+		final List<QuoteLevel> bids = makeQuoteLevels(quoteId + "-B", Side.BUY, bidPrices, bidQtys, bidOrderIds, quoteOrders);
+		final List<QuoteLevel> asks = makeQuoteLevels(quoteId + "-S", Side.SELL, askPrices, askQtys, askOrderIds, quoteOrders);
+		final MassQuoteRequest massQuoteReq = new MassQuoteRequest(this.idGenerator.getNextId(), session.getSessionId(), bids, asks);
+		synchronized (session) {
+			for (final ClientOrder quoteOrder : quoteOrders) {
+				if (isKnownClOrdId(session, quoteOrder.getClOrdId()))
+					return singletonList(new BusinessMessageReject(quoteId, "duplicated ClOrdId " + quoteOrder.getClOrdId()));
+			}
+			for (final ClientOrder quoteOrder : quoteOrders) {
+				addOrder(session, quoteOrder);
+				session.clOrdIds.putIfAbsent(quoteOrder.getClOrdId(), quoteOrder.getOrderId());
+			}
+		}
+
+		final SubmitRequestOrderBookAction action = new SubmitRequestOrderBookAction(massQuoteReq, this.engineClock,
+				isJournaled() ? Journal.massQuote(session.getSessionId(), quoteId, bids, asks) : null);
+		if (!this.orderSubmissionQueue.admit(action, true)) {
+			synchronized (session) {
+				for (final ClientOrder quoteOrder : quoteOrders) {
+					removeOrder(session, quoteOrder.getOrderId());
+					session.clOrdIds.remove(quoteOrder.getClOrdId());
+				}
+			}
+			return singletonList(new BusinessMessageReject(quoteId, AdmissionQueue.OVERLOADED));
+		}
+		final MassQuoteResponse response = (MassQuoteResponse) action.waitForResponse();
+
+		final List<Long> cancelledOrderIds = response.getCancelledOrderIds();
+		final List<Execution> executions = response.getExecutions();
+		final ArrayList<ResponseMessage> responseMessages = new ArrayList<>(quoteOrders.size() + cancelledOrderIds.size() + executions.size() * 2 + 1);
+		responseMessages.add(new MassQuoteAcknowledgement(quoteId, quoteOrders.size(), cancelledOrderIds.size()));
+		synchronized (session) {
+			for (final Long orderId : cancelledOrderIds) {
+				final ClientOrder clientOrder = session.orders.get(orderId);
+				if (null == clientOrder) // purely being defensive
+					continue;
+				clientOrder.orderCancelled();
+				responseMessages.add(generateExecutionReport(session, clientOrder, OrderStatus.CANCELLED));
+			}
+			ackQuoteLevels(session, bids, response.getBidOrderIds(), response.getBidOpenQtys(), response.getResizedOrderIds(), responseMessages);
+			ackQuoteLevels(session, asks, response.getAskOrderIds(), response.getAskOpenQtys(), response.getResizedOrderIds(), responseMessages);
+		}
+		addFills(session, executions, action.firstFill, responseMessages);
+		return responseMessages;
+	}
+
+	private List<QuoteLevel> makeQuoteLevels(
+			final String clOrdIdPrefix,
+			final Side side,
+			final double[] prices, final double[] qtys,
+			final long[] orderIds,
+			final List<ClientOrder> quoteOrders) {
+		final ArrayList<QuoteLevel> levels = new ArrayList<>(prices.length);
+		for (int i = 0; i < prices.length; ++i) {
+			final long orderId = null != orderIds ? orderIds[i] : this.idGenerator.getNextId();
+			levels.add(new QuoteLevel(orderId, prices[i], qtys[i]));
+			quoteOrders.add(new ClientOrder(orderId, clOrdIdPrefix + i, side, OrderType.LIMIT, qtys[i], prices[i]));
+		}
+		return levels;
+	}
+
+	/**
+	 * Report each level as new, or resized when the book kept the order of the previous quote; in which case the order
+	 * prepared for the level is dropped. Whether and to what the kept order was resized is taken from the book, as
+	 * fills against it may not have been applied to the order yet. Caller must hold the lock on the session
+	 */
+	private void ackQuoteLevels(
+			final ClientSession session,
+			final List<QuoteLevel> levels,
+			final List<Long> orderIds,
+			final List<Double> openQtys,
+			final List<Long> resizedOrderIds,
+			final List<ResponseMessage> responseMessages) {
+		for (int i = 0; i < levels.size(); ++i) {
+			final QuoteLevel level = levels.get(i);
+			final long orderId = orderIds.get(i);
+			if (orderId == level.getOrderId()) {
+				responseMessages.add(generateExecutionReport(session, session.orders.get(orderId), OrderStatus.NEW));
+				continue;
+			}
+			final ClientOrder unused = session.orders.get(level.getOrderId());
+			removeOrder(session, level.getOrderId());
+			session.clOrdIds.remove(unused.getClOrdId());
+			if (resizedOrderIds.contains(orderId)) {
+				final ClientOrder kept = session.orders.get(orderId);
+				kept.orderResized(openQtys.get(i));
+				responseMessages.add(generateExecutionReport(session, kept, OrderStatus.REPLACED));
+			}
+		}
+	}
+
+	// caller must hold the lock on the session of the order
+	private static ExecutionReport generateExecutionReport(final ClientSession session, final ClientOrder order, final OrderStatus orderStatus) {
+		final OrderState state = order.readState(session.reportOrderState);
+		return new ExecutionReport(
+				state.getClOrdId(), state.getOrigClOrdId(), order.getOrderId(), orderStatus,
+				order.getSide(), state.getOrderType(),
+				state.getOrderQty(), state.getPrice(),
+				state.getCumQty(), state.getLeavesQty(), state.getAvgPx(),
+				null, null);
+	}
 }
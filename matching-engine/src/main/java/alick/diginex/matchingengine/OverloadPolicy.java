@@ -0,0 +1,20 @@
+package alick.diginex.matchingengine;
+
+/**
+ * What a {@link MatchingEngine} does with a request arriving when its order submission queue is full
+ */
+public enum OverloadPolicy {
+	/**
+	 * wait for room in the queue
+	 */
+	BLOCK,
+	/**
+	 * turn the request away straight away
+	 */
+	REJECT,
+	/**
+	 * turn new orders, amends and mass quotes away once the queue is 75% full, keeping the rest of the queue for
+	 * cancels and mass cancels, which wait for room
+	 */
+	SHED
+}
@@ -0,0 +1,831 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.message.BusinessMessageReject;
+import alick.diginex.matchingengine.message.ResponseMessage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Sequences the requests of a cluster of identical {@link MatchingEngine}s, typically three, one per process, with the
+ * Raft consensus algorithm: the leader appends each request to its log and replicates it to the other members; once a
+ * majority of the members has it, every member applies it to its own engine, in log order. The engines thus process
+ * the same requests in the same sequence, and the cluster carries on, with the same book and orders, as long as a
+ * majority of its members is up.
+ * <p/>
+ * The entries of the log are those of the {@link Journal}, replayed into the engines as for a {@link Replica}, so the
+ * engines must take no other requests, and should have neither rate limits nor pre-trade risk. The leader gives new
+ * orders their order IDs as it appends them, and only takes requests once it has applied the whole log it was elected
+ * with, so those IDs carry on after the ones of the previous leaders.
+ * <p/>
+ * To keep the latency it adds small, the leader does not wait for a member to acknowledge entries before sending it the
+ * next ones, and sends whatever entries a member is missing, up to {@link #MAX_BATCH_ENTRIES}, in one message; entries
+ * are applied in batches too.
+ * <p/>
+ * A request is rejected with {@link #NOT_SEQUENCED} if it is not on a majority of the members within
+ * {@link #COMMIT_TIMEOUT_MILLIS}, or the leader loses its leadership first; such a request may still be applied, should
+ * it have reached a majority unbeknownst to the leader. A leader which has not heard from a majority of the members
+ * for {@link #ELECTION_TIMEOUT_MILLIS} steps down, so a leader cut off from the cluster stops taking requests, while
+ * the majority elects another one.
+ * <p/>
+ * The term, vote and log of a member are only kept in memory, so a member which stopped must not rejoin under the same
+ * ID.
+ * <p/>
+ * Wire format, big-endian: each member connects to every other member and sends all its messages over that connection,
+ * a type byte followed by the fields listed with the type.
+ *
+ * Thread-safety: thread-safe.
+ */
+public final class RaftSequencer implements Closeable {
+	/**
+	 * Most entries sent to a member in one message
+	 */
+	static final int MAX_BATCH_ENTRIES = 1024;
+	static final long HEARTBEAT_INTERVAL_MILLIS = 50;
+	/**
+	 * Shortest time without hearing from a leader before a member stands for election; each member waits a random time
+	 * between this and twice as long
+	 */
+	static final long ELECTION_TIMEOUT_MILLIS = 300;
+	/**
+	 * Longest a request waits to be on a majority of the members
+	 */
+	static final long COMMIT_TIMEOUT_MILLIS = 1000;
+
+	public static final String NOT_LEADER = "Not the leader";
+	public static final String NOT_SEQUENCED = "Not sequenced, leadership lost or no majority in time";
+
+	// term, candidate ID, index and term of its last entry
+	private static final byte REQUEST_VOTE_MESSAGE = 1;
+	// term, voter ID, whether granted
+	private static final byte VOTE_MESSAGE = 2;
+	// term, leader ID, index and term of the entry before the first one sent, commit index, entry count, then the term,
+	// length and bytes of each entry
+	private static final byte APPEND_ENTRIES_MESSAGE = 3;
+	// term, member ID, whether appended, index of the last entry known to match the leader's
+	private static final byte APPEND_RESULT_MESSAGE = 4;
+
+	private static final int NO_MEMBER = -1;
+	// appended by every new leader, applied as nothing
+	private static final byte[] NO_OP = new byte[0];
+
+	private enum Role {
+		FOLLOWER, CANDIDATE, LEADER
+	}
+
+	private static final class LogEntry {
+		private final long term;
+		private final byte[] command;
+
+		private LogEntry(final long term, final byte[] command) {
+			this.term = term;
+			this.command = command;
+		}
+	}
+
+	private static final class Proposal {
+		private final long term;
+		private final String refId;
+		// guarded by the sequencer
+		private List<ResponseMessage> responses = null;
+
+		private Proposal(final long term, final String refId) {
+			this.term = term;
+			this.refId = refId;
+		}
+	}
+
+	@FunctionalInterface
+	private interface Message {
+		void writeTo(DataOutputStream out) throws IOException;
+	}
+
+	private final class Peer implements Runnable {
+		private final int memberId;
+		private final InetSocketAddress address;
+		// guarded by the sequencer
+		private final ArrayDeque<Message> outbox = new ArrayDeque<>();
+		private long nextIndex = 1;
+		private long matchIndex = 0;
+		private long heartbeatDueNanos = 0;
+		// when the member last answered this member as the leader
+		private long lastHeardNanos = 0;
+		private boolean voteGranted = false;
+		// only used by the sender thread of the peer, but closed on close
+		private volatile Socket socket = null;
+		private DataOutputStream out = null;
+
+		private Peer(final int memberId, final InetSocketAddress address) {
+			this.memberId = memberId;
+			this.address = address;
+		}
+
+		// sender thread of the peer
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					final Message message;
+					synchronized (RaftSequencer.this) {
+						message = nextMessage(this);
+					}
+					if (null == message)
+						return;
+					try {
+						if (null == this.out)
+							connect();
+						message.writeTo(this.out);
+						this.out.flush();
+					}
+					catch (IOException e) {
+						if (null != this.out && !RaftSequencer.this.closed)
+							System.out.printf("%s: lost member %d: %s%n", RaftSequencer.this, this.memberId, e);
+						disconnect();
+						synchronized (RaftSequencer.this) {
+							// whatever was in flight is resent once connected again
+							this.nextIndex = this.matchIndex + 1;
+						}
+						if (RaftSequencer.this.closed)
+							return;
+						Thread.sleep(HEARTBEAT_INTERVAL_MILLIS);
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				disconnect();
+			}
+		}
+
+		private void connect() throws IOException {
+			final Socket newSocket = new Socket();
+			this.socket = newSocket;
+			newSocket.setTcpNoDelay(true);
+			newSocket.connect(this.address, (int) ELECTION_TIMEOUT_MILLIS);
+			this.out = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+		}
+
+		private void disconnect() {
+			this.out = null;
+			closeSocket();
+		}
+
+		private void closeSocket() {
+			final Socket oldSocket = this.socket;
+			if (null != oldSocket) {
+				try {
+					oldSocket.close();
+				}
+				catch (IOException e) {
+					// nothing to do
+				}
+			}
+		}
+	}
+
+	private final int memberId;
+	private final MatchingEngine engine;
+	private final Map<Integer, Peer> peers = new HashMap<>();
+	private final int majority;
+	private final ServerSocket serverSocket;
+	private final Set<Socket> inboundSockets = ConcurrentHashMap.newKeySet();
+	private volatile boolean closed = false;
+
+	// guarded by this
+	private Role role = Role.FOLLOWER;
+	private long currentTerm = 0;
+	private int votedFor = NO_MEMBER;
+	private int leaderId = NO_MEMBER;
+	private int votes = 0;
+	private long electionDeadlineNanos;
+	// entry i has index i + 1
+	private final ArrayList<LogEntry> log = new ArrayList<>();
+	private long commitIndex = 0;
+	private long appliedIndex = 0;
+	// index of the entry the leader appended when elected; it takes requests once it applied it
+	private long servingFromIndex = Long.MAX_VALUE;
+	// requests appended by this member as the leader, by index
+	private final HashMap<Long, Proposal> proposals = new HashMap<>();
+
+	/**
+	 * Join the cluster: take connections from the other members, and stand for election unless a leader is heard of
+	 * in time.
+	 *
+	 * @param memberId ID of this member, one of the members
+	 * @param members  address of every member of the cluster, by member ID, the same on every member
+	 * @param engine   the engine to apply the requests to, which takes no other requests
+	 * @throws IllegalArgumentException if this member is not one of the members
+	 */
+	public RaftSequencer(final int memberId, final Map<Integer, InetSocketAddress> members, final MatchingEngine engine) throws IOException {
+		if (!members.containsKey(memberId))
+			throw new IllegalArgumentException("member " + memberId + " not one of " + members.keySet());
+		this.memberId = memberId;
+		this.engine = engine;
+		for (final Map.Entry<Integer, InetSocketAddress> member : members.entrySet()) {
+			if (memberId != member.getKey())
+				this.peers.put(member.getKey(), new Peer(member.getKey(), member.getValue()));
+		}
+		this.majority = members.size() / 2 + 1;
+		this.serverSocket = new ServerSocket();
+		try {
+			this.serverSocket.bind(members.get(memberId));
+		}
+		catch (IOException e) {
+			this.serverSocket.close();
+			throw e;
+		}
+		synchronized (this) {
+			resetElectionDeadline();
+		}
+		startDaemon(this::acceptMembers, "accept");
+		startDaemon(this::runElectionTimer, "timer");
+		startDaemon(this::applyCommitted, "apply");
+		for (final Peer peer : this.peers.values())
+			startDaemon(peer, "member-" + peer.memberId);
+	}
+
+	private void startDaemon(final Runnable runnable, final String name) {
+		final Thread thread = new Thread(runnable, "RaftSequencer-" + this.memberId + "-" + name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Sequence a new order request across the cluster, then submit it to the engine, see
+	 * {@link MatchingEngine#submitNewOrderRequest(String, Side, OrderType, double, double, TimeInForce, long)}
+	 *
+	 * @return the responses of the engine of this member; or a {@link BusinessMessageReject} if this member is not the
+	 * leader, or lost its leadership before the request was sequenced
+	 */
+	public List<ResponseMessage> submitNewOrderRequest(
+			final String clOrdId, final Side side, final OrderType orderType,
+			final double quantity, final double price,
+			final TimeInForce timeInForce, final long ownerId) throws InterruptedException {
+		return sequence(clOrdId, () -> Journal.newOrder(ownerId, this.engine.generateOrderId(), clOrdId, side, orderType, quantity, price, timeInForce));
+	}
+
+	/**
+	 * Sequence an amend request across the cluster, then submit it to the engine, see
+	 * {@link #submitNewOrderRequest(String, Side, OrderType, double, double, TimeInForce, long)}
+	 */
+	public List<ResponseMessage> submitAmendOrderRequest(
+			final String origClOrdId, final String clOrdId,
+			final Side side, final OrderType newOrderType,
+			final double newQuantity, final double newPrice,
+			final long ownerId) throws InterruptedException {
+		return sequence(clOrdId, () -> Journal.amend(ownerId, origClOrdId, clOrdId, side, newOrderType, newQuantity, newPrice));
+	}
+
+	/**
+	 * Sequence a cancel request across the cluster, then submit it to the engine, see
+	 * {@link #submitNewOrderRequest(String, Side, OrderType, double, double, TimeInForce, long)}
+	 */
+	public List<ResponseMessage> submitCancelOrderRequest(final String origClOrdId, final String clOrdId, final long ownerId) throws InterruptedException {
+		return sequence(clOrdId, () -> Journal.cancel(ownerId, origClOrdId, clOrdId));
+	}
+
+	/**
+	 * Sequence a mass cancel request across the cluster, then submit it to the engine, see
+	 * {@link #submitNewOrderRequest(String, Side, OrderType, double, double, TimeInForce, long)}
+	 */
+	public List<ResponseMessage> submitMassCancelRequest(
+			final long requesterId, final String clOrdId,
+			final Side side,
+			final double minPrice, final double maxPrice,
+			final long ownerId) throws InterruptedException {
+		return sequence(clOrdId, () -> Journal.massCancel(requesterId, clOrdId, side, minPrice, maxPrice, ownerId));
+	}
+
+	private synchronized List<ResponseMessage> sequence(final String refId, final Supplier<byte[]> command) throws InterruptedException {
+		if (!isLeader())
+			return singletonList(new BusinessMessageReject(refId, NO_MEMBER == this.leaderId || this.memberId == this.leaderId
+					? NOT_LEADER
+					: NOT_LEADER + ", member " + this.leaderId + " is"));
+		this.log.add(new LogEntry(this.currentTerm, command.get()));
+		final long index = lastIndex();
+		final Proposal proposal = new Proposal(this.currentTerm, refId);
+		this.proposals.put(index, proposal);
+		advanceCommitIndex();
+		notifyAll();
+		final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COMMIT_TIMEOUT_MILLIS);
+		while (null == proposal.responses) {
+			if (index <= this.commitIndex) {
+				// sequenced, only to be applied
+				wait();
+				continue;
+			}
+			final long remainingNanos = deadlineNanos - System.nanoTime();
+			if (remainingNanos <= 0) {
+				this.proposals.remove(index, proposal);
+				complete(proposal, null);
+			}
+			else {
+				TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+			}
+		}
+		return proposal.responses;
+	}
+
+	// caller must hold the lock on this
+	private void complete(final Proposal proposal, final List<ResponseMessage> responses) {
+		proposal.responses = null != responses ? responses : singletonList(new BusinessMessageReject(proposal.refId, NOT_SEQUENCED));
+	}
+
+	private void applyCommitted() {
+		try {
+			while (true) {
+				final long firstIndex;
+				final List<LogEntry> entries;
+				synchronized (this) {
+					while (!this.closed && this.commitIndex == this.appliedIndex)
+						wait();
+					if (this.closed)
+						return;
+					firstIndex = this.appliedIndex + 1;
+					entries = new ArrayList<>(this.log.subList((int) this.appliedIndex, (int) this.commitIndex));
+				}
+				long index = firstIndex;
+				for (final LogEntry entry : entries) {
+					final List<ResponseMessage> responses = NO_OP.length == entry.command.length
+							? Collections.emptyList()
+							: Journal.replay(entry.command, this.engine);
+					applied(index++, entry, responses);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private synchronized void applied(final long index, final LogEntry entry, final List<ResponseMessage> responses) {
+		this.appliedIndex = index;
+		final Proposal proposal = this.proposals.remove(index);
+		if (null != proposal)
+			complete(proposal, proposal.term == entry.term ? responses : null);
+		notifyAll();
+	}
+
+	private void runElectionTimer() {
+		try {
+			synchronized (this) {
+				while (!this.closed) {
+					final long now = System.nanoTime();
+					if (Role.LEADER == this.role) {
+						if (!hearsFromMajority(now))
+							stepDown();
+					}
+					else if (now - this.electionDeadlineNanos >= 0) {
+						startElection();
+					}
+					final long waitNanos = Role.LEADER == this.role
+							? TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_INTERVAL_MILLIS)
+							: this.electionDeadlineNanos - now;
+					if (waitNanos > 0)
+						TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// caller must hold the lock on this
+	private boolean hearsFromMajority(final long now) {
+		final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(ELECTION_TIMEOUT_MILLIS);
+		int count = 1;
+		for (final Peer peer : this.peers.values()) {
+			if (now - peer.lastHeardNanos < timeoutNanos)
+				++count;
+		}
+		return count >= this.majority;
+	}
+
+	// caller must hold the lock on this
+	private void stepDown() {
+		System.out.printf("%s: no word from a majority of the members in term %d%n", this, this.currentTerm);
+		becomeFollower(this.currentTerm);
+		this.leaderId = NO_MEMBER;
+		resetElectionDeadline();
+	}
+
+	// caller must hold the lock on this
+	private void resetElectionDeadline() {
+		final long timeoutMillis = ELECTION_TIMEOUT_MILLIS + ThreadLocalRandom.current().nextLong(ELECTION_TIMEOUT_MILLIS);
+		this.electionDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	}
+
+	// caller must hold the lock on this
+	private void startElection() {
+		++this.currentTerm;
+		this.role = Role.CANDIDATE;
+		this.votedFor = this.memberId;
+		this.leaderId = NO_MEMBER;
+		this.votes = 1;
+		resetElectionDeadline();
+		System.out.printf("%s: standing for election in term %d%n", this, this.currentTerm);
+		final long term = this.currentTerm;
+		final long lastIndex = lastIndex();
+		final long lastTerm = termAt(lastIndex);
+		for (final Peer peer : this.peers.values()) {
+			peer.voteGranted = false;
+			send(peer, out -> {
+				out.writeByte(REQUEST_VOTE_MESSAGE);
+				out.writeLong(term);
+				out.writeInt(this.memberId);
+				out.writeLong(lastIndex);
+				out.writeLong(lastTerm);
+			});
+		}
+		if (this.votes >= this.majority)
+			becomeLeader();
+	}
+
+	// caller must hold the lock on this
+	private void becomeLeader() {
+		this.role = Role.LEADER;
+		this.leaderId = this.memberId;
+		this.log.add(new LogEntry(this.currentTerm, NO_OP));
+		this.servingFromIndex = lastIndex();
+		final long now = System.nanoTime();
+		for (final Peer peer : this.peers.values()) {
+			peer.nextIndex = lastIndex();
+			peer.matchIndex = 0;
+			peer.heartbeatDueNanos = now;
+			// as good as heard from, for a start
+			peer.lastHeardNanos = now;
+		}
+		System.out.printf("%s: leader of term %d%n", this, this.currentTerm);
+		advanceCommitIndex();
+		notifyAll();
+	}
+
+	// caller must hold the lock on this
+	private void becomeFollower(final long term) {
+		if (term > this.currentTerm) {
+			this.currentTerm = term;
+			this.votedFor = NO_MEMBER;
+		}
+		if (Role.LEADER == this.role)
+			System.out.printf("%s: no longer the leader, in term %d%n", this, this.currentTerm);
+		this.role = Role.FOLLOWER;
+		this.servingFromIndex = Long.MAX_VALUE;
+	}
+
+	// caller must hold the lock on this
+	private void send(final Peer peer, final Message message) {
+		peer.outbox.add(message);
+		notifyAll();
+	}
+
+	// caller must hold the lock on this; null once closed
+	private Message nextMessage(final Peer peer) throws InterruptedException {
+		while (!this.closed) {
+			if (!peer.outbox.isEmpty())
+				return peer.outbox.poll();
+			if (Role.LEADER == this.role) {
+				final long now = System.nanoTime();
+				if (peer.nextIndex <= lastIndex() || now - peer.heartbeatDueNanos >= 0)
+					return appendEntries(peer, now);
+				TimeUnit.NANOSECONDS.timedWait(this, peer.heartbeatDueNanos - now);
+			}
+			else {
+				wait();
+			}
+		}
+		return null;
+	}
+
+	// caller must hold the lock on this
+	private Message appendEntries(final Peer peer, final long now) {
+		final long term = this.currentTerm;
+		final long commit = this.commitIndex;
+		final long prevIndex = peer.nextIndex - 1;
+		final long prevTerm = termAt(prevIndex);
+		final List<LogEntry> entries = new ArrayList<>(this.log.subList((int) prevIndex, (int) Math.min(lastIndex(), prevIndex + MAX_BATCH_ENTRIES)));
+		// no waiting for the member to acknowledge these before sending the next ones
+		peer.nextIndex = prevIndex + entries.size() + 1;
+		peer.heartbeatDueNanos = now + TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_INTERVAL_MILLIS);
+		return out -> {
+			out.writeByte(APPEND_ENTRIES_MESSAGE);
+			out.writeLong(term);
+			out.writeInt(this.memberId);
+			out.writeLong(prevIndex);
+			out.writeLong(prevTerm);
+			out.writeLong(commit);
+			out.writeInt(entries.size());
+			for (final LogEntry entry : entries) {
+				out.writeLong(entry.term);
+				out.writeInt(entry.command.length);
+				out.write(entry.command);
+			}
+		};
+	}
+
+	// caller must hold the lock on this
+	private void replyToAppend(final Peer leader, final boolean success, final long matchIndex) {
+		final long term = this.currentTerm;
+		send(leader, out -> {
+			out.writeByte(APPEND_RESULT_MESSAGE);
+			out.writeLong(term);
+			out.writeInt(this.memberId);
+			out.writeBoolean(success);
+			out.writeLong(matchIndex);
+		});
+	}
+
+	// caller must hold the lock on this
+	private void advanceCommitIndex() {
+		// only entries of the current term are committed by counting; the ones before them are committed with them
+		for (long index = lastIndex(); index > this.commitIndex && this.currentTerm == termAt(index); --index) {
+			int count = 1;
+			for (final Peer peer : this.peers.values()) {
+				if (peer.matchIndex >= index)
+					++count;
+			}
+			if (count >= this.majority) {
+				this.commitIndex = index;
+				notifyAll();
+				return;
+			}
+		}
+	}
+
+	// caller must hold the lock on this
+	private long lastIndex() {
+		return this.log.size();
+	}
+
+	// caller must hold the lock on this
+	private long termAt(final long index) {
+		return 0 == index ? 0 : this.log.get((int) (index - 1)).term;
+	}
+
+	private void acceptMembers() {
+		while (!this.closed) {
+			try {
+				final Socket socket = this.serverSocket.accept();
+				this.inboundSockets.add(socket);
+				startDaemon(() -> receive(socket), "from-" + socket.getRemoteSocketAddress());
+			}
+			catch (IOException e) {
+				if (!this.closed)
+					System.out.printf("%s: failed to accept a member: %s%n", this, e);
+			}
+		}
+	}
+
+	private void receive(final Socket socket) {
+		try (final Socket member = socket) {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(member.getInputStream()));
+			while (true) {
+				final byte type = in.readByte();
+				switch (type) {
+					case REQUEST_VOTE_MESSAGE: {
+						final long term = in.readLong();
+						final int candidateId = in.readInt();
+						final long lastIndex = in.readLong();
+						final long lastTerm = in.readLong();
+						onRequestVote(term, candidateId, lastIndex, lastTerm);
+						break;
+					}
+					case VOTE_MESSAGE: {
+						final long term = in.readLong();
+						final int voterId = in.readInt();
+						final boolean granted = in.readBoolean();
+						onVote(term, voterId, granted);
+						break;
+					}
+					case APPEND_ENTRIES_MESSAGE: {
+						final long term = in.readLong();
+						final int leaderId = in.readInt();
+						final long prevIndex = in.readLong();
+						final long prevTerm = in.readLong();
+						final long leaderCommit = in.readLong();
+						final int count = in.readInt();
+						final List<LogEntry> entries = new ArrayList<>(count);
+						for (int i = 0; i < count; ++i) {
+							final long entryTerm = in.readLong();
+							final byte[] command = new byte[in.readInt()];
+							in.readFully(command);
+							entries.add(new LogEntry(entryTerm, command));
+						}
+						onAppendEntries(term, leaderId, prevIndex, prevTerm, leaderCommit, entries);
+						break;
+					}
+					case APPEND_RESULT_MESSAGE: {
+						final long term = in.readLong();
+						final int followerId = in.readInt();
+						final boolean success = in.readBoolean();
+						final long matchIndex = in.readLong();
+						onAppendResult(term, followerId, success, matchIndex);
+						break;
+					}
+					default:
+						throw new IOException("unknown message type " + type);
+				}
+			}
+		}
+		catch (IOException e) {
+			if (!this.closed)
+				System.out.printf("%s: member %s disconnected: %s%n", this, socket.getRemoteSocketAddress(), e);
+		}
+		finally {
+			this.inboundSockets.remove(socket);
+		}
+	}
+
+	private synchronized void onRequestVote(final long term, final int candidateId, final long lastIndex, final long lastTerm) {
+		final Peer candidate = this.peers.get(candidateId);
+		if (null == candidate)
+			return;
+		if (term > this.currentTerm)
+			becomeFollower(term);
+		final long ownLastTerm = termAt(lastIndex());
+		final boolean upToDate = lastTerm > ownLastTerm || (lastTerm == ownLastTerm && lastIndex >= lastIndex());
+		final boolean granted = term == this.currentTerm && (NO_MEMBER == this.votedFor || candidateId == this.votedFor) && upToDate;
+		if (granted) {
+			this.votedFor = candidateId;
+			resetElectionDeadline();
+		}
+		final long replyTerm = this.currentTerm;
+		send(candidate, out -> {
+			out.writeByte(VOTE_MESSAGE);
+			out.writeLong(replyTerm);
+			out.writeInt(this.memberId);
+			out.writeBoolean(granted);
+		});
+	}
+
+	private synchronized void onVote(final long term, final int voterId, final boolean granted) {
+		if (term > this.currentTerm) {
+			becomeFollower(term);
+			return;
+		}
+		final Peer voter = this.peers.get(voterId);
+		if (null == voter || Role.CANDIDATE != this.role || term != this.currentTerm || !granted || voter.voteGranted)
+			return;
+		voter.voteGranted = true;
+		if (++this.votes >= this.majority)
+			becomeLeader();
+	}
+
+	private synchronized void onAppendEntries(
+			final long term, final int leaderId,
+			final long prevIndex, final long prevTerm,
+			final long leaderCommit, final List<LogEntry> entries) {
+		final Peer leader = this.peers.get(leaderId);
+		if (null == leader)
+			return;
+		if (term < this.currentTerm) {
+			replyToAppend(leader, false, lastIndex());
+			return;
+		}
+		if (term > this.currentTerm || Role.FOLLOWER != this.role)
+			becomeFollower(term);
+		this.leaderId = leaderId;
+		resetElectionDeadline();
+		if (prevIndex > lastIndex() || termAt(prevIndex) != prevTerm) {
+			replyToAppend(leader, false, Math.min(lastIndex(), prevIndex - 1));
+			return;
+		}
+		long index = prevIndex;
+		for (final LogEntry entry : entries) {
+			++index;
+			if (index <= lastIndex()) {
+				if (termAt(index) == entry.term)
+					continue;
+				truncateFrom(index);
+			}
+			this.log.add(entry);
+		}
+		if (leaderCommit > this.commitIndex) {
+			this.commitIndex = Math.max(this.commitIndex, Math.min(leaderCommit, index));
+			notifyAll();
+		}
+		replyToAppend(leader, true, index);
+	}
+
+	// caller must hold the lock on this
+	private void truncateFrom(final long index) {
+		this.log.subList((int) (index - 1), this.log.size()).clear();
+		final Iterator<Map.Entry<Long, Proposal>> iterator = this.proposals.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Map.Entry<Long, Proposal> proposal = iterator.next();
+			if (proposal.getKey() >= index) {
+				complete(proposal.getValue(), null);
+				iterator.remove();
+			}
+		}
+		notifyAll();
+	}
+
+	private synchronized void onAppendResult(final long term, final int followerId, final boolean success, final long matchIndex) {
+		if (term > this.currentTerm) {
+			becomeFollower(term);
+			return;
+		}
+		final Peer follower = this.peers.get(followerId);
+		if (null == follower || Role.LEADER != this.role || term != this.currentTerm)
+			return;
+		follower.lastHeardNanos = System.nanoTime();
+		if (success) {
+			if (matchIndex > follower.matchIndex) {
+				follower.matchIndex = matchIndex;
+				advanceCommitIndex();
+			}
+			follower.nextIndex = Math.max(follower.nextIndex, matchIndex + 1);
+		}
+		else {
+			// back to the first entry the follower may be missing
+			follower.nextIndex = Math.max(follower.matchIndex + 1, Math.min(follower.nextIndex, matchIndex + 1));
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @return whether this member takes requests, i.e. is the leader and has applied the log it was elected with
+	 */
+	public synchronized boolean isLeader() {
+		return Role.LEADER == this.role && this.appliedIndex >= this.servingFromIndex;
+	}
+
+	/**
+	 * @return ID of the leader this member knows of, -1 if none
+	 */
+	public synchronized int getLeaderId() {
+		return this.leaderId;
+	}
+
+	public synchronized long getTerm() {
+		return this.currentTerm;
+	}
+
+	/**
+	 * @return index of the last entry known to be on a majority of the members
+	 */
+	public synchronized long getCommitIndex() {
+		return this.commitIndex;
+	}
+
+	/**
+	 * @return index of the last entry applied to the engine of this member
+	 */
+	public synchronized long getAppliedIndex() {
+		return this.appliedIndex;
+	}
+
+	/**
+	 * Leave the cluster; requests waiting to be sequenced get a {@link BusinessMessageReject}
+	 */
+	@Override
+	public void close() throws IOException {
+		this.closed = true;
+		this.serverSocket.close();
+		for (final Socket socket : this.inboundSockets)
+			socket.close();
+		synchronized (this) {
+			for (final Proposal proposal : this.proposals.values())
+				complete(proposal, null);
+			this.proposals.clear();
+			notifyAll();
+		}
+		for (final Peer peer : this.peers.values())
+			peer.closeSocket();
+	}
+
+	@Override
+	public String toString() {
+		return "RaftSequencer(" +
+				"memberId=" + memberId +
+				", instrumentName='" + engine.getInstrumentName() + '\'' +
+				')';
+	}
+}
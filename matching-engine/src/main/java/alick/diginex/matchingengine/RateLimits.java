@@ -0,0 +1,89 @@
+package alick.diginex.matchingengine;
+
+/**
+ * Limits on the rate of new orders, amends and cancels of a {@link ClientSession}, each allowing a burst on top of its
+ * sustained rate. A request over its limit is rejected straight away on the submitting thread, and never reaches the
+ * order book processing thread.
+ */
+public final class RateLimits {
+	/**
+	 * No limit on any request
+	 */
+	public static final RateLimits UNLIMITED = new RateLimits(null, null, null);
+
+	static final String NEW_ORDER_RATE_EXCEEDED = "throttled: new order rate exceeded";
+	static final String AMEND_RATE_EXCEEDED = "throttled: amend rate exceeded";
+	static final String CANCEL_RATE_EXCEEDED = "throttled: cancel rate exceeded";
+
+	/**
+	 * A sustained rate, and the number of requests which can be sent at once after a quiet period
+	 */
+	public static final class Limit {
+		private final double perSecond;
+		private final int burst;
+
+		/**
+		 * @throws IllegalArgumentException if the rate or the burst is not positive
+		 */
+		public Limit(final double perSecond, final int burst) {
+			if (!(perSecond > 0) || Double.isInfinite(perSecond))
+				throw new IllegalArgumentException("rate must be positive: " + perSecond);
+			if (burst <= 0)
+				throw new IllegalArgumentException("burst must be positive: " + burst);
+			this.perSecond = perSecond;
+			this.burst = burst;
+		}
+
+		public double getPerSecond() {
+			return perSecond;
+		}
+
+		public int getBurst() {
+			return burst;
+		}
+
+		@Override
+		public String toString() {
+			return "Limit(" +
+					"perSecond=" + perSecond +
+					", burst=" + burst +
+					')';
+		}
+	}
+
+	private final Limit newOrders;
+	private final Limit amends;
+	private final Limit cancels;
+
+	/**
+	 * @param newOrders limit on new orders, {@code null} for none
+	 * @param amends    limit on amends, {@code null} for none
+	 * @param cancels   limit on cancels, {@code null} for none
+	 */
+	public RateLimits(final Limit newOrders, final Limit amends, final Limit cancels) {
+		this.newOrders = newOrders;
+		this.amends = amends;
+		this.cancels = cancels;
+	}
+
+	public Limit getNewOrders() {
+		return newOrders;
+	}
+
+	public Limit getAmends() {
+		return amends;
+	}
+
+	public Limit getCancels() {
+		return cancels;
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimits(" +
+				"newOrders=" + newOrders +
+				", amends=" + amends +
+				", cancels=" + cancels +
+				')';
+	}
+}
@@ -0,0 +1,148 @@
+package alick.diginex.matchingengine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot standby of a primary {@link MatchingEngine}: follows the journal the primary's {@link JournalPublisher} streams,
+ * replaying each request in sequence into its own engine, so its book, orders and sessions are those of the primary,
+ * warm and ready to take over with {@link #promote()}.
+ * <p/>
+ * The engine of the replica must be started, for the same instrument and reference price as the primary, and take no
+ * other requests while following. Requests are replayed through the usual paths of the engine, so its own rate limits
+ * and pre-trade risk would apply: the replica should have neither, the primary checked them already. Trades get their
+ * trade IDs and timestamps from the replica, in the order of the journal.
+ *
+ * Thread-safety: thread-safe.
+ */
+public final class Replica {
+	private final MatchingEngine engine;
+	private final InetSocketAddress primaryAddress;
+	// guarded by this
+	private long appliedSequence = 0;
+	private Socket socket = null;
+	private Thread followerThread = null;
+
+	/**
+	 * @param engine         the engine to replay the journal into, started
+	 * @param primaryAddress address of the {@link JournalPublisher} of the primary
+	 */
+	public Replica(final MatchingEngine engine, final InetSocketAddress primaryAddress) {
+		this.engine = engine;
+		this.primaryAddress = primaryAddress;
+	}
+
+	/**
+	 * Connect to the primary and follow its journal from the entry after the last one applied, so a replica which got
+	 * disconnected can simply follow again.
+	 *
+	 * @throws IllegalStateException if already following
+	 */
+	public synchronized void follow() throws IOException {
+		if (isFollowing())
+			throw new IllegalStateException(this + " already following");
+		final Socket newSocket = new Socket();
+		try {
+			newSocket.setTcpNoDelay(true);
+			newSocket.connect(this.primaryAddress);
+			final DataOutputStream out = new DataOutputStream(newSocket.getOutputStream());
+			out.writeLong(this.appliedSequence + 1);
+			out.flush();
+		}
+		catch (IOException e) {
+			newSocket.close();
+			throw e;
+		}
+		this.socket = newSocket;
+		this.followerThread = new Thread(() -> replay(newSocket), "Replica-" + this.engine.getInstrumentName());
+		this.followerThread.setDaemon(true);
+		this.followerThread.start();
+	}
+
+	private void replay(final Socket from) {
+		try (final Socket primary = from) {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(primary.getInputStream()));
+			while (true) {
+				final long sequence = in.readLong();
+				final byte[] entry = new byte[in.readInt()];
+				in.readFully(entry);
+				final long expected = getAppliedSequence() + 1;
+				if (sequence != expected)
+					throw new IOException("expected entry " + expected + ", got " + sequence);
+				Journal.replay(entry, this.engine);
+				synchronized (this) {
+					this.appliedSequence = sequence;
+					notifyAll();
+				}
+			}
+		}
+		catch (IOException e) {
+			System.out.printf("%s: stopped following: %s%n", this, e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return whether connected to the primary, replaying its journal
+	 */
+	public synchronized boolean isFollowing() {
+		return null != this.followerThread && this.followerThread.isAlive();
+	}
+
+	/**
+	 * @return sequence number of the last journal entry replayed, 0 if none
+	 */
+	public synchronized long getAppliedSequence() {
+		return appliedSequence;
+	}
+
+	/**
+	 * Wait for the replica to have replayed the journal up to the given entry
+	 *
+	 * @return whether it did within the timeout
+	 */
+	public synchronized boolean awaitSequence(final long sequence, final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (this.appliedSequence < sequence) {
+			final long remainingNanos = deadline - System.nanoTime();
+			if (remainingNanos <= 0)
+				return false;
+			TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+		}
+		return true;
+	}
+
+	/**
+	 * Stop following the primary, once the entry being replayed is done, and hand over the engine, which can then take
+	 * requests of its own; order IDs carry on after the last one replayed.
+	 *
+	 * @return the engine of the replica
+	 */
+	public MatchingEngine promote() throws InterruptedException, IOException {
+		final Thread follower;
+		synchronized (this) {
+			follower = this.followerThread;
+			if (null != this.socket)
+				this.socket.close();
+		}
+		if (null != follower)
+			follower.join();
+		System.out.printf("%s: promoted%n", this);
+		return this.engine;
+	}
+
+	@Override
+	public String toString() {
+		return "Replica(" +
+				"instrumentName='" + engine.getInstrumentName() + '\'' +
+				", primaryAddress=" + primaryAddress +
+				')';
+	}
+}
@@ -0,0 +1,40 @@
+package alick.diginex.matchingengine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of one {@link RateLimits.Limit}, taken from by compare-and-set on a single word, without locking.
+ * <p/>
+ * Rather than a token count and a refill time, the bucket keeps the time at which it would be full again, i.e. the
+ * theoretical arrival time of the generic cell rate algorithm: taking a token pushes it one interval further, and a
+ * token is available as long as it is less than a burst ahead of now.
+ *
+ * Thread-safety: thread-safe.
+ */
+final class TokenBucket {
+	private final long intervalNanos;
+	private final long burstToleranceNanos;
+	private final AtomicLong fullAtNanos;
+
+	TokenBucket(final RateLimits.Limit limit, final long nowNanos) {
+		this.intervalNanos = Math.max(1, Math.round(1e9 / limit.getPerSecond()));
+		this.burstToleranceNanos = (limit.getBurst() - 1) * this.intervalNanos;
+		this.fullAtNanos = new AtomicLong(nowNanos);
+	}
+
+	/**
+	 * @param nowNanos the current {@link System#nanoTime()}
+	 * @return whether a token was taken
+	 */
+	boolean tryTake(final long nowNanos) {
+		while (true) {
+			final long fullAt = this.fullAtNanos.get();
+			// a bucket which filled up in the past is simply full
+			final long from = fullAt - nowNanos > 0 ? fullAt : nowNanos;
+			if (from - nowNanos > this.burstToleranceNanos)
+				return false;
+			if (this.fullAtNanos.compareAndSet(fullAt, from + this.intervalNanos))
+				return true;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package alick.diginex.matchingengine;
+
+/**
+ * Best bid / offer and last traded price of an order book, published by the order book processing thread and
+ * readable from any thread without locking or allocation.
+ * <p/>
+ * The values are guarded by a sequence lock: the writer bumps the sequence to an odd number before writing, and back
+ * to an even number after; a reader retries whenever it sees an odd sequence, or the sequence changed while it was
+ * reading. All fields are volatile so the reads cannot be reordered around the sequence checks.
+ *
+ * Thread-safety: single writer (the order book processing thread), any number of readers.
+ */
+public final class TopOfBook {
+	/**
+	 * Caller-owned holder for a consistent read of the top of book; reuse the same instance to avoid allocation.
+	 */
+	public static final class Quote {
+		private double bidPrice = Double.NaN;
+		private double bidQuantity;
+		private double askPrice = Double.NaN;
+		private double askQuantity;
+		private double lastPrice = Double.NaN;
+		private long version;
+
+		/**
+		 * @return best bid price, or {@link Double#NaN} if there is no bid
+		 */
+		public double getBidPrice() {
+			return bidPrice;
+		}
+
+		public double getBidQuantity() {
+			return bidQuantity;
+		}
+
+		/**
+		 * @return best ask price, or {@link Double#NaN} if there is no ask
+		 */
+		public double getAskPrice() {
+			return askPrice;
+		}
+
+		public double getAskQuantity() {
+			return askQuantity;
+		}
+
+		public double getLastPrice() {
+			return lastPrice;
+		}
+
+		/**
+		 * @return number of times the top of book has changed when this quote was read; increases monotonically
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		@Override
+		public String toString() {
+			return "Quote(" +
+					"bidPrice=" + bidPrice +
+					", bidQuantity=" + bidQuantity +
+					", askPrice=" + askPrice +
+					", askQuantity=" + askQuantity +
+					", lastPrice=" + lastPrice +
+					", version=" + version +
+					')';
+		}
+	}
+
+	private volatile long sequence = 0;
+
+	private volatile double bidPrice = Double.NaN;
+	private volatile double bidQuantity = 0.0d;
+	private volatile double askPrice = Double.NaN;
+	private volatile double askQuantity = 0.0d;
+	private volatile double lastPrice;
+
+	TopOfBook(final double referencePrice) {
+		this.lastPrice = referencePrice;
+	}
+
+	/**
+	 * Publish the new top of book. Only to be called from the single writer thread.
+	 * <p/>
+	 * Nothing is published if none of the values changed, so readers are not made to retry needlessly.
+	 */
+	void publish(final double bidPrice, final double bidQuantity, final double askPrice, final double askQuantity, final double lastPrice) {
+		if (samePrice(this.bidPrice, bidPrice) && this.bidQuantity == bidQuantity
+				&& samePrice(this.askPrice, askPrice) && this.askQuantity == askQuantity
+				&& samePrice(this.lastPrice, lastPrice))
+			return;
+
+		final long seq = this.sequence;
+		this.sequence = seq + 1; // odd, write in progress
+		this.bidPrice = bidPrice;
+		this.bidQuantity = bidQuantity;
+		this.askPrice = askPrice;
+		this.askQuantity = askQuantity;
+		this.lastPrice = lastPrice;
+		this.sequence = seq + 2; // even, write complete
+	}
+
+	private static boolean samePrice(final double a, final double b) {
+		// NaN denotes an empty side, and NaN != NaN
+		return Double.compare(a, b) == 0;
+	}
+
+	/**
+	 * Read a consistent view of the top of book into the given holder, spinning while a write is in progress.
+	 *
+	 * @param target the holder to populate
+	 * @return the given holder
+	 */
+	public Quote read(final Quote target) {
+		while (true) {
+			final long seqBefore = this.sequence;
+			if ((seqBefore & 1L) != 0)
+				continue;
+			final double bidPx = this.bidPrice;
+			final double bidQty = this.bidQuantity;
+			final double askPx = this.askPrice;
+			final double askQty = this.askQuantity;
+			final double lastPx = this.lastPrice;
+			if (seqBefore != this.sequence)
+				continue;
+
+			target.bidPrice = bidPx;
+			target.bidQuantity = bidQty;
+			target.askPrice = askPx;
+			target.askQuantity = askQty;
+			target.lastPrice = lastPx;
+			target.version = seqBefore >>> 1;
+			return target;
+		}
+	}
+}
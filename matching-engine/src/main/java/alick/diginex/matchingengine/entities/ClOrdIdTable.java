@@ -0,0 +1,325 @@
+package alick.diginex.matchingengine.entities;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from clOrdId to order ID, for the clOrdIds of one session.
+ * <p/>
+ * Keys are copied into a single byte array, one byte per char unless a key has chars beyond Latin-1, so the table
+ * holds no {@link String}. Keys can be looked up from any {@link CharSequence}, e.g. a view over a decoded message,
+ * or straight from ASCII bytes in a buffer.
+ * <p/>
+ * Not thread safe.
+ */
+public final class ClOrdIdTable {
+	public static final long NOT_FOUND = -1L;
+
+	/**
+	 * Tells which entries to remove, see {@link #removeIf(EntryFilter)}
+	 */
+	@FunctionalInterface
+	public interface EntryFilter {
+		/**
+		 * @param clOrdId view over the key, only valid during the call
+		 * @return whether to remove the entry
+		 */
+		boolean test(CharSequence clOrdId, long orderId);
+	}
+
+	private static final int EMPTY = -1;
+	private static final int WIDE_CHARS = 0x8000;
+	private static final int MAX_LENGTH = 0x7FFF;
+	private static final int FNV_OFFSET = 0x811c9dc5;
+	private static final int FNV_PRIME = 0x01000193;
+
+	// per slot: offset of the key in the key bytes, or EMPTY; hash of the key; order ID
+	private int[] keyOffsets;
+	private int[] keyHashes;
+	private long[] orderIds;
+	private int mask;
+	private int size;
+
+	// keys as a 2-byte header, length with the top bit set when chars take two bytes, followed by the chars
+	private byte[] keyBytes;
+	private int keyBytesLength;
+
+	private final KeyView keyView = new KeyView();
+
+	public ClOrdIdTable() {
+		this(64);
+	}
+
+	public ClOrdIdTable(final int initialCapacity) {
+		int capacity = 16;
+		while (capacity < initialCapacity * 2)
+			capacity <<= 1;
+		allocate(capacity, capacity * 8);
+	}
+
+	private void allocate(final int capacity, final int keyBytesCapacity) {
+		this.keyOffsets = new int[capacity];
+		Arrays.fill(this.keyOffsets, EMPTY);
+		this.keyHashes = new int[capacity];
+		this.orderIds = new long[capacity];
+		this.mask = capacity - 1;
+		this.keyBytes = new byte[keyBytesCapacity];
+		this.keyBytesLength = 0;
+	}
+
+	/**
+	 * @return number of clOrdIds in the table
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return order ID of the clOrdId, or {@link #NOT_FOUND}
+	 */
+	public long get(final CharSequence clOrdId) {
+		final int hash = hash(clOrdId);
+		for (int slot = hash & this.mask; EMPTY != this.keyOffsets[slot]; slot = (slot + 1) & this.mask) {
+			if (this.keyHashes[slot] == hash && keyEquals(this.keyOffsets[slot], clOrdId))
+				return this.orderIds[slot];
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * @param buffer buffer holding the clOrdId as ASCII bytes
+	 * @param index  index of the first byte
+	 * @param length number of bytes
+	 * @return order ID of the clOrdId, or {@link #NOT_FOUND}
+	 */
+	public long get(final ByteBuffer buffer, final int index, final int length) {
+		int hash = FNV_OFFSET;
+		for (int i = 0; i < length; ++i)
+			hash = (hash ^ (buffer.get(index + i) & 0xFF)) * FNV_PRIME;
+		for (int slot = hash & this.mask; EMPTY != this.keyOffsets[slot]; slot = (slot + 1) & this.mask) {
+			if (this.keyHashes[slot] == hash && keyEquals(this.keyOffsets[slot], buffer, index, length))
+				return this.orderIds[slot];
+		}
+		return NOT_FOUND;
+	}
+
+	public boolean contains(final CharSequence clOrdId) {
+		return NOT_FOUND != get(clOrdId);
+	}
+
+	/**
+	 * Add a clOrdId, unless it is in the table already
+	 *
+	 * @param orderId must not be negative
+	 * @return whether the clOrdId was added
+	 * @throws IllegalArgumentException if the clOrdId is longer than 32767 chars
+	 */
+	public boolean putIfAbsent(final CharSequence clOrdId, final long orderId) {
+		if (orderId < 0)
+			throw new IllegalArgumentException("order ID cannot be negative: " + orderId);
+		if (clOrdId.length() > MAX_LENGTH)
+			throw new IllegalArgumentException("clOrdId too long: " + clOrdId.length() + " chars");
+		if (contains(clOrdId))
+			return false;
+		if ((this.size + 1) * 2 > this.keyOffsets.length)
+			rebuild(this.keyOffsets.length * 2, null);
+		final int keyOffset = appendKey(clOrdId);
+		insert(keyOffset, hash(clOrdId), orderId);
+		++this.size;
+		return true;
+	}
+
+	/**
+	 * Remove a clOrdId; the space of its key is reclaimed when the table is next rebuilt
+	 *
+	 * @return whether the clOrdId was in the table
+	 */
+	public boolean remove(final CharSequence clOrdId) {
+		final int hash = hash(clOrdId);
+		for (int slot = hash & this.mask; EMPTY != this.keyOffsets[slot]; slot = (slot + 1) & this.mask) {
+			if (this.keyHashes[slot] == hash && keyEquals(this.keyOffsets[slot], clOrdId)) {
+				removeSlot(slot);
+				--this.size;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove all entries the filter says to, and reclaim the space of all keys removed so far
+	 */
+	public void removeIf(final EntryFilter filter) {
+		rebuild(this.keyOffsets.length, filter);
+	}
+
+	private void insert(final int keyOffset, final int hash, final long orderId) {
+		int slot = hash & this.mask;
+		while (EMPTY != this.keyOffsets[slot])
+			slot = (slot + 1) & this.mask;
+		this.keyOffsets[slot] = keyOffset;
+		this.keyHashes[slot] = hash;
+		this.orderIds[slot] = orderId;
+	}
+
+	// shifts back the entries after the slot which would no longer be reachable, instead of leaving a tombstone
+	private void removeSlot(int hole) {
+		for (int slot = (hole + 1) & this.mask; EMPTY != this.keyOffsets[slot]; slot = (slot + 1) & this.mask) {
+			final int home = this.keyHashes[slot] & this.mask;
+			if (((slot - home) & this.mask) >= ((slot - hole) & this.mask)) {
+				this.keyOffsets[hole] = this.keyOffsets[slot];
+				this.keyHashes[hole] = this.keyHashes[slot];
+				this.orderIds[hole] = this.orderIds[slot];
+				hole = slot;
+			}
+		}
+		this.keyOffsets[hole] = EMPTY;
+	}
+
+	private void rebuild(final int capacity, final EntryFilter filter) {
+		final int[] oldKeyOffsets = this.keyOffsets;
+		final int[] oldKeyHashes = this.keyHashes;
+		final long[] oldOrderIds = this.orderIds;
+		final byte[] oldKeyBytes = this.keyBytes;
+		allocate(capacity, Math.max(capacity * 8, this.keyBytesLength));
+		this.size = 0;
+		for (int slot = 0; slot < oldKeyOffsets.length; ++slot) {
+			final int oldKeyOffset = oldKeyOffsets[slot];
+			if (EMPTY == oldKeyOffset)
+				continue;
+			if (null != filter && filter.test(this.keyView.wrap(oldKeyBytes, oldKeyOffset), oldOrderIds[slot]))
+				continue;
+			final int length = keyLength(oldKeyBytes, oldKeyOffset);
+			final int keyOffset = reserveKeyBytes(length);
+			System.arraycopy(oldKeyBytes, oldKeyOffset, this.keyBytes, keyOffset, length);
+			insert(keyOffset, oldKeyHashes[slot], oldOrderIds[slot]);
+			++this.size;
+		}
+	}
+
+	private int reserveKeyBytes(final int length) {
+		if (this.keyBytesLength + length > this.keyBytes.length)
+			this.keyBytes = Arrays.copyOf(this.keyBytes, Math.max(this.keyBytes.length * 2, this.keyBytesLength + length));
+		final int offset = this.keyBytesLength;
+		this.keyBytesLength += length;
+		return offset;
+	}
+
+	private int appendKey(final CharSequence clOrdId) {
+		final int length = clOrdId.length();
+		final boolean narrow = isNarrow(clOrdId);
+		final int offset = reserveKeyBytes(2 + (narrow ? 1 : 2) * length);
+		final byte[] bytes = this.keyBytes;
+		final int header = length | (narrow ? 0 : WIDE_CHARS);
+		bytes[offset] = (byte) (header >>> 8);
+		bytes[offset + 1] = (byte) header;
+		int index = offset + 2;
+		for (int i = 0; i < length; ++i) {
+			final char c = clOrdId.charAt(i);
+			if (!narrow)
+				bytes[index++] = (byte) (c >>> 8);
+			bytes[index++] = (byte) c;
+		}
+		return offset;
+	}
+
+	private static boolean isNarrow(final CharSequence chars) {
+		for (int i = 0; i < chars.length(); ++i) {
+			if (chars.charAt(i) > 0xFF)
+				return false;
+		}
+		return true;
+	}
+
+	private static int header(final byte[] bytes, final int offset) {
+		return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+	}
+
+	private static int keyLength(final byte[] bytes, final int offset) {
+		final int header = header(bytes, offset);
+		return 2 + ((header & WIDE_CHARS) != 0 ? 2 : 1) * (header & MAX_LENGTH);
+	}
+
+	private static char charAt(final byte[] bytes, final int offset, final boolean wide, final int i) {
+		return wide
+				? (char) (((bytes[offset + 2 + 2 * i] & 0xFF) << 8) | (bytes[offset + 3 + 2 * i] & 0xFF))
+				: (char) (bytes[offset + 2 + i] & 0xFF);
+	}
+
+	private boolean keyEquals(final int offset, final CharSequence clOrdId) {
+		final int header = header(this.keyBytes, offset);
+		final int length = header & MAX_LENGTH;
+		if (length != clOrdId.length())
+			return false;
+		final boolean wide = (header & WIDE_CHARS) != 0;
+		for (int i = 0; i < length; ++i) {
+			if (charAt(this.keyBytes, offset, wide, i) != clOrdId.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean keyEquals(final int offset, final ByteBuffer buffer, final int index, final int length) {
+		final int header = header(this.keyBytes, offset);
+		// a key with wide chars cannot be spelt in single bytes
+		if (header != length)
+			return false;
+		for (int i = 0; i < length; ++i) {
+			if (this.keyBytes[offset + 2 + i] != buffer.get(index + i))
+				return false;
+		}
+		return true;
+	}
+
+	// 32-bit FNV-1a over the chars, which gives the same hash for ASCII bytes and their chars
+	private static int hash(final CharSequence chars) {
+		int hash = FNV_OFFSET;
+		for (int i = 0; i < chars.length(); ++i)
+			hash = (hash ^ chars.charAt(i)) * FNV_PRIME;
+		return hash;
+	}
+
+	/**
+	 * A re-usable view over a key in the key bytes
+	 */
+	private static final class KeyView implements CharSequence {
+		private byte[] bytes;
+		private int offset;
+		private int length;
+		private boolean wide;
+
+		private KeyView wrap(final byte[] bytes, final int offset) {
+			final int header = header(bytes, offset);
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = header & MAX_LENGTH;
+			this.wide = (header & WIDE_CHARS) != 0;
+			return this;
+		}
+
+		@Override
+		public int length() {
+			return this.length;
+		}
+
+		@Override
+		public char charAt(final int i) {
+			if (i < 0 || i >= this.length)
+				throw new IndexOutOfBoundsException("index " + i + " out of range [0, " + this.length + ")");
+			return ClOrdIdTable.charAt(this.bytes, this.offset, this.wide, i);
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			final char[] chars = new char[this.length];
+			for (int i = 0; i < this.length; ++i)
+				chars[i] = charAt(i);
+			return new String(chars);
+		}
+	}
+}
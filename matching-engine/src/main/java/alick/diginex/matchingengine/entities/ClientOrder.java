@@ -1,61 +1,156 @@
 package alick.diginex.matchingengine.entities;
 
+import alick.diginex.entities.OrderStatus;
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+/**
+ * State of a client order.
+ * <p/>
+ * The changing part of the state is held in primitive fields behind a seqlock: a writer claims the order by moving
+ * the sequence from even to odd with a compare-and-set, and moves it back to even when done; readers never lock, they
+ * re-read when the sequence moved. Use {@link #readState(OrderState)} to read several fields consistent with each
+ * other. All fields are volatile so the reads cannot be reordered around the sequence checks.
+ * <p/>
+ * An order has more than one writing thread: its fills are recorded by whichever thread submitted the aggressing
+ * order, while its own session amends or cancels it, so writers take turns on the sequence rather than on a monitor.
+ */
 public class ClientOrder {
 	private final long orderId;
 	private final Side side;
-	private final LinkedList<Trade> executions = new LinkedList<>();
+	private final TimeInForce timeInForce;
 
-	private static class MutableOrderState {
-		private final String clOrdId;
-		private final String origClOrdId;
-		private final OrderType orderType;
+	/**
+	 * A consistent copy of the changing part of an order's state, re-usable from one read to the next
+	 */
+	public static final class OrderState {
+		private String clOrdId;
+		private String origClOrdId;
+		private OrderType orderType;
+		private double orderQty;
+		private double price;
+		private double cumQty;
+		private double leavesQty;
+		private double totalNotional;
+		private OrderStatus orderStatus;
 
-		private final double orderQty;
-		private final double price;
+		public String getClOrdId() {
+			return clOrdId;
+		}
+
+		public String getOrigClOrdId() {
+			return origClOrdId;
+		}
+
+		public OrderType getOrderType() {
+			return orderType;
+		}
+
+		public double getOrderQty() {
+			return orderQty;
+		}
 
-		private final double leavesQty;
-		private final double cumQty;
-		private final double totalNotional;
-		private final OrderStatus orderStatus;
+		public double getPrice() {
+			return price;
+		}
 
-		private MutableOrderState(
-				final String clOrdId, final String origClOrdId,
-				final OrderType orderType,
-				final double orderQty, final double price,
-				final double cumQty, final double leavesQty, final double totalNotional,
-				final OrderStatus orderStatus) {
-			this.clOrdId = clOrdId;
-			this.origClOrdId = origClOrdId;
-			this.orderType = orderType;
-			this.orderQty = orderQty;
-			this.price = price;
-			this.leavesQty = leavesQty;
-			this.cumQty = cumQty;
-			this.totalNotional = totalNotional;
-			this.orderStatus = orderStatus;
+		public double getCumQty() {
+			return cumQty;
 		}
 
-		private double getAvgPx() {
-			if (0 >= this.cumQty)
-				return 0.0;
-			return this.totalNotional / this.cumQty;
+		public double getLeavesQty() {
+			return leavesQty;
+		}
+
+		public double getAvgPx() {
+			return avgPx(this.cumQty, this.totalNotional);
+		}
+
+		public OrderStatus getOrderStatus() {
+			return orderStatus;
+		}
+
+		double getTotalNotional() {
+			return totalNotional;
 		}
 	}
 
-	private volatile MutableOrderState currentOrderState;
+	private static final AtomicLongFieldUpdater<ClientOrder> SEQUENCE = AtomicLongFieldUpdater.newUpdater(ClientOrder.class, "sequence");
+
+	private volatile long sequence = 0;
+
+	private volatile String clOrdId;
+	private volatile String origClOrdId;
+	private volatile OrderType orderType;
+	private volatile double orderQty;
+	private volatile double price;
+	private volatile double cumQty;
+	private volatile double leavesQty;
+	private volatile double totalNotional;
+	private volatile OrderStatus orderStatus;
+	// trades of this order, chained in the fill store
+	private volatile FillStore fillStore;
+	private volatile int firstFill = FillStore.NO_FILL;
+	private volatile int lastFill = FillStore.NO_FILL;
+	private volatile int fillCount = 0;
+	// trades the book produced for this order, some of which may not be accounted for by fillCount yet; only written by
+	// the order book processing thread
+	private volatile int fillsProduced = 0;
 
 	public ClientOrder(final long orderId, final String clOrdId, final Side side, final OrderType orderType, final double orderQty, final double price) {
+		this(orderId, clOrdId, side, orderType, orderQty, price, TimeInForce.DAY);
+	}
+
+	public ClientOrder(final long orderId, final String clOrdId, final Side side, final OrderType orderType, final double orderQty, final double price, final TimeInForce timeInForce) {
 		this.orderId = orderId;
 		this.side = side;
-		this.currentOrderState = new MutableOrderState(clOrdId, null, orderType, orderQty, price, 0, orderQty, 0, OrderStatus.NEW);
+		this.timeInForce = timeInForce;
+		this.clOrdId = clOrdId;
+		this.origClOrdId = null;
+		this.orderType = orderType;
+		this.orderQty = orderQty;
+		this.price = price;
+		this.cumQty = 0;
+		this.leavesQty = orderQty;
+		this.totalNotional = 0;
+		this.orderStatus = OrderStatus.NEW;
+	}
+
+	/**
+	 * Re-create an order as it was archived, see {@link OrderArchive}
+	 */
+	static ClientOrder restore(
+			final long orderId, final Side side, final TimeInForce timeInForce,
+			final String clOrdId, final String origClOrdId, final OrderType orderType,
+			final double orderQty, final double price,
+			final double cumQty, final double leavesQty, final double totalNotional,
+			final OrderStatus orderStatus,
+			final FillStore fillStore, final int firstFill, final int lastFill, final int fillCount) {
+		final ClientOrder order = new ClientOrder(orderId, clOrdId, side, orderType, orderQty, price, timeInForce);
+		order.origClOrdId = origClOrdId;
+		order.cumQty = cumQty;
+		order.leavesQty = leavesQty;
+		order.totalNotional = totalNotional;
+		order.orderStatus = orderStatus;
+		if (FillStore.NO_FILL != firstFill)
+			order.fillStore = fillStore;
+		order.firstFill = firstFill;
+		order.lastFill = lastFill;
+		order.fillCount = fillCount;
+		order.fillsProduced = fillCount;
+		return order;
+	}
+
+	private static double avgPx(final double cumQty, final double totalNotional) {
+		if (0 >= cumQty)
+			return 0.0;
+		return totalNotional / cumQty;
 	}
 
 	public long getOrderId() {
@@ -66,109 +161,240 @@ public class ClientOrder {
 		return this.side;
 	}
 
+	public TimeInForce getTimeInForce() {
+		return this.timeInForce;
+	}
+
+	/**
+	 * Copy the current state into the given holder, consistent as of a single point in time
+	 *
+	 * @return the given holder
+	 */
+	public OrderState readState(final OrderState target) {
+		while (true) {
+			final long seqBefore = this.sequence;
+			if ((seqBefore & 1L) != 0)
+				continue;
+			target.clOrdId = this.clOrdId;
+			target.origClOrdId = this.origClOrdId;
+			target.orderType = this.orderType;
+			target.orderQty = this.orderQty;
+			target.price = this.price;
+			target.cumQty = this.cumQty;
+			target.leavesQty = this.leavesQty;
+			target.totalNotional = this.totalNotional;
+			target.orderStatus = this.orderStatus;
+			if (seqBefore == this.sequence)
+				return target;
+		}
+	}
+
 	public String getClOrdId() {
-		return this.currentOrderState.clOrdId;
+		return this.clOrdId;
 	}
 
 	public String getOrigClOrdId() {
-		return this.currentOrderState.origClOrdId;
+		return this.origClOrdId;
 	}
 
 	public OrderType getOrderType() {
-		return this.currentOrderState.orderType;
+		return this.orderType;
 	}
 
 	public double getOrderQty() {
-		return this.currentOrderState.orderQty;
+		return this.orderQty;
 	}
 
 	public double getCumQty() {
-		return this.currentOrderState.cumQty;
+		return this.cumQty;
 	}
 
 	public double getLeavesQty() {
-		return this.currentOrderState.leavesQty;
+		return this.leavesQty;
 	}
 
 	public double getAvgPx() {
-		return this.currentOrderState.getAvgPx();
+		while (true) {
+			final long seqBefore = this.sequence;
+			if ((seqBefore & 1L) != 0)
+				continue;
+			final double avgPx = avgPx(this.cumQty, this.totalNotional);
+			if (seqBefore == this.sequence)
+				return avgPx;
+		}
 	}
 
 	public double getPrice() {
-		return this.currentOrderState.price;
+		return this.price;
 	}
 
 	public OrderStatus getOrderStatus() {
-		return this.currentOrderState.orderStatus;
+		return this.orderStatus;
+	}
+
+	/**
+	 * @return a read-only view of the trades of this order so far, reading straight from the fill store
+	 */
+	public List<Trade> getExecutions() {
+		while (true) {
+			final long seqBefore = this.sequence;
+			if ((seqBefore & 1L) != 0)
+				continue;
+			final FillStore store = this.fillStore;
+			final int first = this.firstFill;
+			final int count = this.fillCount;
+			if (seqBefore != this.sequence)
+				continue;
+			return null == store ? Collections.emptyList() : store.orderTrades(this.side, first, count);
+		}
+	}
+
+	int getFirstFill() {
+		return this.firstFill;
 	}
 
-	public synchronized List<Trade> getExecutions() {
-		//need synchronization because this is not delegated to current order state
-		return new ArrayList<>(this.executions);
+	int getFillCount() {
+		return this.fillCount;
 	}
 
-	public synchronized void addTrade(final Trade trade) {
-		this.executions.add(trade);
-		final double execQty = trade.getExecQty();
-		final double execPx = trade.getTradePx();
-		// capture so we don't reach through volatile on ever field
-		final MutableOrderState curState = this.currentOrderState;
-		final double updatedCumQty = curState.cumQty + execQty;
-		final double updatedLeavesQty = curState.leavesQty - execQty;
-		final double updatedTotalNotional = curState.totalNotional + execQty * execPx;
+	/**
+	 * @return whether nothing more can happen to this order, including no trade the book produced for it still waiting
+	 * to be accounted for
+	 */
+	public boolean isTerminal() {
+		while (true) {
+			final long seqBefore = this.sequence;
+			if ((seqBefore & 1L) != 0)
+				continue;
+			final OrderStatus status = this.orderStatus;
+			final double leaves = this.leavesQty;
+			final int count = this.fillCount;
+			if (seqBefore != this.sequence)
+				continue;
+			if (this.fillsProduced > count)
+				return false;
+			return OrderStatus.CANCELLED == status || OrderStatus.REJECTED == status || (OrderStatus.FILLED == status && leaves <= 0);
+		}
+	}
+
+	/**
+	 * Count a trade the book produced for this order, before it is accounted for with {@link #addFill(FillStore, int)}.
+	 * Only to be called from the order book processing thread
+	 */
+	public void fillProduced() {
+		this.fillsProduced = this.fillsProduced + 1;
+	}
+
+	/**
+	 * @return index in the fill store of the last trade of this order, or {@link FillStore#NO_FILL}
+	 */
+	public int getLastFill() {
+		return this.lastFill;
+	}
+
+	// claims the order for writing, spinning while another writer has it, so there is only ever one writer at a time
+	private long beginWrite() {
+		while (true) {
+			final long seq = this.sequence;
+			if ((seq & 1L) == 0 && SEQUENCE.compareAndSet(this, seq, seq + 1)) // odd, write in progress
+				return seq;
+		}
+	}
+
+	private void endWrite(final long seq) {
+		this.sequence = seq + 2; // even, write complete
+	}
+
+	/**
+	 * Account for a trade of this order, already appended to the fill store, chaining it after {@link #getLastFill()}
+	 *
+	 * @param fillStore the store holding the trade; always the same one for a given order
+	 * @param fillIndex index of the trade in the store
+	 */
+	public void addFill(final FillStore fillStore, final int fillIndex) {
+		final double execQty = fillStore.getExecQty(fillIndex);
+		final double execPx = fillStore.getTradePx(fillIndex);
+		final long seq = beginWrite();
+		if (FillStore.NO_FILL == this.firstFill) {
+			this.fillStore = fillStore;
+			this.firstFill = fillIndex;
+		}
+		else {
+			fillStore.chain(this.side, this.lastFill, fillIndex);
+		}
+		this.lastFill = fillIndex;
+		++this.fillCount;
+		final double updatedCumQty = this.cumQty + execQty;
+		this.cumQty = updatedCumQty;
+		this.totalNotional += execQty * execPx;
+		// a trade of the book before the order was cancelled may only be accounted for after the cancel; it stays cancelled
+		if (OrderStatus.CANCELLED == this.orderStatus) {
+			endWrite(seq);
+			return;
+		}
+		this.leavesQty -= execQty;
 		// it is possible to over execute ... in general
-		final OrderStatus updatedOrderStatus;
-		if (updatedCumQty >= curState.orderQty)
-			updatedOrderStatus = OrderStatus.FILLED;
+		if (updatedCumQty >= this.orderQty)
+			this.orderStatus = OrderStatus.FILLED;
 		else
-			updatedOrderStatus = OrderStatus.PARTIAL_FILLLED;
-
-		this.currentOrderState = new MutableOrderState(
-				curState.clOrdId, curState.origClOrdId,
-				curState.orderType,
-				curState.orderQty, curState.price,
-				updatedCumQty, updatedLeavesQty, updatedTotalNotional,
-				updatedOrderStatus);
-	}
-
-	public synchronized void orderAmended(final String clOrdId, final String origClOrdId, final OrderType amendedOrderType, final double amendedOrderQty, final double amendedPrice) {
-		// capture so we don't reach through volatile on ever field
-		final MutableOrderState curState = this.currentOrderState;
-		final OrderStatus updatedOrderStatus;
-		if (curState.cumQty >= amendedOrderQty)
-			updatedOrderStatus = OrderStatus.FILLED;
-		else if (curState.cumQty > 0)
-			updatedOrderStatus = OrderStatus.PARTIAL_FILLLED;
+			this.orderStatus = OrderStatus.PARTIAL_FILLLED;
+		endWrite(seq);
+	}
+
+	public void orderAmended(final String clOrdId, final String origClOrdId, final OrderType amendedOrderType, final double amendedOrderQty, final double amendedPrice) {
+		final long seq = beginWrite();
+		final double curCumQty = this.cumQty;
+		if (curCumQty >= amendedOrderQty)
+			this.orderStatus = OrderStatus.FILLED;
+		else if (curCumQty > 0)
+			this.orderStatus = OrderStatus.PARTIAL_FILLLED;
 		else
-			updatedOrderStatus = OrderStatus.NEW;
-
-		this.currentOrderState = new MutableOrderState(
-				clOrdId, origClOrdId,
-				amendedOrderType,
-				amendedOrderQty, amendedPrice,
-				curState.cumQty, curState.leavesQty, curState.totalNotional,
-				updatedOrderStatus);
-	}
-
-	public synchronized void orderCancelled(final String clOrdId, final String origClOrdId) {
-		// capture so we don't reach through volatile on ever field
-		final MutableOrderState curState = this.currentOrderState;
-		this.currentOrderState = new MutableOrderState(
-				clOrdId, origClOrdId,
-				curState.orderType,
-				curState.orderQty, curState.price,
-				curState.cumQty, 0, curState.totalNotional,
-				OrderStatus.CANCELLED);
-	}
-
-	public synchronized void orderRejected() {
-		final MutableOrderState curState = this.currentOrderState;
-		this.currentOrderState = new MutableOrderState(
-				curState.clOrdId, curState.origClOrdId,
-				curState.orderType,
-				curState.orderQty, curState.price,
-				curState.cumQty, 0, curState.totalNotional,
-				OrderStatus.REJECTED);
+			this.orderStatus = OrderStatus.NEW;
+		this.clOrdId = clOrdId;
+		this.origClOrdId = origClOrdId;
+		this.orderType = amendedOrderType;
+		this.orderQty = amendedOrderQty;
+		this.price = amendedPrice;
+		endWrite(seq);
+	}
+
+	public void orderCancelled(final String clOrdId, final String origClOrdId) {
+		final long seq = beginWrite();
+		this.clOrdId = clOrdId;
+		this.origClOrdId = origClOrdId;
+		this.leavesQty = 0;
+		this.orderStatus = OrderStatus.CANCELLED;
+		endWrite(seq);
+	}
+
+	/**
+	 * The order was cancelled without a cancel request of its own, keeping its clOrdId; e.g. the residual quantity of
+	 * an immediate order, or a mass cancel
+	 */
+	public void orderCancelled() {
+		final long seq = beginWrite();
+		this.leavesQty = 0;
+		this.orderStatus = OrderStatus.CANCELLED;
+		endWrite(seq);
+	}
+
+	/**
+	 * The open quantity of the order was changed in place by a mass quote, keeping its clOrdId and price
+	 */
+	public void orderResized(final double openQty) {
+		final long seq = beginWrite();
+		final double curCumQty = this.cumQty;
+		this.orderQty = curCumQty + openQty;
+		this.leavesQty = openQty;
+		this.orderStatus = curCumQty > 0 ? OrderStatus.PARTIAL_FILLLED : OrderStatus.NEW;
+		endWrite(seq);
+	}
+
+	public void orderRejected() {
+		final long seq = beginWrite();
+		this.leavesQty = 0;
+		this.orderStatus = OrderStatus.REJECTED;
+		endWrite(seq);
 	}
 
 	@Override
@@ -0,0 +1,265 @@
+package alick.diginex.matchingengine.entities;
+
+import alick.diginex.entities.Side;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Append-only store of every trade, kept once in primitive columns: trade ID, order IDs of both sides, aggressor side,
+ * quantity, price, and transact time in nanoseconds since the epoch.
+ * <p/>
+ * Each trade is chained to the previous trade of its buy order and of its sell order, so an order only needs to know
+ * its first trade, its last trade and how many it has. Columns are allocated in fixed-size chunks which never move once
+ * allocated, so readers on other threads can walk them while trades are being appended.
+ * <p/>
+ * There must only be one writer appending at a time. A trade is chained to the previous one of an order by whoever
+ * accounts for the trade on the order, one at a time per order. Readers need no locking, as long as they only look at
+ * trades counted by a size or fill count read beforehand.
+ */
+public class FillStore {
+	public static final int NO_FILL = -1;
+
+	private static final int CHUNK_SHIFT = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private static final byte BUY_AGGRESSOR = 0;
+	private static final byte SELL_AGGRESSOR = 1;
+	// trades of an auction uncrossing, where no order took liquidity from another
+	private static final byte NO_AGGRESSOR = 2;
+
+	private static final class Chunk {
+		private final long[] tradeId = new long[CHUNK_SIZE];
+		private final long[] buyOrderId = new long[CHUNK_SIZE];
+		private final long[] sellOrderId = new long[CHUNK_SIZE];
+		private final byte[] aggressorSide = new byte[CHUNK_SIZE];
+		private final double[] execQty = new double[CHUNK_SIZE];
+		private final double[] tradePx = new double[CHUNK_SIZE];
+		private final long[] transactTimeNanos = new long[CHUNK_SIZE];
+		private final int[] nextBuyFill = new int[CHUNK_SIZE];
+		private final int[] nextSellFill = new int[CHUNK_SIZE];
+	}
+
+	private volatile Chunk[] chunks = new Chunk[16];
+	private volatile int size = 0;
+
+	/**
+	 * @return number of trades in the store
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Append a trade, not chained to any other trade of its orders yet, see {@link #chain(Side, int, int)}
+	 *
+	 * @param aggressorSide     side of the order which took liquidity, {@code null} for a trade of an auction uncrossing
+	 * @param transactTimeNanos nanoseconds since the epoch
+	 * @return index of the trade appended
+	 */
+	public int append(
+			final long tradeId,
+			final long buyOrderId, final long sellOrderId, final Side aggressorSide,
+			final double execQty, final double tradePx, final long transactTimeNanos) {
+		final int index = this.size;
+		final int chunkIndex = index >>> CHUNK_SHIFT;
+		Chunk[] curChunks = this.chunks;
+		if (chunkIndex == curChunks.length) {
+			final Chunk[] grown = new Chunk[curChunks.length * 2];
+			System.arraycopy(curChunks, 0, grown, 0, curChunks.length);
+			curChunks = grown;
+			this.chunks = grown;
+		}
+		Chunk chunk = curChunks[chunkIndex];
+		if (null == chunk) {
+			chunk = new Chunk();
+			curChunks[chunkIndex] = chunk;
+		}
+		final int offset = index & CHUNK_MASK;
+		chunk.tradeId[offset] = tradeId;
+		chunk.buyOrderId[offset] = buyOrderId;
+		chunk.sellOrderId[offset] = sellOrderId;
+		chunk.aggressorSide[offset] = encodeAggressor(aggressorSide);
+		chunk.execQty[offset] = execQty;
+		chunk.tradePx[offset] = tradePx;
+		chunk.transactTimeNanos[offset] = transactTimeNanos;
+		chunk.nextBuyFill[offset] = NO_FILL;
+		chunk.nextSellFill[offset] = NO_FILL;
+		this.size = index + 1; // publishes the trade, and any chunk allocated for it
+		return index;
+	}
+
+	/**
+	 * Chain a trade after the last trade of one of its orders; readers only follow the chain once the order counts the
+	 * trade
+	 *
+	 * @param side     side of the order, tells which chain to extend
+	 * @param lastFill index of the last trade of the order
+	 * @param fill     index of the trade of the order following it
+	 */
+	public void chain(final Side side, final int lastFill, final int fill) {
+		final Chunk chunk = chunkOf(lastFill);
+		if (Side.BUY == side)
+			chunk.nextBuyFill[lastFill & CHUNK_MASK] = fill;
+		else
+			chunk.nextSellFill[lastFill & CHUNK_MASK] = fill;
+	}
+
+	private static byte encodeAggressor(final Side aggressorSide) {
+		if (null == aggressorSide)
+			return NO_AGGRESSOR;
+		return Side.BUY == aggressorSide ? BUY_AGGRESSOR : SELL_AGGRESSOR;
+	}
+
+	private static Side decodeAggressor(final byte aggressor) {
+		if (NO_AGGRESSOR == aggressor)
+			return null;
+		return BUY_AGGRESSOR == aggressor ? Side.BUY : Side.SELL;
+	}
+
+	private Chunk chunkOf(final int index) {
+		return this.chunks[index >>> CHUNK_SHIFT];
+	}
+
+	public long getTradeId(final int index) {
+		return chunkOf(index).tradeId[index & CHUNK_MASK];
+	}
+
+	public long getBuyOrderId(final int index) {
+		return chunkOf(index).buyOrderId[index & CHUNK_MASK];
+	}
+
+	public long getSellOrderId(final int index) {
+		return chunkOf(index).sellOrderId[index & CHUNK_MASK];
+	}
+
+	public Side getAggressorSide(final int index) {
+		return decodeAggressor(chunkOf(index).aggressorSide[index & CHUNK_MASK]);
+	}
+
+	public double getExecQty(final int index) {
+		return chunkOf(index).execQty[index & CHUNK_MASK];
+	}
+
+	public double getTradePx(final int index) {
+		return chunkOf(index).tradePx[index & CHUNK_MASK];
+	}
+
+	/**
+	 * @return nanoseconds since the epoch
+	 */
+	public long getTransactTimeNanos(final int index) {
+		return chunkOf(index).transactTimeNanos[index & CHUNK_MASK];
+	}
+
+	public Instant getTransactTime(final int index) {
+		return Instant.ofEpochSecond(0, getTransactTimeNanos(index));
+	}
+
+	/**
+	 * @return index of the next trade of the same order on the given side, or {@link #NO_FILL}
+	 */
+	public int getNextFill(final int index, final Side side) {
+		final Chunk chunk = chunkOf(index);
+		return Side.BUY == side ? chunk.nextBuyFill[index & CHUNK_MASK] : chunk.nextSellFill[index & CHUNK_MASK];
+	}
+
+	/**
+	 * @return a {@link Trade} copied out of the store
+	 */
+	public Trade getTrade(final int index) {
+		final Chunk chunk = chunkOf(index);
+		final int offset = index & CHUNK_MASK;
+		return new Trade(
+				chunk.tradeId[offset],
+				chunk.buyOrderId[offset], chunk.sellOrderId[offset],
+				decodeAggressor(chunk.aggressorSide[offset]),
+				chunk.execQty[offset], chunk.tradePx[offset],
+				chunk.transactTimeNanos[offset]);
+	}
+
+	/**
+	 * @return a read-only view of the trades in the store right now, in the order they were appended
+	 */
+	public List<Trade> allTrades() {
+		final int curSize = this.size;
+		return new AbstractList<Trade>() {
+			@Override
+			public Trade get(final int index) {
+				if (index < 0 || index >= curSize)
+					throw new IndexOutOfBoundsException("index " + index + ", size " + curSize);
+				return getTrade(index);
+			}
+
+			@Override
+			public int size() {
+				return curSize;
+			}
+		};
+	}
+
+	/**
+	 * @param side      side of the order, tells which chain to follow
+	 * @param firstFill index of the first trade of the order
+	 * @param fillCount number of trades of the order to include
+	 * @return a read-only view of the trades of one order
+	 */
+	public List<Trade> orderTrades(final Side side, final int firstFill, final int fillCount) {
+		return new OrderTrades(side, firstFill, fillCount);
+	}
+
+	private final class OrderTrades extends AbstractList<Trade> {
+		private final Side side;
+		private final int firstFill;
+		private final int fillCount;
+
+		private OrderTrades(final Side side, final int firstFill, final int fillCount) {
+			this.side = side;
+			this.firstFill = firstFill;
+			this.fillCount = fillCount;
+		}
+
+		@Override
+		public Trade get(final int index) {
+			if (index < 0 || index >= this.fillCount)
+				throw new IndexOutOfBoundsException("index " + index + ", size " + this.fillCount);
+			int fill = this.firstFill;
+			for (int i = 0; i < index; ++i)
+				fill = getNextFill(fill, this.side);
+			return getTrade(fill);
+		}
+
+		@Override
+		public int size() {
+			return this.fillCount;
+		}
+
+		@Override
+		public Iterator<Trade> iterator() {
+			return new Iterator<Trade>() {
+				private int remaining = fillCount;
+				private int nextFill = firstFill;
+
+				@Override
+				public boolean hasNext() {
+					return this.remaining > 0;
+				}
+
+				@Override
+				public Trade next() {
+					if (this.remaining <= 0)
+						throw new NoSuchElementException();
+					final int fill = this.nextFill;
+					--this.remaining;
+					if (this.remaining > 0)
+						this.nextFill = getNextFill(fill, side);
+					return getTrade(fill);
+				}
+			};
+		}
+	}
+}
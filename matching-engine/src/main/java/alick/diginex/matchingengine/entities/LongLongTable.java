@@ -0,0 +1,118 @@
+package alick.diginex.matchingengine.entities;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from {@code long} to non-negative {@code long}, with linear probing and no boxing.
+ * <p/>
+ * The same key can be put more than once: lookups walk every slot holding the key, in the order they were put, until
+ * the caller finds the value it is after. Entries are never removed.
+ */
+final class LongLongTable {
+	static final int NO_SLOT = -1;
+	private static final long EMPTY = -1L;
+
+	private long[] keys;
+	private long[] values;
+	private int mask;
+	private int size;
+
+	LongLongTable(final int initialCapacity) {
+		int capacity = 16;
+		while (capacity < initialCapacity * 2)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	private void allocate(final int capacity) {
+		this.keys = new long[capacity];
+		this.values = new long[capacity];
+		Arrays.fill(this.values, EMPTY);
+		this.mask = capacity - 1;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	private static int hash(final long key) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * @param value must not be negative
+	 */
+	void put(final long key, final long value) {
+		if (value < 0)
+			throw new IllegalArgumentException("value cannot be negative: " + value);
+		if ((this.size + 1) * 2 > this.keys.length)
+			grow();
+		insert(key, value);
+		++this.size;
+	}
+
+	private void insert(final long key, final long value) {
+		int slot = hash(key) & this.mask;
+		while (EMPTY != this.values[slot])
+			slot = (slot + 1) & this.mask;
+		this.keys[slot] = key;
+		this.values[slot] = value;
+	}
+
+	private void grow() {
+		final long[] oldKeys = this.keys;
+		final long[] oldValues = this.values;
+		allocate(oldKeys.length * 2);
+		// re-inserting in slot order keeps entries of the same key in the order they were put
+		final int start = firstEmptySlot(oldValues);
+		for (int i = 0; i < oldKeys.length; ++i) {
+			final int slot = (start + i) & (oldKeys.length - 1);
+			if (EMPTY != oldValues[slot])
+				insert(oldKeys[slot], oldValues[slot]);
+		}
+	}
+
+	private static int firstEmptySlot(final long[] values) {
+		for (int i = 0; i < values.length; ++i) {
+			if (EMPTY == values[i])
+				return i;
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the first slot holding the given key, or {@link #NO_SLOT}
+	 */
+	int firstSlot(final long key) {
+		return probe(key, hash(key) & this.mask);
+	}
+
+	/**
+	 * @return the next slot after the given one holding the same key, or {@link #NO_SLOT}
+	 */
+	int nextSlot(final long key, final int slot) {
+		return probe(key, (slot + 1) & this.mask);
+	}
+
+	private int probe(final long key, int slot) {
+		while (EMPTY != this.values[slot]) {
+			if (this.keys[slot] == key)
+				return slot;
+			slot = (slot + 1) & this.mask;
+		}
+		return NO_SLOT;
+	}
+
+	long valueAt(final int slot) {
+		return this.values[slot];
+	}
+
+	/**
+	 * @return the value first put for the given key, or {@code -1}
+	 */
+	long get(final long key) {
+		final int slot = firstSlot(key);
+		return NO_SLOT == slot ? EMPTY : this.values[slot];
+	}
+}
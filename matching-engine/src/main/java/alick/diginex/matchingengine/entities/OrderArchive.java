@@ -0,0 +1,343 @@
+package alick.diginex.matchingengine.entities;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cold store for orders which reached a terminal state, so they no longer take up heap as {@link ClientOrder}s.
+ * <p/>
+ * Each order is encoded once into fixed-size segments, on heap or mapped from a file, and indexed by order ID and by
+ * every clOrdId it went by within its session, in primitive hash tables. Orders looked up are decoded back into a {@link ClientOrder},
+ * and the most recent ones are kept in a small cache.
+ * <p/>
+ * Thread safe, all access being serialised on the archive.
+ */
+public class OrderArchive implements Closeable {
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	private static final byte NULL_CODE = -1;
+	private static final int WIDE_CHARS = 0x8000;
+	// orderId, side, orderType, timeInForce, status, orderQty, price, cumQty, leavesQty, totalNotional, firstFill, lastFill, fillCount
+	private static final int ORDER_FIXED_LENGTH = 8 + 4 + 5 * 8 + 3 * 4;
+	private static final int MAX_CLORDID_LENGTH = 2 + 2 * 0x7FFF;
+
+	private final int segmentSize;
+	private final FileChannel fileChannel;
+	private final ArrayList<ByteBuffer> segments = new ArrayList<>();
+	private long writeOffset = 0;
+
+	private final FillStore fillStore;
+	private final LongLongTable orderIdIndex = new LongLongTable(1024);
+	private final LongLongTable clOrdIdIndex = new LongLongTable(1024);
+	private final LinkedHashMap<Long, ClientOrder> cache;
+
+	/**
+	 * Archive on heap
+	 */
+	public OrderArchive(final FillStore fillStore) {
+		this(fillStore, null, DEFAULT_SEGMENT_SIZE, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param fillStore   the fill store the trades of the archived orders are in
+	 * @param file        file to map the segments from, truncated if it exists; {@code null} to keep them on heap
+	 * @param segmentSize size in bytes of each segment
+	 * @param cacheSize   number of decoded orders to keep around
+	 */
+	public OrderArchive(final FillStore fillStore, final Path file, final int segmentSize, final int cacheSize) {
+		if (segmentSize < ORDER_FIXED_LENGTH + 2 * MAX_CLORDID_LENGTH)
+			throw new IllegalArgumentException("segment size too small: " + segmentSize);
+		if (cacheSize < 0)
+			throw new IllegalArgumentException("cache size cannot be negative: " + cacheSize);
+		this.fillStore = fillStore;
+		this.segmentSize = segmentSize;
+		try {
+			this.fileChannel = null == file ? null : FileChannel.open(file,
+					StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("cannot open order archive " + file, e);
+		}
+		this.cache = new LinkedHashMap<Long, ClientOrder>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, ClientOrder> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * @return number of orders archived
+	 */
+	public synchronized int size() {
+		return this.orderIdIndex.size();
+	}
+
+	public synchronized boolean containsOrderId(final long orderId) {
+		return this.orderIdIndex.get(orderId) >= 0;
+	}
+
+	/**
+	 * Archive an order in a terminal state; its clOrdIds are to be indexed with {@link #addClOrdId(long, CharSequence, long)}
+	 */
+	public synchronized void archive(final ClientOrder order) {
+		final ClientOrder.OrderState state = order.readState(new ClientOrder.OrderState());
+		final long offset = reserve(ORDER_FIXED_LENGTH + encodedLength(state.getClOrdId()) + encodedLength(state.getOrigClOrdId()));
+		final ByteBuffer segment = segmentOf(offset);
+		int index = (int) (offset % this.segmentSize);
+		segment.putLong(index, order.getOrderId());
+		index += 8;
+		segment.put(index++, code(order.getSide()));
+		segment.put(index++, code(state.getOrderType()));
+		segment.put(index++, code(order.getTimeInForce()));
+		segment.put(index++, code(state.getOrderStatus()));
+		segment.putDouble(index, state.getOrderQty());
+		segment.putDouble(index + 8, state.getPrice());
+		segment.putDouble(index + 16, state.getCumQty());
+		segment.putDouble(index + 24, state.getLeavesQty());
+		segment.putDouble(index + 32, state.getTotalNotional());
+		index += 40;
+		segment.putInt(index, order.getFirstFill());
+		segment.putInt(index + 4, order.getLastFill());
+		segment.putInt(index + 8, order.getFillCount());
+		index += 12;
+		index = putChars(segment, index, state.getClOrdId());
+		putChars(segment, index, state.getOrigClOrdId());
+
+		this.orderIdIndex.put(order.getOrderId(), offset);
+	}
+
+	/**
+	 * Index a clOrdId an archived order went by in its session
+	 */
+	public synchronized void addClOrdId(final long sessionId, final CharSequence clOrdId, final long orderId) {
+		final long offset = this.orderIdIndex.get(orderId);
+		if (offset < 0)
+			throw new IllegalArgumentException("order ID " + orderId + " is not archived");
+		final long hash = hash(sessionId, clOrdId);
+		if (findClOrdIdSlot(sessionId, clOrdId, hash) != LongLongTable.NO_SLOT)
+			return; // already indexed
+		// clOrdId record: orderId, sessionId, clOrdId
+		final long aliasOffset = reserve(16 + encodedLength(clOrdId));
+		final ByteBuffer segment = segmentOf(aliasOffset);
+		final int index = (int) (aliasOffset % this.segmentSize);
+		segment.putLong(index, orderId);
+		segment.putLong(index + 8, sessionId);
+		putChars(segment, index + 16, clOrdId);
+		this.clOrdIdIndex.put(hash, aliasOffset);
+	}
+
+	public synchronized boolean containsClOrdId(final long sessionId, final CharSequence clOrdId) {
+		return LongLongTable.NO_SLOT != findClOrdIdSlot(sessionId, clOrdId, hash(sessionId, clOrdId));
+	}
+
+	/**
+	 * @return the archived order, or {@code null}
+	 */
+	public synchronized ClientOrder findByOrderId(final long orderId) {
+		final ClientOrder cached = this.cache.get(orderId);
+		if (null != cached)
+			return cached;
+		final long offset = this.orderIdIndex.get(orderId);
+		if (offset < 0)
+			return null;
+		final ClientOrder order = decode(offset);
+		this.cache.put(orderId, order);
+		return order;
+	}
+
+	/**
+	 * @return the archived order which went by the given clOrdId in the session, or {@code null}
+	 */
+	public synchronized ClientOrder findByClOrdId(final long sessionId, final CharSequence clOrdId) {
+		final int slot = findClOrdIdSlot(sessionId, clOrdId, hash(sessionId, clOrdId));
+		if (LongLongTable.NO_SLOT == slot)
+			return null;
+		final long aliasOffset = this.clOrdIdIndex.valueAt(slot);
+		return findByOrderId(segmentOf(aliasOffset).getLong((int) (aliasOffset % this.segmentSize)));
+	}
+
+	private int findClOrdIdSlot(final long sessionId, final CharSequence clOrdId, final long hash) {
+		for (int slot = this.clOrdIdIndex.firstSlot(hash); LongLongTable.NO_SLOT != slot; slot = this.clOrdIdIndex.nextSlot(hash, slot)) {
+			final long aliasOffset = this.clOrdIdIndex.valueAt(slot);
+			final ByteBuffer segment = segmentOf(aliasOffset);
+			final int index = (int) (aliasOffset % this.segmentSize);
+			if (segment.getLong(index + 8) == sessionId && charsEqual(segment, index + 16, clOrdId))
+				return slot;
+		}
+		return LongLongTable.NO_SLOT;
+	}
+
+	private ClientOrder decode(final long offset) {
+		final ByteBuffer segment = segmentOf(offset);
+		int index = (int) (offset % this.segmentSize);
+		final long orderId = segment.getLong(index);
+		index += 8;
+		final Side side = decode(Side.values(), segment.get(index++));
+		final OrderType orderType = decode(OrderType.values(), segment.get(index++));
+		final TimeInForce timeInForce = decode(TimeInForce.values(), segment.get(index++));
+		final OrderStatus orderStatus = decode(OrderStatus.values(), segment.get(index++));
+		final double orderQty = segment.getDouble(index);
+		final double price = segment.getDouble(index + 8);
+		final double cumQty = segment.getDouble(index + 16);
+		final double leavesQty = segment.getDouble(index + 24);
+		final double totalNotional = segment.getDouble(index + 32);
+		index += 40;
+		final int firstFill = segment.getInt(index);
+		final int lastFill = segment.getInt(index + 4);
+		final int fillCount = segment.getInt(index + 8);
+		index += 12;
+		final String clOrdId = getChars(segment, index);
+		final String origClOrdId = getChars(segment, index + encodedLength(segment, index));
+		return ClientOrder.restore(
+				orderId, side, timeInForce,
+				clOrdId, origClOrdId, orderType,
+				orderQty, price,
+				cumQty, leavesQty, totalNotional,
+				orderStatus,
+				this.fillStore, firstFill, lastFill, fillCount);
+	}
+
+	private long reserve(final int length) {
+		final long segmentRemaining = this.segmentSize - this.writeOffset % this.segmentSize;
+		if (this.writeOffset % this.segmentSize != 0 && length > segmentRemaining)
+			this.writeOffset += segmentRemaining; // records never span two segments
+		final long offset = this.writeOffset;
+		final int segmentIndex = (int) (offset / this.segmentSize);
+		if (segmentIndex == this.segments.size())
+			this.segments.add(allocateSegment(segmentIndex));
+		this.writeOffset += length;
+		return offset;
+	}
+
+	private ByteBuffer allocateSegment(final int segmentIndex) {
+		if (null == this.fileChannel)
+			return ByteBuffer.allocate(this.segmentSize);
+		try {
+			return this.fileChannel.map(FileChannel.MapMode.READ_WRITE, (long) segmentIndex * this.segmentSize, this.segmentSize);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("cannot map segment " + segmentIndex + " of order archive", e);
+		}
+	}
+
+	private ByteBuffer segmentOf(final long offset) {
+		return this.segments.get((int) (offset / this.segmentSize));
+	}
+
+	// clOrdId encoding: length as a short, the top bit set when chars take two bytes, -1 for null
+	private static int encodedLength(final CharSequence chars) {
+		if (null == chars)
+			return 2;
+		if (chars.length() > 0x7FFF)
+			throw new IllegalArgumentException("clOrdId too long: " + chars.length() + " chars");
+		return 2 + (isNarrow(chars) ? 1 : 2) * chars.length();
+	}
+
+	private static int encodedLength(final ByteBuffer segment, final int index) {
+		final short header = segment.getShort(index);
+		if (-1 == header)
+			return 2;
+		final int length = header & 0x7FFF;
+		return 2 + ((header & WIDE_CHARS) != 0 ? 2 : 1) * length;
+	}
+
+	private static boolean isNarrow(final CharSequence chars) {
+		for (int i = 0; i < chars.length(); ++i) {
+			if (chars.charAt(i) > 0xFF)
+				return false;
+		}
+		return true;
+	}
+
+	private static int putChars(final ByteBuffer segment, int index, final CharSequence chars) {
+		if (null == chars) {
+			segment.putShort(index, (short) -1);
+			return index + 2;
+		}
+		final boolean narrow = isNarrow(chars);
+		segment.putShort(index, (short) (chars.length() | (narrow ? 0 : WIDE_CHARS)));
+		index += 2;
+		for (int i = 0; i < chars.length(); ++i) {
+			if (narrow) {
+				segment.put(index++, (byte) chars.charAt(i));
+			}
+			else {
+				segment.putChar(index, chars.charAt(i));
+				index += 2;
+			}
+		}
+		return index;
+	}
+
+	private static char charAt(final ByteBuffer segment, final int index, final boolean wide, final int i) {
+		return wide ? segment.getChar(index + 2 + 2 * i) : (char) (segment.get(index + 2 + i) & 0xFF);
+	}
+
+	private static String getChars(final ByteBuffer segment, final int index) {
+		final short header = segment.getShort(index);
+		if (-1 == header)
+			return null;
+		final boolean wide = (header & WIDE_CHARS) != 0;
+		final char[] chars = new char[header & 0x7FFF];
+		for (int i = 0; i < chars.length; ++i)
+			chars[i] = charAt(segment, index, wide, i);
+		return new String(chars);
+	}
+
+	private static boolean charsEqual(final ByteBuffer segment, final int index, final CharSequence chars) {
+		final short header = segment.getShort(index);
+		if (-1 == header || (header & 0x7FFF) != chars.length())
+			return false;
+		final boolean wide = (header & WIDE_CHARS) != 0;
+		for (int i = 0; i < chars.length(); ++i) {
+			if (charAt(segment, index, wide, i) != chars.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private static long hash(final long sessionId, final CharSequence chars) {
+		// 64-bit FNV-1a over the chars, seeded with the session
+		long hash = (0xcbf29ce484222325L ^ sessionId) * 0x100000001b3L;
+		for (int i = 0; i < chars.length(); ++i) {
+			hash ^= chars.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static byte code(final Enum<?> value) {
+		return null == value ? NULL_CODE : (byte) value.ordinal();
+	}
+
+	private static <E extends Enum<E>> E decode(final E[] values, final byte code) {
+		return NULL_CODE == code ? null : values[code];
+	}
+
+	@Override
+	public synchronized void close() {
+		if (null == this.fileChannel)
+			return;
+		try {
+			this.fileChannel.close();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("cannot close order archive", e);
+		}
+	}
+}
@@ -1,16 +1,53 @@
 package alick.diginex.matchingengine.entities;
 
+import alick.diginex.entities.Side;
+
 import java.time.Instant;
 
+/**
+ * A trade copied out of the {@link FillStore}
+ */
 public class Trade {
+	private final long tradeId;
+	private final long buyOrderId;
+	private final long sellOrderId;
+	private final Side aggressorSide;
 	private final double execQty;
 	private final double tradePx;
-	private final Instant transactTime;
+	private final long transactTimeNanos;
 
-	public Trade(final double execQty, final double tradePx, final Instant transactTime) {
+	/**
+	 * @param aggressorSide     side of the order which took liquidity, {@code null} for a trade of an auction uncrossing
+	 * @param transactTimeNanos nanoseconds since the epoch
+	 */
+	public Trade(
+			final long tradeId,
+			final long buyOrderId, final long sellOrderId, final Side aggressorSide,
+			final double execQty, final double tradePx,
+			final long transactTimeNanos) {
+		this.tradeId = tradeId;
+		this.buyOrderId = buyOrderId;
+		this.sellOrderId = sellOrderId;
+		this.aggressorSide = aggressorSide;
 		this.execQty = execQty;
 		this.tradePx = tradePx;
-		this.transactTime = transactTime;
+		this.transactTimeNanos = transactTimeNanos;
+	}
+
+	public long getTradeId() {
+		return tradeId;
+	}
+
+	public long getBuyOrderId() {
+		return buyOrderId;
+	}
+
+	public long getSellOrderId() {
+		return sellOrderId;
+	}
+
+	public Side getAggressorSide() {
+		return aggressorSide;
 	}
 
 	public double getExecQty() {
@@ -21,7 +58,27 @@ public class Trade {
 		return tradePx;
 	}
 
+	/**
+	 * @return nanoseconds since the epoch
+	 */
+	public long getTransactTimeNanos() {
+		return transactTimeNanos;
+	}
+
 	public Instant getTransactTime() {
-		return transactTime;
+		return Instant.ofEpochSecond(0, this.transactTimeNanos);
+	}
+
+	@Override
+	public String toString() {
+		return "Trade(" +
+				"tradeId=" + tradeId +
+				", buyOrderId=" + buyOrderId +
+				", sellOrderId=" + sellOrderId +
+				", aggressorSide=" + aggressorSide +
+				", execQty=" + execQty +
+				", tradePx=" + tradePx +
+				", transactTimeNanos=" + transactTimeNanos +
+				')';
 	}
 }
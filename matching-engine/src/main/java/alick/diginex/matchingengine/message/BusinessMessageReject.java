@@ -8,4 +8,23 @@ public class BusinessMessageReject implements ResponseMessage {
 	public MessageType getMessageType() {
 		return MessageType.BUSINESS_MESSAGE_REJECT;
 	}
+
+	private final String businessRejectRefId;
+	private final String text;
+
+	/**
+	 * @param businessRejectRefId ID of the request rejected, e.g. its clOrdId or quote ID
+	 */
+	public BusinessMessageReject(final String businessRejectRefId, final String text) {
+		this.businessRejectRefId = businessRejectRefId;
+		this.text = text;
+	}
+
+	public String getBusinessRejectRefId() {
+		return businessRejectRefId;
+	}
+
+	public String getText() {
+		return text;
+	}
 }
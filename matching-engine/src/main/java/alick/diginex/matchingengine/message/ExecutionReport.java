@@ -1,8 +1,8 @@
 package alick.diginex.matchingengine.message;
 
+import alick.diginex.entities.OrderStatus;
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
-import alick.diginex.matchingengine.entities.OrderStatus;
 
 /**
  * FIX-like execution report, for acknowledgement, fills, etc.
@@ -0,0 +1,34 @@
+package alick.diginex.matchingengine.message;
+
+/**
+ * FIX-like acknowledgement of a mass quote; each level entered, resized or pulled is reported with its own execution
+ * report
+ */
+public class MassQuoteAcknowledgement implements ResponseMessage {
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.MASS_QUOTE_ACKNOWLEDGEMENT;
+	}
+
+	private final String quoteId;
+	private final int totalQuotedLevels;
+	private final int totalPulledLevels;
+
+	public MassQuoteAcknowledgement(final String quoteId, final int totalQuotedLevels, final int totalPulledLevels) {
+		this.quoteId = quoteId;
+		this.totalQuotedLevels = totalQuotedLevels;
+		this.totalPulledLevels = totalPulledLevels;
+	}
+
+	public String getQuoteId() {
+		return quoteId;
+	}
+
+	public int getTotalQuotedLevels() {
+		return totalQuotedLevels;
+	}
+
+	public int getTotalPulledLevels() {
+		return totalPulledLevels;
+	}
+}
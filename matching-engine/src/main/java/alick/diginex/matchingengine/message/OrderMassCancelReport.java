@@ -0,0 +1,27 @@
+package alick.diginex.matchingengine.message;
+
+/**
+ * FIX-like summary of a mass cancel; each cancelled order is reported with its own execution report
+ */
+public class OrderMassCancelReport implements ResponseMessage {
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.ORDER_MASS_CANCEL_REPORT;
+	}
+
+	private final String clOrdId;
+	private final int totalAffectedOrders;
+
+	public OrderMassCancelReport(final String clOrdId, final int totalAffectedOrders) {
+		this.clOrdId = clOrdId;
+		this.totalAffectedOrders = totalAffectedOrders;
+	}
+
+	public String getClOrdId() {
+		return clOrdId;
+	}
+
+	public int getTotalAffectedOrders() {
+		return totalAffectedOrders;
+	}
+}
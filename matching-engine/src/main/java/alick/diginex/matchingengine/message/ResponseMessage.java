@@ -7,7 +7,9 @@ public interface ResponseMessage {
 		BUSINESS_MESSAGE_REJECT,
 		REJECT,
 		ORDER_CANCEL_REJECT,
-		EXECUTION_REPORT
+		EXECUTION_REPORT,
+		ORDER_MASS_CANCEL_REPORT,
+		MASS_QUOTE_ACKNOWLEDGEMENT
 	}
 
 	MessageType getMessageType();
@@ -0,0 +1,246 @@
+package alick.diginex.matchingengine.risk;
+
+import alick.diginex.entities.Side;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quantity, notional and position limits, the same for every account, checked against counters kept per account:
+ * <ul>
+ *     <li>quantity and notional of each order</li>
+ *     <li>notional of all open orders of the account</li>
+ *     <li>net position of the account, assuming all its open orders of the same side get filled</li>
+ * </ul>
+ * Each account has its own lock, held only for the check and the update of its counters, so submitters of different
+ * accounts never wait on one another.
+ *
+ * Thread-safety: thread-safe.
+ */
+public final class AccountRiskLimits implements PreTradeRisk {
+	static final String ORDER_QUANTITY_EXCEEDED = "risk: order quantity limit exceeded";
+	static final String ORDER_NOTIONAL_EXCEEDED = "risk: order notional limit exceeded";
+	static final String OPEN_NOTIONAL_EXCEEDED = "risk: open notional limit exceeded";
+	static final String POSITION_EXCEEDED = "risk: position limit exceeded";
+
+	/**
+	 * Open quantity of an order, at the price it was reserved at; and while an amend is pending, the amended ones
+	 */
+	private static final class Reservation {
+		private final Side side;
+		private double quantity;
+		private double price;
+		private double pendingQuantity = Double.NaN;
+		private double pendingPrice = Double.NaN;
+
+		private Reservation(final Side side, final double quantity, final double price) {
+			this.side = side;
+			this.quantity = quantity;
+			this.price = price;
+		}
+
+		private boolean hasPendingAmend() {
+			return !Double.isNaN(this.pendingQuantity);
+		}
+
+		private double reservedQuantity() {
+			return hasPendingAmend() ? Math.max(this.quantity, this.pendingQuantity) : this.quantity;
+		}
+
+		private double reservedNotional() {
+			final double notional = this.quantity * this.price;
+			return hasPendingAmend() ? Math.max(notional, this.pendingQuantity * this.pendingPrice) : notional;
+		}
+	}
+
+	/**
+	 * Counters of one account; guarded by itself
+	 */
+	private static final class Account {
+		private final HashMap<Long, Reservation> reservations = new HashMap<>();
+		private double openBuyQuantity = 0.0d;
+		private double openSellQuantity = 0.0d;
+		private double openNotional = 0.0d;
+		private double position = 0.0d;
+
+		// add or take out the reservation of an order from the totals
+		private void count(final Reservation reservation, final int sign) {
+			if (Side.BUY == reservation.side)
+				this.openBuyQuantity += sign * reservation.reservedQuantity();
+			else
+				this.openSellQuantity += sign * reservation.reservedQuantity();
+			this.openNotional += sign * reservation.reservedNotional();
+		}
+	}
+
+	private final double maxOrderQuantity;
+	private final double maxOrderNotional;
+	private final double maxOpenNotional;
+	private final double maxPosition;
+	private final ConcurrentHashMap<Long, Account> accounts = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxOrderQuantity largest quantity of an order; {@link Double#POSITIVE_INFINITY} for no limit, as for all
+	 * @param maxOrderNotional largest quantity times price of an order
+	 * @param maxOpenNotional  largest notional of all open orders of an account
+	 * @param maxPosition      largest net position of an account either way, counting its open orders of the same side
+	 * @throws IllegalArgumentException if a limit is not positive
+	 */
+	public AccountRiskLimits(final double maxOrderQuantity, final double maxOrderNotional, final double maxOpenNotional, final double maxPosition) {
+		checkLimit("order quantity", maxOrderQuantity);
+		checkLimit("order notional", maxOrderNotional);
+		checkLimit("open notional", maxOpenNotional);
+		checkLimit("position", maxPosition);
+		this.maxOrderQuantity = maxOrderQuantity;
+		this.maxOrderNotional = maxOrderNotional;
+		this.maxOpenNotional = maxOpenNotional;
+		this.maxPosition = maxPosition;
+	}
+
+	private static void checkLimit(final String name, final double limit) {
+		if (!(limit > 0))
+			throw new IllegalArgumentException(name + " limit must be positive: " + limit);
+	}
+
+	private Account accountOf(final long accountId) {
+		final Account account = this.accounts.get(accountId);
+		return null != account ? account : this.accounts.computeIfAbsent(accountId, id -> new Account());
+	}
+
+	@Override
+	public String reserveNewOrder(final long accountId, final long orderId, final Side side, final double quantity, final double price) {
+		final String orderReject = checkOrder(quantity, price);
+		if (null != orderReject)
+			return orderReject;
+		final Account account = accountOf(accountId);
+		synchronized (account) {
+			final Reservation reservation = new Reservation(side, quantity, price);
+			account.count(reservation, 1);
+			final String reject = checkAccount(account, side);
+			if (null != reject) {
+				account.count(reservation, -1);
+				return reject;
+			}
+			account.reservations.put(orderId, reservation);
+			return null;
+		}
+	}
+
+	@Override
+	public String reserveAmend(final long accountId, final long orderId, final double newQuantity, final double newPrice) {
+		final String orderReject = checkOrder(newQuantity, newPrice);
+		if (null != orderReject)
+			return orderReject;
+		final Account account = accountOf(accountId);
+		synchronized (account) {
+			final Reservation reservation = account.reservations.get(orderId);
+			if (null == reservation) // e.g. a quote, never reserved
+				return null;
+			account.count(reservation, -1);
+			reservation.pendingQuantity = newQuantity;
+			reservation.pendingPrice = newPrice;
+			account.count(reservation, 1);
+			final String reject = checkAccount(account, reservation.side);
+			if (null != reject) {
+				account.count(reservation, -1);
+				reservation.pendingQuantity = Double.NaN;
+				reservation.pendingPrice = Double.NaN;
+				account.count(reservation, 1);
+			}
+			return reject;
+		}
+	}
+
+	@Override
+	public void amendDone(final long accountId, final long orderId, final boolean amended) {
+		final Account account = accountOf(accountId);
+		synchronized (account) {
+			final Reservation reservation = account.reservations.get(orderId);
+			if (null == reservation || !reservation.hasPendingAmend())
+				return;
+			account.count(reservation, -1);
+			if (amended) {
+				reservation.quantity = reservation.pendingQuantity;
+				reservation.price = reservation.pendingPrice;
+			}
+			reservation.pendingQuantity = Double.NaN;
+			reservation.pendingPrice = Double.NaN;
+			account.count(reservation, 1);
+		}
+	}
+
+	@Override
+	public void onFill(final long accountId, final long orderId, final Side side, final double quantity, final double price) {
+		final Account account = accountOf(accountId);
+		synchronized (account) {
+			account.position += Side.BUY == side ? quantity : -quantity;
+			final Reservation reservation = account.reservations.get(orderId);
+			if (null == reservation)
+				return;
+			account.count(reservation, -1);
+			// a fill racing an amend may be of either quantity, take it off both
+			reservation.quantity = Math.max(0, reservation.quantity - quantity);
+			if (reservation.hasPendingAmend())
+				reservation.pendingQuantity = Math.max(0, reservation.pendingQuantity - quantity);
+			if (0 == reservation.reservedQuantity())
+				account.reservations.remove(orderId);
+			else
+				account.count(reservation, 1);
+		}
+	}
+
+	@Override
+	public void release(final long accountId, final long orderId) {
+		final Account account = this.accounts.get(accountId);
+		if (null == account)
+			return;
+		synchronized (account) {
+			final Reservation reservation = account.reservations.remove(orderId);
+			if (null != reservation)
+				account.count(reservation, -1);
+		}
+	}
+
+	private String checkOrder(final double quantity, final double price) {
+		if (quantity > this.maxOrderQuantity)
+			return ORDER_QUANTITY_EXCEEDED;
+		if (quantity * price > this.maxOrderNotional)
+			return ORDER_NOTIONAL_EXCEEDED;
+		return null;
+	}
+
+	// only the side of the order is checked for position, so an order reducing the position always can be;
+	// caller must hold the lock on the account
+	private String checkAccount(final Account account, final Side side) {
+		if (account.openNotional > this.maxOpenNotional)
+			return OPEN_NOTIONAL_EXCEEDED;
+		if (Side.BUY == side ? account.position + account.openBuyQuantity > this.maxPosition
+				: account.position - account.openSellQuantity < -this.maxPosition)
+			return POSITION_EXCEEDED;
+		return null;
+	}
+
+	/**
+	 * @return net position of the account, bought minus sold
+	 */
+	public double getPosition(final long accountId) {
+		final Account account = this.accounts.get(accountId);
+		if (null == account)
+			return 0;
+		synchronized (account) {
+			return account.position;
+		}
+	}
+
+	/**
+	 * @return notional of the open orders of the account, as reserved
+	 */
+	public double getOpenNotional(final long accountId) {
+		final Account account = this.accounts.get(accountId);
+		if (null == account)
+			return 0;
+		synchronized (account) {
+			return account.openNotional;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package alick.diginex.matchingengine.risk;
+
+import alick.diginex.entities.Side;
+
+/**
+ * Pre-trade risk check of a {@link alick.diginex.matchingengine.MatchingEngine}, run on the submitting threads before a
+ * request is queued for the order book, so it never adds to the processing thread's work.
+ * <p/>
+ * A new order or amend approved holds a reservation against its account until the order is filled, cancelled or
+ * rejected; only approved requests are queued. The account is the session, i.e. the owner ID, of the order.
+ *
+ * Thread-safety: implementations must be thread-safe, they are called from any number of submitting threads.
+ */
+public interface PreTradeRisk {
+	/**
+	 * No check at all
+	 */
+	PreTradeRisk NONE = new PreTradeRisk() {
+		@Override
+		public String reserveNewOrder(final long accountId, final long orderId, final Side side, final double quantity, final double price) {
+			return null;
+		}
+
+		@Override
+		public String reserveAmend(final long accountId, final long orderId, final double newQuantity, final double newPrice) {
+			return null;
+		}
+
+		@Override
+		public void amendDone(final long accountId, final long orderId, final boolean amended) {
+		}
+
+		@Override
+		public void onFill(final long accountId, final long orderId, final Side side, final double quantity, final double price) {
+		}
+
+		@Override
+		public void release(final long accountId, final long orderId) {
+		}
+	};
+
+	/**
+	 * Check a new order, and reserve it against the account if it passes, as one atomic step.
+	 *
+	 * @param price limit price, or for a market order the price it is expected to trade at
+	 * @return {@code null} if approved, otherwise the reason to reject the order with
+	 */
+	String reserveNewOrder(long accountId, long orderId, Side side, double quantity, double price);
+
+	/**
+	 * Check an amend of an order to the given remaining quantity and price; if it passes, the order holds the larger of
+	 * its current and its amended reservation until told how the amend went, see {@link #amendDone(long, long, boolean)}.
+	 *
+	 * @return {@code null} if approved, otherwise the reason to reject the amend with
+	 */
+	String reserveAmend(long accountId, long orderId, double newQuantity, double newPrice);
+
+	/**
+	 * Settle an approved amend: the order keeps its amended reservation if it was amended, its previous one otherwise
+	 */
+	void amendDone(long accountId, long orderId, boolean amended);
+
+	/**
+	 * An order of the account traded; its reservation is taken down by the quantity, and the position of the account
+	 * moves. Also called for orders which were never reserved, e.g. quotes.
+	 */
+	void onFill(long accountId, long orderId, Side side, double quantity, double price);
+
+	/**
+	 * An order is done without trading the rest of its quantity, e.g. cancelled or rejected; give back its reservation
+	 */
+	void release(long accountId, long orderId);
+}
@@ -0,0 +1,98 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.matchingengine.message.BusinessMessageReject;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import alick.diginex.matchingengine.message.ResponseMessage;
+import alick.diginex.orderbook.request.MassCancelRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AdmissionQueueTest {
+	@Test
+	@Timeout(value = 5)
+	public void overloadPolicies() throws InterruptedException {
+		final AdmissionQueue<String> rejecting = new AdmissionQueue<>(2, OverloadPolicy.REJECT);
+		assertThat("first admitted", rejecting.admit("a", true), is(true));
+		assertThat("second admitted", rejecting.admit("b", false), is(true));
+		assertThat("rejected when full, whatever the priority", rejecting.admit("c", false), is(false));
+		assertThat("stats of the rejecting queue", rejecting.getStats().getRejected(), is(1L));
+		assertThat("max depth", rejecting.getStats().getMaxQueueDepth(), is(2));
+
+		final AdmissionQueue<String> shedding = new AdmissionQueue<>(4, OverloadPolicy.SHED);
+		for (int i = 0; i < 3; ++i)
+			assertThat("admitted below the threshold", shedding.admit("new-" + i, true), is(true));
+		assertThat("low priority shed at 75%", shedding.admit("new-3", true), is(false));
+		assertThat("high priority still admitted", shedding.admit("cancel-0", false), is(true));
+		assertThat("shed count", shedding.getStats().getShed(), is(1L));
+
+		final AdmissionQueue<String> blocking = new AdmissionQueue<>(1, OverloadPolicy.BLOCK);
+		blocking.admit("first", true);
+		final Thread consumer = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+				blocking.take();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		consumer.start();
+		assertThat("admitted once there is room", blocking.admit("second", true), is(true));
+		consumer.join();
+		assertThat("blocked count", blocking.getStats().getBlocked(), is(1L));
+		assertThat("admitted count", blocking.getStats().getAdmitted(), is(2L));
+		assertThat("the waiting request is next", blocking.poll(0, TimeUnit.NANOSECONDS), is("second"));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void engineRejectsRequestsWhenFull() throws InterruptedException {
+		final MatchingEngine matchingEngine = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0).admissionCapacity(1).overloadPolicy(OverloadPolicy.REJECT));
+		// the engine is not started yet, so the first request sits in the queue until it is
+		final AtomicReference<List<ResponseMessage>> queuedResponses = new AtomicReference<>();
+		final Thread submitter = new Thread(() -> {
+			try {
+				queuedResponses.set(matchingEngine.submitNewOrderRequest("queued", BUY, LIMIT, 10, 34000d));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		submitter.start();
+		while (matchingEngine.getAdmissionStats().getQueueDepth() < 1)
+			Thread.sleep(1);
+
+		try {
+			final List<ResponseMessage> newOrderResponses = matchingEngine.submitNewOrderRequest("overflow", SELL, LIMIT, 10, 35000d);
+			final ExecutionReport rejected = (ExecutionReport) newOrderResponses.get(0);
+			assertThat("new order rejected", rejected.getOrderState(), is(OrderStatus.REJECTED));
+			assertThat("new order reject reason", rejected.getRejectReason(), is(AdmissionQueue.OVERLOADED));
+			final OrderCancelReject cancelReject = (OrderCancelReject) matchingEngine.submitCancelOrderRequest("queued", "cancel-1").get(0);
+			assertThat("cancel reject reason", cancelReject.getRejectReason(), is(AdmissionQueue.OVERLOADED));
+			final BusinessMessageReject massCancelReject = (BusinessMessageReject) matchingEngine.submitMassCancelRequest("mass-1", null, Double.NaN, Double.NaN, MassCancelRequest.ANY_OWNER).get(0);
+			assertThat("mass cancel rejected", massCancelReject.getBusinessRejectRefId(), is("mass-1"));
+			assertThat("requests turned away", matchingEngine.getAdmissionStats().getRejected(), is(3L));
+
+			matchingEngine.start();
+			submitter.join();
+			assertThat("queued order processed once started", ((ExecutionReport) queuedResponses.get().get(0)).getOrderState(), is(OrderStatus.NEW));
+			final ExecutionReport cancelled = (ExecutionReport) matchingEngine.submitCancelOrderRequest("queued", "cancel-1").get(0);
+			assertThat("clOrdId of the turned away cancel can be re-used", cancelled.getOrderState(), is(OrderStatus.CANCELLED));
+		}
+		finally {
+			matchingEngine.stop();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.orderbook.response.Level2Summary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BookViewTest {
+	@Test
+	@Timeout(value = 5)
+	public void viewIsPublishedAfterEveryRequestWhenAsked() throws InterruptedException {
+		final MatchingEngine matchingEngine = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0));
+		matchingEngine.start();
+		try {
+			assertThat("initial view version", matchingEngine.getBookView().getVersion(), is(0L));
+			matchingEngine.submitNewOrderRequest("buy-1", BUY, LIMIT, 100, 34900d);
+			final BookView view1 = matchingEngine.getBookView();
+			assertThat("view version after 1 request", view1.getVersion(), is(1L));
+			assertThat("bid queue after 1 request", view1.getSnapshot().getBidLimitQueue().keySet(), contains(34900d));
+
+			matchingEngine.submitNewOrderRequest("sell-1", SELL, LIMIT, 100, 35100d);
+			final BookView view2 = matchingEngine.getBookView();
+			assertThat("view version after 2 requests", view2.getVersion(), is(2L));
+			assertThat("ask queue after 2 requests", view2.getSnapshot().getAskLimitQueue().keySet(), contains(35100d));
+			assertThat("snapshot is that of the latest view", matchingEngine.snapshotOrderBook(), sameInstance(view2.getSnapshot()));
+
+			assertThat("earlier view is not modified", view1.getSnapshot().getAskLimitQueue(), anEmptyMap());
+
+			assertThat("bids grouped by 100", matchingEngine.getGroupedDepth(BUY, 100).getDepths(), contains(
+					new Level2Summary.PriceQuantity(34900d, 100)));
+			assertThat("asks grouped by 0.5 in the view", view2.getGroupedDepth(SELL, 0.5).getDepths(), contains(
+					new Level2Summary.PriceQuantity(35100d, 100)));
+		}
+		finally {
+			matchingEngine.stop();
+		}
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void viewIsPublishedAtConfiguredCadence() throws InterruptedException {
+		final long publishIntervalMillis = 200;
+		final MatchingEngine matchingEngine = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(publishIntervalMillis));
+		matchingEngine.start();
+		try {
+			// let the initial view age past the interval, so the first request is published straight away
+			Thread.sleep(publishIntervalMillis + 50);
+			matchingEngine.submitNewOrderRequest("buy-1", BUY, LIMIT, 100, 34900d);
+			// published straight away, but only once the submitter is released
+			BookView view1 = matchingEngine.getBookView();
+			while (view1.getVersion() < 1) {
+				Thread.sleep(1);
+				view1 = matchingEngine.getBookView();
+			}
+			assertThat("first change is published straight away", view1.getAgeNanos(), lessThan(publishIntervalMillis * 1_000_000L));
+
+			matchingEngine.submitNewOrderRequest("buy-2", BUY, LIMIT, 100, 34800d);
+			final BookView view2 = matchingEngine.getBookView();
+			assertThat("second change within the interval is not published yet", view2, sameInstance(view1));
+			assertThat("stale view is younger than the interval", view2.getAgeNanos(), lessThan(publishIntervalMillis * 1_000_000L));
+
+			// without any further request, the pending change is published once the interval is up
+			BookView view3 = matchingEngine.getBookView();
+			while (view3.getVersion() < 2) {
+				Thread.sleep(10);
+				view3 = matchingEngine.getBookView();
+			}
+			assertThat("published view version", view3.getVersion(), is(2L));
+			assertThat("published at the cadence", view3.getPublishedAtNanos() - view1.getPublishedAtNanos(), greaterThanOrEqualTo(publishIntervalMillis * 1_000_000L));
+			assertThat("bid queue of published view", view3.getSnapshot().getBidLimitQueue().keySet(), contains(34900d, 34800d));
+
+			Thread.sleep(publishIntervalMillis + 50);
+			assertThat("unchanged book is not re-published", matchingEngine.getBookView(), sameInstance(view3));
+		}
+		finally {
+			matchingEngine.stop();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.matchingengine.CandleSeries.Candle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CandlesTest {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+	private static final long START = 1_600_000_000L * SECOND;
+
+	@Test
+	public void barsRollOverIntervals() {
+		final Candles candles = new Candles(new long[]{SECOND, 60 * SECOND}, 4);
+		candles.onTrade(10, 100.0, START + 100);
+		candles.onTrade(20, 102.0, START + 300);
+		candles.onTrade(10, 99.0, START + 50); // recorded late, becomes the open rather than the close
+		candles.onTrade(5, 101.0, START + 2 * SECOND);
+
+		final CandleSeries seconds = candles.getSeries(1, TimeUnit.SECONDS);
+		final Candle candle = new Candle();
+		assertThat("bar of the first second", seconds.read(START + 500, candle), is(true));
+		assertThat("open", candle.getOpen(), is(99.0));
+		assertThat("high", candle.getHigh(), is(102.0));
+		assertThat("low", candle.getLow(), is(99.0));
+		assertThat("close", candle.getClose(), is(102.0));
+		assertThat("volume", candle.getVolume(), is(40.0));
+		assertThat("vwap", candle.getVwap(), closeTo((1000 + 2040 + 990) / 40.0, 1e-9));
+		assertThat("trade count", candle.getTradeCount(), is(3L));
+		assertThat("no trade in the second second", seconds.read(START + SECOND, candle), is(false));
+
+		final Candle[] range = {new Candle(), new Candle(), new Candle()};
+		assertThat("bars in range", seconds.read(START, START + 3 * SECOND, range), is(2));
+		assertThat("oldest first", range[0].getOpenTimeNanos(), is(START));
+		assertThat("latest bar", range[1].getClose(), is(101.0));
+
+		final CandleSeries minutes = candles.getSeries(1, TimeUnit.MINUTES);
+		assertThat("minute bar", minutes.read(START, candle), is(true));
+		assertThat("minute volume", candle.getVolume(), is(45.0));
+		assertThat("session vwap", candles.getSessionVwap(), closeTo((1000 + 2040 + 990 + 505) / 45.0, 1e-9));
+		assertThrows(IllegalArgumentException.class, () -> candles.getSeries(1, TimeUnit.HOURS), "interval not kept");
+
+		// the ring wraps after 4 seconds, overwriting the first bar
+		candles.onTrade(1, 103.0, START + 4 * SECOND);
+		assertThat("overwritten bar", seconds.read(START, candle), is(false));
+		candles.onTrade(1, 98.0, START + 300);
+		assertThat("bar after the ring wrapped", seconds.read(START + 4 * SECOND, candle), is(true));
+		assertThat("trade older than the bars kept dropped", candle.getLow(), is(103.0));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void engineUpdatesBarsOnTrades() throws InterruptedException {
+		final MatchingEngine matchingEngine = new MatchingEngine("BTC/USD", 35000d);
+		matchingEngine.start();
+		try {
+			matchingEngine.submitNewOrderRequest("sell-1", SELL, LIMIT, 10, 35000d);
+			matchingEngine.submitNewOrderRequest("sell-2", SELL, LIMIT, 10, 35100d);
+			matchingEngine.submitNewOrderRequest("buy-1", BUY, LIMIT, 20, 35100d);
+			final Candles candles = matchingEngine.getCandles();
+			assertThat("session volume", candles.getSessionVolume(), is(20d));
+			assertThat("session vwap", candles.getSessionVwap(), closeTo(35050d, 1e-9));
+			final long now = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+			final Candle candle = new Candle();
+			final Candle[] lastHour = {candle};
+			assertThat("hour bar", candles.getSeries(1, TimeUnit.HOURS).read(now - TimeUnit.HOURS.toNanos(1), now, lastHour), is(1));
+			assertThat("hour bar high", candle.getHigh(), is(35100d));
+			assertThat("hour bar trades", candle.getTradeCount(), is(2L));
+		}
+		finally {
+			matchingEngine.stop();
+		}
+	}
+}
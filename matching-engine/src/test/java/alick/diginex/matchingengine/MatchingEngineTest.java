@@ -2,24 +2,37 @@ package alick.diginex.matchingengine;
 
 import alick.diginex.entities.OrderBookSnapshot;
 import alick.diginex.entities.OrderBookSnapshot.OrderOpenQty;
+import alick.diginex.entities.OrderStatus;
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
-import alick.diginex.matchingengine.entities.OrderStatus;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.entities.ClientOrder;
+import alick.diginex.matchingengine.entities.Trade;
+import alick.diginex.matchingengine.message.BusinessMessageReject;
 import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import alick.diginex.matchingengine.message.MassQuoteAcknowledgement;
+import alick.diginex.matchingengine.message.OrderMassCancelReport;
 import alick.diginex.matchingengine.message.ResponseMessage;
+import alick.diginex.orderbook.request.MassCancelRequest;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static alick.diginex.entities.OrderType.LIMIT;
 import static alick.diginex.entities.Side.BUY;
 import static alick.diginex.entities.Side.SELL;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class MatchingEngineTest {
 	private final Random random = new Random();
@@ -27,7 +40,7 @@ public class MatchingEngineTest {
 
 	@BeforeEach
 	public void setup() {
-		this.matchingEngine = new MatchingEngine("BTC/USD", 35000d);
+		this.matchingEngine = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0));
 		this.matchingEngine.start();
 	}
 
@@ -282,4 +295,254 @@ public class MatchingEngineTest {
 				new OrderOpenQty(buy2Er1.getOrderId(), 200d - 140d - 20d)
 		));
 	}
+
+	@Test
+	@Timeout(value = 5)
+	public void immediateOrCancelResidualIsCancelled() throws InterruptedException {
+		this.matchingEngine.submitNewOrderRequest("sell-1", SELL, LIMIT, 30, 35000d);
+
+		final List<ResponseMessage> iocReport = this.matchingEngine.submitNewOrderRequest("ioc-1", BUY, LIMIT, 50, 35000d, TimeInForce.IOC);
+		assertThat("new ack, 1x buy/sell fill, cancel", iocReport, hasSize(4));
+		final ExecutionReport fillEr = (ExecutionReport) iocReport.get(1);
+		assertThat("fill clOrdId", fillEr.getClOrdId(), is("ioc-1"));
+		assertThat("fill order state", fillEr.getOrderState(), is(OrderStatus.PARTIAL_FILLLED));
+		final ExecutionReport cancelEr = (ExecutionReport) iocReport.get(3);
+		assertThat("cancel clOrdId", cancelEr.getClOrdId(), is("ioc-1"));
+		assertThat("cancel order state", cancelEr.getOrderState(), is(OrderStatus.CANCELLED));
+		assertThat("cancel cumQty", cancelEr.getCumQty(), is(30d));
+		assertThat("cancel leavesQty", cancelEr.getLeavesQty(), is(0d));
+		assertThat("client order state", this.matchingEngine.getOrderByClOrdId("ioc-1").getOrderStatus(), is(OrderStatus.CANCELLED));
+		assertThat("residual not in the book", this.matchingEngine.snapshotOrderBook().getBidLimitQueue().values(), everyItem(empty()));
+
+		final List<ResponseMessage> fokReport = this.matchingEngine.submitNewOrderRequest("fok-1", SELL, LIMIT, 10, 34000d, TimeInForce.FOK);
+		assertThat("new ack and cancel", fokReport, hasSize(2));
+		assertThat("fok cancelled", ((ExecutionReport) fokReport.get(1)).getOrderState(), is(OrderStatus.CANCELLED));
+		assertThat("fok cumQty", ((ExecutionReport) fokReport.get(1)).getCumQty(), is(0d));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void massCancelByOwner() throws InterruptedException {
+		final long maker = 7;
+		this.matchingEngine.submitNewOrderRequest("maker-bid-1", BUY, LIMIT, 10, 34900d, TimeInForce.DAY, maker);
+		this.matchingEngine.submitNewOrderRequest("maker-ask-1", SELL, LIMIT, 10, 35100d, TimeInForce.DAY, maker);
+		this.matchingEngine.submitNewOrderRequest("other-bid-1", BUY, LIMIT, 10, 34900d);
+
+		final List<ResponseMessage> reports = this.matchingEngine.submitMassCancelRequest("mass-1", null, Double.NaN, Double.NaN, maker);
+		assertThat("summary and a cancel per order", reports, hasSize(3));
+		final OrderMassCancelReport summary = (OrderMassCancelReport) reports.get(0);
+		assertThat("summary clOrdId", summary.getClOrdId(), is("mass-1"));
+		assertThat("summary affected orders", summary.getTotalAffectedOrders(), is(2));
+		final ExecutionReport bidCancel = (ExecutionReport) reports.get(1);
+		assertThat("bid cancel clOrdId", bidCancel.getClOrdId(), is("maker-bid-1"));
+		assertThat("bid cancel order state", bidCancel.getOrderState(), is(OrderStatus.CANCELLED));
+		assertThat("bid cancel leavesQty", bidCancel.getLeavesQty(), is(0d));
+		assertThat("ask cancel clOrdId", ((ExecutionReport) reports.get(2)).getClOrdId(), is("maker-ask-1"));
+		assertThat("client order state", this.matchingEngine.getOrderByClOrdId("maker-ask-1").getOrderStatus(), is(OrderStatus.CANCELLED));
+
+		final OrderBookSnapshot snapshot = this.matchingEngine.snapshotOrderBook();
+		assertThat("other owner's bid still there", snapshot.getBidLimitQueue().get(34900d), contains(
+				new OrderOpenQty(this.matchingEngine.getOrderByClOrdId("other-bid-1").getOrderId(), 10d)));
+		assertThat("no ask left", snapshot.getAskLimitQueue(), anEmptyMap());
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void massQuoteReplacesLadder() throws InterruptedException {
+		final long maker = 7;
+		final List<ResponseMessage> first = this.matchingEngine.submitMassQuoteRequest("q-1", maker,
+				new double[]{34900d, 34800d}, new double[]{10, 20},
+				new double[]{35100d}, new double[]{30});
+		assertThat("ack and a new order per level", first, hasSize(4));
+		final MassQuoteAcknowledgement firstAck = (MassQuoteAcknowledgement) first.get(0);
+		assertThat("ack quote ID", firstAck.getQuoteId(), is("q-1"));
+		assertThat("ack quoted levels", firstAck.getTotalQuotedLevels(), is(3));
+		assertThat("ack pulled levels", firstAck.getTotalPulledLevels(), is(0));
+		assertThat("first bid level", ((ExecutionReport) first.get(1)).getClOrdId(), is("q-1-B0"));
+		assertThat("first bid level state", ((ExecutionReport) first.get(1)).getOrderState(), is(OrderStatus.NEW));
+		assertThat("ask level", ((ExecutionReport) first.get(3)).getClOrdId(), is("q-1-S0"));
+
+		this.matchingEngine.submitNewOrderRequest("other-bid-1", BUY, LIMIT, 5, 34900d);
+
+		// keep 34900 as is, pull 34800, resize the ask, and a new bid crossing a resting ask
+		this.matchingEngine.submitNewOrderRequest("other-ask-1", SELL, LIMIT, 4, 35000d);
+		final List<ResponseMessage> second = this.matchingEngine.submitMassQuoteRequest("q-2", maker,
+				new double[]{34900d, 35000d}, new double[]{10, 4},
+				new double[]{35100d}, new double[]{25});
+		assertThat("ack, pull, new level, resize, and two fills", second, hasSize(6));
+		assertThat("ack pulled levels", ((MassQuoteAcknowledgement) second.get(0)).getTotalPulledLevels(), is(1));
+		final ExecutionReport pulled = (ExecutionReport) second.get(1);
+		assertThat("pulled level clOrdId", pulled.getClOrdId(), is("q-1-B1"));
+		assertThat("pulled level state", pulled.getOrderState(), is(OrderStatus.CANCELLED));
+		assertThat("new level clOrdId", ((ExecutionReport) second.get(2)).getClOrdId(), is("q-2-B1"));
+		final ExecutionReport resized = (ExecutionReport) second.get(3);
+		assertThat("resized level keeps its clOrdId", resized.getClOrdId(), is("q-1-S0"));
+		assertThat("resized level state", resized.getOrderState(), is(OrderStatus.REPLACED));
+		assertThat("resized level leavesQty", resized.getLeavesQty(), is(25d));
+		assertThat("new level filled", this.matchingEngine.getOrderByClOrdId("q-2-B1").getOrderStatus(), is(OrderStatus.FILLED));
+		assertThat("resting ask filled", this.matchingEngine.getOrderByClOrdId("other-ask-1").getOrderStatus(), is(OrderStatus.FILLED));
+		assertThat("unused level order dropped", this.matchingEngine.getOrderByClOrdId("q-2-B0"), nullValue());
+
+		final OrderBookSnapshot snapshot = this.matchingEngine.snapshotOrderBook();
+		assertThat("maker keeps queue priority @34900", snapshot.getBidLimitQueue().get(34900d), contains(
+				new OrderOpenQty(this.matchingEngine.getOrderByClOrdId("q-1-B0").getOrderId(), 10d),
+				new OrderOpenQty(this.matchingEngine.getOrderByClOrdId("other-bid-1").getOrderId(), 5d)));
+
+		final List<ResponseMessage> reused = this.matchingEngine.submitMassQuoteRequest("q-2", maker,
+				new double[]{34900d, 34800d}, new double[]{10, 20},
+				new double[0], new double[0]);
+		assertThat("quote ID reused for the ClOrdIds of its levels", reused, contains(instanceOf(BusinessMessageReject.class)));
+		assertThat("reject refers to the quote", ((BusinessMessageReject) reused.get(0)).getBusinessRejectRefId(), is("q-2"));
+		assertThat("ladder left as it was", this.matchingEngine.getOrderByClOrdId("q-1-B0").getLeavesQty(), is(10d));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void terminalOrdersAreArchived() throws InterruptedException {
+		this.matchingEngine.submitNewOrderRequest("sell-1", SELL, LIMIT, 10, 35000d);
+		this.matchingEngine.submitNewOrderRequest("buy-1", BUY, LIMIT, 10, 35000d);
+		this.matchingEngine.submitNewOrderRequest("buy-2", BUY, LIMIT, 10, 34900d);
+		this.matchingEngine.submitCancelOrderRequest("buy-2", "buy-2-cxl");
+		this.matchingEngine.submitNewOrderRequest("buy-3", BUY, LIMIT, 10, 34800d);
+		final long liveOrderId = this.matchingEngine.getOrderByClOrdId("buy-3").getOrderId();
+
+		this.matchingEngine.archiveTerminalOrders();
+
+		assertThat("live order stays as it is", this.matchingEngine.getOrderByOrderId(liveOrderId).getOrderStatus(), is(OrderStatus.NEW));
+		final ClientOrder filled = this.matchingEngine.getOrderByClOrdId("sell-1");
+		assertThat("filled order still found", filled.getOrderStatus(), is(OrderStatus.FILLED));
+		assertThat("filled order executions", filled.getExecutions(), hasSize(1));
+		assertThat("filled order by order ID", this.matchingEngine.getOrderByOrderId(filled.getOrderId()).getCumQty(), is(10d));
+		assertThat("cancelled order by original clOrdId", this.matchingEngine.getOrderByClOrdId("buy-2").getOrderStatus(), is(OrderStatus.CANCELLED));
+		assertThat("cancelled order by cancel clOrdId", this.matchingEngine.getOrderByClOrdId("buy-2-cxl").getClOrdId(), is("buy-2-cxl"));
+
+		final List<ResponseMessage> dup = this.matchingEngine.submitNewOrderRequest("buy-1", BUY, LIMIT, 10, 34900d);
+		assertThat("archived clOrdId cannot be re-used", ((ExecutionReport) dup.get(0)).getOrderState(), is(OrderStatus.REJECTED));
+		final List<ResponseMessage> cxl = this.matchingEngine.submitCancelOrderRequest("buy-1", "buy-1-cxl");
+		assertThat("archived order cannot be cancelled", ((ExecutionReport) cxl.get(0)).getOrderState(), is(OrderStatus.FILLED));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void clOrdIdsAreUniquePerOwner() throws InterruptedException {
+		final long alice = 11, bob = 12;
+		final List<ResponseMessage> aliceNew = this.matchingEngine.submitNewOrderRequest("order-1", BUY, LIMIT, 10, 34900d, TimeInForce.DAY, alice);
+		final List<ResponseMessage> bobNew = this.matchingEngine.submitNewOrderRequest("order-1", BUY, LIMIT, 20, 34800d, TimeInForce.DAY, bob);
+		assertThat("alice's order accepted", ((ExecutionReport) aliceNew.get(0)).getOrderState(), is(OrderStatus.NEW));
+		assertThat("same clOrdId accepted for bob", ((ExecutionReport) bobNew.get(0)).getOrderState(), is(OrderStatus.NEW));
+		final long bobOrderId = ((ExecutionReport) bobNew.get(0)).getOrderId();
+
+		final List<ResponseMessage> dupAmend = this.matchingEngine.submitAmendOrderRequest(bob, "order-1", "order-1", BUY, LIMIT, 15, 34800d);
+		assertThat("amend re-using a clOrdId of the owner", dupAmend.get(0), instanceOf(OrderCancelReject.class));
+		final List<ResponseMessage> otherOwner = this.matchingEngine.submitCancelOrderRequest("order-1", "cxl-1");
+		assertThat("not found without the owner", otherOwner.get(0), instanceOf(OrderCancelReject.class));
+
+		final List<ResponseMessage> bobCancel = this.matchingEngine.submitCancelOrderRequest(bob, new StringBuilder("order-1"), "cxl-1");
+		final ExecutionReport cancelled = (ExecutionReport) bobCancel.get(0);
+		assertThat("bob's order cancelled", cancelled.getOrderId(), is(bobOrderId));
+		assertThat("cancel state", cancelled.getOrderState(), is(OrderStatus.CANCELLED));
+		assertThat("origClOrdId", cancelled.getOrigClOrdId(), is("order-1"));
+		assertThat("alice's order untouched", this.matchingEngine.getOrderByClOrdId(alice, "order-1").getOrderStatus(), is(OrderStatus.NEW));
+
+		this.matchingEngine.archiveTerminalOrders();
+		assertThat("archived order found for its owner", this.matchingEngine.getOrderByClOrdId(bob, "cxl-1").getOrderId(), is(bobOrderId));
+		assertThat("archived clOrdId not found for another owner", this.matchingEngine.getOrderByClOrdId(alice, "cxl-1"), nullValue());
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void passiveFillsAreQueuedOnTheRestingSession() throws InterruptedException {
+		final long startMillis = System.currentTimeMillis() - 1;
+		final AtomicInteger buyerNotified = new AtomicInteger();
+		final ClientSession buyer = this.matchingEngine.openSession(21, session -> buyerNotified.incrementAndGet());
+		final ClientSession seller = this.matchingEngine.openSession(22, session -> { });
+		assertThrows(IllegalArgumentException.class, () -> this.matchingEngine.openSession(21, session -> { }), "session ID already open");
+		final ClientSession allocated = this.matchingEngine.openSession(session -> { });
+		assertThat("allocated session ID not in use", allocated.getSessionId(), allOf(not(21L), not(22L), not(MassCancelRequest.ANY_OWNER)));
+		assertThat("next allocated session ID", this.matchingEngine.openSession(session -> { }).getSessionId(), not(allocated.getSessionId()));
+
+		buyer.submitNewOrderRequest("order-1", BUY, LIMIT, 10, 35000d, TimeInForce.DAY);
+		assertThat("buyer's order live", buyer.getLiveOrderCount(), is(1));
+		final List<ResponseMessage> sellerResponses = seller.submitNewOrderRequest("order-1", SELL, LIMIT, 10, 35000d, TimeInForce.DAY);
+		assertThat("seller receives its ack and its fill only", sellerResponses, hasSize(2));
+		assertThat("seller's fill", ((ExecutionReport) sellerResponses.get(1)).getSide(), is(SELL));
+		assertThat("seller's fill state", ((ExecutionReport) sellerResponses.get(1)).getOrderState(), is(OrderStatus.FILLED));
+
+		assertThat("buyer told about its fill", buyerNotified.get(), is(1));
+		final List<ResponseMessage> buyerOutbound = new ArrayList<>();
+		assertThat("buyer's queued reports", buyer.drainOutbound(buyerOutbound), is(1));
+		assertThat("buyer's fill", ((ExecutionReport) buyerOutbound.get(0)).getSide(), is(BUY));
+		assertThat("buyer's fill state", ((ExecutionReport) buyerOutbound.get(0)).getOrderState(), is(OrderStatus.FILLED));
+		assertThat("nothing left queued", seller.drainOutbound(buyerOutbound), is(0));
+
+		final List<Trade> trades = this.matchingEngine.getTradeHistory();
+		assertThat("one trade", trades, hasSize(1));
+		assertThat("trade buy order", trades.get(0).getBuyOrderId(), is(((ExecutionReport) buyerOutbound.get(0)).getOrderId()));
+		assertThat("trade sell order", trades.get(0).getSellOrderId(), is(((ExecutionReport) sellerResponses.get(1)).getOrderId()));
+		assertThat("seller took liquidity", trades.get(0).getAggressorSide(), is(SELL));
+		assertThat("trade timestamped to the nano", trades.get(0).getTransactTimeNanos(), greaterThan(TimeUnit.MILLISECONDS.toNanos(startMillis)));
+
+		assertThat("same clOrdId resolved per session", buyer.getOrderByClOrdId("order-1").getSide(), is(BUY));
+		assertThat("same clOrdId resolved per session", seller.getOrderByClOrdId("order-1").getSide(), is(SELL));
+		buyer.close();
+		assertThat("closed session keeps its orders", buyer.getOrderByClOrdId("order-1"), notNullValue());
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void callAuctionUncrossesInOnePass() throws InterruptedException {
+		assertThat("auction started", this.matchingEngine.startAuction("open"), empty());
+		assertThat("one auction at a time", this.matchingEngine.startAuction("open-again").get(0), instanceOf(BusinessMessageReject.class));
+		final List<ResponseMessage> buyAck = this.matchingEngine.submitNewOrderRequest("buy-1", BUY, LIMIT, 10, 35010d);
+		assertThat("buy rests while collecting", buyAck, hasSize(1));
+		this.matchingEngine.submitNewOrderRequest("buy-2", BUY, LIMIT, 5, 35000d);
+		final List<ResponseMessage> sellAck = this.matchingEngine.submitNewOrderRequest("sell-1", SELL, LIMIT, 12, 34990d);
+		assertThat("crossing sell rests too", sellAck, hasSize(1));
+		final List<ResponseMessage> iocReports = this.matchingEngine.submitNewOrderRequest("sell-ioc", SELL, LIMIT, 1, 34000d, TimeInForce.IOC);
+		assertThat("immediate order expires", ((ExecutionReport) iocReports.get(1)).getOrderState(), is(OrderStatus.CANCELLED));
+
+		final List<ResponseMessage> fills = this.matchingEngine.uncross("open");
+		assertThat("both orders of both trades reported", fills, hasSize(4));
+		for (final ResponseMessage fill : fills)
+			assertThat("all at the uncross price", ((ExecutionReport) fill).getLastPx(), is(35000d));
+		final List<Trade> trades = this.matchingEngine.getTradeHistory();
+		assertThat("two trades", trades, hasSize(2));
+		assertThat("no aggressor in an auction", trades.get(0).getAggressorSide(), nullValue());
+		assertThat("sell filled", this.matchingEngine.getOrderByClOrdId("sell-1").getOrderStatus(), is(OrderStatus.FILLED));
+		assertThat("rest of buy-2 left", this.matchingEngine.getOrderByClOrdId("buy-2").getLeavesQty(), is(3d));
+		assertThat("no auction to uncross", this.matchingEngine.uncross("open").get(0), instanceOf(BusinessMessageReject.class));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void batchesAreClearedAtAUniformPrice() throws InterruptedException {
+		final MatchingEngine batchEngine = new MatchingEngine("ETH/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0).admissionCapacity(1024).batchIntervalMillis(50));
+		batchEngine.start();
+		try {
+			final CountDownLatch fillsDelivered = new CountDownLatch(2);
+			final ClientSession buyer = batchEngine.openSession(31, session -> fillsDelivered.countDown());
+			final ClientSession seller = batchEngine.openSession(32, session -> fillsDelivered.countDown());
+			assertThat("buy collected", buyer.submitNewOrderRequest("buy-1", BUY, LIMIT, 10, 35010d, TimeInForce.DAY), hasSize(1));
+			assertThat("crossing sell collected too", seller.submitNewOrderRequest("sell-1", SELL, LIMIT, 4, 34990d, TimeInForce.DAY), hasSize(1));
+			assertThat("another crossing sell", seller.submitNewOrderRequest("sell-2", SELL, LIMIT, 4, 35000d, TimeInForce.DAY), hasSize(1));
+			assertThat("sell of an owner without a session", batchEngine.submitNewOrderRequest("sell-3", SELL, LIMIT, 1, 35005d, TimeInForce.DAY, 33), hasSize(1));
+			assertThrows(IllegalArgumentException.class, () -> batchEngine.openSession(34, null), "fills of a batch need an outbound queue");
+
+			fillsDelivered.await();
+			final List<ResponseMessage> buyerFills = new ArrayList<>();
+			while (buyerFills.size() < 3)
+				buyer.drainOutbound(buyerFills);
+			for (final ResponseMessage fill : buyerFills)
+				assertThat("uniform price", ((ExecutionReport) fill).getLastPx(), is(35005d));
+			assertThat("buy partly filled", ((ExecutionReport) buyerFills.get(2)).getLeavesQty(), is(1d));
+			final List<ResponseMessage> ownerFills = new ArrayList<>();
+			while (ownerFills.isEmpty())
+				batchEngine.drainOutbound(33, ownerFills);
+			assertThat("fill queued for the owner without a session", ((ExecutionReport) ownerFills.get(0)).getLastQty(), is(1d));
+			assertThat("batch cleared by the engine only", batchEngine.uncross("batch").get(0), instanceOf(BusinessMessageReject.class));
+		}
+		finally {
+			batchEngine.stop();
+		}
+	}
 }
@@ -0,0 +1,86 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.entities.OrderBookSnapshot;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.message.BusinessMessageReject;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import alick.diginex.matchingengine.message.ResponseMessage;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * One member of a {@link RaftSequencer} cluster in its own process, for {@link RaftSequencerTest}: takes one command per
+ * line on stdin, and answers each with one line starting with {@code "= "} on stdout. Exits at the end of stdin.
+ * <p/>
+ * Arguments: the member ID, then the port of every member, member 1 first, all on the loopback address.
+ * <p/>
+ * Commands:
+ * <ul>
+ *     <li>{@code new <ownerId> <clOrdId> <side> <orderType> <quantity> <price> <timeInForce>}</li>
+ *     <li>{@code cancel <ownerId> <origClOrdId> <clOrdId>}</li>
+ *     <li>{@code status}: whether the leader, the applied index and the book</li>
+ * </ul>
+ */
+public final class RaftClusterNode {
+	public static void main(final String[] args) throws Exception {
+		final int memberId = Integer.parseInt(args[0]);
+		final Map<Integer, InetSocketAddress> members = new HashMap<>();
+		for (int i = 1; i < args.length; ++i)
+			members.put(i, new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[i])));
+		final MatchingEngine engine = new MatchingEngine("BTC/USD", 35000d);
+		engine.start();
+		try (final RaftSequencer sequencer = new RaftSequencer(memberId, members, engine)) {
+			final BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+			String line;
+			while (null != (line = in.readLine()))
+				System.out.println("= " + execute(sequencer, engine, line.split(" ")));
+		}
+		finally {
+			engine.stop();
+		}
+	}
+
+	private static String execute(final RaftSequencer sequencer, final MatchingEngine engine, final String[] command) throws InterruptedException {
+		switch (command[0]) {
+			case "new":
+				return format(sequencer.submitNewOrderRequest(
+						command[2], Side.valueOf(command[3]), OrderType.valueOf(command[4]),
+						Double.parseDouble(command[5]), Double.parseDouble(command[6]),
+						TimeInForce.valueOf(command[7]), Long.parseLong(command[1])));
+			case "cancel":
+				return format(sequencer.submitCancelOrderRequest(command[2], command[3], Long.parseLong(command[1])));
+			case "status":
+				final OrderBookSnapshot book = engine.snapshotOrderBook();
+				return "leader=" + sequencer.isLeader() +
+						" applied=" + sequencer.getAppliedIndex() +
+						" bids=" + book.getBidLimitQueue() +
+						" asks=" + book.getAskLimitQueue();
+			default:
+				return "unknown command " + command[0];
+		}
+	}
+
+	private static String format(final List<ResponseMessage> responses) {
+		return responses.stream().map(response -> {
+			if (response instanceof ExecutionReport) {
+				final ExecutionReport report = (ExecutionReport) response;
+				return "ExecutionReport(clOrdId=" + report.getClOrdId() + ", orderState=" + report.getOrderState() + ", lastQty=" + report.getLastQty() + ')';
+			}
+			if (response instanceof OrderCancelReject)
+				return "OrderCancelReject(rejectReason=" + ((OrderCancelReject) response).getRejectReason() + ')';
+			if (response instanceof BusinessMessageReject)
+				return "BusinessMessageReject(text=" + ((BusinessMessageReject) response).getText() + ')';
+			return response.getClass().getSimpleName();
+		}).collect(Collectors.joining(", "));
+	}
+}
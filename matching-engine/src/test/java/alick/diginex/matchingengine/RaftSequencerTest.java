@@ -0,0 +1,158 @@
+package alick.diginex.matchingengine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RaftSequencerTest {
+	// a member of the cluster, in its own process
+	private static final class Member {
+		private final int memberId;
+		private final Process process;
+		private final Writer commands;
+		private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+		private Member(final int memberId, final int[] ports) throws IOException {
+			this.memberId = memberId;
+			final List<String> command = new ArrayList<>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(RaftClusterNode.class.getName());
+			command.add(String.valueOf(memberId));
+			for (final int port : ports)
+				command.add(String.valueOf(port));
+			this.process = new ProcessBuilder(command).redirectErrorStream(true).start();
+			this.commands = new OutputStreamWriter(this.process.getOutputStream());
+			final Thread reader = new Thread(() -> {
+				try (final BufferedReader out = new BufferedReader(new InputStreamReader(this.process.getInputStream()))) {
+					String line;
+					while (null != (line = out.readLine())) {
+						if (line.startsWith("= "))
+							this.replies.add(line.substring(2));
+						else
+							System.out.printf("[member %d] %s%n", memberId, line);
+					}
+				}
+				catch (IOException e) {
+					// process gone
+				}
+			}, "RaftClusterNode-" + memberId);
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		private String call(final String command) throws IOException, InterruptedException {
+			this.commands.write(command + "\n");
+			this.commands.flush();
+			final String reply = this.replies.poll(10, TimeUnit.SECONDS);
+			assertThat("member " + this.memberId + " answers " + command, reply, notNullValue());
+			return reply;
+		}
+
+		private boolean isAlive() {
+			return this.process.isAlive();
+		}
+
+		private void kill() throws InterruptedException {
+			this.process.destroyForcibly().waitFor();
+		}
+	}
+
+	private static Member awaitLeader(final Member[] members) throws IOException, InterruptedException {
+		while (true) {
+			for (final Member member : members) {
+				if (member.isAlive() && member.call("status").startsWith("leader=true"))
+					return member;
+			}
+			Thread.sleep(RaftSequencer.HEARTBEAT_INTERVAL_MILLIS);
+		}
+	}
+
+	// the applied index and book of the members still alive, once the same on all of them
+	private static String awaitSameState(final Member[] members) throws IOException, InterruptedException {
+		while (true) {
+			String state = null;
+			boolean same = true;
+			for (final Member member : members) {
+				if (!member.isAlive())
+					continue;
+				final String memberState = member.call("status").replaceFirst("leader=\\w+ ", "");
+				same &= null == state || state.equals(memberState);
+				state = memberState;
+			}
+			if (same)
+				return state;
+			Thread.sleep(RaftSequencer.HEARTBEAT_INTERVAL_MILLIS);
+		}
+	}
+
+	@Test
+	@Timeout(value = 60)
+	public void clusterOfThreeProcessesAgreesOnTheSequenceAndSurvivesItsLeader() throws Exception {
+		final int[] ports = new int[3];
+		final ServerSocket[] sockets = new ServerSocket[ports.length];
+		for (int i = 0; i < ports.length; ++i) {
+			sockets[i] = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+			ports[i] = sockets[i].getLocalPort();
+		}
+		for (final ServerSocket socket : sockets)
+			socket.close();
+
+		final Member[] members = new Member[ports.length];
+		try {
+			for (int i = 0; i < members.length; ++i)
+				members[i] = new Member(i + 1, ports);
+			final Member leader = awaitLeader(members);
+			assertThat("order sequenced", leader.call("new 1 buy-1 BUY LIMIT 10 34990 DAY"), containsString("orderState=NEW"));
+			assertThat("trade sequenced", leader.call("new 2 sell-1 SELL LIMIT 4 34990 DAY"), containsString("lastQty=4.0"));
+			assertThat("order sequenced", leader.call("new 2 sell-2 SELL LIMIT 5 35010 DAY"), containsString("orderState=NEW"));
+			final Member follower = members[leader == members[0] ? 1 : 0];
+			assertThat("only the leader takes requests", follower.call("new 2 sell-3 SELL LIMIT 1 34990 DAY"), containsString(RaftSequencer.NOT_LEADER));
+			final String state = awaitSameState(members);
+			assertThat("every request applied on every member", state, allOf(
+					containsString("applied=4 "),
+					containsString("bids={34990.0="),
+					containsString("asks={35010.0=")));
+
+			leader.kill();
+			final Member newLeader = awaitLeader(members);
+			assertThat("new leader", newLeader, not(sameInstance(leader)));
+			assertThat("trades against the order sequenced by the old leader", newLeader.call("new 2 sell-4 SELL LIMIT 6 34990 DAY"), containsString("lastQty=6.0"));
+			assertThat("cancel sequenced", newLeader.call("cancel 2 sell-2 sell-2c"), containsString("orderState=CANCELLED"));
+			assertThat("same book on the members left", awaitSameState(members), allOf(
+					containsString("bids={}"),
+					containsString("asks={}")));
+
+			for (final Member member : members) {
+				if (member != newLeader)
+					member.kill();
+			}
+			assertThat("no majority to sequence with", newLeader.call("new 1 buy-2 BUY LIMIT 1 34990 DAY"), containsString(RaftSequencer.NOT_SEQUENCED));
+			Thread.sleep(RaftSequencer.ELECTION_TIMEOUT_MILLIS + RaftSequencer.HEARTBEAT_INTERVAL_MILLIS);
+			assertThat("leader cut off steps down", newLeader.call("status"), startsWith("leader=false"));
+		}
+		finally {
+			for (final Member member : members) {
+				if (null != member)
+					member.kill();
+			}
+		}
+	}
+}
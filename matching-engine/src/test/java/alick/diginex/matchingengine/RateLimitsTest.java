@@ -0,0 +1,81 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RateLimitsTest {
+	private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	@Timeout(value = 5)
+	public void tokenBucketAllowsBurstThenRate() throws InterruptedException {
+		final long start = 1_000_000 * MILLI;
+		final TokenBucket tokens = new TokenBucket(new RateLimits.Limit(100, 3), start);
+		for (int i = 0; i < 3; ++i)
+			assertThat("burst " + i, tokens.tryTake(start), is(true));
+		assertThat("burst used up", tokens.tryTake(start), is(false));
+		assertThat("not refilled yet", tokens.tryTake(start + 9 * MILLI), is(false));
+		assertThat("one token every 10ms", tokens.tryTake(start + 10 * MILLI), is(true));
+		assertThat("only one", tokens.tryTake(start + 10 * MILLI), is(false));
+		assertThat("full again after a quiet period, but no more than the burst", tokens.tryTake(start + 1000 * MILLI), is(true));
+
+		// racing takers never get more than the burst
+		final TokenBucket shared = new TokenBucket(new RateLimits.Limit(1, 50), start);
+		final AtomicInteger taken = new AtomicInteger();
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; ++t) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 100; ++i) {
+					if (shared.tryTake(start))
+						taken.incrementAndGet();
+				}
+			});
+			threads[t].start();
+		}
+		for (final Thread thread : threads)
+			thread.join();
+		assertThat("tokens taken by racing threads", taken.get(), is(50));
+		assertThrows(IllegalArgumentException.class, () -> new RateLimits.Limit(0, 1), "rate must be positive");
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void sessionRequestsOverTheLimitAreRejected() throws InterruptedException {
+		final MatchingEngine matchingEngine = new MatchingEngine("BTC/USD", 35000d);
+		matchingEngine.start();
+		try {
+			// slow enough for no token to come back during the test
+			final RateLimits.Limit twoPerMinute = new RateLimits.Limit(1 / 60d, 2);
+			final ClientSession session = matchingEngine.openSession(7, s -> { }, new RateLimits(twoPerMinute, null, new RateLimits.Limit(1 / 60d, 1)));
+			session.submitNewOrderRequest("buy-1", BUY, LIMIT, 10, 34000d, TimeInForce.DAY);
+			session.submitNewOrderRequest("buy-2", BUY, LIMIT, 10, 34000d, TimeInForce.DAY);
+			final ExecutionReport throttled = (ExecutionReport) session.submitNewOrderRequest("buy-3", BUY, LIMIT, 10, 34000d, TimeInForce.DAY).get(0);
+			assertThat("third new order rejected", throttled.getOrderState(), is(OrderStatus.REJECTED));
+			assertThat("new order reject reason", throttled.getRejectReason(), is(RateLimits.NEW_ORDER_RATE_EXCEEDED));
+			assertThat("throttled order never reached the book", matchingEngine.getOrderByClOrdId(7, "buy-3"), nullValue());
+
+			assertThat("amends not limited", session.submitAmendOrderRequest("buy-1", "amend-1", BUY, LIMIT, 5, 34000d).get(0), instanceOf(ExecutionReport.class));
+			assertThat("first cancel", session.submitCancelOrderRequest("buy-2", "cancel-1").get(0), instanceOf(ExecutionReport.class));
+			final OrderCancelReject cancelReject = (OrderCancelReject) session.submitCancelOrderRequest("amend-1", "cancel-2").get(0);
+			assertThat("cancel reject reason", cancelReject.getRejectReason(), is(RateLimits.CANCEL_RATE_EXCEEDED));
+			assertThat("throttled count", session.getThrottledRequests(), is(2L));
+			assertThat("other sessions are not limited", matchingEngine.submitNewOrderRequest("buy-3", BUY, LIMIT, 10, 34000d).get(0), instanceOf(ExecutionReport.class));
+		}
+		finally {
+			matchingEngine.stop();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package alick.diginex.matchingengine;
+
+import alick.diginex.entities.OrderBookSnapshot;
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.entities.ClientOrder;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.ResponseMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.OrderType.MARKET;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReplicaTest {
+	@Test
+	@Timeout(value = 10)
+	public void replicaFollowsThePrimaryAndTakesOver() throws Exception {
+		final MatchingEngine primary = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0));
+		final MatchingEngine standby = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0));
+		final JournalPublisher publisher = new JournalPublisher(primary, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		primary.start();
+		standby.start();
+		assertThrows(IllegalStateException.class, () -> new JournalPublisher(primary, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)), "journal set after start");
+		try {
+			final ClientSession buyer = primary.openSession(1, s -> { });
+			final ClientSession seller = primary.openSession(2, s -> { });
+			buyer.submitNewOrderRequest("buy-1", BUY, LIMIT, 10, 34990d, TimeInForce.DAY);
+			buyer.submitNewOrderRequest("buy-2", BUY, LIMIT, 5, 34980d, TimeInForce.DAY);
+			seller.submitNewOrderRequest("sell-1", SELL, LIMIT, 4, 34990d, TimeInForce.DAY);
+			buyer.submitAmendOrderRequest("buy-2", "buy-2a", BUY, LIMIT, 8, 34985d);
+
+			// joins late, catches up from the start
+			final Replica replica = new Replica(standby, publisher.getAddress());
+			replica.follow();
+			seller.submitMassQuoteRequest("q1", new double[0], new double[0], new double[]{35010d, 35020d}, new double[]{3, 3});
+			buyer.submitNewOrderRequest("buy-3", BUY, MARKET, 2, 0, TimeInForce.DAY);
+			buyer.submitCancelOrderRequest("buy-1", "buy-1c");
+			// well over 64K bytes in UTF-8
+			final String longClOrdId = "buy-" + new String(new char[30000]).replace('\0', '\u20ac');
+			buyer.submitNewOrderRequest(longClOrdId, BUY, LIMIT, 1, 34900d, TimeInForce.DAY);
+
+			assertThat("replica caught up", replica.awaitSequence(publisher.getSequence(), 5, TimeUnit.SECONDS), is(true));
+			assertThat("every request journaled", publisher.getSequence(), is(8L));
+			assertThat("long clOrdId replicated", standby.getOrderByClOrdId(1, longClOrdId).getOrderId(), is(primary.getOrderByClOrdId(1, longClOrdId).getOrderId()));
+			final OrderBookSnapshot primaryBook = primary.snapshotOrderBook();
+			final OrderBookSnapshot standbyBook = standby.snapshotOrderBook();
+			assertThat("same bids", standbyBook.getBidLimitQueue(), is(primaryBook.getBidLimitQueue()));
+			assertThat("same asks", standbyBook.getAskLimitQueue(), is(primaryBook.getAskLimitQueue()));
+			final ClientOrder primaryOrder = primary.getOrderByClOrdId(1, "buy-1c");
+			final ClientOrder standbyOrder = standby.getOrderByClOrdId(1, "buy-1c");
+			assertThat("same order ID", standbyOrder.getOrderId(), is(primaryOrder.getOrderId()));
+			assertThat("same state", standbyOrder.getOrderStatus(), is(OrderStatus.CANCELLED));
+			assertThat("same fills", standbyOrder.getCumQty(), is(primaryOrder.getCumQty()));
+			assertThat("same trades", standby.getTradeHistory(), hasSize(primary.getTradeHistory().size()));
+
+			publisher.close(); // the primary is gone
+			final MatchingEngine promoted = replica.promote();
+			assertThat("no longer following", replica.isFollowing(), is(false));
+			final List<ResponseMessage> reports = promoted.submitNewOrderRequest("sell-2", SELL, LIMIT, 8, 34985d, TimeInForce.DAY, 2);
+			assertThat("trades against the replicated book", ((ExecutionReport) reports.get(1)).getLastQty(), is(8d));
+			assertThat("order IDs carry on after the primary's", ((ExecutionReport) reports.get(0)).getOrderId(), greaterThan(standby.getOrderByClOrdId(2, "q1-S1").getOrderId()));
+		}
+		finally {
+			publisher.close();
+			primary.stop();
+			standby.stop();
+		}
+	}
+}
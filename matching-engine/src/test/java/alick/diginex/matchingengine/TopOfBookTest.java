@@ -0,0 +1,97 @@
+package alick.diginex.matchingengine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TopOfBookTest {
+	private MatchingEngine matchingEngine;
+
+	@BeforeEach
+	public void setup() {
+		this.matchingEngine = new MatchingEngine("BTC/USD", 35000d);
+		this.matchingEngine.start();
+	}
+
+	@AfterEach
+	public void teardown() {
+		this.matchingEngine.stop();
+		this.matchingEngine = null;
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void emptyBookHasNoBidNoAsk() {
+		final TopOfBook.Quote quote = this.matchingEngine.getTopOfBook().read(new TopOfBook.Quote());
+		assertThat("bid price on empty book", quote.getBidPrice(), notANumber());
+		assertThat("ask price on empty book", quote.getAskPrice(), notANumber());
+		assertThat("bid qty on empty book", quote.getBidQuantity(), is(0d));
+		assertThat("ask qty on empty book", quote.getAskQuantity(), is(0d));
+		assertThat("last price is the reference price", quote.getLastPrice(), is(35000d));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void topOfBookFollowsOrders() throws InterruptedException {
+		final TopOfBook.Quote quote = new TopOfBook.Quote();
+		this.matchingEngine.submitNewOrderRequest("buy-1", BUY, LIMIT, 100, 34900d);
+		this.matchingEngine.submitNewOrderRequest("buy-2", BUY, LIMIT, 50, 34950d);
+		this.matchingEngine.submitNewOrderRequest("sell-1", SELL, LIMIT, 70, 35100d);
+		this.matchingEngine.getTopOfBook().read(quote);
+		assertThat("best bid price", quote.getBidPrice(), is(34950d));
+		assertThat("best bid qty", quote.getBidQuantity(), is(50d));
+		assertThat("best ask price", quote.getAskPrice(), is(35100d));
+		assertThat("best ask qty", quote.getAskQuantity(), is(70d));
+		assertThat("last price", quote.getLastPrice(), is(35000d));
+		final long versionBefore = quote.getVersion();
+
+		// take out the best bid entirely, and some of the next level
+		this.matchingEngine.submitNewOrderRequest("sell-2", SELL, LIMIT, 80, 34900d);
+		this.matchingEngine.getTopOfBook().read(quote);
+		assertThat("best bid price after sweep", quote.getBidPrice(), is(34900d));
+		assertThat("best bid qty after sweep", quote.getBidQuantity(), is(70d));
+		assertThat("best ask price after sweep", quote.getAskPrice(), is(35100d));
+		assertThat("last price after sweep", quote.getLastPrice(), is(34900d));
+		assertThat("version moves forward", quote.getVersion(), greaterThan(versionBefore));
+	}
+
+	@Test
+	@Timeout(value = 10)
+	public void readersNeverSeeTornWrites() throws InterruptedException {
+		final TopOfBook topOfBook = new TopOfBook(100d);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<TopOfBook.Quote> torn = new AtomicReference<>();
+
+		final Thread reader = new Thread(() -> {
+			final TopOfBook.Quote quote = new TopOfBook.Quote();
+			while (running.get()) {
+				if (0 == topOfBook.read(quote).getVersion())
+					continue;
+				// the writer always publishes all fields derived from the same counter
+				final double i = quote.getBidQuantity();
+				if (quote.getAskQuantity() != i || quote.getBidPrice() != 100d - i || quote.getAskPrice() != 100d + i || quote.getLastPrice() != i) {
+					torn.compareAndSet(null, quote);
+					return;
+				}
+			}
+		});
+		reader.start();
+		for (int i = 1; i <= 2_000_000; ++i)
+			topOfBook.publish(100d - i, i, 100d + i, i, i);
+		running.set(false);
+		reader.join();
+
+		assertThat("reader saw a consistent quote every time", torn.get(), nullValue());
+		assertThat("final version", topOfBook.read(new TopOfBook.Quote()).getVersion(), is(2_000_000L));
+	}
+}
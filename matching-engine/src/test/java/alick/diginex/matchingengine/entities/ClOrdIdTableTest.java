@@ -0,0 +1,54 @@
+package alick.diginex.matchingengine.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ClOrdIdTableTest {
+	@Test
+	public void lookupFromCharsOrBytes() {
+		final ClOrdIdTable table = new ClOrdIdTable();
+		assertThat("added", table.putIfAbsent("order-1", 11), is(true));
+		assertThat("added wide", table.putIfAbsent("訂單-2", 12), is(true));
+		assertThat("not added twice", table.putIfAbsent(new StringBuilder("order-1"), 13), is(false));
+		assertThat("size", table.size(), is(2));
+
+		assertThat("by String", table.get("order-1"), is(11L));
+		assertThat("by other CharSequence", table.get(new StringBuilder("order-1")), is(11L));
+		assertThat("wide by String", table.get("訂單-2"), is(12L));
+		assertThat("prefix is another key", table.get("order-"), is(ClOrdIdTable.NOT_FOUND));
+
+		final ByteBuffer buffer = ByteBuffer.wrap("xxorder-1yy".getBytes(StandardCharsets.US_ASCII));
+		assertThat("by bytes", table.get(buffer, 2, 7), is(11L));
+		assertThat("by other bytes", table.get(buffer, 2, 8), is(ClOrdIdTable.NOT_FOUND));
+	}
+
+	@Test
+	public void manyKeysAddedAndRemoved() {
+		final ClOrdIdTable table = new ClOrdIdTable(4);
+		final Map<String, Long> expected = new HashMap<>();
+		for (long i = 0; i < 10_000; ++i) {
+			table.putIfAbsent("c-" + i, i);
+			expected.put("c-" + i, i);
+		}
+		for (long i = 0; i < 10_000; i += 3) {
+			assertThat("removed c-" + i, table.remove("c-" + i), is(true));
+			expected.remove("c-" + i);
+		}
+		assertThat("removed already", table.remove("c-0"), is(false));
+		assertThat("size", table.size(), is(expected.size()));
+		for (long i = 0; i < 10_000; ++i)
+			assertThat("c-" + i, table.get("c-" + i), is(expected.getOrDefault("c-" + i, ClOrdIdTable.NOT_FOUND)));
+
+		table.removeIf((clOrdId, orderId) -> orderId % 2 == 0 && clOrdId.toString().equals("c-" + orderId));
+		assertThat("even keys filtered out", table.get("c-4"), is(ClOrdIdTable.NOT_FOUND));
+		assertThat("odd key kept", table.get("c-5"), is(5L));
+		assertThat("size after filter", table.size(), is((int) expected.keySet().stream().filter(k -> expected.get(k) % 2 != 0).count()));
+	}
+}
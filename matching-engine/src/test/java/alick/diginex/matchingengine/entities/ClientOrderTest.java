@@ -0,0 +1,75 @@
+package alick.diginex.matchingengine.entities;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ClientOrderTest {
+	@Test
+	public void fillsAccumulate() {
+		final FillStore fillStore = new FillStore();
+		final ClientOrder order = new ClientOrder(1, "buy-1", Side.BUY, OrderType.LIMIT, 100, 10);
+		order.addFill(fillStore, fillStore.append(1, 1, 2, Side.SELL, 40, 10, System.currentTimeMillis() * 1_000_000L));
+		final ClientOrder.OrderState state = order.readState(new ClientOrder.OrderState());
+		assertThat("order status after partial fill", state.getOrderStatus(), is(OrderStatus.PARTIAL_FILLLED));
+		assertThat("cumQty after partial fill", state.getCumQty(), is(40d));
+		assertThat("leavesQty after partial fill", state.getLeavesQty(), is(60d));
+
+		order.addFill(fillStore, fillStore.append(2, 1, 3, Side.SELL, 60, 11, System.currentTimeMillis() * 1_000_000L));
+		order.readState(state);
+		assertThat("order status after full fill", state.getOrderStatus(), is(OrderStatus.FILLED));
+		assertThat("avgPx after full fill", state.getAvgPx(), closeTo(10.6, 1e-9));
+		assertThat("avgPx read on its own", order.getAvgPx(), closeTo(10.6, 1e-9));
+		assertThat("executions kept", order.getExecutions(), hasSize(2));
+	}
+
+	@Test
+	public void cancelledOrderWaitsForTheFillsProducedBeforeIt() {
+		final FillStore fillStore = new FillStore();
+		final ClientOrder order = new ClientOrder(1, "buy-1", Side.BUY, OrderType.LIMIT, 100, 10);
+		order.fillProduced();
+		order.orderCancelled();
+		assertThat("not terminal with a fill still to account for", order.isTerminal(), is(false));
+
+		order.addFill(fillStore, fillStore.append(1, 1, 2, Side.SELL, 40, 10, System.currentTimeMillis() * 1_000_000L));
+		final ClientOrder.OrderState state = order.readState(new ClientOrder.OrderState());
+		assertThat("terminal once the fill is accounted for", order.isTerminal(), is(true));
+		assertThat("stays cancelled", state.getOrderStatus(), is(OrderStatus.CANCELLED));
+		assertThat("late fill counted", state.getCumQty(), is(40d));
+		assertThat("nothing left open", state.getLeavesQty(), is(0d));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void readerNeverSeesTornState() throws InterruptedException {
+		final int fills = 200_000;
+		final ClientOrder order = new ClientOrder(1, "buy-1", Side.BUY, OrderType.LIMIT, fills, 10);
+		final AtomicBoolean done = new AtomicBoolean(false);
+		final AtomicReference<String> torn = new AtomicReference<>();
+		final Thread reader = new Thread(() -> {
+			final ClientOrder.OrderState state = new ClientOrder.OrderState();
+			while (!done.get() && null == torn.get()) {
+				order.readState(state);
+				if (state.getCumQty() + state.getLeavesQty() != state.getOrderQty())
+					torn.set("cumQty=" + state.getCumQty() + ", leavesQty=" + state.getLeavesQty());
+			}
+		});
+		reader.start();
+		final FillStore fillStore = new FillStore();
+		final long transactTimeNanos = System.currentTimeMillis() * 1_000_000L;
+		for (int i = 0; i < fills; ++i)
+			order.addFill(fillStore, fillStore.append(i, 1, 2 + i, Side.SELL, 1, 10, transactTimeNanos));
+		done.set(true);
+		reader.join();
+		assertThat("cumQty and leavesQty always add up to orderQty", torn.get(), nullValue());
+		assertThat("all filled", order.getOrderStatus(), is(OrderStatus.FILLED));
+	}
+}
@@ -0,0 +1,68 @@
+package alick.diginex.matchingengine.entities;
+
+import alick.diginex.entities.Side;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FillStoreTest {
+	@Test
+	public void tradesAreChainedPerOrder() {
+		final FillStore fillStore = new FillStore();
+		final Instant transactTime = Instant.ofEpochSecond(1_600_000_000L, 123_456_789);
+		final long transactTimeNanos = 1_600_000_000_123_456_789L;
+		// buy order A trades with sell orders X, Y; then sell order Y trades with buy order B
+		final long a = 1, b = 2, x = 3, y = 4;
+		final int a1 = fillStore.append(101, a, x, Side.BUY, 10, 100.0, transactTimeNanos);
+		final int a2 = fillStore.append(102, a, y, Side.BUY, 20, 100.5, transactTimeNanos);
+		fillStore.chain(Side.BUY, a1, a2);
+		final int b1 = fillStore.append(103, b, y, Side.SELL, 30, 101.0, transactTimeNanos);
+		fillStore.chain(Side.SELL, a2, b1);
+
+		final List<Trade> buyA = fillStore.orderTrades(Side.BUY, a1, 2);
+		assertThat("buy order A trades", buyA, hasSize(2));
+		assertThat("buy order A second trade qty", buyA.get(1).getExecQty(), is(20d));
+		final List<Double> sellYQtys = new ArrayList<>();
+		for (final Trade trade : fillStore.orderTrades(Side.SELL, a2, 2))
+			sellYQtys.add(trade.getExecQty());
+		assertThat("sell order Y trades", sellYQtys, contains(20d, 30d));
+		assertThat("next buy fill after the last one", fillStore.getNextFill(b1, Side.BUY), is(FillStore.NO_FILL));
+		assertThat("transact time kept to the nano", fillStore.getTransactTime(b1), is(transactTime));
+		final Trade last = fillStore.getTrade(b1);
+		assertThat("trade ID", last.getTradeId(), is(103L));
+		assertThat("buy order ID", last.getBuyOrderId(), is(b));
+		assertThat("sell order ID", last.getSellOrderId(), is(y));
+		assertThat("aggressor side", last.getAggressorSide(), is(Side.SELL));
+		assertThat("aggressor side of another trade", fillStore.getAggressorSide(a1), is(Side.BUY));
+		assertThat("transact time", last.getTransactTimeNanos(), is(transactTimeNanos));
+		assertThat("all trades", fillStore.allTrades(), hasSize(3));
+	}
+
+	@Test
+	public void storeGrowsPastChunks() {
+		final FillStore fillStore = new FillStore();
+		final long transactTimeNanos = System.currentTimeMillis() * 1_000_000L;
+		final int count = 100_000;
+		int last = FillStore.NO_FILL;
+		int first = FillStore.NO_FILL;
+		for (int i = 0; i < count; ++i) {
+			final int fill = fillStore.append(i, 1, 2 + i, Side.SELL, i, 1.0, transactTimeNanos);
+			if (FillStore.NO_FILL == first)
+				first = fill;
+			else
+				fillStore.chain(Side.BUY, last, fill);
+			last = fill;
+		}
+		assertThat("store size", fillStore.size(), is(count));
+		assertThat("last trade qty", fillStore.getExecQty(count - 1), is((double) (count - 1)));
+		double total = 0;
+		for (final Trade trade : fillStore.orderTrades(Side.BUY, first, count))
+			total += trade.getExecQty();
+		assertThat("walked the whole chain", total, is((double) count * (count - 1) / 2));
+	}
+}
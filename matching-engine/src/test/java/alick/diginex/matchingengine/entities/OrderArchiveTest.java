@@ -0,0 +1,83 @@
+package alick.diginex.matchingengine.entities;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OrderArchiveTest {
+	private static final long SESSION = 3;
+
+	private static ClientOrder filledOrder(final FillStore fillStore, final long orderId, final String clOrdId) {
+		final ClientOrder order = new ClientOrder(orderId, clOrdId, Side.SELL, OrderType.LIMIT, 30, 101.5, TimeInForce.DAY);
+		order.addFill(fillStore, fillStore.append(1, 7, orderId, Side.BUY, 10, 101.5, System.currentTimeMillis() * 1_000_000L));
+		order.addFill(fillStore, fillStore.append(2, 8, orderId, Side.BUY, 20, 102.0, System.currentTimeMillis() * 1_000_000L));
+		return order;
+	}
+
+	@Test
+	public void archivedOrderComesBackTheSame() {
+		final FillStore fillStore = new FillStore();
+		final OrderArchive archive = new OrderArchive(fillStore);
+		final ClientOrder filled = filledOrder(fillStore, 42, "sell-1");
+		final ClientOrder cancelled = new ClientOrder(43, "buy-1", Side.BUY, OrderType.MARKET, 5, 0, TimeInForce.IOC);
+		cancelled.orderCancelled("buy-1-cxl-中", "buy-1");
+		archive.archive(filled);
+		archive.addClOrdId(SESSION, "sell-1", 42);
+		archive.archive(cancelled);
+		archive.addClOrdId(SESSION, "buy-1", 43);
+		archive.addClOrdId(SESSION, "buy-1-cxl-中", 43);
+
+		final ClientOrder restored = archive.findByOrderId(42);
+		final ClientOrder.OrderState state = restored.readState(new ClientOrder.OrderState());
+		assertThat("clOrdId", state.getClOrdId(), is("sell-1"));
+		assertThat("no origClOrdId", state.getOrigClOrdId(), nullValue());
+		assertThat("side", restored.getSide(), is(Side.SELL));
+		assertThat("order status", state.getOrderStatus(), is(OrderStatus.FILLED));
+		assertThat("cumQty", state.getCumQty(), is(30d));
+		assertThat("avgPx", state.getAvgPx(), closeTo((10 * 101.5 + 20 * 102.0) / 30, 1e-9));
+		assertThat("executions still readable", restored.getExecutions(), hasSize(2));
+		assertThat("decoded order is cached", archive.findByOrderId(42), sameInstance(restored));
+
+		assertThat("lookup by wide clOrdId", archive.findByClOrdId(SESSION, "buy-1-cxl-中").getOrderId(), is(43L));
+		assertThat("lookup by original clOrdId", archive.findByClOrdId(SESSION, new StringBuilder("buy-1")).getOrderId(), is(43L));
+		assertThat("time in force", archive.findByOrderId(43).getTimeInForce(), is(TimeInForce.IOC));
+		assertThat("no execution", archive.findByOrderId(43).getExecutions(), empty());
+		assertThat("unknown clOrdId", archive.findByClOrdId(SESSION, "buy-2"), nullValue());
+		assertThat("clOrdId of another session", archive.findByClOrdId(SESSION + 1, "buy-1"), nullValue());
+		assertThat("unknown order ID", archive.findByOrderId(44), nullValue());
+	}
+
+	@Test
+	public void manyOrdersSpillToMappedSegments(@TempDir final Path tempDir) {
+		final FillStore fillStore = new FillStore();
+		final Path file = tempDir.resolve("orders.archive");
+		final int count = 5000;
+		try (final OrderArchive archive = new OrderArchive(fillStore, file, 140_000, 16)) {
+			for (int i = 1; i <= count; ++i) {
+				final ClientOrder order = new ClientOrder(i, "order-" + i, Side.BUY, OrderType.LIMIT, i, 100, TimeInForce.DAY);
+				order.orderRejected();
+				archive.archive(order);
+				archive.addClOrdId(SESSION, "order-" + i, i);
+				archive.addClOrdId(SESSION, "amend-" + i, i);
+			}
+			assertThat("orders archived", archive.size(), is(count));
+			for (int i = 1; i <= count; i += 97) {
+				assertThat("order " + i + " by clOrdId", archive.findByClOrdId(SESSION, "order-" + i).getOrderQty(), is((double) i));
+				assertThat("order " + i + " by other clOrdId", archive.findByClOrdId(SESSION, "amend-" + i).getOrderId(), is((long) i));
+			}
+			assertThat("spilled over several segments", Files.size(file), greaterThan(140_000L * 2));
+		}
+		catch (java.io.IOException e) {
+			throw new java.io.UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package alick.diginex.matchingengine.risk;
+
+import alick.diginex.entities.OrderStatus;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.matchingengine.ClientSession;
+import alick.diginex.matchingengine.MatchingEngine;
+import alick.diginex.matchingengine.EngineOptions;
+import alick.diginex.matchingengine.message.ExecutionReport;
+import alick.diginex.matchingengine.message.OrderCancelReject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static alick.diginex.entities.OrderType.LIMIT;
+import static alick.diginex.entities.Side.BUY;
+import static alick.diginex.entities.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AccountRiskLimitsTest {
+	@Test
+	public void reservationsFollowOrders() {
+		final AccountRiskLimits risk = new AccountRiskLimits(100, 10_000, 15_000, 150);
+		assertThat("order quantity", risk.reserveNewOrder(1, 1, BUY, 101, 1), is(AccountRiskLimits.ORDER_QUANTITY_EXCEEDED));
+		assertThat("order notional", risk.reserveNewOrder(1, 1, BUY, 100, 101), is(AccountRiskLimits.ORDER_NOTIONAL_EXCEEDED));
+		assertThat("first order", risk.reserveNewOrder(1, 1, BUY, 100, 100), nullValue());
+		assertThat("open notional", risk.reserveNewOrder(1, 2, BUY, 60, 100), is(AccountRiskLimits.OPEN_NOTIONAL_EXCEEDED));
+		assertThat("other accounts have their own counters", risk.reserveNewOrder(2, 3, BUY, 60, 100), nullValue());
+		assertThat("open notional of the account", risk.getOpenNotional(1), is(10_000d));
+
+		risk.onFill(1, 1, BUY, 100, 99);
+		assertThat("position after the fill", risk.getPosition(1), is(100d));
+		assertThat("filled order no longer open", risk.getOpenNotional(1), is(0d));
+		assertThat("buying over the position limit", risk.reserveNewOrder(1, 4, BUY, 60, 10), is(AccountRiskLimits.POSITION_EXCEEDED));
+		assertThat("selling down is fine", risk.reserveNewOrder(1, 5, SELL, 100, 10), nullValue());
+
+		assertThat("amend within limits", risk.reserveAmend(1, 5, 100, 20), nullValue());
+		assertThat("larger of both reserved while pending", risk.getOpenNotional(1), is(2_000d));
+		risk.amendDone(1, 5, false);
+		assertThat("previous reservation kept when not amended", risk.getOpenNotional(1), is(1_000d));
+		risk.release(1, 5);
+		assertThat("released", risk.getOpenNotional(1), is(0d));
+	}
+
+	@Test
+	@Timeout(value = 5)
+	public void engineRejectsBeforeQueueing() throws InterruptedException {
+		final AccountRiskLimits risk = new AccountRiskLimits(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 1_000_000, 20);
+		final MatchingEngine matchingEngine = new MatchingEngine("BTC/USD", 35000d, new EngineOptions().bookViewPublishIntervalMillis(0).admissionCapacity(1024).preTradeRisk(risk));
+		matchingEngine.start();
+		try {
+			final ClientSession buyer = matchingEngine.openSession(1, s -> { });
+			final ClientSession seller = matchingEngine.openSession(2, s -> { });
+			seller.submitNewOrderRequest("sell-1", SELL, LIMIT, 15, 35000d, TimeInForce.DAY);
+			buyer.submitNewOrderRequest("buy-1", BUY, LIMIT, 15, 35000d, TimeInForce.DAY);
+			assertThat("buyer position", risk.getPosition(1), is(15d));
+			assertThat("seller position", risk.getPosition(2), is(-15d));
+
+			final ExecutionReport rejected = (ExecutionReport) buyer.submitNewOrderRequest("buy-2", BUY, LIMIT, 10, 34000d, TimeInForce.DAY).get(0);
+			assertThat("over the position limit", rejected.getOrderState(), is(OrderStatus.REJECTED));
+			assertThat("reject reason", rejected.getRejectReason(), is(AccountRiskLimits.POSITION_EXCEEDED));
+			assertThat("rejected order never reached the book", matchingEngine.getBookView().getVersion(), is(2L));
+
+			buyer.submitNewOrderRequest("buy-3", BUY, LIMIT, 5, 34000d, TimeInForce.DAY);
+			final OrderCancelReject amendReject = (OrderCancelReject) buyer.submitAmendOrderRequest("buy-3", "buy-3a", BUY, LIMIT, 6, 34000d).get(0);
+			assertThat("amend over the position limit", amendReject.getRejectReason(), is(AccountRiskLimits.POSITION_EXCEEDED));
+			buyer.submitCancelOrderRequest("buy-3", "buy-3c");
+			assertThat("cancel gives back the reservation", risk.getOpenNotional(1), is(0d));
+		}
+		finally {
+			matchingEngine.stop();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package alick.diginex.orderbook;
+
+import alick.diginex.entities.Side;
+import alick.diginex.orderbook.response.Level2Summary;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.TreeMap;
+
+/**
+ * Depth of the order book aggregated into price groups, e.g. every 10 USD, for a fixed set of groupings.
+ * <p/>
+ * The groups are kept up to date as the quantity of each price level changes, so a grouped summary never goes through
+ * the price levels of the book. Bids are grouped down and asks up, so a group never shows a better price than the
+ * levels it contains. The summary of a grouping is only rebuilt, from its groups, when it is read after a change.
+ *
+ * Thread-safety: This is <em>not</em> thread-safe, it is updated by the order book.
+ */
+public final class GroupedDepth {
+	// tolerance for a price being on the boundary of a group, despite the rounding of the division
+	private static final double BOUNDARY_TOLERANCE = 1e-6;
+
+	private static final class Group {
+		private final double price;
+		private double quantity = 0.0d;
+		// price levels with quantity in this group; the group goes away with the last one
+		private int levels = 0;
+
+		private Group(final double price) {
+			this.price = price;
+		}
+	}
+
+	private static final class Grouping {
+		private final double size;
+		private final BigDecimal exactSize;
+		private final TreeMap<Long, Group> bids = new TreeMap<>(Comparator.reverseOrder());
+		private final TreeMap<Long, Group> asks = new TreeMap<>();
+		// null whenever the groups of the side changed since the summary was last built
+		private Level2Summary bidSummary;
+		private Level2Summary askSummary;
+
+		private Grouping(final double size) {
+			this.size = size;
+			this.exactSize = BigDecimal.valueOf(size);
+		}
+	}
+
+	private final double[] groupings;
+	private final Grouping[] groupingList;
+
+	/**
+	 * @param groupings sizes of the price groups to keep, e.g. {@code 0.5, 1, 10}
+	 * @throws IllegalArgumentException if a size is not positive, or given twice
+	 */
+	GroupedDepth(final double... groupings) {
+		this.groupings = groupings.clone();
+		this.groupingList = new Grouping[groupings.length];
+		for (int i = 0; i < groupings.length; ++i) {
+			final double size = groupings[i];
+			if (!(size > 0) || Double.isInfinite(size))
+				throw new IllegalArgumentException("price grouping must be positive: " + size);
+			for (int j = 0; j < i; ++j) {
+				if (groupings[j] == size)
+					throw new IllegalArgumentException("price grouping given twice: " + size);
+			}
+			this.groupingList[i] = new Grouping(size);
+		}
+	}
+
+	/**
+	 * @return sizes of the price groups kept
+	 */
+	public double[] getGroupings() {
+		return groupings.clone();
+	}
+
+	/**
+	 * Apply the change of quantity of one price level to the group containing it, in every grouping.
+	 */
+	void onLevelChanged(final Side side, final double price, final double quantityBefore, final double quantityAfter) {
+		final boolean isBuy = Side.BUY == side;
+		for (final Grouping grouping : this.groupingList) {
+			final long groupIndex = groupIndexOf(price, grouping.size, isBuy);
+			final TreeMap<Long, Group> groups = isBuy ? grouping.bids : grouping.asks;
+			Group group = groups.get(groupIndex);
+			if (null == group) {
+				group = new Group(BigDecimal.valueOf(groupIndex).multiply(grouping.exactSize).doubleValue());
+				groups.put(groupIndex, group);
+			}
+			group.quantity += quantityAfter - quantityBefore;
+			if (0 == quantityBefore)
+				++group.levels;
+			if (0 == quantityAfter)
+				--group.levels;
+			if (0 == group.levels)
+				groups.remove(groupIndex);
+
+			if (isBuy)
+				grouping.bidSummary = null;
+			else
+				grouping.askSummary = null;
+		}
+	}
+
+	private static long groupIndexOf(final double price, final double size, final boolean isBuy) {
+		final double ratio = price / size;
+		final double nearest = Math.rint(ratio);
+		if (Math.abs(ratio - nearest) < BOUNDARY_TOLERANCE)
+			return (long) nearest;
+		return (long) (isBuy ? Math.floor(ratio) : Math.ceil(ratio));
+	}
+
+	/**
+	 * The depth of one side aggregated into groups of the given size, best price first, each group priced at its
+	 * boundary closest to the other side. The same summary is returned until the side changes.
+	 *
+	 * @param grouping one of the {@link #getGroupings() sizes kept}
+	 * @return the groups with quantity; must not be modified
+	 * @throws IllegalArgumentException if groups of that size are not kept
+	 */
+	public Level2Summary summarize(final Side side, final double grouping) {
+		final Grouping g = findGrouping(grouping);
+		if (Side.BUY == side) {
+			if (null == g.bidSummary)
+				g.bidSummary = summarize(g.bids);
+			return g.bidSummary;
+		}
+		if (null == g.askSummary)
+			g.askSummary = summarize(g.asks);
+		return g.askSummary;
+	}
+
+	private Grouping findGrouping(final double grouping) {
+		for (final Grouping g : this.groupingList) {
+			if (g.size == grouping)
+				return g;
+		}
+		throw new IllegalArgumentException("no depth grouped by " + grouping);
+	}
+
+	private static Level2Summary summarize(final TreeMap<Long, Group> groups) {
+		final ArrayList<Level2Summary.PriceQuantity> pxQtyList = new ArrayList<>(groups.size());
+		for (final Group group : groups.values())
+			pxQtyList.add(new Level2Summary.PriceQuantity(group.price, group.quantity));
+		return new Level2Summary(Collections.unmodifiableList(pxQtyList));
+	}
+}
@@ -3,13 +3,20 @@ package alick.diginex.orderbook;
 import alick.diginex.entities.OrderBookSnapshot;
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
 import alick.diginex.orderbook.request.AmendRequest;
 import alick.diginex.orderbook.request.CancelRequest;
+import alick.diginex.orderbook.request.MassCancelRequest;
+import alick.diginex.orderbook.request.MassQuoteRequest;
+import alick.diginex.orderbook.request.MassQuoteRequest.QuoteLevel;
 import alick.diginex.orderbook.request.NewRequest;
 import alick.diginex.orderbook.request.Request;
+import alick.diginex.orderbook.request.StartAuctionRequest;
+import alick.diginex.orderbook.request.UncrossRequest;
 import alick.diginex.orderbook.response.*;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import static java.util.stream.Collectors.toList;
@@ -21,7 +28,8 @@ import static java.util.stream.Collectors.toList;
  *     <li>quantity remaining for each of the order</li>
  * </ul>
  *
- * There is only one point of entry into the order book, {@link #submitRequest(Request)}, which supports new / amend / cancel of orders.
+ * There is only one point of entry into the order book, {@link #submitRequest(Request)}, which supports new / amend / cancel of orders,
+ * mass cancel and mass quote, and starting / uncrossing a call auction.
  *
  * Thread-safety: This order book is <em>not</em> thread-safe.
  */
@@ -48,6 +56,11 @@ public class OrderBook {
 	 */
 	private final ArrayList<OrderBucket> sellBucketList;
 
+	// every bucket before these indexes is empty, so the best level is found without scanning from the top of the side;
+	// kept up to date by the price level buckets as their quantity changes
+	private int bestBuyIndex = 0;
+	private int bestSellIndex = 0;
+
 	// in case a market order has residual quantity after wiping out the other side
 	// in NYSE the residual market order is not displayed
 	// another option is to reject residual market order , like japan does?
@@ -58,6 +71,25 @@ public class OrderBook {
 	// eclipse collection LongObjectHashMap would have been much more efficient
 	private final HashMap<Long, OrderBucket> orderId2OrderBucket = new HashMap<>();
 
+	/**
+	 * The orders standing for the quoted levels of each market maker, by price
+	 */
+	private static final class MakerQuotes {
+		private final HashMap<Double, OrderEntry> bids = new HashMap<>();
+		private final HashMap<Double, OrderEntry> asks = new HashMap<>();
+
+		private boolean isEmpty() {
+			return this.bids.isEmpty() && this.asks.isEmpty();
+		}
+	}
+
+	private final HashMap<Long, MakerQuotes> quotesByOwner = new HashMap<>();
+
+	// kept up to date by the price level buckets as their quantity changes
+	private final GroupedDepth groupedDepth;
+	private final OrderBucket.QuantityListener buyDepthListener;
+	private final OrderBucket.QuantityListener sellDepthListener;
+
 	/**
 	 * The price at which the most recent trade was executed, or the reference price/IEP for an IPO stock.
 	 * <p/>
@@ -65,6 +97,11 @@ public class OrderBook {
 	 */
 	private double lastPrice;
 
+	/**
+	 * Whether orders are being collected for a call auction, queued without crossing until the book is uncrossed
+	 */
+	private boolean inAuction = false;
+
 	/**
 	 * Create an instance of order book starting with default number of slots ({@value OrderBook#DEFAULT_INITIAL_QUEUE_SIZE}) for spreads
 	 *
@@ -82,6 +119,29 @@ public class OrderBook {
 	 * @param initialSpreads number of spreads to initialize with. For efficiency purposes.
 	 */
 	public OrderBook(final double referencePrice, final int initialSpreads) {
+		this(referencePrice, initialSpreads, new double[0]);
+	}
+
+	/**
+	 * Create an instance of order book starting with default number of slots for spreads, which also keeps its depth
+	 * aggregated into price groups of the given sizes.
+	 *
+	 * @see OrderBook#OrderBook(double, int, double[])
+	 */
+	public OrderBook(final double referencePrice, final double[] depthGroupings) {
+		this(referencePrice, DEFAULT_INITIAL_QUEUE_SIZE, depthGroupings);
+	}
+
+	/**
+	 * Create an instance of order book which also keeps its depth aggregated into price groups of the given sizes.
+	 *
+	 * @param referencePrice the price the instrument was last traded to use as initial reference
+	 * @param initialSpreads number of spreads to initialize with. For efficiency purposes.
+	 * @param depthGroupings sizes of the price groups to keep the depth in, see {@link #summarizeGroupedDepth(Side, double)}
+	 * @throws IllegalArgumentException if a price group size is not positive, or given twice
+	 */
+	public OrderBook(final double referencePrice, final int initialSpreads, final double[] depthGroupings) {
+		this.groupedDepth = new GroupedDepth(depthGroupings);
 		this.lastPrice = referencePrice;
 		this.buyBucketList = new ArrayList<>(initialSpreads);
 		this.buyPriceList = new ArrayList<>(initialSpreads);
@@ -90,6 +150,17 @@ public class OrderBook {
 		this.sellBucketList = new ArrayList<>(initialSpreads);
 		this.sellPriceList = new ArrayList<>(initialSpreads);
 		this.sellMarketOrderBucket = new OrderBucket(0.0);
+
+		this.buyDepthListener = (price, quantityBefore, quantityAfter) -> {
+			this.groupedDepth.onLevelChanged(Side.BUY, price, quantityBefore, quantityAfter);
+			if (quantityAfter > quantityBefore)
+				this.bestBuyIndex = levelIndexBefore(price, BETTER_BUY_PRICE, this.buyPriceList, this.bestBuyIndex);
+		};
+		this.sellDepthListener = (price, quantityBefore, quantityAfter) -> {
+			this.groupedDepth.onLevelChanged(Side.SELL, price, quantityBefore, quantityAfter);
+			if (quantityAfter > quantityBefore)
+				this.bestSellIndex = levelIndexBefore(price, BETTER_SELL_PRICE, this.sellPriceList, this.bestSellIndex);
+		};
 	}
 
 	/**
@@ -104,6 +175,14 @@ public class OrderBook {
 	 */
 	public Response submitRequest(final Request request) {
 		Objects.requireNonNull(request, "request cannot be null");
+		if (request instanceof MassCancelRequest)
+			return handleMassCancelRequest((MassCancelRequest) request);
+		if (request instanceof MassQuoteRequest)
+			return handleMassQuoteRequest((MassQuoteRequest) request);
+		if (request instanceof StartAuctionRequest)
+			return handleStartAuctionRequest((StartAuctionRequest) request);
+		if (request instanceof UncrossRequest)
+			return handleUncrossRequest((UncrossRequest) request);
 		if ( !(request instanceof NewRequest) && !(request instanceof CancelRequest) && !(request instanceof AmendRequest))
 			throw new UnsupportedOperationException("The given request type : " + request.getClass().getSimpleName() + " for order ID " + request.getOrderId() + " is not supported");
 
@@ -136,7 +215,11 @@ public class OrderBook {
 		final long orderId = request.getOrderId();
 		final double orderQty = request.getQuantity();
 
-		final OrderEntry orderEntry = new OrderEntry(orderId, orderQty);
+		// nothing executes before the uncrossing, so an order to be executed immediately expires unfilled
+		if (this.inAuction && TimeInForce.isImmediate(request.getTimeInForce()))
+			return makeSuccessResponse(orderId);
+
+		final OrderEntry orderEntry = new OrderEntry(orderId, orderQty, request.getOwnerId());
 		if (Side.BUY == request.getSide()) {
 			return handleNewBuyRequest(request, orderEntry);
 		}
@@ -157,7 +240,8 @@ public class OrderBook {
 			final double orderPrice,
 			final PriceCompareFunction priceCompareFunction,
 			final ArrayList<Double> priceList,
-			final ArrayList<OrderBucket> bucketList) {
+			final ArrayList<OrderBucket> bucketList,
+			final OrderBucket.QuantityListener quantityListener) {
 		final OrderBucket bucketForPrice;
 		int bucketIndex = priceList.indexOf(orderPrice);
 		if (bucketIndex >= 0) {
@@ -171,7 +255,7 @@ public class OrderBook {
 					break;
 				}
 			}
-			bucketForPrice = new OrderBucket(orderPrice);
+			bucketForPrice = new OrderBucket(orderPrice, quantityListener);
 			if (indexToInsert >= 0) {
 				priceList.add(indexToInsert, orderPrice);
 				bucketList.add(indexToInsert, bucketForPrice);
@@ -186,98 +270,176 @@ public class OrderBook {
 
 	private Response handleNewBuyRequest(final NewRequest request, final OrderEntry initialOrderEntry) {
 		final boolean isMarketOrder = OrderType.isMarketOrder(request.getOrderType());
+		// fill or kill: leave the book untouched unless the whole quantity can be filled right away
+		if (TimeInForce.FOK == request.getTimeInForce()) {
+			final double available = quantityAvailableToCross(request.getQuantity(), isMarketOrder, request.getPrice(), BETTER_BUY_PRICE,
+					this.sellMarketOrderBucket, this.sellPriceList, this.sellBucketList);
+			if (available < request.getQuantity())
+				return makeSuccessResponse(request.getOrderId());
+		}
 		final ArrayList<Execution> executions = new ArrayList<>();
+		crossBuyOrder(initialOrderEntry, isMarketOrder, request.getPrice(), executions);
 
+		// if still have quantity left, queue it, unless it is only to be executed immediately
+		if (!initialOrderEntry.isOrderDone() && !TimeInForce.isImmediate(request.getTimeInForce())) {
+			final long orderId = request.getOrderId();
+			final boolean queueSuccess = queueBuyOrder(initialOrderEntry, isMarketOrder, request.getPrice());
+			if (!queueSuccess)
+				return makeErrorResponse(orderId, "Unable to queue new order '" + orderId + "'");
+		}
+
+		return new SuccessResponse(
+				request.getOrderId(),
+				snapBucketList(this.buyBucketList),
+				snapBucketList(this.sellBucketList),
+				executions);
+	}
+
+	private Response handleNewSellRequest(final NewRequest request, final OrderEntry initialOrderEntry) {
+		final boolean isMarketOrder = OrderType.isMarketOrder(request.getOrderType());
+		// fill or kill: leave the book untouched unless the whole quantity can be filled right away
+		if (TimeInForce.FOK == request.getTimeInForce()) {
+			final double available = quantityAvailableToCross(request.getQuantity(), isMarketOrder, request.getPrice(), BETTER_SELL_PRICE,
+					this.buyMarketOrderBucket, this.buyPriceList, this.buyBucketList);
+			if (available < request.getQuantity())
+				return makeSuccessResponse(request.getOrderId());
+		}
+		final ArrayList<Execution> executions = new ArrayList<>();
+		crossSellOrder(initialOrderEntry, isMarketOrder, request.getPrice(), executions);
+
+		// if still have quantity left, queue it, unless it is only to be executed immediately
+		if (!initialOrderEntry.isOrderDone() && !TimeInForce.isImmediate(request.getTimeInForce())) {
+			final long orderId = request.getOrderId();
+			final boolean queueSuccess = queueSellOrder(initialOrderEntry, isMarketOrder, request.getPrice());
+			if (!queueSuccess)
+				return makeErrorResponse(orderId, "Unable to queue new order '" + orderId + "'");
+		}
+
+		return new SuccessResponse(
+				request.getOrderId(),
+				snapBucketList(this.buyBucketList),
+				snapBucketList(this.sellBucketList),
+				executions);
+	}
+
+	/**
+	 * Cross an incoming buy order with the sell side, as far as its price allows
+	 *
+	 * @param orderEntry    the incoming order, its remaining quantity is taken down by what is executed
+	 * @param isMarketOrder whether the incoming order is a market order
+	 * @param price         limit price of the incoming order, ignored for market order
+	 * @param executions    receives the executions
+	 */
+	private void crossBuyOrder(final OrderEntry orderEntry, final boolean isMarketOrder, final double price, final List<Execution> executions) {
+		// during an auction, orders only cross when the book is uncrossed
+		if (this.inAuction)
+			return;
+		final int executionsBefore = executions.size();
 		// cross with any market order from the other side
 		if (!this.sellMarketOrderBucket.isEmpty()) {
-			final double marketOrderExecPrice = isMarketOrder ? lastPrice : request.getPrice();
-			executions.addAll(matchOrderAgainstBucket(initialOrderEntry, Side.BUY, sellMarketOrderBucket, marketOrderExecPrice));
+			final double marketOrderExecPrice = isMarketOrder ? lastPrice : price;
+			executions.addAll(matchOrderAgainstBucket(orderEntry, Side.BUY, sellMarketOrderBucket, marketOrderExecPrice));
 		}
 		// if we still have quantity left to execute, loop over the limit orders and try to cross
-		if (!initialOrderEntry.isOrderDone()) {
-			if (isMarketOrder || (!sellPriceList.isEmpty() && request.getPrice() >= sellPriceList.get(0))) {
-				for (int i = 0; i < sellPriceList.size() && !initialOrderEntry.isOrderDone(); ++i) {
+		if (!orderEntry.isOrderDone()) {
+			if (isMarketOrder || (!sellPriceList.isEmpty() && price >= sellPriceList.get(0))) {
+				for (int i = 0; i < sellPriceList.size() && !orderEntry.isOrderDone(); ++i) {
 					final double priceForExec = sellPriceList.get(i);
-					if ((!isMarketOrder) && priceForExec > request.getPrice())
+					if ((!isMarketOrder) && priceForExec > price)
 						break;
 					final OrderBucket orderBucket = sellBucketList.get(i);
 					if (orderBucket.isEmpty())
 						continue;
-					executions.addAll(matchOrderAgainstBucket(initialOrderEntry, Side.BUY, orderBucket, priceForExec));
+					executions.addAll(matchOrderAgainstBucket(orderEntry, Side.BUY, orderBucket, priceForExec));
 				}
 			}
 		}
 
-		if (!executions.isEmpty()) {
+		if (executions.size() > executionsBefore) {
 			final Execution x = executions.get(executions.size() - 1);
 			lastPrice = x.getPrice();
 		}
-
-		// if still have quantity left, queue it
-		if (!initialOrderEntry.isOrderDone()) {
-			final OrderBucket bucketToEnqueue;
-			if (isMarketOrder)
-				bucketToEnqueue = buyMarketOrderBucket;
-			else
-				bucketToEnqueue = retrieveBucketForPrice(request.getPrice(), BETTER_BUY_PRICE, this.buyPriceList, this.buyBucketList);
-			final long orderId = request.getOrderId();
-			final boolean queueSuccess = queueOrderToBucket(orderId, initialOrderEntry, bucketToEnqueue, orderId2OrderBucket);
-			if (!queueSuccess)
-				return makeErrorResponse(orderId, "Unable to queue new order '" + orderId + "'");
-		}
-
-		return new SuccessResponse(
-				request.getOrderId(),
-				snapBucketList(this.buyBucketList),
-				snapBucketList(this.sellBucketList),
-				executions);
 	}
 
-	private Response handleNewSellRequest(final NewRequest request, final OrderEntry initialOrderEntry) {
-		final boolean isMarketOrder = OrderType.isMarketOrder(request.getOrderType());
-		final ArrayList<Execution> executions = new ArrayList<>();
-
+	/**
+	 * Cross an incoming sell order with the buy side, as far as its price allows
+	 *
+	 * @see #crossBuyOrder(OrderEntry, boolean, double, List)
+	 */
+	private void crossSellOrder(final OrderEntry orderEntry, final boolean isMarketOrder, final double price, final List<Execution> executions) {
+		if (this.inAuction)
+			return;
+		final int executionsBefore = executions.size();
 		// cross with market order from the other side
 		if (!this.buyMarketOrderBucket.isEmpty()) {
-			final double marketOrderExecPrice = isMarketOrder ? lastPrice : request.getPrice();
-			executions.addAll(matchOrderAgainstBucket(initialOrderEntry, Side.SELL, buyMarketOrderBucket, marketOrderExecPrice));
+			final double marketOrderExecPrice = isMarketOrder ? lastPrice : price;
+			executions.addAll(matchOrderAgainstBucket(orderEntry, Side.SELL, buyMarketOrderBucket, marketOrderExecPrice));
 		}
 		// if we still have quantity left to execute, loop over the limit orders and try to cross
-		if (isMarketOrder || (!buyPriceList.isEmpty() && request.getPrice() <= buyPriceList.get(0))) {
-			for (int i = 0; i < buyPriceList.size() && !initialOrderEntry.isOrderDone(); ++i) {
+		if (isMarketOrder || (!buyPriceList.isEmpty() && price <= buyPriceList.get(0))) {
+			for (int i = 0; i < buyPriceList.size() && !orderEntry.isOrderDone(); ++i) {
 				final double priceForExec = buyPriceList.get(i);
-				if ((!isMarketOrder) && priceForExec < request.getPrice())
+				if ((!isMarketOrder) && priceForExec < price)
 					break;
 				final OrderBucket orderBucket = buyBucketList.get(i);
 				if (orderBucket.isEmpty())
 					continue;
-				executions.addAll(matchOrderAgainstBucket(initialOrderEntry, Side.SELL, orderBucket, priceForExec));
+				executions.addAll(matchOrderAgainstBucket(orderEntry, Side.SELL, orderBucket, priceForExec));
 			}
 		}
 
-		if (!executions.isEmpty()) {
+		if (executions.size() > executionsBefore) {
 			final Execution x = executions.get(executions.size() - 1);
 			lastPrice = x.getPrice();
 		}
+	}
 
-		// if still have quantity left, queue it
-		if (!initialOrderEntry.isOrderDone()) {
-			final OrderBucket bucketToEnqueue;
-			if (isMarketOrder)
-				bucketToEnqueue = sellMarketOrderBucket;
-			else
-				bucketToEnqueue = retrieveBucketForPrice(request.getPrice(), BETTER_SELL_PRICE, this.sellPriceList, this.sellBucketList);
-			final long orderId = request.getOrderId();
-			final boolean queueSuccess = queueOrderToBucket(orderId, initialOrderEntry, bucketToEnqueue, orderId2OrderBucket);
-			if (!queueSuccess)
-				return makeErrorResponse(orderId, "Unable to queue new order '" + orderId + "'");
-		}
+	private boolean queueBuyOrder(final OrderEntry orderEntry, final boolean isMarketOrder, final double price) {
+		final OrderBucket bucketToEnqueue;
+		if (isMarketOrder)
+			bucketToEnqueue = buyMarketOrderBucket;
+		else
+			bucketToEnqueue = retrieveBucketForPrice(price, BETTER_BUY_PRICE, this.buyPriceList, this.buyBucketList, this.buyDepthListener);
+		return queueOrderToBucket(orderEntry.getOrderId(), orderEntry, bucketToEnqueue, orderId2OrderBucket);
+	}
 
-		return new SuccessResponse(
-				request.getOrderId(),
-				snapBucketList(this.buyBucketList),
-				snapBucketList(this.sellBucketList),
-				executions);
+	private boolean queueSellOrder(final OrderEntry orderEntry, final boolean isMarketOrder, final double price) {
+		final OrderBucket bucketToEnqueue;
+		if (isMarketOrder)
+			bucketToEnqueue = sellMarketOrderBucket;
+		else
+			bucketToEnqueue = retrieveBucketForPrice(price, BETTER_SELL_PRICE, this.sellPriceList, this.sellBucketList, this.sellDepthListener);
+		return queueOrderToBucket(orderEntry.getOrderId(), orderEntry, bucketToEnqueue, orderId2OrderBucket);
+	}
+
+	/**
+	 * Sum up the quantity on the other side of the book an incoming order would cross with right now, stopping as soon
+	 * as the needed quantity is reached.
+	 *
+	 * @param neededQuantity      quantity of the incoming order
+	 * @param isMarketOrder       whether the incoming order is a market order, crossing any price
+	 * @param limitPrice          limit price of the incoming order
+	 * @param isBeyondLimit       tells if a price on the other side is beyond the limit price; i.e. the "better price"
+	 *                            function of the incoming order's side
+	 * @param otherMarketBucket   market orders of the other side, which cross with anything
+	 * @param otherPriceList      prices of the other side, best first
+	 * @param otherBucketList     order buckets of the other side, best first
+	 * @return the quantity available, which may be more than needed
+	 */
+	private static double quantityAvailableToCross(
+			final double neededQuantity,
+			final boolean isMarketOrder, final double limitPrice,
+			final PriceCompareFunction isBeyondLimit,
+			final OrderBucket otherMarketBucket,
+			final ArrayList<Double> otherPriceList,
+			final ArrayList<OrderBucket> otherBucketList) {
+		double available = otherMarketBucket.getQuantityInQueue();
+		for (int i = 0; i < otherPriceList.size() && available < neededQuantity; ++i) {
+			if ((!isMarketOrder) && isBeyondLimit.isBetterPrice(otherPriceList.get(i), limitPrice))
+				break;
+			available += otherBucketList.get(i).getQuantityInQueue();
+		}
+		return available;
 	}
 
 	/**
@@ -347,8 +509,8 @@ public class OrderBook {
 				else
 					return makeErrorResponse(orderId, "The given order ID '" + orderId + "' cannot be found");
 			}
-			else { // mkt to limit, cancel + new
-				return cancelNew(request, orderId, fromBucket);
+			else { // mkt to limit, move to the price bucket
+				return moveOrder(request, orderId, fromBucket);
 			}
 		}
 
@@ -360,24 +522,365 @@ public class OrderBook {
 			else
 				return makeErrorResponse(orderId, "The given order ID '" + orderId + "' cannot be found");
 		}
-		// we are changing price, then cancel + new
-		return cancelNew(request, orderId, fromBucket);
+		// we are changing price, move to the new price
+		return moveOrder(request, orderId, fromBucket);
 	}
 
-	private Response cancelNew(final AmendRequest request, final long orderId, final OrderBucket fromBucket) {
-		final boolean cancelSuccess = fromBucket.cancelOrder(orderId);
-		// TODO: is there a way to atomically remove and add to a different queue?
-		if (!cancelSuccess)
+	/**
+	 * Move the order to its new price / order type: the same order entry is taken out of its bucket, crossed with the
+	 * other side at the new price, and whatever is left is queued at the end of the new bucket; all in this one request.
+	 */
+	private Response moveOrder(final AmendRequest request, final long orderId, final OrderBucket fromBucket) {
+		final OrderEntry orderEntry = fromBucket.removeOrder(orderId);
+		if (null == orderEntry)
 			return makeErrorResponse(orderId, "Failed to amend the given order ID '" + orderId + "'");
+		this.orderId2OrderBucket.remove(orderId);
+		orderEntry.resetQuantity(request.getNewOrderQuantity());
+
+		final boolean isMarketOrder = OrderType.isMarketOrder(request.getOrderType());
+		final double newPrice = request.getNewPrice();
+		final ArrayList<Execution> executions = new ArrayList<>();
+		final boolean queueSuccess;
+		if (Side.BUY == request.getSide()) {
+			crossBuyOrder(orderEntry, isMarketOrder, newPrice, executions);
+			queueSuccess = orderEntry.isOrderDone() || queueBuyOrder(orderEntry, isMarketOrder, newPrice);
+		}
+		else {
+			crossSellOrder(orderEntry, isMarketOrder, newPrice, executions);
+			queueSuccess = orderEntry.isOrderDone() || queueSellOrder(orderEntry, isMarketOrder, newPrice);
+		}
+		if (!queueSuccess)
+			return makeErrorResponse(orderId, "Unable to queue amended order '" + orderId + "'");
+
+		return new SuccessResponse(
+				orderId,
+				snapBucketList(this.buyBucketList),
+				snapBucketList(this.sellBucketList),
+				executions);
+	}
+
+	/**
+	 * Cancel every resting order matching the request in one pass over the buckets, with a single depth summary at the end
+	 */
+	private MassCancelResponse handleMassCancelRequest(final MassCancelRequest request) {
+		final ArrayList<Long> cancelledOrderIds = new ArrayList<>();
+		final Predicate<OrderEntry> ownerFilter = orderEntry -> request.appliesToOwner(orderEntry.getOwnerId());
+		if (request.appliesTo(Side.BUY))
+			massCancel(request, ownerFilter, this.buyMarketOrderBucket, this.buyBucketList, cancelledOrderIds);
+		if (request.appliesTo(Side.SELL))
+			massCancel(request, ownerFilter, this.sellMarketOrderBucket, this.sellBucketList, cancelledOrderIds);
+		for (final Long orderId : cancelledOrderIds)
+			this.orderId2OrderBucket.remove(orderId);
+
+		return new MassCancelResponse(
+				request.getOrderId(),
+				snapBucketList(this.buyBucketList),
+				snapBucketList(this.sellBucketList),
+				cancelledOrderIds);
+	}
+
+	private static void massCancel(
+			final MassCancelRequest request,
+			final Predicate<OrderEntry> ownerFilter,
+			final OrderBucket marketOrderBucket,
+			final ArrayList<OrderBucket> bucketList,
+			final List<Long> cancelledOrderIds) {
+		if (!request.hasPriceRange() && !marketOrderBucket.getOrderEntryList().isEmpty())
+			marketOrderBucket.cancelOrders(ownerFilter, cancelledOrderIds);
+		for (int i = 0; i < bucketList.size(); ++i) {
+			final OrderBucket bucket = bucketList.get(i);
+			if (bucket.getOrderEntryList().isEmpty() || !request.appliesToPrice(bucket.getPriceOfBucket()))
+				continue;
+			bucket.cancelOrders(ownerFilter, cancelledOrderIds);
+		}
+	}
+
+	/**
+	 * Replace the quoted levels of a market maker in one go, with a single depth summary at the end.
+	 * <p/>
+	 * Levels no longer quoted are pulled first, so new levels never trade against them; levels kept are resized in
+	 * place, and new levels cross the other side of the book if they can before resting. Levels which were filled,
+	 * cancelled or amended to another price since the last quote are no longer tracked, and count as new.
+	 */
+	private MassQuoteResponse handleMassQuoteRequest(final MassQuoteRequest request) {
+		final long ownerId = request.getOwnerId();
+		MakerQuotes quotes = this.quotesByOwner.get(ownerId);
+		if (null == quotes) {
+			quotes = new MakerQuotes();
+			this.quotesByOwner.put(ownerId, quotes);
+		}
+
+		final ArrayList<Long> cancelledOrderIds = new ArrayList<>();
+		pullLevels(quotes.bids, request.getBids(), cancelledOrderIds);
+		pullLevels(quotes.asks, request.getAsks(), cancelledOrderIds);
+
+		final ArrayList<Execution> executions = new ArrayList<>();
+		final ArrayList<Long> bidOrderIds = new ArrayList<>(request.getBids().size());
+		final ArrayList<Double> bidOpenQtys = new ArrayList<>(request.getBids().size());
+		final ArrayList<Long> askOrderIds = new ArrayList<>(request.getAsks().size());
+		final ArrayList<Double> askOpenQtys = new ArrayList<>(request.getAsks().size());
+		final ArrayList<Long> resizedOrderIds = new ArrayList<>();
+		placeLevels(quotes.bids, request.getBids(), Side.BUY, ownerId, executions, bidOrderIds, bidOpenQtys, resizedOrderIds);
+		placeLevels(quotes.asks, request.getAsks(), Side.SELL, ownerId, executions, askOrderIds, askOpenQtys, resizedOrderIds);
+		if (quotes.isEmpty())
+			this.quotesByOwner.remove(ownerId);
+
+		return new MassQuoteResponse(
+				request.getOrderId(),
+				snapBucketList(this.buyBucketList),
+				snapBucketList(this.sellBucketList),
+				executions,
+				bidOrderIds, askOrderIds,
+				bidOpenQtys, askOpenQtys,
+				resizedOrderIds,
+				cancelledOrderIds);
+	}
+
+	private void pullLevels(final HashMap<Double, OrderEntry> quotedLevels, final List<QuoteLevel> newLevels, final List<Long> cancelledOrderIds) {
+		for (final Iterator<Map.Entry<Double, OrderEntry>> it = quotedLevels.entrySet().iterator(); it.hasNext(); ) {
+			final Map.Entry<Double, OrderEntry> quotedLevel = it.next();
+			final OrderEntry orderEntry = quotedLevel.getValue();
+			if (!isQueuedAt(orderEntry, quotedLevel.getKey())) { // filled, cancelled, or amended away since
+				it.remove();
+				continue;
+			}
+			if (null != findLevel(newLevels, quotedLevel.getKey()))
+				continue;
+			final long orderId = orderEntry.getOrderId();
+			final OrderBucket bucket = this.orderId2OrderBucket.remove(orderId);
+			if (null != bucket && bucket.cancelOrder(orderId))
+				cancelledOrderIds.add(orderId);
+			it.remove();
+		}
+	}
+
+	private void placeLevels(
+			final HashMap<Double, OrderEntry> quotedLevels,
+			final List<QuoteLevel> newLevels,
+			final Side side,
+			final long ownerId,
+			final List<Execution> executions,
+			final List<Long> orderIds,
+			final List<Double> openQtys,
+			final List<Long> resizedOrderIds) {
+		for (final QuoteLevel level : newLevels) {
+			final OrderEntry quotedEntry = quotedLevels.get(level.getPrice());
+			if (null != quotedEntry && !quotedEntry.isOrderDone()) {
+				// unchanged levels keep their place in the queue
+				if (quotedEntry.getRemainingQuantity() != level.getQuantity()) {
+					this.orderId2OrderBucket.get(quotedEntry.getOrderId()).resizeOrder(quotedEntry.getOrderId(), level.getQuantity());
+					resizedOrderIds.add(quotedEntry.getOrderId());
+				}
+				orderIds.add(quotedEntry.getOrderId());
+				openQtys.add(level.getQuantity());
+				continue;
+			}
+
+			final OrderEntry orderEntry = new OrderEntry(level.getOrderId(), level.getQuantity(), ownerId);
+			if (Side.BUY == side)
+				crossBuyOrder(orderEntry, false, level.getPrice(), executions);
+			else
+				crossSellOrder(orderEntry, false, level.getPrice(), executions);
+			if (!orderEntry.isOrderDone()) {
+				if (Side.BUY == side)
+					queueBuyOrder(orderEntry, false, level.getPrice());
+				else
+					queueSellOrder(orderEntry, false, level.getPrice());
+				quotedLevels.put(level.getPrice(), orderEntry);
+			}
+			else {
+				quotedLevels.remove(level.getPrice());
+			}
+			orderIds.add(orderEntry.getOrderId());
+			openQtys.add(orderEntry.getRemainingQuantity());
+		}
+	}
+
+	private boolean isQueuedAt(final OrderEntry orderEntry, final double price) {
+		if (orderEntry.isOrderDone())
+			return false;
+		final OrderBucket bucket = this.orderId2OrderBucket.get(orderEntry.getOrderId());
+		return null != bucket && bucket.getPriceOfBucket() == price;
+	}
+
+	private static QuoteLevel findLevel(final List<QuoteLevel> levels, final double price) {
+		for (int i = 0; i < levels.size(); ++i) {
+			final QuoteLevel level = levels.get(i);
+			if (level.getPrice() == price)
+				return level;
+		}
+		return null;
+	}
+
+	private Response handleStartAuctionRequest(final StartAuctionRequest request) {
+		if (this.inAuction)
+			return makeErrorResponse(request.getOrderId(), "Already in an auction");
+		this.inAuction = true;
+		return makeSuccessResponse(request.getOrderId());
+	}
+
+	/**
+	 * Execute everything which crosses at the uncrossing price in a single pass: the orders of each side are filled in
+	 * their usual priority, market orders first, then best price first and in time within each price, down to the same
+	 * quantity on both sides, then paired up in that order. As the price executes the most quantity, what is left of the
+	 * book no longer crosses, and continuous matching takes over from there, unless orders keep being collected for the
+	 * next auction, as in a frequent batch auction.
+	 */
+	private Response handleUncrossRequest(final UncrossRequest request) {
+		final long requestId = request.getOrderId();
+		if (!this.inAuction)
+			return makeErrorResponse(requestId, "Not in an auction");
 
-		final NewRequest newRequest =
-				new NewRequest(
-						request.getOrderId(),
-						request.getSide(),
-						request.getOrderType(),
-						request.getNewOrderQuantity(),
-						request.getNewPrice());
-		return handleNewRequest(newRequest);
+		final double uncrossPrice = findUncrossPrice();
+		List<Execution> executions = Collections.emptyList();
+		if (!Double.isNaN(uncrossPrice)) {
+			final double uncrossQuantity = Math.min(quantityBuyingAt(uncrossPrice), quantitySellingAt(uncrossPrice));
+			final List<OrderBucket.MatchedOrder> buys = takeForUncross(requestId, uncrossQuantity, uncrossPrice, BETTER_SELL_PRICE,
+					this.buyMarketOrderBucket, this.buyBucketList);
+			final List<OrderBucket.MatchedOrder> sells = takeForUncross(requestId, uncrossQuantity, uncrossPrice, BETTER_BUY_PRICE,
+					this.sellMarketOrderBucket, this.sellBucketList);
+			executions = pairUp(buys, sells, uncrossPrice);
+			this.lastPrice = uncrossPrice;
+		}
+		this.inAuction = request.isKeepCollecting();
+
+		return new UncrossResponse(
+				requestId,
+				snapBucketList(this.buyBucketList),
+				snapBucketList(this.sellBucketList),
+				executions.isEmpty() ? Double.NaN : uncrossPrice,
+				executions);
+	}
+
+	/**
+	 * The price executing the most quantity, out of the prices of the orders queued; among those, the one leaving the
+	 * least quantity unexecuted on the bigger side, then the one closest to the last price, then the lowest. If only
+	 * market orders cross, they cross at the last price.
+	 *
+	 * @return the uncrossing price, or {@link Double#NaN} if nothing crosses
+	 */
+	private double findUncrossPrice() {
+		// walk the prices of both sides from the lowest up, keeping the quantity bought below the price and the quantity
+		// sold at or below it as running sums, so each price is evaluated without going through the levels again
+		double buyingQuantity = this.buyMarketOrderBucket.getQuantityInQueue();
+		for (int i = 0; i < this.buyBucketList.size(); ++i)
+			buyingQuantity += this.buyBucketList.get(i).getQuantityInQueue();
+		double boughtBelow = 0;
+		double supply = this.sellMarketOrderBucket.getQuantityInQueue();
+		int buyIndex = this.buyPriceList.size() - 1;
+		int sellIndex = 0;
+
+		double bestPrice = Double.NaN;
+		double bestQuantity = 0;
+		double bestImbalance = 0;
+		while (buyIndex >= 0 || sellIndex < this.sellPriceList.size()) {
+			final double price;
+			if (buyIndex < 0)
+				price = this.sellPriceList.get(sellIndex);
+			else if (sellIndex >= this.sellPriceList.size())
+				price = this.buyPriceList.get(buyIndex);
+			else
+				price = Math.min(this.buyPriceList.get(buyIndex), this.sellPriceList.get(sellIndex));
+
+			boolean isQueued = false;
+			if (sellIndex < this.sellPriceList.size() && this.sellPriceList.get(sellIndex) == price) {
+				final OrderBucket bucket = this.sellBucketList.get(sellIndex++);
+				supply += bucket.getQuantityInQueue();
+				isQueued = !bucket.isEmpty();
+			}
+			// every buy level left is at or above the price
+			final double demand = buyingQuantity - boughtBelow;
+			if (buyIndex >= 0 && this.buyPriceList.get(buyIndex) == price) {
+				final OrderBucket bucket = this.buyBucketList.get(buyIndex--);
+				boughtBelow += bucket.getQuantityInQueue();
+				isQueued = isQueued || !bucket.isEmpty();
+			}
+			if (!isQueued)
+				continue;
+
+			final double quantity = Math.min(demand, supply);
+			final double imbalance = Math.abs(demand - supply);
+			final boolean isBetter;
+			if (quantity != bestQuantity)
+				isBetter = quantity > bestQuantity;
+			else if (quantity == 0 || imbalance != bestImbalance)
+				isBetter = quantity > 0 && imbalance < bestImbalance;
+			else if (Math.abs(price - this.lastPrice) != Math.abs(bestPrice - this.lastPrice))
+				isBetter = Math.abs(price - this.lastPrice) < Math.abs(bestPrice - this.lastPrice);
+			else
+				isBetter = price < bestPrice;
+			if (isBetter) {
+				bestPrice = price;
+				bestQuantity = quantity;
+				bestImbalance = imbalance;
+			}
+		}
+		if (Double.isNaN(bestPrice) && !this.buyMarketOrderBucket.isEmpty() && !this.sellMarketOrderBucket.isEmpty())
+			return this.lastPrice;
+		return bestPrice;
+	}
+
+	// quantity of the buy orders willing to pay the price
+	private double quantityBuyingAt(final double price) {
+		double quantity = this.buyMarketOrderBucket.getQuantityInQueue();
+		for (int i = 0; i < this.buyPriceList.size() && this.buyPriceList.get(i) >= price; ++i)
+			quantity += this.buyBucketList.get(i).getQuantityInQueue();
+		return quantity;
+	}
+
+	// quantity of the sell orders willing to accept the price
+	private double quantitySellingAt(final double price) {
+		double quantity = this.sellMarketOrderBucket.getQuantityInQueue();
+		for (int i = 0; i < this.sellPriceList.size() && this.sellPriceList.get(i) <= price; ++i)
+			quantity += this.sellBucketList.get(i).getQuantityInQueue();
+		return quantity;
+	}
+
+	/**
+	 * Take the quantity out of one side of the book in priority order, never beyond the uncrossing price
+	 *
+	 * @param isBeyondPrice tells if a price of the side is beyond the uncrossing price, i.e. the "better price" function
+	 *                      of the other side
+	 * @return the orders taken from, with the quantity taken from each, in priority order
+	 */
+	private static List<OrderBucket.MatchedOrder> takeForUncross(
+			final long requestId,
+			final double quantity, final double uncrossPrice,
+			final PriceCompareFunction isBeyondPrice,
+			final OrderBucket marketOrderBucket,
+			final ArrayList<OrderBucket> bucketList) {
+		final ArrayList<OrderBucket.MatchedOrder> taken = new ArrayList<>();
+		final OrderEntry uncrossEntry = new OrderEntry(requestId, quantity);
+		for (int i = -1; i < bucketList.size() && !uncrossEntry.isOrderDone(); ++i) {
+			final OrderBucket bucket = i < 0 ? marketOrderBucket : bucketList.get(i);
+			if (i >= 0 && isBeyondPrice.isBetterPrice(bucket.getPriceOfBucket(), uncrossPrice))
+				break;
+			if (bucket.isEmpty())
+				continue;
+			final MatchResult matchResult = bucket.matchOrder(uncrossEntry);
+			uncrossEntry.takeQuantity(matchResult.getTotalMatchedQuantity());
+			taken.addAll(matchResult.getMatchedOrders());
+		}
+		return taken;
+	}
+
+	// pair up the quantities taken from both sides, in order, into executions at the uncrossing price
+	private static List<Execution> pairUp(final List<OrderBucket.MatchedOrder> buys, final List<OrderBucket.MatchedOrder> sells, final double uncrossPrice) {
+		final ArrayList<Execution> executions = new ArrayList<>(buys.size() + sells.size());
+		int b = 0, s = 0;
+		double buyLeft = buys.isEmpty() ? 0 : buys.get(0).getQuantity();
+		double sellLeft = sells.isEmpty() ? 0 : sells.get(0).getQuantity();
+		while (b < buys.size() && s < sells.size()) {
+			final double quantity = Math.min(buyLeft, sellLeft);
+			executions.add(new Execution(buys.get(b).getOrderId(), sells.get(s).getOrderId(), quantity, uncrossPrice));
+			buyLeft -= quantity;
+			sellLeft -= quantity;
+			if (0 == buyLeft && ++b < buys.size())
+				buyLeft = buys.get(b).getQuantity();
+			if (0 == sellLeft && ++s < sells.size())
+				sellLeft = sells.get(s).getQuantity();
+		}
+		return executions;
 	}
 
 	private ErrorResponse makeErrorResponse(final long orderId, final String message) {
@@ -397,6 +900,96 @@ public class OrderBook {
 				Collections.emptyList());
 	}
 
+	/**
+	 * @return whether orders are being collected for a call auction
+	 */
+	public boolean isInAuction() {
+		return inAuction;
+	}
+
+	/**
+	 * @return the price the auction would uncross at right now, or {@link Double#NaN} if nothing crosses or there is no
+	 * auction
+	 */
+	public double getIndicativeUncrossPrice() {
+		return this.inAuction ? findUncrossPrice() : Double.NaN;
+	}
+
+	/**
+	 * The price at which the most recent trade was executed, or the reference price if nothing has traded yet.
+	 */
+	public double getLastPrice() {
+		return lastPrice;
+	}
+
+	/**
+	 * @return the highest bid price with quantity queued, or {@link Double#NaN} if there is no bid limit order
+	 */
+	public double getBestBidPrice() {
+		final OrderBucket bucket = bestBuyBucket();
+		return null != bucket ? bucket.getPriceOfBucket() : Double.NaN;
+	}
+
+	/**
+	 * @return the quantity queued at the best bid price, or zero if there is no bid limit order
+	 */
+	public double getBestBidQuantity() {
+		final OrderBucket bucket = bestBuyBucket();
+		return null != bucket ? bucket.getQuantityInQueue() : 0.0d;
+	}
+
+	/**
+	 * @return the lowest ask price with quantity queued, or {@link Double#NaN} if there is no ask limit order
+	 */
+	public double getBestAskPrice() {
+		final OrderBucket bucket = bestSellBucket();
+		return null != bucket ? bucket.getPriceOfBucket() : Double.NaN;
+	}
+
+	/**
+	 * @return the quantity queued at the best ask price, or zero if there is no ask limit order
+	 */
+	public double getBestAskQuantity() {
+		final OrderBucket bucket = bestSellBucket();
+		return null != bucket ? bucket.getQuantityInQueue() : 0.0d;
+	}
+
+	// buckets are never removed once created, so move the best index past the ones that have been emptied since
+	private OrderBucket bestBuyBucket() {
+		while (this.bestBuyIndex < this.buyBucketList.size() && this.buyBucketList.get(this.bestBuyIndex).isEmpty())
+			++this.bestBuyIndex;
+		return this.bestBuyIndex < this.buyBucketList.size() ? this.buyBucketList.get(this.bestBuyIndex) : null;
+	}
+
+	private OrderBucket bestSellBucket() {
+		while (this.bestSellIndex < this.sellBucketList.size() && this.sellBucketList.get(this.bestSellIndex).isEmpty())
+			++this.bestSellIndex;
+		return this.bestSellIndex < this.sellBucketList.size() ? this.sellBucketList.get(this.bestSellIndex) : null;
+	}
+
+	/**
+	 * Binary search the levels before the best index of a side for the one at the given price, the prices being sorted
+	 * best first
+	 *
+	 * @return index of the level at the price if it is before the best index, the best index otherwise
+	 */
+	private static int levelIndexBefore(
+			final double price,
+			final PriceCompareFunction priceCompareFunction,
+			final ArrayList<Double> priceList,
+			final int bestIndex) {
+		int low = 0;
+		int high = Math.min(bestIndex, priceList.size());
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (priceCompareFunction.isBetterPrice(priceList.get(mid), price))
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
 	private static final class LeadingEmptyOrderBucketFilter implements Predicate<OrderBucket> {
 		boolean seenNonEmpty = false;
 		@Override
@@ -415,32 +1008,121 @@ public class OrderBook {
 	}
 
 	public OrderBookSnapshot snapshotOrderBook() {
-		final List<OrderBookSnapshot.OrderOpenQty> bidMarketQueue = this.buyMarketOrderBucket.getOrderEntryList().stream()
-				.map(oe -> new OrderBookSnapshot.OrderOpenQty(oe.getOrderId(), oe.getRemainingQuantity()))
-				.collect(toList());
-
-		final List<OrderBookSnapshot.OrderOpenQty> askMarketQueue = this.buyMarketOrderBucket.getOrderEntryList().stream()
-				.map(oe -> new OrderBookSnapshot.OrderOpenQty(oe.getOrderId(), oe.getRemainingQuantity()))
-				.collect(toList());
+		final List<OrderBookSnapshot.OrderOpenQty> bidMarketQueue = snapOrders(this.buyMarketOrderBucket);
+		final List<OrderBookSnapshot.OrderOpenQty> askMarketQueue = snapOrders(this.sellMarketOrderBucket);
 
 		final LinkedHashMap<Double, List<OrderBookSnapshot.OrderOpenQty>> bidQueue = new LinkedHashMap<>();
 		this.buyBucketList.stream()
 				.filter(new LeadingEmptyOrderBucketFilter())
-				.forEach(bucket -> {
-					final List<OrderBookSnapshot.OrderOpenQty> depth = bucket.getOrderEntryList().stream()
-							.map(oe -> new OrderBookSnapshot.OrderOpenQty(oe.getOrderId(), oe.getRemainingQuantity()))
-							.collect(toList());
-					bidQueue.put(bucket.getPriceOfBucket(), depth);
-				});
+				.forEach(bucket -> bidQueue.put(bucket.getPriceOfBucket(), snapOrders(bucket)));
 		final LinkedHashMap<Double, List<OrderBookSnapshot.OrderOpenQty>> askQueue = new LinkedHashMap<>();
 		this.sellBucketList.stream()
 				.filter(new LeadingEmptyOrderBucketFilter())
-				.forEach(bucket -> {
-					final List<OrderBookSnapshot.OrderOpenQty> depth = bucket.getOrderEntryList().stream()
-							.map(oe -> new OrderBookSnapshot.OrderOpenQty(oe.getOrderId(), oe.getRemainingQuantity()))
-							.collect(toList());
-					askQueue.put(bucket.getPriceOfBucket(), depth);
-				});
+				.forEach(bucket -> askQueue.put(bucket.getPriceOfBucket(), snapOrders(bucket)));
 		return new OrderBookSnapshot(bidMarketQueue, askMarketQueue, bidQueue, askQueue);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @see #snapshotOrderBook(int, double)
+	 */
+	public OrderBookSnapshot snapshotOrderBook(final int maxLevels) {
+		return snapshotOrderBook(maxLevels, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Snapshot only the best price levels of each side, down to whichever limit is reached first. The cost is
+	 * proportional to the levels and orders included, not to the size of the book. The market order queues are always
+	 * included in full.
+	 *
+	 * @param maxLevels      maximum number of price levels with quantity per side
+	 * @param quantityCutOff stop after the level at which the quantity summed from the best price reaches this;
+	 *                       {@link Double#POSITIVE_INFINITY} for no cut-off
+	 * @throws IllegalArgumentException if either limit is not positive
+	 */
+	public OrderBookSnapshot snapshotOrderBook(final int maxLevels, final double quantityCutOff) {
+		checkDepthLimits(maxLevels, quantityCutOff);
+		final LinkedHashMap<Double, List<OrderBookSnapshot.OrderOpenQty>> bidQueue = new LinkedHashMap<>();
+		forEachLevel(this.buyBucketList, maxLevels, quantityCutOff, bucket -> bidQueue.put(bucket.getPriceOfBucket(), snapOrders(bucket)));
+		final LinkedHashMap<Double, List<OrderBookSnapshot.OrderOpenQty>> askQueue = new LinkedHashMap<>();
+		forEachLevel(this.sellBucketList, maxLevels, quantityCutOff, bucket -> askQueue.put(bucket.getPriceOfBucket(), snapOrders(bucket)));
+		return new OrderBookSnapshot(snapOrders(this.buyMarketOrderBucket), snapOrders(this.sellMarketOrderBucket), bidQueue, askQueue);
+	}
+
+	/**
+	 * @see #summarizeDepth(Side, int, double)
+	 */
+	public Level2Summary summarizeDepth(final Side side, final int maxLevels) {
+		return summarizeDepth(side, maxLevels, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Summarize only the best price levels of one side, down to whichever limit is reached first. The cost is
+	 * proportional to the levels included, not to the size of the book.
+	 *
+	 * @param maxLevels      maximum number of price levels with quantity
+	 * @param quantityCutOff stop after the level at which the quantity summed from the best price reaches this;
+	 *                       {@link Double#POSITIVE_INFINITY} for no cut-off
+	 * @return the levels with quantity, best price first
+	 * @throws IllegalArgumentException if either limit is not positive
+	 */
+	public Level2Summary summarizeDepth(final Side side, final int maxLevels, final double quantityCutOff) {
+		checkDepthLimits(maxLevels, quantityCutOff);
+		final ArrayList<Level2Summary.PriceQuantity> pxQtyList = new ArrayList<>(Math.min(maxLevels, DEFAULT_INITIAL_QUEUE_SIZE));
+		forEachLevel(Side.BUY == side ? this.buyBucketList : this.sellBucketList, maxLevels, quantityCutOff,
+				bucket -> pxQtyList.add(new Level2Summary.PriceQuantity(bucket.getPriceOfBucket(), bucket.getQuantityInQueue())));
+		return new Level2Summary(pxQtyList);
+	}
+
+	/**
+	 * @return sizes of the price groups the depth is kept in
+	 */
+	public double[] getDepthGroupings() {
+		return this.groupedDepth.getGroupings();
+	}
+
+	/**
+	 * Summarize one side aggregated into price groups of the given size, e.g. every 10 USD. The groups are kept up to
+	 * date as the book changes, so this is a cached read; the summary is only rebuilt from the groups, not the price
+	 * levels, when the side changed since it was last read. Market orders are not included.
+	 *
+	 * @param grouping one of the {@link #getDepthGroupings() price group sizes kept}
+	 * @return the groups with quantity, best price first; the same instance until the side changes, must not be modified
+	 * @throws IllegalArgumentException if the depth is not kept in groups of that size
+	 * @see GroupedDepth#summarize(Side, double)
+	 */
+	public Level2Summary summarizeGroupedDepth(final Side side, final double grouping) {
+		return this.groupedDepth.summarize(side, grouping);
+	}
+
+	private static void checkDepthLimits(final int maxLevels, final double quantityCutOff) {
+		if (maxLevels <= 0)
+			throw new IllegalArgumentException("max levels must be positive: " + maxLevels);
+		if (!(quantityCutOff > 0))
+			throw new IllegalArgumentException("quantity cut-off must be positive: " + quantityCutOff);
+	}
+
+	// buckets are never removed once created, so emptied ones in between are skipped, and not counted as levels
+	private static void forEachLevel(
+			final ArrayList<OrderBucket> bucketList,
+			final int maxLevels, final double quantityCutOff,
+			final Consumer<OrderBucket> action) {
+		int levels = 0;
+		double cumulativeQuantity = 0;
+		for (int i = 0; i < bucketList.size() && levels < maxLevels && cumulativeQuantity < quantityCutOff; ++i) {
+			final OrderBucket bucket = bucketList.get(i);
+			if (bucket.isEmpty())
+				continue;
+			action.accept(bucket);
+			++levels;
+			cumulativeQuantity += bucket.getQuantityInQueue();
+		}
+	}
+
+	private static List<OrderBookSnapshot.OrderOpenQty> snapOrders(final OrderBucket bucket) {
+		final ArrayList<OrderEntry> orderEntries = bucket.getOrderEntryList();
+		final ArrayList<OrderBookSnapshot.OrderOpenQty> orders = new ArrayList<>(orderEntries.size());
+		for (final OrderEntry oe : orderEntries)
+			orders.add(new OrderBookSnapshot.OrderOpenQty(oe.getOrderId(), oe.getRemainingQuantity()));
+		return orders;
+	}
+}
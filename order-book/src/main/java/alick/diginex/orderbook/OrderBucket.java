@@ -5,16 +5,34 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 class OrderBucket {
+	/**
+	 * Told of every change of the quantity queued in a bucket
+	 */
+	@FunctionalInterface
+	interface QuantityListener {
+		void onQuantityChanged(double priceOfBucket, double quantityBefore, double quantityAfter);
+	}
+
+	private static final QuantityListener NO_LISTENER = (priceOfBucket, quantityBefore, quantityAfter) -> {
+	};
+
 	private final double priceOfBucket;
+	private final QuantityListener quantityListener;
 	private double quantityInQueue = 0.0d;
 
 	// would have used a ArrayList from eclipse collections for quicker traversal
 	private final ArrayList<OrderEntry> orderEntryList = new ArrayList<>(100);
 
 	OrderBucket(final double priceOfBucket) {
+		this(priceOfBucket, NO_LISTENER);
+	}
+
+	OrderBucket(final double priceOfBucket, final QuantityListener quantityListener) {
 		this.priceOfBucket = priceOfBucket;
+		this.quantityListener = quantityListener;
 	}
 
 	double getPriceOfBucket() {
@@ -29,6 +47,14 @@ class OrderBucket {
 		return orderEntryList;
 	}
 
+	private void addQuantity(final double delta) {
+		if (0 == delta)
+			return;
+		final double quantityBefore = this.quantityInQueue;
+		this.quantityInQueue = quantityBefore + delta;
+		this.quantityListener.onQuantityChanged(this.priceOfBucket, quantityBefore, this.quantityInQueue);
+	}
+
 	/**
 	 * Indicates whether the queue is empty
 	 *
@@ -46,7 +72,7 @@ class OrderBucket {
 	boolean enqueueOrder(final OrderEntry orderEntry) {
 		System.out.printf("Bucket(%f): Queueing order '%d', qty=%f%n", this.priceOfBucket, orderEntry.getOrderId(), orderEntry.getRemainingQuantity());
 		final boolean success = this.orderEntryList.add(orderEntry);
-		quantityInQueue += orderEntry.getRemainingQuantity();
+		addQuantity(orderEntry.getRemainingQuantity());
 		return success;
 	}
 
@@ -120,7 +146,7 @@ class OrderBucket {
 		final double totalExecutedQty = originalQtyToMatch - remainingQty;
 
 		List<Long> doneOrderIds = Collections.emptyList();
-		this.quantityInQueue -= totalExecutedQty;
+		addQuantity(-totalExecutedQty);
 		if (totalExecutedQty > 0) {
 			final ArrayList<Long> removedEntries = new ArrayList<>(matchedOrders.size());
 			final boolean removed = this.orderEntryList.removeIf(orderEntry -> {
@@ -153,7 +179,7 @@ class OrderBucket {
 				System.out.printf("Bucket(%f): Cancel order '%d'%n", this.priceOfBucket, orderId);
 				it.remove();
 				// take out the quantity for consistency, in case the object is referenced somewhere else
-				this.quantityInQueue -= curEntry.takeQuantity(curEntry.getRemainingQuantity());
+				addQuantity(-curEntry.takeQuantity(curEntry.getRemainingQuantity()));
 				return true;
 			}
 		}
@@ -161,6 +187,48 @@ class OrderBucket {
 		return false;
 	}
 
+	/**
+	 * Take the order with the given order ID out of the queue, leaving the entry as it is, so it can be queued elsewhere
+	 *
+	 * @param orderId the ID of the order to take out
+	 * @return the order entry taken out, or {@code null} if it is not in this bucket
+	 */
+	OrderEntry removeOrder(final long orderId) {
+		final Iterator<OrderEntry> it = this.orderEntryList.iterator();
+		while (it.hasNext()) {
+			final OrderEntry curEntry = it.next();
+			if (curEntry.getOrderId() == orderId) {
+				System.out.printf("Bucket(%f): Remove order '%d'%n", this.priceOfBucket, orderId);
+				it.remove();
+				addQuantity(-curEntry.getRemainingQuantity());
+				return curEntry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Cancel all orders in this bucket accepted by the given filter, in a single pass.
+	 *
+	 * @param filter            selects the orders to cancel
+	 * @param cancelledOrderIds receives the IDs of the cancelled orders, in queue order
+	 * @return the number of orders cancelled
+	 */
+	int cancelOrders(final Predicate<OrderEntry> filter, final List<Long> cancelledOrderIds) {
+		final int sizeBefore = this.orderEntryList.size();
+		this.orderEntryList.removeIf(orderEntry -> {
+			if (!filter.test(orderEntry))
+				return false;
+			cancelledOrderIds.add(orderEntry.getOrderId());
+			addQuantity(-orderEntry.takeQuantity(orderEntry.getRemainingQuantity()));
+			return true;
+		});
+		final int cancelled = sizeBefore - this.orderEntryList.size();
+		if (cancelled > 0)
+			System.out.printf("Bucket(%f): Mass cancelled %d orders%n", this.priceOfBucket, cancelled);
+		return cancelled;
+	}
+
 	/**
 	 * Change the order quantity of the given order ID.
 	 * <ol>
@@ -173,7 +241,7 @@ class OrderBucket {
 	 * @return {@code true} if the order was amended successfully, false otherwise
 	 */
 	boolean resizeOrder(final long orderId, final double newQuantity) {
-		boolean queueOrderAtEnd = false;
+		OrderEntry entryToRequeue = null;
 		for (final Iterator<OrderEntry> it = this.orderEntryList.iterator(); it.hasNext(); ) {
 			final OrderEntry curEntry = it.next();
 			if (orderId != curEntry.getOrderId())
@@ -183,20 +251,22 @@ class OrderBucket {
 			if (delta > 0) {
 				System.out.printf("Bucket(%f): In-place amend order '%d' quantity from %f to %f%n", this.priceOfBucket, orderId, origQty, newQuantity);
 				curEntry.takeQuantity(delta);
-				this.quantityInQueue -= delta;
+				addQuantity(-delta);
 				return true;
 			}
 			else {
 				System.out.printf("Bucket(%f): Removing order '%d' for re-queueing; quantity from %f to %f%n", this.priceOfBucket, orderId, origQty, newQuantity);
-				queueOrderAtEnd = true;
-				this.quantityInQueue -= curEntry.getRemainingQuantity();
+				entryToRequeue = curEntry;
+				addQuantity(-curEntry.getRemainingQuantity());
 				it.remove();
 				break;
 			}
 		}
-		if (queueOrderAtEnd)
-			enqueueOrder(new OrderEntry(orderId, newQuantity));
-
-		return queueOrderAtEnd;
+		if (null == entryToRequeue)
+			return false;
+		// re-queue the same entry, so whoever holds on to it keeps seeing the live order
+		entryToRequeue.resetQuantity(newQuantity);
+		enqueueOrder(entryToRequeue);
+		return true;
 	}
 }
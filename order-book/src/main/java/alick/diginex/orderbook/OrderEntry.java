@@ -4,6 +4,7 @@ import java.util.Objects;
 
 class OrderEntry {
 	private final long orderId;
+	private final long ownerId;
 	private double remainingQuantity;
 
 	/**
@@ -12,16 +13,30 @@ class OrderEntry {
 	 * @throws IllegalArgumentException if order quantity is zero / negative
 	 */
 	OrderEntry(final long orderId, final double orderQuantity) {
+		this(orderId, orderQuantity, 0L);
+	}
+
+	/**
+	 * initializes order entry with the order ID, initial order quantity and the owner of the order
+	 *
+	 * @throws IllegalArgumentException if order quantity is zero / negative
+	 */
+	OrderEntry(final long orderId, final double orderQuantity, final long ownerId) {
 		if (orderQuantity <= 0.0d)
 			throw new IllegalArgumentException("order " + orderId + ": quantity cannot be zero or negative: " + orderQuantity);
 		this.remainingQuantity = orderQuantity;
 		this.orderId = orderId;
+		this.ownerId = ownerId;
 	}
 
 	public long getOrderId() {
 		return orderId;
 	}
 
+	public long getOwnerId() {
+		return ownerId;
+	}
+
 	public double getRemainingQuantity() {
 		return remainingQuantity;
 	}
@@ -43,6 +58,7 @@ class OrderEntry {
 	public String toString() {
 		return "OrderEntry(" +
 				"orderId=" + orderId +
+				", ownerId=" + ownerId +
 				", remainingQuantity=" + remainingQuantity +
 				')';
 	}
@@ -59,6 +75,17 @@ class OrderEntry {
 		return actualQtyToTake;
 	}
 
+	/**
+	 * Set a new remaining quantity, for an order re-queued with a different size
+	 *
+	 * @throws IllegalArgumentException if the new quantity is zero / negative
+	 */
+	void resetQuantity(final double newQuantity) {
+		if (newQuantity <= 0.0d)
+			throw new IllegalArgumentException("order " + orderId + ": quantity cannot be zero or negative: " + newQuantity);
+		this.remainingQuantity = newQuantity;
+	}
+
 	boolean isOrderDone() {
 		return 0 == this.remainingQuantity;
 //		return this.remainingQuantity < 0.00000001d;
@@ -2,7 +2,9 @@ package alick.diginex.orderbook;
 
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
 import alick.diginex.orderbook.request.AmendRequest;
+import alick.diginex.orderbook.request.MassCancelRequest;
 import alick.diginex.orderbook.request.NewRequest;
 import alick.diginex.orderbook.response.*;
 import org.junit.jupiter.api.Test;
@@ -195,4 +197,39 @@ public class OrderBookAmendTest extends OrderBookTestBase {
 			));
 		}
 	}
+
+	@Test
+	public void amendPriceMovesOrderWithItsOwner() {
+		final long ownerId = 5;
+		final NewRequest buyRequest = new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 100, 99.9, TimeInForce.DAY, ownerId);
+		assertThat("new order action successful", this.orderBook.submitRequest(buyRequest), instanceOf(SuccessResponse.class));
+
+		final AmendRequest amendReq = new AmendRequest(buyRequest.getOrderId(), Side.BUY, OrderType.LIMIT, 60, 99.5);
+		{
+			final Response resp = this.orderBook.submitRequest(amendReq);
+			assertThat("amend action successful", resp, instanceOf(SuccessResponse.class));
+			assertThat("bid summary after amend price", resp.getBidSummary().getDepths(), contains(
+					new Level2Summary.PriceQuantity(99.5, 60)));
+			assertThat("old price level left empty", this.orderBook.snapshotOrderBook().getBidLimitQueue().get(99.9), nullValue());
+		}
+		final MassCancelResponse cancelResp = (MassCancelResponse) this.orderBook.submitRequest(
+				MassCancelRequest.byOwner(this.idGenerator.getNextId(), ownerId));
+		assertThat("moved order still belongs to its owner", cancelResp.getCancelledOrderIds(), contains(buyRequest.getOrderId()));
+	}
+
+	@Test
+	public void amendMarketToLimitMovesOrder() {
+		final NewRequest sellRequest = new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.MARKET, 50, 0);
+		assertThat("new order action successful", this.orderBook.submitRequest(sellRequest), instanceOf(SuccessResponse.class));
+
+		final AmendRequest amendReq = new AmendRequest(sellRequest.getOrderId(), Side.SELL, OrderType.LIMIT, 50, 100.2);
+		final Response resp = this.orderBook.submitRequest(amendReq);
+		assertThat("amend action successful", resp, instanceOf(SuccessResponse.class));
+		assertThat("ask summary after amend to limit", resp.getAskSummary().getDepths(), contains(
+				new Level2Summary.PriceQuantity(100.2, 50)));
+
+		final NewRequest buyRequest = new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 20, 100.2);
+		assertThat("moved order trades at its new price", this.orderBook.submitRequest(buyRequest).getExecutions(), contains(
+				new Execution(buyRequest.getOrderId(), sellRequest.getOrderId(), 20, 100.2)));
+	}
 }
@@ -0,0 +1,88 @@
+package alick.diginex.orderbook;
+
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.orderbook.request.NewRequest;
+import alick.diginex.orderbook.request.StartAuctionRequest;
+import alick.diginex.orderbook.request.UncrossRequest;
+import alick.diginex.orderbook.response.ErrorResponse;
+import alick.diginex.orderbook.response.Execution;
+import alick.diginex.orderbook.response.Level2Summary.PriceQuantity;
+import alick.diginex.orderbook.response.Response;
+import alick.diginex.orderbook.response.SuccessResponse;
+import alick.diginex.orderbook.response.UncrossResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OrderBookAuctionTest extends OrderBookTestBase {
+	private long submitNew(final Side side, final OrderType orderType, final double qty, final double price, final TimeInForce timeInForce) {
+		final long orderId = this.idGenerator.getNextId();
+		final Response resp = this.orderBook.submitRequest(new NewRequest(orderId, side, orderType, qty, price, timeInForce, 1));
+		assertThat("new order accepted", resp, instanceOf(SuccessResponse.class));
+		assertThat("nothing executes during the auction", resp.getExecutions(), empty());
+		return orderId;
+	}
+
+	private UncrossResponse uncross() {
+		final Response resp = this.orderBook.submitRequest(new UncrossRequest(this.idGenerator.getNextId()));
+		assertThat("uncross response", resp, instanceOf(UncrossResponse.class));
+		return (UncrossResponse) resp;
+	}
+
+	@Test
+	public void uncrossesAtThePriceExecutingTheMost() {
+		assertThat("auction started", this.orderBook.submitRequest(new StartAuctionRequest(this.idGenerator.getNextId())), instanceOf(SuccessResponse.class));
+		final long buy101 = submitNew(Side.BUY, OrderType.LIMIT, 10, 101, TimeInForce.DAY);
+		final long buy100 = submitNew(Side.BUY, OrderType.LIMIT, 10, 100, TimeInForce.DAY);
+		final long buyMarket = submitNew(Side.BUY, OrderType.MARKET, 5, 0, TimeInForce.DAY);
+		final long sell99 = submitNew(Side.SELL, OrderType.LIMIT, 8, 99, TimeInForce.DAY);
+		final long sell100 = submitNew(Side.SELL, OrderType.LIMIT, 10, 100, TimeInForce.DAY);
+		submitNew(Side.SELL, OrderType.LIMIT, 10, 102, TimeInForce.DAY);
+		submitNew(Side.SELL, OrderType.LIMIT, 50, 90, TimeInForce.IOC);
+		assertThat("crossed book while collecting", this.orderBook.getBestBidPrice(), greaterThan(this.orderBook.getBestAskPrice()));
+		assertThat("immediate order expired unqueued", this.orderBook.getBestAskPrice(), is(99d));
+		assertThat("indicative price", this.orderBook.getIndicativeUncrossPrice(), is(100d));
+
+		// 18 at 100, against 8 at 99, 15 at 101, 5 at 102
+		final UncrossResponse resp = uncross();
+		assertThat("uncross price", resp.getUncrossPrice(), is(100d));
+		assertThat("executions in priority order of both sides", resp.getExecutions(), contains(
+				new Execution(buyMarket, sell99, 5, 100),
+				new Execution(buy101, sell99, 3, 100),
+				new Execution(buy101, sell100, 7, 100),
+				new Execution(buy100, sell100, 3, 100)));
+		assertThat("what is left does not cross", resp.getBidSummary().getDepths(), contains(new PriceQuantity(100, 7)));
+		assertThat("ask left", resp.getAskSummary().getDepths(), contains(new PriceQuantity(102, 10)));
+		assertThat("last price", this.orderBook.getLastPrice(), is(100d));
+		assertThat("back to continuous matching", this.orderBook.isInAuction(), is(false));
+
+		final Response next = this.orderBook.submitRequest(new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 2, 100, TimeInForce.DAY, 1));
+		assertThat("crosses right away", next.getExecutions(), hasSize(1));
+	}
+
+	@Test
+	public void uncrossWithoutCross() {
+		assertThat("not in an auction", this.orderBook.submitRequest(new UncrossRequest(this.idGenerator.getNextId())), instanceOf(ErrorResponse.class));
+		this.orderBook.submitRequest(new StartAuctionRequest(this.idGenerator.getNextId()));
+		assertThat("already in an auction", this.orderBook.submitRequest(new StartAuctionRequest(this.idGenerator.getNextId())), instanceOf(ErrorResponse.class));
+		submitNew(Side.BUY, OrderType.LIMIT, 10, 99, TimeInForce.DAY);
+		submitNew(Side.SELL, OrderType.LIMIT, 10, 101, TimeInForce.DAY);
+		assertThat("no indicative price", this.orderBook.getIndicativeUncrossPrice(), is(Double.NaN));
+		final UncrossResponse resp = uncross();
+		assertThat("no uncross price", resp.getUncrossPrice(), is(Double.NaN));
+		assertThat("no execution", resp.getExecutions(), empty());
+		assertThat("last price unchanged", this.orderBook.getLastPrice(), is(100d));
+
+		// only market orders crossing trade at the last price
+		final OrderBook marketOnly = new OrderBook(100);
+		marketOnly.submitRequest(new StartAuctionRequest(this.idGenerator.getNextId()));
+		marketOnly.submitRequest(new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.MARKET, 5, 0, TimeInForce.DAY, 1));
+		marketOnly.submitRequest(new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.MARKET, 3, 0, TimeInForce.DAY, 1));
+		final UncrossResponse marketResp = (UncrossResponse) marketOnly.submitRequest(new UncrossRequest(this.idGenerator.getNextId()));
+		assertThat("market orders at the last price", marketResp.getUncrossPrice(), is(100d));
+		assertThat("market order quantity", marketResp.getExecutions().get(0).getQuantity(), is(3d));
+	}
+}
@@ -0,0 +1,115 @@
+package alick.diginex.orderbook;
+
+import alick.diginex.entities.OrderBookSnapshot;
+import alick.diginex.entities.OrderBookSnapshot.OrderOpenQty;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.orderbook.request.AmendRequest;
+import alick.diginex.orderbook.request.CancelRequest;
+import alick.diginex.orderbook.request.MassCancelRequest;
+import alick.diginex.orderbook.request.NewRequest;
+import alick.diginex.orderbook.response.ErrorResponse;
+import alick.diginex.orderbook.response.Level2Summary.PriceQuantity;
+import alick.diginex.orderbook.response.MassCancelResponse;
+import alick.diginex.orderbook.response.Response;
+import alick.diginex.orderbook.response.SuccessResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OrderBookMassCancelTest extends OrderBookTestBase {
+	private static final long MAKER_A = 1;
+	private static final long MAKER_B = 2;
+
+	private NewRequest bidA1, bidA2, bidB1, askA1, askB1, askB2;
+
+	private NewRequest submitNew(final Side side, final OrderType orderType, final double qty, final double price, final long ownerId) {
+		final NewRequest request = new NewRequest(this.idGenerator.getNextId(), side, orderType, qty, price, TimeInForce.DAY, ownerId);
+		assertThat("new order accepted", this.orderBook.submitRequest(request), instanceOf(SuccessResponse.class));
+		return request;
+	}
+
+	@BeforeEach
+	public void setupBook() {
+		this.bidA1 = submitNew(Side.BUY, OrderType.LIMIT, 10, 99.9, MAKER_A);
+		this.bidB1 = submitNew(Side.BUY, OrderType.LIMIT, 20, 99.9, MAKER_B);
+		this.bidA2 = submitNew(Side.BUY, OrderType.LIMIT, 30, 99.5, MAKER_A);
+		this.askA1 = submitNew(Side.SELL, OrderType.LIMIT, 40, 100.1, MAKER_A);
+		this.askB1 = submitNew(Side.SELL, OrderType.LIMIT, 50, 100.2, MAKER_B);
+		this.askB2 = submitNew(Side.SELL, OrderType.LIMIT, 60, 100.8, MAKER_B);
+	}
+
+	@Test
+	public void cancelAllOrders() {
+		final Response resp = this.orderBook.submitRequest(MassCancelRequest.allOrders(this.idGenerator.getNextId()));
+		assertThat("mass cancel response", resp, instanceOf(MassCancelResponse.class));
+		assertThat("all orders cancelled, bids best first, then asks", ((MassCancelResponse) resp).getCancelledOrderIds(), contains(
+				this.bidA1.getOrderId(), this.bidB1.getOrderId(), this.bidA2.getOrderId(),
+				this.askA1.getOrderId(), this.askB1.getOrderId(), this.askB2.getOrderId()));
+		assertThat("no bid left", resp.getBidSummary().getDepths(), empty());
+		assertThat("no ask left", resp.getAskSummary().getDepths(), empty());
+
+		assertThat("cancelled order cannot be cancelled again",
+				this.orderBook.submitRequest(new CancelRequest(this.bidA1.getOrderId())), instanceOf(ErrorResponse.class));
+	}
+
+	@Test
+	public void cancelBySideIncludesMarketOrders() {
+		final MassCancelResponse bidResp = (MassCancelResponse) this.orderBook.submitRequest(MassCancelRequest.bySide(this.idGenerator.getNextId(), Side.BUY));
+		assertThat("buy orders cancelled", bidResp.getCancelledOrderIds(), contains(
+				this.bidA1.getOrderId(), this.bidB1.getOrderId(), this.bidA2.getOrderId()));
+		assertThat("asks untouched", bidResp.getAskSummary().getDepths(), hasSize(3));
+
+		// with no bid left, the market order has nothing to cross with, and rests
+		final NewRequest sellMkt = submitNew(Side.SELL, OrderType.MARKET, 500, 0, MAKER_B);
+		final MassCancelResponse resp = (MassCancelResponse) this.orderBook.submitRequest(MassCancelRequest.bySide(this.idGenerator.getNextId(), Side.SELL));
+		assertThat("sell orders cancelled, market orders first", resp.getCancelledOrderIds(), contains(
+				sellMkt.getOrderId(), this.askA1.getOrderId(), this.askB1.getOrderId(), this.askB2.getOrderId()));
+		assertThat("no ask left", resp.getAskSummary().getDepths(), empty());
+		assertThat("no sell market order left", this.orderBook.snapshotOrderBook().getAskMarketQueue(), empty());
+	}
+
+	@Test
+	public void cancelByPriceRange() {
+		final MassCancelResponse resp = (MassCancelResponse) this.orderBook.submitRequest(
+				MassCancelRequest.byPriceRange(this.idGenerator.getNextId(), null, 99.9, 100.2));
+		assertThat("orders within range cancelled", resp.getCancelledOrderIds(), contains(
+				this.bidA1.getOrderId(), this.bidB1.getOrderId(), this.askA1.getOrderId(), this.askB1.getOrderId()));
+
+		final OrderBookSnapshot snapshot = this.orderBook.snapshotOrderBook();
+		assertThat("bid outside range", snapshot.getBidLimitQueue().get(99.5), contains(new OrderOpenQty(this.bidA2.getOrderId(), 30)));
+		assertThat("ask outside range", snapshot.getAskLimitQueue().get(100.8), contains(new OrderOpenQty(this.askB2.getOrderId(), 60)));
+
+		final MassCancelResponse openEnded = (MassCancelResponse) this.orderBook.submitRequest(
+				MassCancelRequest.byPriceRange(this.idGenerator.getNextId(), Side.SELL, 100.5, Double.NaN));
+		assertThat("open ended range", openEnded.getCancelledOrderIds(), contains(this.askB2.getOrderId()));
+	}
+
+	@Test
+	public void cancelByOwnerKeepsOwnerAcrossAmend() {
+		// resize up re-queues the entry, and a price amend goes through cancel + new; both must keep the owner
+		this.orderBook.submitRequest(new AmendRequest(this.bidA1.getOrderId(), Side.BUY, OrderType.LIMIT, 15, 99.9));
+		this.orderBook.submitRequest(new AmendRequest(this.askA1.getOrderId(), Side.SELL, OrderType.LIMIT, 40, 100.3));
+
+		final MassCancelResponse resp = (MassCancelResponse) this.orderBook.submitRequest(
+				MassCancelRequest.byOwner(this.idGenerator.getNextId(), MAKER_A));
+		assertThat("orders of maker A cancelled", resp.getCancelledOrderIds(), contains(
+				this.bidA1.getOrderId(), this.bidA2.getOrderId(), this.askA1.getOrderId()));
+		assertThat("bids of maker B left", resp.getBidSummary().getDepths(), contains(
+				new PriceQuantity(99.9, 20), new PriceQuantity(99.5, 0)));
+		assertThat("asks of maker B left", resp.getAskSummary().getDepths(), contains(
+				new PriceQuantity(100.2, 50), new PriceQuantity(100.3, 0), new PriceQuantity(100.8, 60)));
+	}
+
+	@Test
+	public void nothingToCancel() {
+		final MassCancelResponse resp = (MassCancelResponse) this.orderBook.submitRequest(
+				MassCancelRequest.byOwner(this.idGenerator.getNextId(), 42));
+		assertThat("nothing cancelled", resp.getCancelledOrderIds(), empty());
+		assertThat("bids untouched", resp.getBidSummary().getDepths(), hasSize(2));
+		assertThat("asks untouched", resp.getAskSummary().getDepths(), hasSize(3));
+	}
+}
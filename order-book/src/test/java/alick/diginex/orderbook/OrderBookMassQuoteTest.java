@@ -0,0 +1,165 @@
+package alick.diginex.orderbook;
+
+import alick.diginex.entities.OrderBookSnapshot;
+import alick.diginex.entities.OrderBookSnapshot.OrderOpenQty;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.orderbook.request.AmendRequest;
+import alick.diginex.orderbook.request.CancelRequest;
+import alick.diginex.orderbook.request.MassQuoteRequest;
+import alick.diginex.orderbook.request.MassQuoteRequest.QuoteLevel;
+import alick.diginex.orderbook.request.NewRequest;
+import alick.diginex.orderbook.response.ErrorResponse;
+import alick.diginex.orderbook.response.Execution;
+import alick.diginex.orderbook.response.Level2Summary.PriceQuantity;
+import alick.diginex.orderbook.response.MassQuoteResponse;
+import alick.diginex.orderbook.response.Response;
+import alick.diginex.orderbook.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OrderBookMassQuoteTest extends OrderBookTestBase {
+	private static final long MAKER = 7;
+
+	private QuoteLevel level(final double price, final double qty) {
+		return new QuoteLevel(this.idGenerator.getNextId(), price, qty);
+	}
+
+	private MassQuoteResponse quote(final QuoteLevel[] bids, final QuoteLevel[] asks) {
+		final Response resp = this.orderBook.submitRequest(
+				new MassQuoteRequest(this.idGenerator.getNextId(), MAKER, Arrays.asList(bids), Arrays.asList(asks)));
+		assertThat("mass quote response", resp, instanceOf(MassQuoteResponse.class));
+		return (MassQuoteResponse) resp;
+	}
+
+	private NewRequest submitNew(final Side side, final double qty, final double price) {
+		final NewRequest request = new NewRequest(this.idGenerator.getNextId(), side, OrderType.LIMIT, qty, price, TimeInForce.DAY, 1);
+		assertThat("new order accepted", this.orderBook.submitRequest(request), instanceOf(SuccessResponse.class));
+		return request;
+	}
+
+	@Test
+	public void firstQuoteEntersAllLevels() {
+		final QuoteLevel bid1 = level(99.9, 10), bid2 = level(99.8, 20), ask1 = level(100.1, 30);
+		final MassQuoteResponse resp = quote(new QuoteLevel[]{bid1, bid2}, new QuoteLevel[]{ask1});
+		assertThat("bid order IDs", resp.getBidOrderIds(), contains(bid1.getOrderId(), bid2.getOrderId()));
+		assertThat("ask order IDs", resp.getAskOrderIds(), contains(ask1.getOrderId()));
+		assertThat("nothing cancelled", resp.getCancelledOrderIds(), empty());
+		assertThat("no execution", resp.getExecutions(), empty());
+		assertThat("bid summary", resp.getBidSummary().getDepths(), contains(
+				new PriceQuantity(99.9, 10), new PriceQuantity(99.8, 20)));
+		assertThat("ask summary", resp.getAskSummary().getDepths(), contains(new PriceQuantity(100.1, 30)));
+	}
+
+	@Test
+	public void requoteKeepsUnchangedLevelsInPlace() {
+		final QuoteLevel bid1 = level(99.9, 10), bid2 = level(99.8, 20), ask1 = level(100.1, 30);
+		quote(new QuoteLevel[]{bid1, bid2}, new QuoteLevel[]{ask1});
+		// another participant joins the queue behind the maker
+		final NewRequest other = submitNew(Side.BUY, 5, 99.9);
+
+		final QuoteLevel bid1Again = level(99.9, 10), bid3 = level(99.7, 40), ask1Bigger = level(100.1, 35);
+		final MassQuoteResponse resp = quote(new QuoteLevel[]{bid1Again, bid3}, new QuoteLevel[]{ask1Bigger});
+		assertThat("unchanged and resized levels keep their order ID", resp.getBidOrderIds(), contains(
+				bid1.getOrderId(), bid3.getOrderId()));
+		assertThat("resized ask keeps its order ID", resp.getAskOrderIds(), contains(ask1.getOrderId()));
+		assertThat("bid open quantities", resp.getBidOpenQtys(), contains(10d, 40d));
+		assertThat("ask open quantities", resp.getAskOpenQtys(), contains(35d));
+		assertThat("only the ask is resized", resp.getResizedOrderIds(), contains(ask1.getOrderId()));
+		assertThat("level no longer quoted is pulled", resp.getCancelledOrderIds(), contains(bid2.getOrderId()));
+		assertThat("bid summary", resp.getBidSummary().getDepths(), contains(
+				new PriceQuantity(99.9, 15), new PriceQuantity(99.8, 0), new PriceQuantity(99.7, 40)));
+		assertThat("ask summary", resp.getAskSummary().getDepths(), contains(new PriceQuantity(100.1, 35)));
+
+		final OrderBookSnapshot snapshot = this.orderBook.snapshotOrderBook();
+		assertThat("maker keeps queue priority @99.9", snapshot.getBidLimitQueue().get(99.9), contains(
+				new OrderOpenQty(bid1.getOrderId(), 10), new OrderOpenQty(other.getOrderId(), 5)));
+
+		assertThat("pulled level cannot be cancelled again",
+				this.orderBook.submitRequest(new CancelRequest(bid2.getOrderId())), instanceOf(ErrorResponse.class));
+	}
+
+	@Test
+	public void requoteAfterPartialFillResizesRemaining() {
+		final QuoteLevel ask1 = level(100.1, 30);
+		quote(new QuoteLevel[0], new QuoteLevel[]{ask1});
+		submitNew(Side.BUY, 10, 100.1);
+
+		final MassQuoteResponse resp = quote(new QuoteLevel[0], new QuoteLevel[]{level(100.1, 30)});
+		assertThat("partially filled level is topped up", resp.getAskOrderIds(), contains(ask1.getOrderId()));
+		assertThat("ask summary", resp.getAskSummary().getDepths(), contains(new PriceQuantity(100.1, 30)));
+	}
+
+	@Test
+	public void requoteAfterFullFillEntersNewOrder() {
+		final QuoteLevel ask1 = level(100.1, 30);
+		quote(new QuoteLevel[0], new QuoteLevel[]{ask1});
+		submitNew(Side.BUY, 30, 100.1);
+
+		final QuoteLevel ask1Again = level(100.1, 30);
+		final MassQuoteResponse resp = quote(new QuoteLevel[0], new QuoteLevel[]{ask1Again});
+		assertThat("filled level is replaced by a new order", resp.getAskOrderIds(), contains(ask1Again.getOrderId()));
+		assertThat("filled order is not reported cancelled", resp.getCancelledOrderIds(), empty());
+	}
+
+	@Test
+	public void newLevelCrossesTheBook() {
+		final NewRequest resting = submitNew(Side.SELL, 15, 100.0);
+
+		final QuoteLevel bid1 = level(100.0, 10), ask1 = level(100.2, 10);
+		final MassQuoteResponse resp = quote(new QuoteLevel[]{bid1}, new QuoteLevel[]{ask1});
+		assertThat("crossing level trades", resp.getExecutions(), contains(
+				new Execution(bid1.getOrderId(), resting.getOrderId(), 10, 100.0)));
+		assertThat("filled level reported", resp.getBidOrderIds(), contains(bid1.getOrderId()));
+		assertThat("no bid left", resp.getBidSummary().getDepths(), empty());
+		assertThat("ask summary", resp.getAskSummary().getDepths(), contains(
+				new PriceQuantity(100.0, 5), new PriceQuantity(100.2, 10)));
+		assertThat("last price", this.orderBook.getLastPrice(), is(100.0));
+	}
+
+	@Test
+	public void pulledLevelsAreGoneBeforeNewLevelsCross() {
+		final QuoteLevel ask1 = level(100.1, 30);
+		quote(new QuoteLevel[0], new QuoteLevel[]{ask1});
+
+		// moving the whole ladder down through the old ask does not self-trade
+		final QuoteLevel bid1 = level(100.1, 10), ask2 = level(100.3, 10);
+		final MassQuoteResponse resp = quote(new QuoteLevel[]{bid1}, new QuoteLevel[]{ask2});
+		assertThat("old ask pulled", resp.getCancelledOrderIds(), contains(ask1.getOrderId()));
+		assertThat("no execution", resp.getExecutions(), empty());
+		assertThat("bid summary", resp.getBidSummary().getDepths(), contains(new PriceQuantity(100.1, 10)));
+	}
+
+	@Test
+	public void emptyQuotePullsEverything() {
+		final QuoteLevel bid1 = level(99.9, 10), ask1 = level(100.1, 30);
+		quote(new QuoteLevel[]{bid1}, new QuoteLevel[]{ask1});
+
+		final MassQuoteResponse resp = (MassQuoteResponse) this.orderBook.submitRequest(new MassQuoteRequest(
+				this.idGenerator.getNextId(), MAKER, Collections.emptyList(), Collections.emptyList()));
+		assertThat("all levels pulled", resp.getCancelledOrderIds(), contains(bid1.getOrderId(), ask1.getOrderId()));
+		assertThat("no bid left", resp.getBidSummary().getDepths(), empty());
+		assertThat("no ask left", resp.getAskSummary().getDepths(), empty());
+	}
+
+	@Test
+	public void levelAmendedAwayIsNoLongerQuoted() {
+		final QuoteLevel bid1 = level(99.9, 10);
+		quote(new QuoteLevel[]{bid1}, new QuoteLevel[0]);
+		assertThat("amend quoted level to another price", this.orderBook.submitRequest(
+				new AmendRequest(bid1.getOrderId(), Side.BUY, OrderType.LIMIT, 10, 99.5)), instanceOf(SuccessResponse.class));
+
+		final QuoteLevel bid1Again = level(99.9, 10);
+		final MassQuoteResponse resp = quote(new QuoteLevel[]{bid1Again}, new QuoteLevel[0]);
+		assertThat("level entered as a new order", resp.getBidOrderIds(), contains(bid1Again.getOrderId()));
+		assertThat("amended order left alone", resp.getCancelledOrderIds(), empty());
+		assertThat("bid summary", resp.getBidSummary().getDepths(), contains(
+				new PriceQuantity(99.9, 10), new PriceQuantity(99.5, 10)));
+	}
+}
@@ -55,6 +55,29 @@ public class OrderBookNewCancelTest extends OrderBookTestBase {
 		}
 	}
 
+	@Test
+	public void bestPriceSkipsEmptiedLevelsAndFindsRefilledOnes() {
+		final NewRequest buy101 = new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 10, 101);
+		final NewRequest buy100 = new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 20, 100);
+		final NewRequest buy99 = new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 30, 99);
+		this.orderBook.submitRequest(buy101);
+		this.orderBook.submitRequest(buy100);
+		this.orderBook.submitRequest(buy99);
+		this.orderBook.submitRequest(new CancelRequest(buy101.getOrderId()));
+		this.orderBook.submitRequest(new CancelRequest(buy100.getOrderId()));
+		assertThat("best bid past the emptied levels", this.orderBook.getBestBidPrice(), is(99d));
+		assertThat("best bid quantity past the emptied levels", this.orderBook.getBestBidQuantity(), is(30d));
+
+		this.orderBook.submitRequest(new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 5, 100));
+		assertThat("best bid at the refilled level", this.orderBook.getBestBidPrice(), is(100d));
+		assertThat("best bid quantity at the refilled level", this.orderBook.getBestBidQuantity(), is(5d));
+
+		this.orderBook.submitRequest(new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 40, 100));
+		assertThat("best bid after the level traded away", this.orderBook.getBestBidPrice(), is(99d));
+		assertThat("best ask at the new level", this.orderBook.getBestAskPrice(), is(100d));
+		assertThat("best ask quantity at the new level", this.orderBook.getBestAskQuantity(), is(35d));
+	}
+
 	@Test
 	public void addFirstSellOrderThenCancel() {
 		final NewRequest newRequest = new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 100, 100.1);
@@ -4,6 +4,7 @@ import alick.diginex.entities.OrderBookSnapshot;
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
 import alick.diginex.orderbook.request.AmendRequest;
+import alick.diginex.orderbook.request.CancelRequest;
 import alick.diginex.orderbook.request.NewRequest;
 import alick.diginex.orderbook.request.Request;
 import alick.diginex.orderbook.response.*;
@@ -233,4 +234,84 @@ public class OrderBookSummaryTest extends OrderBookTestBase {
 				new Level2Summary.PriceQuantity(100.3, 3000)));
 		assertThat("execution from bad request", resp.getExecutions(), empty());
 	}
+
+	@Test
+	public void depthLimitedSummaryAndSnapshot() {
+		for (int i = 0; i < 10; ++i) {
+			this.orderBook.submitRequest(new NewRequest(idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 100, (999 - i) / 10d));
+			this.orderBook.submitRequest(new NewRequest(idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 100, (999 - i) / 10d));
+		}
+		final NewRequest sell1 = new NewRequest(idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 300, 100.1);
+		this.orderBook.submitRequest(sell1);
+		this.orderBook.submitRequest(new NewRequest(idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 400, 100.2));
+		this.orderBook.submitRequest(new NewRequest(idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 500, 100.3));
+		this.orderBook.submitRequest(new CancelRequest(sell1.getOrderId()));
+
+		assertThat("top 3 bid levels", this.orderBook.summarizeDepth(Side.BUY, 3).getDepths(), contains(
+				new Level2Summary.PriceQuantity(99.9, 200),
+				new Level2Summary.PriceQuantity(99.8, 200),
+				new Level2Summary.PriceQuantity(99.7, 200)));
+		assertThat("emptied ask level skipped", this.orderBook.summarizeDepth(Side.SELL, 5).getDepths(), contains(
+				new Level2Summary.PriceQuantity(100.2, 400),
+				new Level2Summary.PriceQuantity(100.3, 500)));
+		assertThat("bid levels down to 500 summed", this.orderBook.summarizeDepth(Side.BUY, 20, 500).getDepths(), hasSize(3));
+		assertThrows(IllegalArgumentException.class, () -> this.orderBook.summarizeDepth(Side.BUY, 0), "no levels");
+
+		final OrderBookSnapshot top2 = this.orderBook.snapshotOrderBook(2);
+		assertThat("top 2 bid levels", top2.getBidLimitQueue().keySet(), contains(99.9, 99.8));
+		assertThat("orders of a level", top2.getBidLimitQueue().get(99.9), hasSize(2));
+		assertThat("top 2 ask levels", top2.getAskLimitQueue().keySet(), contains(100.2, 100.3));
+		final OrderBookSnapshot limited = this.orderBook.snapshotOrderBook().limitDepth(2, 300);
+		assertThat("limiting a full snapshot", limited.getBidLimitQueue().keySet(), contains(99.9, 99.8));
+		assertThat("ask cut-off reached on the first level", limited.getAskLimitQueue().keySet(), contains(100.2));
+	}
+
+	@Test
+	public void snapshotShowsEachMarketQueue() {
+		final NewRequest sellMarket = new NewRequest(idGenerator.getNextId(), Side.SELL, OrderType.MARKET, 100, 0);
+		this.orderBook.submitRequest(sellMarket);
+		final OrderBookSnapshot snapshot = this.orderBook.snapshotOrderBook();
+		assertThat("bid market order queue", snapshot.getBidMarketQueue(), empty());
+		assertThat("ask market order queue", snapshot.getAskMarketQueue(), contains(new OrderBookSnapshot.OrderOpenQty(sellMarket.getOrderId(), 100)));
+		assertThat("ask market order queue of a limited snapshot", this.orderBook.snapshotOrderBook(1).getAskMarketQueue(), hasSize(1));
+	}
+
+	@Test
+	public void groupedDepthFollowsLevels() {
+		this.orderBook = new OrderBook(100, new double[]{0.5, 1, 10});
+		final NewRequest buy1 = new NewRequest(idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 100, 99.9);
+		final NewRequest buy2 = new NewRequest(idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 200, 99.4);
+		final NewRequest buy3 = new NewRequest(idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 300, 99);
+		final NewRequest sell1 = new NewRequest(idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 100, 100.1);
+		final NewRequest sell2 = new NewRequest(idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 200, 100.5);
+		for (final NewRequest request : new NewRequest[]{buy1, buy2, buy3, sell1, sell2})
+			this.orderBook.submitRequest(request);
+
+		assertThat("bids grouped down by 0.5", this.orderBook.summarizeGroupedDepth(Side.BUY, 0.5).getDepths(), contains(
+				new Level2Summary.PriceQuantity(99.5, 100),
+				new Level2Summary.PriceQuantity(99.0, 500)));
+		assertThat("bids grouped down by 10", this.orderBook.summarizeGroupedDepth(Side.BUY, 10).getDepths(), contains(
+				new Level2Summary.PriceQuantity(90, 600)));
+		assertThat("asks grouped up by 1", this.orderBook.summarizeGroupedDepth(Side.SELL, 1).getDepths(), contains(
+				new Level2Summary.PriceQuantity(101, 300)));
+		assertThat("ask on a boundary stays in its own group", this.orderBook.summarizeGroupedDepth(Side.SELL, 0.5).getDepths(), contains(
+				new Level2Summary.PriceQuantity(100.5, 300)));
+
+		final Level2Summary cachedBids = this.orderBook.summarizeGroupedDepth(Side.BUY, 1);
+		assertThat("cached until the side changes", this.orderBook.summarizeGroupedDepth(Side.BUY, 1), sameInstance(cachedBids));
+
+		// partial fill, amend and cancel all move the groups along
+		this.orderBook.submitRequest(new NewRequest(idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 150, 99.4));
+		this.orderBook.submitRequest(new AmendRequest(buy3.getOrderId(), Side.BUY, OrderType.LIMIT, 250, 99));
+		this.orderBook.submitRequest(new CancelRequest(sell1.getOrderId()));
+		assertThat("grouped bids after the changes", this.orderBook.summarizeGroupedDepth(Side.BUY, 1).getDepths(), contains(
+				new Level2Summary.PriceQuantity(99, 400)));
+		assertThat("ask group emptied by the cancel goes away", this.orderBook.summarizeGroupedDepth(Side.SELL, 0.5).getDepths(), contains(
+				new Level2Summary.PriceQuantity(100.5, 200)));
+		assertThat("bids grouped by 0.5 after the changes", this.orderBook.summarizeGroupedDepth(Side.BUY, 0.5).getDepths(), contains(
+				new Level2Summary.PriceQuantity(99.0, 400)));
+
+		assertThrows(IllegalArgumentException.class, () -> this.orderBook.summarizeGroupedDepth(Side.BUY, 5), "grouping not kept");
+		assertThrows(IllegalArgumentException.class, () -> new OrderBook(100, new double[]{1, 1}), "grouping given twice");
+	}
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package alick.diginex.orderbook;
+
+import alick.diginex.entities.OrderBookSnapshot;
+import alick.diginex.entities.OrderBookSnapshot.OrderOpenQty;
+import alick.diginex.entities.OrderType;
+import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
+import alick.diginex.orderbook.request.CancelRequest;
+import alick.diginex.orderbook.request.NewRequest;
+import alick.diginex.orderbook.response.ErrorResponse;
+import alick.diginex.orderbook.response.Execution;
+import alick.diginex.orderbook.response.Level2Summary.PriceQuantity;
+import alick.diginex.orderbook.response.Response;
+import alick.diginex.orderbook.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OrderBookTimeInForceTest extends OrderBookTestBase {
+	private NewRequest submitNew(final Side side, final OrderType orderType, final double qty, final double price, final TimeInForce timeInForce) {
+		final NewRequest request = new NewRequest(this.idGenerator.getNextId(), side, orderType, qty, price, timeInForce);
+		assertThat("new order accepted", this.orderBook.submitRequest(request), instanceOf(SuccessResponse.class));
+		return request;
+	}
+
+	@Test
+	public void iocBuyResidualIsNotQueued() {
+		final NewRequest sell1 = submitNew(Side.SELL, OrderType.LIMIT, 30, 100.1, TimeInForce.DAY);
+		final NewRequest sell2 = submitNew(Side.SELL, OrderType.LIMIT, 30, 100.3, TimeInForce.DAY);
+
+		final NewRequest ioc = new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.LIMIT, 50, 100.2, TimeInForce.IOC);
+		final Response resp = this.orderBook.submitRequest(ioc);
+		assertThat("ioc order successful", resp, instanceOf(SuccessResponse.class));
+		assertThat("ioc fills what is available within limit", resp.getExecutions(), contains(
+				new Execution(ioc.getOrderId(), sell1.getOrderId(), 30, 100.1)));
+		assertThat("no bid left after ioc", resp.getBidSummary().getDepths(), empty());
+		assertThat("ask beyond limit untouched", resp.getAskSummary().getDepths(), contains(
+				new PriceQuantity(100.3, 30)));
+
+		final OrderBookSnapshot snapshot = this.orderBook.snapshotOrderBook();
+		assertThat("snapshot bid limit-price queue", snapshot.getBidLimitQueue(), anEmptyMap());
+		assertThat("snapshot ask limit-price queue @100.3", snapshot.getAskLimitQueue().get(100.3), contains(
+				new OrderOpenQty(sell2.getOrderId(), 30)));
+
+		assertThat("residual cannot be cancelled, it was never queued",
+				this.orderBook.submitRequest(new CancelRequest(ioc.getOrderId())), instanceOf(ErrorResponse.class));
+	}
+
+	@Test
+	public void iocMarketSellWithNothingToCrossIsNotQueued() {
+		final NewRequest ioc = new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.MARKET, 50, 0, TimeInForce.IOC);
+		final Response resp = this.orderBook.submitRequest(ioc);
+		assertThat("ioc order successful", resp, instanceOf(SuccessResponse.class));
+		assertThat("no execution", resp.getExecutions(), empty());
+		assertThat("snapshot ask market-price queue", this.orderBook.snapshotOrderBook().getAskMarketQueue(), empty());
+	}
+
+	@Test
+	public void fokWithoutEnoughLiquidityLeavesBookUntouched() {
+		final NewRequest buy1 = submitNew(Side.BUY, OrderType.LIMIT, 30, 99.9, TimeInForce.DAY);
+		final NewRequest buy2 = submitNew(Side.BUY, OrderType.LIMIT, 30, 99.8, TimeInForce.DAY);
+		submitNew(Side.BUY, OrderType.LIMIT, 30, 99.7, TimeInForce.DAY);
+
+		// 60 available at or above 99.8, but not 70
+		final NewRequest fok = new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 70, 99.8, TimeInForce.FOK);
+		final Response resp = this.orderBook.submitRequest(fok);
+		assertThat("fok order successful", resp, instanceOf(SuccessResponse.class));
+		assertThat("fok not filled at all", resp.getExecutions(), empty());
+		assertThat("bids untouched", resp.getBidSummary().getDepths(), contains(
+				new PriceQuantity(99.9, 30), new PriceQuantity(99.8, 30), new PriceQuantity(99.7, 30)));
+		assertThat("fok not queued", resp.getAskSummary().getDepths(), empty());
+
+		// exactly 60 available
+		final NewRequest fok2 = new NewRequest(this.idGenerator.getNextId(), Side.SELL, OrderType.LIMIT, 60, 99.8, TimeInForce.FOK);
+		final Response resp2 = this.orderBook.submitRequest(fok2);
+		assertThat("fok fully filled", resp2.getExecutions(), contains(
+				new Execution(buy1.getOrderId(), fok2.getOrderId(), 30, 99.9),
+				new Execution(buy2.getOrderId(), fok2.getOrderId(), 30, 99.8)));
+		assertThat("remaining bids", resp2.getBidSummary().getDepths(), contains(
+				new PriceQuantity(99.7, 30)));
+		assertThat("last price", this.orderBook.getLastPrice(), is(99.8));
+	}
+
+	@Test
+	public void fokCountsMarketOrdersOnOtherSide() {
+		final NewRequest sellMkt = submitNew(Side.SELL, OrderType.MARKET, 20, 0, TimeInForce.DAY);
+		final NewRequest sell1 = submitNew(Side.SELL, OrderType.LIMIT, 20, 100.5, TimeInForce.DAY);
+
+		final NewRequest fok = new NewRequest(this.idGenerator.getNextId(), Side.BUY, OrderType.MARKET, 40, 0, TimeInForce.FOK);
+		final Response resp = this.orderBook.submitRequest(fok);
+		assertThat("fok filled against market and limit orders", resp.getExecutions(), contains(
+				new Execution(fok.getOrderId(), sellMkt.getOrderId(), 20, 100),
+				new Execution(fok.getOrderId(), sell1.getOrderId(), 20, 100.5)));
+	}
+}
@@ -265,4 +265,18 @@ class OrderBucketTest {
 						new OrderEntry(1, 100)
 				));
 	}
+
+	@Test
+	public void removeOrderKeepsEntryIntact() {
+		final OrderBucket bucket = new OrderBucket(100.0);
+		final OrderEntry entry = new OrderEntry(1, 100, 7);
+		bucket.enqueueOrder(entry);
+		bucket.enqueueOrder(new OrderEntry(2, 200));
+
+		assertThat("removed entry is the one queued", bucket.removeOrder(1), sameInstance(entry));
+		assertThat("removed entry keeps its quantity", entry.getRemainingQuantity(), is(100.0d));
+		assertThat("removed entry keeps its owner", entry.getOwnerId(), is(7L));
+		assertThat("quantity in queue after remove", bucket.getQuantityInQueue(), is(200.0d));
+		assertThat("order no longer in bucket", bucket.removeOrder(1), nullValue());
+	}
 }
@@ -0,0 +1,94 @@
+package alick.diginex.orderbook.request;
+
+import alick.diginex.entities.Side;
+
+/**
+ * Cancel all resting orders matching every one of the given criteria in one go.
+ * <ul>
+ *     <li>side: {@code null} for both sides</li>
+ *     <li>price range: inclusive, {@link Double#NaN} for no bound on that end; market orders have no price, and are
+ *     only cancelled if there is no bound on either end</li>
+ *     <li>owner: {@link #ANY_OWNER} for orders of any owner</li>
+ * </ul>
+ * The order ID of this request identifies the request itself, not an order.
+ */
+public class MassCancelRequest extends Request {
+	public static final long ANY_OWNER = 0L;
+
+	private final Side side;
+	private final double minPrice;
+	private final double maxPrice;
+	private final long ownerId;
+
+	public MassCancelRequest(final long requestId, final Side side, final double minPrice, final double maxPrice, final long ownerId) {
+		super(requestId);
+		if (minPrice > maxPrice)
+			throw new IllegalArgumentException("Request ID = '" + requestId + "': min price " + minPrice + " is above max price " + maxPrice);
+		this.side = side;
+		this.minPrice = minPrice;
+		this.maxPrice = maxPrice;
+		this.ownerId = ownerId;
+	}
+
+	public static MassCancelRequest allOrders(final long requestId) {
+		return new MassCancelRequest(requestId, null, Double.NaN, Double.NaN, ANY_OWNER);
+	}
+
+	public static MassCancelRequest bySide(final long requestId, final Side side) {
+		return new MassCancelRequest(requestId, side, Double.NaN, Double.NaN, ANY_OWNER);
+	}
+
+	public static MassCancelRequest byPriceRange(final long requestId, final Side side, final double minPrice, final double maxPrice) {
+		return new MassCancelRequest(requestId, side, minPrice, maxPrice, ANY_OWNER);
+	}
+
+	public static MassCancelRequest byOwner(final long requestId, final long ownerId) {
+		return new MassCancelRequest(requestId, null, Double.NaN, Double.NaN, ownerId);
+	}
+
+	/**
+	 * @return the side to cancel, or {@code null} for both
+	 */
+	public Side getSide() {
+		return side;
+	}
+
+	public double getMinPrice() {
+		return minPrice;
+	}
+
+	public double getMaxPrice() {
+		return maxPrice;
+	}
+
+	public long getOwnerId() {
+		return ownerId;
+	}
+
+	public boolean appliesTo(final Side side) {
+		return null == this.side || this.side == side;
+	}
+
+	public boolean hasPriceRange() {
+		return !Double.isNaN(this.minPrice) || !Double.isNaN(this.maxPrice);
+	}
+
+	public boolean appliesToPrice(final double price) {
+		return !(price < this.minPrice) && !(price > this.maxPrice); // NaN compares false either way
+	}
+
+	public boolean appliesToOwner(final long ownerId) {
+		return ANY_OWNER == this.ownerId || this.ownerId == ownerId;
+	}
+
+	@Override
+	public String toString() {
+		return "MassCancelRequest(" +
+				"requestId=" + getOrderId() +
+				", side=" + side +
+				", minPrice=" + minPrice +
+				", maxPrice=" + maxPrice +
+				", ownerId=" + ownerId +
+				')';
+	}
+}
@@ -0,0 +1,111 @@
+package alick.diginex.orderbook.request;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Replace the whole ladder of quotes of one market maker in one go.
+ * <p/>
+ * Levels are identified by price: a level quoted before at the same price keeps its order, and its queue position
+ * unless its quantity goes up; levels no longer quoted are pulled, and new levels are entered as limit orders. The
+ * order ID of this request identifies the request itself, not an order.
+ */
+public class MassQuoteRequest extends Request {
+	/**
+	 * One price level of the ladder
+	 */
+	public static final class QuoteLevel {
+		private final long orderId;
+		private final double price;
+		private final double quantity;
+
+		/**
+		 * @param orderId  order ID to use if the level is new, ignored if the price is already quoted
+		 * @param price    price of the level
+		 * @param quantity quantity shown at the level
+		 */
+		public QuoteLevel(final long orderId, final double price, final double quantity) {
+			if (quantity <= 0)
+				throw new IllegalArgumentException("Order ID = '" + orderId + "': Quote quantity must be positive");
+			if (0.0 == price)
+				throw new IllegalArgumentException("Order ID = '" + orderId + "': Quote price cannot be 0.0");
+			this.orderId = orderId;
+			this.price = price;
+			this.quantity = quantity;
+		}
+
+		public long getOrderId() {
+			return orderId;
+		}
+
+		public double getPrice() {
+			return price;
+		}
+
+		public double getQuantity() {
+			return quantity;
+		}
+
+		@Override
+		public String toString() {
+			return "QuoteLevel(" +
+					"orderId=" + orderId +
+					", price=" + price +
+					", quantity=" + quantity +
+					')';
+		}
+	}
+
+	private final long ownerId;
+	private final List<QuoteLevel> bids;
+	private final List<QuoteLevel> asks;
+
+	/**
+	 * @param requestId ID of this request
+	 * @param ownerId   the market maker quoting
+	 * @param bids      bid levels, in any order; empty to pull all bids
+	 * @param asks      ask levels, in any order; empty to pull all asks
+	 * @throws IllegalArgumentException if a price is quoted twice on the same side, or the bids and asks cross
+	 */
+	public MassQuoteRequest(final long requestId, final long ownerId, final List<QuoteLevel> bids, final List<QuoteLevel> asks) {
+		super(requestId);
+		if (MassCancelRequest.ANY_OWNER == ownerId)
+			throw new IllegalArgumentException("Request ID = '" + requestId + "': quotes must have an owner");
+		this.ownerId = ownerId;
+		this.bids = null != bids ? bids : Collections.emptyList();
+		this.asks = null != asks ? asks : Collections.emptyList();
+		checkUniquePrices(requestId, this.bids);
+		checkUniquePrices(requestId, this.asks);
+
+		double bestBid = Double.NEGATIVE_INFINITY;
+		for (final QuoteLevel bid : this.bids)
+			bestBid = Math.max(bestBid, bid.getPrice());
+		for (final QuoteLevel ask : this.asks) {
+			if (ask.getPrice() <= bestBid)
+				throw new IllegalArgumentException("Request ID = '" + requestId + "': ask " + ask.getPrice() + " crosses bid " + bestBid);
+		}
+	}
+
+	private static void checkUniquePrices(final long requestId, final List<QuoteLevel> levels) {
+		for (int i = 0; i < levels.size(); ++i) {
+			final QuoteLevel level = Objects.requireNonNull(levels.get(i), "Request ID = '" + requestId + "': quote level");
+			for (int j = 0; j < i; ++j) {
+				if (levels.get(j).getPrice() == level.getPrice())
+					throw new IllegalArgumentException("Request ID = '" + requestId + "': price " + level.getPrice() + " quoted more than once");
+			}
+		}
+	}
+
+	public long getOwnerId() {
+		return ownerId;
+	}
+
+	public List<QuoteLevel> getBids() {
+		return bids;
+	}
+
+	public List<QuoteLevel> getAsks() {
+		return asks;
+	}
+}
@@ -2,6 +2,7 @@ package alick.diginex.orderbook.request;
 
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
 
 import java.util.Objects;
 
@@ -10,8 +11,21 @@ public class NewRequest extends Request {
 	private final OrderType orderType;
 	private final double quantity;
 	private final double price;
+	private final TimeInForce timeInForce;
+	private final long ownerId;
 
 	public NewRequest(final long orderId, final Side side, final OrderType orderType, final double quantity, final double price) {
+		this(orderId, side, orderType, quantity, price, TimeInForce.DAY);
+	}
+
+	public NewRequest(final long orderId, final Side side, final OrderType orderType, final double quantity, final double price, final TimeInForce timeInForce) {
+		this(orderId, side, orderType, quantity, price, timeInForce, MassCancelRequest.ANY_OWNER);
+	}
+
+	/**
+	 * @param ownerId the owner of the order, e.g. the trading session, for {@link MassCancelRequest} by owner
+	 */
+	public NewRequest(final long orderId, final Side side, final OrderType orderType, final double quantity, final double price, final TimeInForce timeInForce, final long ownerId) {
 		super(orderId);
 		this.side = Objects.requireNonNull(side, "Order ID = '" + orderId + "': side");
 		this.orderType = Objects.requireNonNull(orderType, "Order ID = '" + orderId + "': orderType");
@@ -24,6 +38,8 @@ public class NewRequest extends Request {
 			throw new IllegalArgumentException("Order ID = '" + orderId + "': Price is 0.0 but order type is " + orderType);
 		// price, zero for MARKET order, and can be negative (oil future 2020); no need to validate
 		this.price = price;
+		this.timeInForce = Objects.requireNonNull(timeInForce, "Order ID = '" + orderId + "': timeInForce");
+		this.ownerId = ownerId;
 	}
 
 	public Side getSide() {
@@ -41,4 +57,12 @@ public class NewRequest extends Request {
 	public double getPrice() {
 		return price;
 	}
+
+	public TimeInForce getTimeInForce() {
+		return timeInForce;
+	}
+
+	public long getOwnerId() {
+		return ownerId;
+	}
 }
\ No newline at end of file
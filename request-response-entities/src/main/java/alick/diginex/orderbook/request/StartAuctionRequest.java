@@ -0,0 +1,13 @@
+package alick.diginex.orderbook.request;
+
+/**
+ * Stop continuous matching and collect orders for a call auction, e.g. before the open or during a halt; orders are
+ * queued without crossing until the book is uncrossed with an {@link UncrossRequest}.
+ * <p/>
+ * The order ID of this request identifies the request itself, not an order.
+ */
+public class StartAuctionRequest extends Request {
+	public StartAuctionRequest(final long requestId) {
+		super(requestId);
+	}
+}
@@ -0,0 +1,28 @@
+package alick.diginex.orderbook.request;
+
+/**
+ * End the call auction: execute everything that crosses in a single pass at one price, the one which executes the most
+ * quantity, then either go back to continuous matching or, for frequent batch auctions, keep collecting orders for the
+ * next batch.
+ * <p/>
+ * The order ID of this request identifies the request itself, not an order.
+ */
+public class UncrossRequest extends Request {
+	private final boolean keepCollecting;
+
+	public UncrossRequest(final long requestId) {
+		this(requestId, false);
+	}
+
+	/**
+	 * @param keepCollecting whether orders keep being collected for another auction after this one is uncrossed
+	 */
+	public UncrossRequest(final long requestId, final boolean keepCollecting) {
+		super(requestId);
+		this.keepCollecting = keepCollecting;
+	}
+
+	public boolean isKeepCollecting() {
+		return keepCollecting;
+	}
+}
@@ -0,0 +1,19 @@
+package alick.diginex.orderbook.response;
+
+import java.util.List;
+
+/**
+ * Outcome of a mass cancel: the orders taken out of the book, in the order they were found, best price first.
+ */
+public class MassCancelResponse extends SuccessResponse {
+	private final List<Long> cancelledOrderIds;
+
+	public MassCancelResponse(final Long requestId, final Level2Summary bidSummary, final Level2Summary askSummary, final List<Long> cancelledOrderIds) {
+		super(requestId, bidSummary, askSummary, null);
+		this.cancelledOrderIds = cancelledOrderIds;
+	}
+
+	public List<Long> getCancelledOrderIds() {
+		return cancelledOrderIds;
+	}
+}
@@ -0,0 +1,77 @@
+package alick.diginex.orderbook.response;
+
+import java.util.List;
+
+/**
+ * Outcome of a mass quote: the order standing for each quoted level, the orders pulled, and the executions of new
+ * levels which crossed the book.
+ */
+public class MassQuoteResponse extends SuccessResponse {
+	private final List<Long> bidOrderIds;
+	private final List<Long> askOrderIds;
+	private final List<Double> bidOpenQtys;
+	private final List<Double> askOpenQtys;
+	private final List<Long> resizedOrderIds;
+	private final List<Long> cancelledOrderIds;
+
+	public MassQuoteResponse(
+			final Long requestId,
+			final Level2Summary bidSummary, final Level2Summary askSummary,
+			final List<Execution> executions,
+			final List<Long> bidOrderIds, final List<Long> askOrderIds,
+			final List<Double> bidOpenQtys, final List<Double> askOpenQtys,
+			final List<Long> resizedOrderIds,
+			final List<Long> cancelledOrderIds) {
+		super(requestId, bidSummary, askSummary, executions);
+		this.bidOrderIds = bidOrderIds;
+		this.askOrderIds = askOrderIds;
+		this.bidOpenQtys = bidOpenQtys;
+		this.askOpenQtys = askOpenQtys;
+		this.resizedOrderIds = resizedOrderIds;
+		this.cancelledOrderIds = cancelledOrderIds;
+	}
+
+	/**
+	 * @return the order ID for each bid level, in the order of the request; either the order already quoted at that
+	 * price, or the order ID given for the new level
+	 */
+	public List<Long> getBidOrderIds() {
+		return bidOrderIds;
+	}
+
+	/**
+	 * @see #getBidOrderIds()
+	 */
+	public List<Long> getAskOrderIds() {
+		return askOrderIds;
+	}
+
+	/**
+	 * @return the quantity left open in the book for each bid level once the quote is applied, in the order of the
+	 * request; zero for a new level filled right away
+	 */
+	public List<Double> getBidOpenQtys() {
+		return bidOpenQtys;
+	}
+
+	/**
+	 * @see #getBidOpenQtys()
+	 */
+	public List<Double> getAskOpenQtys() {
+		return askOpenQtys;
+	}
+
+	/**
+	 * @return the orders of previous quotes kept for a level, whose open quantity was changed to the quantity quoted
+	 */
+	public List<Long> getResizedOrderIds() {
+		return resizedOrderIds;
+	}
+
+	/**
+	 * @return the orders of levels no longer quoted
+	 */
+	public List<Long> getCancelledOrderIds() {
+		return cancelledOrderIds;
+	}
+}
@@ -0,0 +1,22 @@
+package alick.diginex.orderbook.response;
+
+import java.util.List;
+
+/**
+ * Outcome of an auction uncrossing: the executions, all at the uncrossing price.
+ */
+public class UncrossResponse extends SuccessResponse {
+	private final double uncrossPrice;
+
+	public UncrossResponse(final Long requestId, final Level2Summary bidSummary, final Level2Summary askSummary, final double uncrossPrice, final List<Execution> executions) {
+		super(requestId, bidSummary, askSummary, executions);
+		this.uncrossPrice = uncrossPrice;
+	}
+
+	/**
+	 * @return the price every execution of the auction is at, or {@link Double#NaN} if nothing crossed
+	 */
+	public double getUncrossPrice() {
+		return uncrossPrice;
+	}
+}
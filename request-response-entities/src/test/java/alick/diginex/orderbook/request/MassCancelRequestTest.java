@@ -0,0 +1,40 @@
+package alick.diginex.orderbook.request;
+
+import alick.diginex.entities.Side;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MassCancelRequestTest {
+	@Test
+	public void invertedPriceRangeShouldThrow() {
+		assertThrows(IllegalArgumentException.class,
+				() -> MassCancelRequest.byPriceRange(1, Side.BUY, 100, 99),
+				"min price above max price");
+	}
+
+	@Test
+	public void allOrdersAppliesToEverything() {
+		final MassCancelRequest request = MassCancelRequest.allOrders(1);
+		assertTrue(request.appliesTo(Side.BUY), "buy side");
+		assertTrue(request.appliesTo(Side.SELL), "sell side");
+		assertFalse(request.hasPriceRange(), "no price range");
+		assertTrue(request.appliesToPrice(-37.63), "any price");
+		assertTrue(request.appliesToOwner(42), "any owner");
+	}
+
+	@Test
+	public void criteriaAreApplied() {
+		final MassCancelRequest request = new MassCancelRequest(1, Side.SELL, 100, Double.NaN, 42);
+		assertFalse(request.appliesTo(Side.BUY), "buy side");
+		assertTrue(request.appliesTo(Side.SELL), "sell side");
+		assertTrue(request.hasPriceRange(), "price range");
+		assertTrue(request.appliesToPrice(100), "lower bound is inclusive");
+		assertFalse(request.appliesToPrice(99.99), "below lower bound");
+		assertTrue(request.appliesToPrice(1e9), "no upper bound");
+		assertTrue(request.appliesToOwner(42), "same owner");
+		assertFalse(request.appliesToOwner(43), "other owner");
+	}
+}
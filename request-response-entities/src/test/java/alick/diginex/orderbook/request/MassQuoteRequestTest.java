@@ -0,0 +1,44 @@
+package alick.diginex.orderbook.request;
+
+import alick.diginex.orderbook.request.MassQuoteRequest.QuoteLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MassQuoteRequestTest {
+	@Test
+	public void quoteWithoutOwnerShouldThrow() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new MassQuoteRequest(1, MassCancelRequest.ANY_OWNER, Collections.emptyList(), Collections.emptyList()),
+				"no owner");
+	}
+
+	@Test
+	public void invalidLevelShouldThrow() {
+		assertThrows(IllegalArgumentException.class, () -> new QuoteLevel(1, 100, 0), "zero quantity");
+		assertThrows(IllegalArgumentException.class, () -> new QuoteLevel(1, 0, 10), "zero price");
+	}
+
+	@Test
+	public void samePriceTwiceShouldThrow() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new MassQuoteRequest(1, 7, Arrays.asList(new QuoteLevel(2, 99, 10), new QuoteLevel(3, 99, 20)), null),
+				"bid quoted twice");
+	}
+
+	@Test
+	public void crossedLadderShouldThrow() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new MassQuoteRequest(1, 7, Arrays.asList(new QuoteLevel(2, 99, 10), new QuoteLevel(3, 100, 10)),
+						Collections.singletonList(new QuoteLevel(4, 100, 10))),
+				"ask at best bid");
+		assertDoesNotThrow(
+				() -> new MassQuoteRequest(1, 7, Collections.singletonList(new QuoteLevel(2, 99, 10)),
+						Collections.singletonList(new QuoteLevel(4, 100, 10))),
+				"ask above best bid");
+	}
+}
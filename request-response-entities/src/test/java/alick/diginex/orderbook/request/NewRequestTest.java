@@ -2,6 +2,7 @@ package alick.diginex.orderbook.request;
 
 import alick.diginex.entities.OrderType;
 import alick.diginex.entities.Side;
+import alick.diginex.entities.TimeInForce;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +33,13 @@ class NewRequestTest {
 				"null order type");
 	}
 
+	@Test
+	public void badTimeInForceShouldThrow() {
+		assertThrows(NullPointerException.class,
+				() -> new NewRequest(this.random.nextLong(), Side.BUY, OrderType.LIMIT, 10, 10, null),
+				"null time in force");
+	}
+
 	@Test
 	public void zeroQuantityShouldThrow() {
 		assertThrows(IllegalArgumentException.class,